@@ -0,0 +1,391 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsBenchmarkData.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.file.CmsUser;
+import org.opencms.flex.CmsFlexController;
+import org.opencms.relations.CmsRelationType;
+import org.opencms.staticexport.CmsLinkTable;
+import org.opencms.util.CmsResourceTranslator;
+import org.opencms.util.CmsUUID;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Generates the input data for the benchmarks.<p>
+ *
+ * All generators take a {@link Random} created with {@link #createRandom()},
+ * so every benchmark run works on exactly the same data.
+ * No running OpenCms instance is required for any of the generated objects.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+public final class CmsBenchmarkData {
+
+    /** The encoding used for all generated content. */
+    public static final String ENCODING = "UTF-8";
+
+    /** The seed used for all random generators. */
+    public static final long SEED = 7050L;
+
+    /** The site root used for all generated requests. */
+    public static final String SITE_ROOT = "/sites/default";
+
+    /** Words used to build resource names and text content. */
+    private static final String[] WORDS = {
+        "news",
+        "products",
+        "index",
+        "about us",
+        "bersicht",
+        "contact",
+        "download",
+        "Gre",
+        "images",
+        "archive",
+        "press",
+        "events"};
+
+    /**
+     * Hides the public constructor.<p>
+     */
+    private CmsBenchmarkData() {
+
+        // noop
+    }
+
+    /**
+     * Creates an OpenCms context that is not connected to a running OpenCms instance.<p>
+     *
+     * The context can be used for everything that only reads the request context,
+     * like the Flex cache keys or the link processor.<p>
+     *
+     * @param userName the name of the current user
+     * @param uri the requested URI
+     *
+     * @return the OpenCms context
+     */
+    public static CmsObject createCmsObject(String userName, String uri) {
+
+        CmsUser user = new CmsUser(
+            CmsUUID.getConstantUUID(userName),
+            userName,
+            "",
+            "",
+            "",
+            "",
+            0L,
+            0,
+            0L,
+            null);
+        CmsRequestContext context = new CmsRequestContext(
+            user,
+            new CmsProject(),
+            uri,
+            SITE_ROOT,
+            Locale.ENGLISH,
+            ENCODING,
+            "127.0.0.1",
+            System.currentTimeMillis(),
+            new CmsResourceTranslator(new String[0], false),
+            new CmsResourceTranslator(new String[0], false),
+            null);
+        return new CmsObject(null, context);
+    }
+
+    /**
+     * Creates a request that is wrapped by a Flex controller for the given OpenCms context.<p>
+     *
+     * The request is a dynamic proxy that supports attributes, parameters,
+     * the scheme and the server port, and has no session.<p>
+     *
+     * @param cms the OpenCms context
+     * @param params the request parameters, a map of String to String[]
+     *
+     * @return the request
+     */
+    public static HttpServletRequest createFlexRequest(CmsObject cms, Map params) {
+
+        final Map attributes = new HashMap();
+        final Map parameters = Collections.unmodifiableMap(new HashMap(params));
+        HttpServletRequest req = (HttpServletRequest)Proxy.newProxyInstance(
+            CmsBenchmarkData.class.getClassLoader(),
+            new Class[] {HttpServletRequest.class},
+            new InvocationHandler() {
+
+                public Object invoke(Object proxy, Method method, Object[] args) {
+
+                    String name = method.getName();
+                    if ("getAttribute".equals(name)) {
+                        return attributes.get(args[0]);
+                    } else if ("setAttribute".equals(name)) {
+                        attributes.put(args[0], args[1]);
+                    } else if ("removeAttribute".equals(name)) {
+                        attributes.remove(args[0]);
+                    } else if ("getParameterMap".equals(name)) {
+                        return parameters;
+                    } else if ("getParameter".equals(name)) {
+                        String[] values = (String[])parameters.get(args[0]);
+                        return (values != null) ? values[0] : null;
+                    } else if ("getScheme".equals(name)) {
+                        return "http";
+                    } else if ("getServerPort".equals(name)) {
+                        return new Integer(80);
+                    } else if ("hashCode".equals(name)) {
+                        return new Integer(System.identityHashCode(proxy));
+                    } else if ("equals".equals(name)) {
+                        return Boolean.valueOf(proxy == args[0]);
+                    } else if ("toString".equals(name)) {
+                        return "benchmark request";
+                    }
+                    return null;
+                }
+            });
+        CmsFlexController controller = new CmsFlexController(cms, null, null, req, null, false, true);
+        req.setAttribute(CmsFlexController.ATTRIBUTE_NAME, controller);
+        return req;
+    }
+
+    /**
+     * Creates a new random generator with the fixed seed.<p>
+     *
+     * @return a new random generator
+     */
+    public static Random createRandom() {
+
+        return new Random(SEED);
+    }
+
+    /**
+     * Generates HTML content with links in the macro form stored in the VFS,
+     * and adds the links to the given link table.<p>
+     *
+     * @param random the random generator
+     * @param linkTable the link table to add the links to
+     * @param paragraphs the number of paragraphs to generate
+     *
+     * @return the generated HTML content
+     */
+    public static String generateHtml(Random random, CmsLinkTable linkTable, int paragraphs) {
+
+        StringBuffer result = new StringBuffer(paragraphs * 256);
+        result.append("<html><body>\n");
+        for (int i = 0; i < paragraphs; i++) {
+            result.append("<h2>").append(generateText(random, 3)).append("</h2>\n<p>");
+            result.append(generateText(random, 20));
+            String name = linkTable.addLink(
+                CmsRelationType.HYPERLINK,
+                generateResourceName(random, false),
+                random.nextInt(4) > 0).getName();
+            result.append(" <a href=\"%(").append(name).append(")\">").append(generateText(random, 2)).append(
+                "</a> ");
+            if (random.nextInt(3) == 0) {
+                name = linkTable.addLink(
+                    CmsRelationType.EMBEDDED_IMAGE,
+                    generateResourceName(random, false),
+                    true).getName();
+                result.append("<img src=\"%(").append(name).append(")\" alt=\"\" />");
+            }
+            result.append(generateText(random, 10)).append("</p>\n");
+        }
+        result.append("</body></html>\n");
+        return result.toString();
+    }
+
+    /**
+     * Generates a request parameter map.<p>
+     *
+     * @param random the random generator
+     * @param count the number of parameters
+     *
+     * @return a map of String to String[]
+     */
+    public static Map generateParameters(Random random, int count) {
+
+        Map result = new HashMap();
+        for (int i = 0; i < count; i++) {
+            result.put("param" + i, new String[] {String.valueOf(random.nextInt(1000))});
+        }
+        return result;
+    }
+
+    /**
+     * Generates a VFS resource name.<p>
+     *
+     * @param random the random generator
+     * @param raw if <code>true</code>, the name may contain spaces and umlauts that require file name translation
+     *
+     * @return the generated resource name
+     */
+    public static String generateResourceName(Random random, boolean raw) {
+
+        StringBuffer result = new StringBuffer(64);
+        int depth = 1 + random.nextInt(4);
+        for (int i = 0; i < depth; i++) {
+            result.append('/').append(raw ? nextWord(random) : nextWord(random).replace(' ', '_'));
+        }
+        result.append('/').append(nextWord(random)).append('_').append(random.nextInt(100)).append(".html");
+        String name = result.toString();
+        return raw ? name : name.replace(' ', '_').replace('', 'U').replace('', 'o').replace('', 's');
+    }
+
+    /**
+     * Generates the given number of resource names.<p>
+     *
+     * @param random the random generator
+     * @param count the number of names
+     * @param raw if <code>true</code>, the names may contain spaces and umlauts that require file name translation
+     *
+     * @return the generated resource names
+     */
+    public static String[] generateResourceNames(Random random, int count, boolean raw) {
+
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = generateResourceName(random, raw);
+        }
+        return result;
+    }
+
+    /**
+     * Generates a text of the given number of words.<p>
+     *
+     * @param random the random generator
+     * @param words the number of words
+     *
+     * @return the generated text
+     */
+    public static String generateText(Random random, int words) {
+
+        StringBuffer result = new StringBuffer(words * 8);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+            result.append(nextWord(random));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Generates the given number of UUIDs from random bits.<p>
+     *
+     * @param random the random generator
+     * @param count the number of UUIDs
+     *
+     * @return the generated UUIDs
+     */
+    public static CmsUUID[] generateUUIDs(Random random, int count) {
+
+        CmsUUID[] result = new CmsUUID[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = nextUUID(random);
+        }
+        return result;
+    }
+
+    /**
+     * Generates an XML document in the layout of an OpenCms XML content.<p>
+     *
+     * @param random the random generator
+     * @param elements the number of content elements per locale
+     *
+     * @return the generated XML document
+     */
+    public static String generateXmlContent(Random random, int elements) {
+
+        StringBuffer result = new StringBuffer(elements * 256);
+        result.append("<?xml version=\"1.0\" encoding=\"").append(ENCODING).append("\"?>\n");
+        result.append("<Articles>\n");
+        String[] locales = {"en", "de"};
+        for (int l = 0; l < locales.length; l++) {
+            result.append("  <Article language=\"").append(locales[l]).append("\">\n");
+            for (int i = 0; i < elements; i++) {
+                result.append("    <Title><![CDATA[").append(generateText(random, 4)).append("]]></Title>\n");
+                result.append("    <Text name=\"Text").append(i).append("\">\n");
+                result.append("      <links>\n");
+                result.append("        <link name=\"link0\" internal=\"true\" type=\"A\">\n");
+                result.append("          <target><![CDATA[").append(generateResourceName(random, false)).append(
+                    "]]></target>\n");
+                result.append("          <uuid>").append(nextUUID(random)).append("</uuid>\n");
+                result.append("        </link>\n");
+                result.append("      </links>\n");
+                result.append("      <content><![CDATA[<p>").append(generateText(random, 30)).append(
+                    " <a href=\"%(link0)\">more</a></p>]]></content>\n");
+                result.append("    </Text>\n");
+            }
+            result.append("  </Article>\n");
+        }
+        result.append("</Articles>\n");
+        return result.toString();
+    }
+
+    /**
+     * Returns a UUID created from random bits.<p>
+     *
+     * @param random the random generator
+     *
+     * @return a UUID created from random bits
+     */
+    private static CmsUUID nextUUID(Random random) {
+
+        byte[] data = new byte[16];
+        random.nextBytes(data);
+        return new CmsUUID(data);
+    }
+
+    /**
+     * Returns a random word.<p>
+     *
+     * @param random the random generator
+     *
+     * @return a random word
+     */
+    private static String nextWord(Random random) {
+
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
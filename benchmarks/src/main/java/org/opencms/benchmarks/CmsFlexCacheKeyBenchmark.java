@@ -0,0 +1,140 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsFlexCacheKeyBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.file.CmsObject;
+import org.opencms.flex.CmsFlexCacheKey;
+import org.opencms.flex.CmsFlexRequestKey;
+import org.opencms.flex.CmsFlexVariationKey;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CmsFlexCacheKey#getVariationKey(CmsFlexRequestKey)},
+ * which is called for every cacheable element of a Flex request,
+ * and {@link CmsFlexCacheKey#matchRequestKey(CmsFlexRequestKey)}, which also builds the String form.<p>
+ *
+ * The request keys are created for generated URIs, users and request parameters
+ * and are matched against a cache key built from the given cache directives.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsFlexCacheKeyBenchmark {
+
+    /** The number of generated request keys. */
+    private static final int KEYS = 256;
+
+    /** The cache directives, as set in the "cache" property of a resource. */
+    @Param({
+        "always",
+        "uri; user",
+        "uri; locale; params=(param0,param1)",
+        "uri; no-params=(param9); schemes=(http); ports=(80)"})
+    public String directives;
+
+    /** The cache key for the directives. */
+    private CmsFlexCacheKey m_cacheKey;
+
+    /** The position in the request keys. */
+    private int m_pos;
+
+    /** The request keys. */
+    private CmsFlexRequestKey[] m_requestKeys;
+
+    /**
+     * Benchmarks matching a request key against the cache key, 
+     * including the String form of the variation.<p>
+     *
+     * @return the variation of the request in the Flex cache language
+     */
+    @Benchmark
+    public String matchRequestKey() {
+
+        m_pos = (m_pos + 1) & (KEYS - 1);
+        return m_cacheKey.matchRequestKey(m_requestKeys[m_pos]);
+    }
+
+    /**
+     * Creates the cache key and the request keys.<p>
+     */
+    @Setup
+    public void setup() {
+
+        Random random = CmsBenchmarkData.createRandom();
+        // resources below /system/ have the same root path in all sites
+        String resourceName = "/system/modules/org.opencms.benchmarks/elements/teaser.jsp";
+        m_cacheKey = new CmsFlexCacheKey(resourceName, directives, true);
+        m_requestKeys = new CmsFlexRequestKey[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            CmsObject cms = CmsBenchmarkData.createCmsObject(
+                "user" + random.nextInt(16),
+                CmsBenchmarkData.generateResourceName(random, false));
+            m_requestKeys[i] = new CmsFlexRequestKey(CmsBenchmarkData.createFlexRequest(
+                cms,
+                CmsBenchmarkData.generateParameters(random, random.nextInt(4))), resourceName, true);
+        }
+        m_pos = 0;
+    }
+
+    /**
+     * Benchmarks calculating the variation key of a request key, as done for a cache lookup.<p>
+     *
+     * @return the variation key of the request
+     */
+    @Benchmark
+    public CmsFlexVariationKey variationKey() {
+
+        m_pos = (m_pos + 1) & (KEYS - 1);
+        return m_cacheKey.getVariationKey(m_requestKeys[m_pos]);
+    }
+}
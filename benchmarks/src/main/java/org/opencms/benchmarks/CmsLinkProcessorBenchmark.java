@@ -0,0 +1,104 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsLinkProcessorBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.staticexport.CmsLinkProcessor;
+import org.opencms.staticexport.CmsLinkTable;
+
+import java.util.concurrent.TimeUnit;
+
+import org.htmlparser.util.ParserException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CmsLinkProcessor#processLinks(String)}, which replaces the link macros
+ * of the HTML stored in XML contents and pages with the real links on every delivery.<p>
+ *
+ * The processor is used without an OpenCms context, so the link targets are written unchanged
+ * and the benchmark measures the HTML parsing and the macro replacement.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsLinkProcessorBenchmark {
+
+    /** The number of paragraphs of the generated HTML. */
+    @Param({"5", "50"})
+    public int paragraphs;
+
+    /** The generated HTML. */
+    private String m_content;
+
+    /** The link table for the generated HTML. */
+    private CmsLinkTable m_linkTable;
+
+    /**
+     * Benchmarks processing the links of the generated HTML.<p>
+     *
+     * @return the processed HTML
+     *
+     * @throws ParserException if something goes wrong
+     */
+    @Benchmark
+    public String processLinks() throws ParserException {
+
+        CmsLinkProcessor processor = new CmsLinkProcessor(null, m_linkTable, CmsBenchmarkData.ENCODING, null);
+        return processor.processLinks(m_content);
+    }
+
+    /**
+     * Generates the HTML and the link table.<p>
+     */
+    @Setup
+    public void setup() {
+
+        m_linkTable = new CmsLinkTable();
+        m_content = CmsBenchmarkData.generateHtml(CmsBenchmarkData.createRandom(), m_linkTable, paragraphs);
+    }
+}
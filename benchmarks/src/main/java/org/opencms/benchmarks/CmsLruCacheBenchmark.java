@@ -0,0 +1,269 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsLruCacheBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.cache.CmsLruCache;
+import org.opencms.cache.I_CmsLruCacheObject;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks adding, touching, accessing and removing objects of a {@link CmsLruCache}.<p>
+ *
+ * The cache used for {@link #add()} only holds half of the generated objects,
+ * so most of the adds also evict the least recently used objects.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsLruCacheBenchmark {
+
+    /**
+     * A cache object with random costs.<p>
+     */
+    static class CmsBenchmarkLruObject implements I_CmsLruCacheObject {
+
+        /** The costs of this object. */
+        private final int m_costs;
+
+        /** The next object in the cache list. */
+        private I_CmsLruCacheObject m_next;
+
+        /** The previous object in the cache list. */
+        private I_CmsLruCacheObject m_previous;
+
+        /**
+         * Creates a new cache object.<p>
+         *
+         * @param costs the costs of the object
+         */
+        CmsBenchmarkLruObject(int costs) {
+
+            m_costs = costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#addToLruCache()
+         */
+        public void addToLruCache() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getLruCacheCosts()
+         */
+        public int getLruCacheCosts() {
+
+            return m_costs;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getNextLruObject()
+         */
+        public I_CmsLruCacheObject getNextLruObject() {
+
+            return m_next;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getPreviousLruObject()
+         */
+        public I_CmsLruCacheObject getPreviousLruObject() {
+
+            return m_previous;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#getValue()
+         */
+        public Object getValue() {
+
+            return this;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#removeFromLruCache()
+         */
+        public void removeFromLruCache() {
+
+            // noop
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setNextLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setNextLruObject(I_CmsLruCacheObject theNextObject) {
+
+            m_next = theNextObject;
+        }
+
+        /**
+         * @see org.opencms.cache.I_CmsLruCacheObject#setPreviousLruObject(org.opencms.cache.I_CmsLruCacheObject)
+         */
+        public void setPreviousLruObject(I_CmsLruCacheObject thePreviousObject) {
+
+            m_previous = thePreviousObject;
+        }
+    }
+
+    /** The number of generated cache objects. */
+    @Param({"1000", "100000"})
+    public int size;
+
+    /** The cache that holds all objects. */
+    private CmsLruCache m_fullCache;
+
+    /** The cache that holds only half of the objects. */
+    private CmsLruCache m_halfCache;
+
+    /** The objects of the cache that holds only half of the objects. */
+    private I_CmsLruCacheObject[] m_halfObjects;
+
+    /** The objects of the cache that holds all objects. */
+    private I_CmsLruCacheObject[] m_objects;
+
+    /** The position in the access sequence. */
+    private int m_pos;
+
+    /** The access sequence, indexes into the cache objects. */
+    private int[] m_sequence;
+
+    /**
+     * Benchmarks recording the access of a cached object, as done for every cache hit.<p>
+     */
+    @Benchmark
+    public void access() {
+
+        m_fullCache.access(m_objects[next()]);
+    }
+
+    /**
+     * Benchmarks adding an object to a full cache.<p>
+     *
+     * @return the result of the add operation
+     */
+    @Benchmark
+    public boolean add() {
+
+        return m_halfCache.add(m_halfObjects[next()]);
+    }
+
+    /**
+     * Benchmarks removing an object and adding it again.<p>
+     *
+     * @return the result of the add operation
+     */
+    @Benchmark
+    public boolean removeAndAdd() {
+
+        I_CmsLruCacheObject obj = m_objects[next()];
+        m_fullCache.remove(obj);
+        return m_fullCache.add(obj);
+    }
+
+    /**
+     * Creates the cache objects and fills the caches.<p>
+     */
+    @Setup
+    public void setup() {
+
+        Random random = CmsBenchmarkData.createRandom();
+        m_objects = new I_CmsLruCacheObject[size];
+        int totalCosts = 0;
+        for (int i = 0; i < size; i++) {
+            int costs = 1 + random.nextInt(20);
+            m_objects[i] = new CmsBenchmarkLruObject(costs);
+            totalCosts += costs;
+        }
+        m_sequence = new int[1024];
+        for (int i = 0; i < m_sequence.length; i++) {
+            m_sequence[i] = random.nextInt(size);
+        }
+        m_fullCache = new CmsLruCache(totalCosts, totalCosts / 2, -1);
+        for (int i = 0; i < size; i++) {
+            m_fullCache.add(m_objects[i]);
+        }
+        // the second cache needs its own objects since the objects store the list pointers
+        m_halfObjects = new I_CmsLruCacheObject[size];
+        for (int i = 0; i < size; i++) {
+            m_halfObjects[i] = new CmsBenchmarkLruObject(m_objects[i].getLruCacheCosts());
+        }
+        m_halfCache = new CmsLruCache(totalCosts / 2, totalCosts / 4, -1);
+        for (int i = 0; i < size; i++) {
+            m_halfCache.add(m_halfObjects[i]);
+        }
+        m_pos = 0;
+    }
+
+    /**
+     * Benchmarks touching a cached object.<p>
+     *
+     * @return the result of the touch operation
+     */
+    @Benchmark
+    public boolean touch() {
+
+        return m_fullCache.touch(m_objects[next()]);
+    }
+
+    /**
+     * Returns the next object index of the access sequence.<p>
+     *
+     * @return the next object index of the access sequence
+     */
+    private int next() {
+
+        m_pos = (m_pos + 1) & (m_sequence.length - 1);
+        return m_sequence[m_pos];
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsPermissionBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.db.CmsPermissionCacheKey;
+import org.opencms.file.CmsGroup;
+import org.opencms.file.CmsUser;
+import org.opencms.security.CmsAccessControlEntry;
+import org.opencms.security.CmsAccessControlList;
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.security.CmsPermissionSetCustom;
+import org.opencms.util.CmsUUID;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the parts of a permission check that run without database access.<p>
+ *
+ * <code>CmsDefaultPermissionHandler.hasPermissions</code> needs a driver manager and the
+ * security manager of a running OpenCms instance. A permission check that is answered from the
+ * permission cache consists of building the cache key and the map lookup, a cache miss additionally
+ * evaluates the access control list of the resource. These steps are measured here:<p>
+ *
+ * <ul>
+ * <li>{@link #lookupKeyObject()} uses the {@link CmsPermissionCacheKey} of the current code.</li>
+ * <li>{@link #lookupKeyString()} builds the String key that was used before, for comparison.</li>
+ * <li>{@link #evaluateAcl()} calculates the permissions of a user with groups from an access control list.</li>
+ * </ul>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsPermissionBenchmark {
+
+    /** The number of generated resources, users and access control lists. */
+    private static final int COUNT = 1024;
+
+    /** The prefix used for the permission cache keys. */
+    private static final String PREFIX = "sysadmin";
+
+    /** The access control lists. */
+    private CmsAccessControlList[] m_acls;
+
+    /** The permission cache with key objects. */
+    private Map m_cacheObjects;
+
+    /** The permission cache with String keys. */
+    private Map m_cacheStrings;
+
+    /** The groups of the users. */
+    private List[] m_groups;
+
+    /** The position in the generated data. */
+    private int m_pos;
+
+    /** The structure ids of the resources. */
+    private CmsUUID[] m_structureIds;
+
+    /** The users. */
+    private CmsUser[] m_users;
+
+    /**
+     * Benchmarks the evaluation of an access control list.<p>
+     *
+     * @return the permissions of the user
+     */
+    @Benchmark
+    public CmsPermissionSetCustom evaluateAcl() {
+
+        int pos = next();
+        return m_acls[pos].getPermissions(m_users[pos], m_groups[pos], null);
+    }
+
+    /**
+     * Benchmarks a permission cache lookup with a key object.<p>
+     *
+     * @return the cached permissions
+     */
+    @Benchmark
+    public Object lookupKeyObject() {
+
+        int pos = next();
+        return m_cacheObjects.get(getKeyObject(m_users[pos], m_structureIds[pos]));
+    }
+
+    /**
+     * Benchmarks a permission cache lookup with a String key.<p>
+     *
+     * @return the cached permissions
+     */
+    @Benchmark
+    public Object lookupKeyString() {
+
+        int pos = next();
+        return m_cacheStrings.get(getKeyString(m_users[pos], m_structureIds[pos]));
+    }
+
+    /**
+     * Generates the users, groups, resources and access control lists and fills the caches.<p>
+     */
+    @Setup
+    public void setup() {
+
+        Random random = CmsBenchmarkData.createRandom();
+        CmsUUID[] ids = CmsBenchmarkData.generateUUIDs(random, COUNT * 2);
+        CmsGroup[] allGroups = new CmsGroup[16];
+        for (int i = 0; i < allGroups.length; i++) {
+            allGroups[i] = new CmsGroup(
+                CmsUUID.getConstantUUID("group" + i),
+                CmsUUID.getNullUUID(),
+                "group" + i,
+                "",
+                0);
+        }
+        m_users = new CmsUser[COUNT];
+        m_groups = new List[COUNT];
+        m_structureIds = new CmsUUID[COUNT];
+        m_acls = new CmsAccessControlList[COUNT];
+        m_cacheObjects = new HashMap();
+        m_cacheStrings = new HashMap();
+        for (int i = 0; i < COUNT; i++) {
+            m_users[i] = new CmsUser(ids[i], "user" + i, "", "", "", "", 0L, 0, 0L, null);
+            m_structureIds[i] = ids[COUNT + i];
+            m_groups[i] = new ArrayList();
+            int groups = 1 + random.nextInt(4);
+            for (int j = 0; j < groups; j++) {
+                m_groups[i].add(allGroups[random.nextInt(allGroups.length)]);
+            }
+            m_acls[i] = new CmsAccessControlList();
+            int entries = 1 + random.nextInt(6);
+            for (int j = 0; j < entries; j++) {
+                m_acls[i].add(new CmsAccessControlEntry(
+                    m_structureIds[i],
+                    allGroups[random.nextInt(allGroups.length)].getId(),
+                    random.nextInt(64),
+                    0,
+                    0));
+            }
+            CmsPermissionSetCustom permissions = m_acls[i].getPermissions(m_users[i], m_groups[i], null);
+            m_cacheObjects.put(getKeyObject(m_users[i], m_structureIds[i]), permissions);
+            m_cacheStrings.put(getKeyString(m_users[i], m_structureIds[i]), permissions);
+        }
+        m_pos = 0;
+    }
+
+    /**
+     * Returns the permission cache key object as built by <code>CmsCacheKey</code>.<p>
+     *
+     * @param user the user
+     * @param structureId the structure id of the resource
+     *
+     * @return the permission cache key object
+     */
+    private Object getKeyObject(CmsUser user, CmsUUID structureId) {
+
+        return new CmsPermissionCacheKey(PREFIX, user.getId(), true, CmsPermissionSet.ACCESS_READ, structureId);
+    }
+
+    /**
+     * Returns the permission cache key as String, as it was built before the key objects were introduced.<p>
+     *
+     * @param user the user
+     * @param structureId the structure id of the resource
+     *
+     * @return the permission cache key String
+     */
+    private Object getKeyString(CmsUser user, CmsUUID structureId) {
+
+        StringBuffer cacheBuffer = new StringBuffer(64);
+        cacheBuffer.append(PREFIX);
+        cacheBuffer.append('_');
+        cacheBuffer.append(user.getName());
+        cacheBuffer.append("_0_");
+        cacheBuffer.append(CmsPermissionSet.ACCESS_READ.getPermissionString());
+        cacheBuffer.append('_');
+        cacheBuffer.append(structureId.toString());
+        return cacheBuffer.toString();
+    }
+
+    /**
+     * Returns the next position in the generated data.<p>
+     *
+     * @return the next position in the generated data
+     */
+    private int next() {
+
+        m_pos = (m_pos + 1) & (COUNT - 1);
+        return m_pos;
+    }
+}
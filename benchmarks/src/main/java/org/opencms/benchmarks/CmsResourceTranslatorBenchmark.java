@@ -0,0 +1,156 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsResourceTranslatorBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.util.CmsResourceTranslator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link CmsResourceTranslator#translateResource(String)} with the default
+ * file name translations and the OpenCms 5.0 folder translations.<p>
+ *
+ * The folder translator is applied to every resource name that is read from the VFS
+ * if folder translation is enabled.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsResourceTranslatorBenchmark {
+
+    /** The default file name translations of <code>opencms-vfs.xml</code>. */
+    private static final String[] FILE_TRANSLATIONS = {
+        "s#[\\s]+#_#g",
+        "s#\\\\#/#g",
+        "s##ae#g",
+        "s##Ae#g",
+        "s##oe#g",
+        "s##Oe#g",
+        "s##ue#g",
+        "s##Ue#g",
+        "s##ss#g",
+        "s#[^0-9a-zA-Z_$~\\.\\-\\/]#!#g",
+        "s#!+#x#g"};
+
+    /** The folder translations to convert an OpenCms 5.0 VFS. */
+    private static final String[] FOLDER_TRANSLATIONS = {
+        "s#/content/bodys/(.*)#/system/bodies/$1#",
+        "s#/pics/system/(.*)#/system/workplace/resources/$1#",
+        "s#/pics/(.*)#/system/galleries/pics/$1#",
+        "s#/download/(.*)#/system/galleries/download/$1#",
+        "s#/externallinks/(.*)#/system/galleries/externallinks/$1#",
+        "s#/htmlgalleries/(.*)#/system/galleries/htmlgalleries/$1#",
+        "s#/content/(.*)#/system/$1#"};
+
+    /** The number of generated resource names. */
+    private static final int NAMES = 1024;
+
+    /** The file name translator. */
+    private CmsResourceTranslator m_fileTranslator;
+
+    /** The folder translator. */
+    private CmsResourceTranslator m_folderTranslator;
+
+    /** The generated resource names. */
+    private String[] m_names;
+
+    /** The position in the generated resource names. */
+    private int m_pos;
+
+    /**
+     * Generates the resource names and creates the translators.<p>
+     */
+    @Setup
+    public void setup() {
+
+        m_names = CmsBenchmarkData.generateResourceNames(CmsBenchmarkData.createRandom(), NAMES, true);
+        // every fourth name is in a folder that is translated by the folder translations
+        String[] folders = {"/content", "/pics", "/download", "/content/bodys"};
+        for (int i = 0; i < NAMES; i += 4) {
+            m_names[i] = folders[(i / 4) % folders.length] + m_names[i];
+        }
+        m_fileTranslator = new CmsResourceTranslator(FILE_TRANSLATIONS, true);
+        m_folderTranslator = new CmsResourceTranslator(FOLDER_TRANSLATIONS, false);
+        m_pos = 0;
+    }
+
+    /**
+     * Benchmarks translating a file name.<p>
+     *
+     * @return the translated name
+     */
+    @Benchmark
+    public String translateFileName() {
+
+        return m_fileTranslator.translateResource(next());
+    }
+
+    /**
+     * Benchmarks translating a folder name.<p>
+     *
+     * @return the translated name
+     */
+    @Benchmark
+    public String translateFolderName() {
+
+        return m_folderTranslator.translateResource(next());
+    }
+
+    /**
+     * Returns the next generated resource name.<p>
+     *
+     * @return the next generated resource name
+     */
+    private String next() {
+
+        m_pos = (m_pos + 1) & (NAMES - 1);
+        return m_names[m_pos];
+    }
+}
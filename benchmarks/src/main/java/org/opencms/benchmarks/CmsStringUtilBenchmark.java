@@ -0,0 +1,134 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsStringUtilBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.staticexport.CmsLinkTable;
+import org.opencms.util.CmsStringUtil;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link CmsStringUtil} helpers that are used on every request.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsStringUtilBenchmark {
+
+    /** The generated HTML page. */
+    private String m_html;
+
+    /** The generated resource name. */
+    private String m_resourceName;
+
+    /** The generated text. */
+    private String m_text;
+
+    /**
+     * Benchmarks escaping a text for HTML.<p>
+     *
+     * @return the escaped text
+     */
+    @Benchmark
+    public String escapeHtml() {
+
+        return CmsStringUtil.escapeHtml(m_text);
+    }
+
+    /**
+     * Benchmarks extracting the body of a HTML page.<p>
+     *
+     * @return the body
+     */
+    @Benchmark
+    public String extractHtmlBody() {
+
+        return CmsStringUtil.extractHtmlBody(m_html);
+    }
+
+    /**
+     * Generates the input data.<p>
+     */
+    @Setup
+    public void setup() {
+
+        Random random = CmsBenchmarkData.createRandom();
+        m_text = CmsBenchmarkData.generateText(random, 100)
+            + " <b>&amp;</b> \""
+            + CmsBenchmarkData.generateText(random, 10)
+            + "\"";
+        m_html = CmsBenchmarkData.generateHtml(random, new CmsLinkTable(), 10);
+        m_resourceName = CmsBenchmarkData.generateResourceName(random, false);
+    }
+
+    /**
+     * Benchmarks splitting a resource name into its path elements.<p>
+     *
+     * @return the path elements
+     */
+    @Benchmark
+    public List splitAsList() {
+
+        return CmsStringUtil.splitAsList(m_resourceName, '/');
+    }
+
+    /**
+     * Benchmarks substituting a String in a HTML page.<p>
+     *
+     * @return the HTML page with the substitutions
+     */
+    @Benchmark
+    public String substitute() {
+
+        return CmsStringUtil.substitute(m_html, "</p>", "</p>\n");
+    }
+}
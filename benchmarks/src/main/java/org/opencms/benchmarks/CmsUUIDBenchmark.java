@@ -0,0 +1,188 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsUUIDBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.util.CmsUUID;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.safehaus.uuid.UUID;
+
+/**
+ * Benchmarks {@link CmsUUID} against the JUG {@link UUID} it used to wrap.<p>
+ *
+ * Both implementations are measured for parsing, formatting and
+ * map lookups with UUIDs parsed from Strings, as done for every resource read from the database.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsUUIDBenchmark {
+
+    /** The number of generated UUIDs. */
+    private static final int COUNT = 1024;
+
+    /** Map with the JUG UUIDs as keys. */
+    private Map m_jugMap;
+
+    /** The JUG UUIDs. */
+    private UUID[] m_jugUuids;
+
+    /** Map with the OpenCms UUIDs as keys. */
+    private Map m_map;
+
+    /** The position in the generated UUIDs. */
+    private int m_pos;
+
+    /** The String representations of the UUIDs. */
+    private String[] m_strings;
+
+    /** The OpenCms UUIDs. */
+    private CmsUUID[] m_uuids;
+
+    /**
+     * Benchmarks parsing a String and looking up the OpenCms UUID in a map.<p>
+     *
+     * @return the value found in the map
+     */
+    @Benchmark
+    public Object lookup() {
+
+        return m_map.get(new CmsUUID(m_strings[next()]));
+    }
+
+    /**
+     * Benchmarks parsing a String and looking up the JUG UUID in a map.<p>
+     *
+     * @return the value found in the map
+     */
+    @Benchmark
+    public Object lookupJug() {
+
+        return m_jugMap.get(new UUID(m_strings[next()]));
+    }
+
+    /**
+     * Benchmarks parsing an OpenCms UUID.<p>
+     *
+     * @return the parsed UUID
+     */
+    @Benchmark
+    public CmsUUID parse() {
+
+        return new CmsUUID(m_strings[next()]);
+    }
+
+    /**
+     * Benchmarks parsing a JUG UUID.<p>
+     *
+     * @return the parsed UUID
+     */
+    @Benchmark
+    public UUID parseJug() {
+
+        return new UUID(m_strings[next()]);
+    }
+
+    /**
+     * Generates the UUIDs and fills the maps.<p>
+     */
+    @Setup
+    public void setup() {
+
+        m_uuids = CmsBenchmarkData.generateUUIDs(CmsBenchmarkData.createRandom(), COUNT);
+        m_jugUuids = new UUID[COUNT];
+        m_strings = new String[COUNT];
+        m_map = new HashMap();
+        m_jugMap = new HashMap();
+        for (int i = 0; i < COUNT; i++) {
+            m_strings[i] = m_uuids[i].toString();
+            m_jugUuids[i] = new UUID(m_uuids[i].toByteArray());
+            m_map.put(m_uuids[i], m_strings[i]);
+            m_jugMap.put(m_jugUuids[i], m_strings[i]);
+        }
+        m_pos = 0;
+    }
+
+    /**
+     * Benchmarks formatting an OpenCms UUID that has not been formatted before.<p>
+     *
+     * @return the String representation
+     */
+    @Benchmark
+    public String toStringFresh() {
+
+        // a copy is used since the String representation is cached
+        return new CmsUUID(m_uuids[next()].toByteArray()).toString();
+    }
+
+    /**
+     * Benchmarks formatting a JUG UUID that has not been formatted before.<p>
+     *
+     * @return the String representation
+     */
+    @Benchmark
+    public String toStringFreshJug() {
+
+        return new UUID(m_jugUuids[next()].toByteArray()).toString();
+    }
+
+    /**
+     * Returns the next position in the generated UUIDs.<p>
+     *
+     * @return the next position in the generated UUIDs
+     */
+    private int next() {
+
+        m_pos = (m_pos + 1) & (COUNT - 1);
+        return m_pos;
+    }
+}
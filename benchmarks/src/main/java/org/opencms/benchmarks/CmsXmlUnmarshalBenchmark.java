@@ -0,0 +1,134 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/benchmarks/CmsXmlUnmarshalBenchmark.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.benchmarks;
+
+import org.opencms.xml.CmsXmlException;
+import org.opencms.xml.CmsXmlUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.dom4j.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks unmarshalling and marshalling XML content documents.<p>
+ *
+ * <code>CmsXmlContentFactory.unmarshal</code> needs the content definition of the resource type,
+ * which is only available in a running OpenCms instance. This benchmark measures
+ * {@link CmsXmlUtils#unmarshalHelper(byte[], org.xml.sax.EntityResolver)} instead, which does
+ * the parsing for the factory and accounts for most of its time.
+ * The generated documents reference no schema, so no entity resolver is required.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g", "-XX:+UseParallelGC"})
+public class CmsXmlUnmarshalBenchmark {
+
+    /** The number of content elements per locale. */
+    @Param({"5", "50"})
+    public int elements;
+
+    /** The parsed document. */
+    private Document m_document;
+
+    /** The generated XML. */
+    private byte[] m_xml;
+
+    /**
+     * Benchmarks marshalling the parsed document.<p>
+     *
+     * @return the marshalled XML
+     *
+     * @throws CmsXmlException if something goes wrong
+     */
+    @Benchmark
+    public String marshal() throws CmsXmlException {
+
+        return CmsXmlUtils.marshal(m_document, CmsBenchmarkData.ENCODING);
+    }
+
+    /**
+     * Generates the XML and parses it once.<p>
+     *
+     * @throws Exception if something goes wrong
+     */
+    @Setup
+    public void setup() throws Exception {
+
+        m_xml = getXml();
+        m_document = CmsXmlUtils.unmarshalHelper(m_xml, null);
+    }
+
+    /**
+     * Benchmarks unmarshalling the generated XML.<p>
+     *
+     * @return the parsed document
+     *
+     * @throws CmsXmlException if something goes wrong
+     */
+    @Benchmark
+    public Document unmarshal() throws CmsXmlException {
+
+        return CmsXmlUtils.unmarshalHelper(m_xml, null);
+    }
+
+    /**
+     * Returns the generated XML as bytes.<p>
+     *
+     * @return the generated XML as bytes
+     *
+     * @throws UnsupportedEncodingException if the encoding is not supported
+     */
+    private byte[] getXml() throws UnsupportedEncodingException {
+
+        return CmsBenchmarkData.generateXmlContent(CmsBenchmarkData.createRandom(), elements).getBytes(
+            CmsBenchmarkData.ENCODING);
+    }
+}
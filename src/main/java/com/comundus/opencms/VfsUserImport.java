@@ -4,9 +4,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 import org.apache.commons.codec.binary.Base64;
@@ -24,6 +26,7 @@ import org.opencms.main.CmsException;
 import org.opencms.main.OpenCms;
 import org.opencms.report.CmsShellReport;
 import org.opencms.report.I_CmsReport;
+import org.opencms.security.CmsOrganizationalUnit;
 import org.opencms.security.CmsRole;
 import org.opencms.security.I_CmsPasswordHandler;
 import org.opencms.util.CmsDataTypeUtil;
@@ -39,9 +42,35 @@ import org.opencms.xml.CmsXmlUtils;
 
 //(C) comundus GmbH, D-71332 WAIBLINGEN, www.comundus.com
 public class VfsUserImport extends XmlHandling {
+    /** Number of new users written to the database in one transaction. */
+    private static final int USER_CHUNK_SIZE = 500;
+
     /** Groups to create during import are stored here. */
     private Stack groupsToCreate;
 
+    /** Names of the users already existing in OpenCms. */
+    private Set existingUsers;
+
+    /** Resolved group memberships, group name to ImportGroup (null if the group can not be read). */
+    private Map importGroups;
+
+    /** New users waiting to be written in the current chunk. */
+    private List chunkUsers;
+
+    /** Group names of the new users in the current chunk, user id to List of group names. */
+    private Map chunkUserGroups;
+
+    /**
+     * Group or role memberships implied by a group name of the import file.
+     */
+    private static final class ImportGroup {
+        /** True if users are added to the group itself, false for roles. */
+        private boolean isGroup;
+
+        /** The roles (CmsRole) the user gets by this group or its parent groups. */
+        private List roles = new ArrayList();
+    }
+
     /**
      * Imports user/group-data from the given sources folder to OpenCms. Already
      * existing users/groups are skipped.
@@ -328,13 +357,28 @@ public class VfsUserImport extends XmlHandling {
     /**
      * Imports the OpenCms users.
      *
+     * Already existing users are updated one by one, new users are written
+     * in chunks of USER_CHUNK_SIZE users with one transaction per chunk.
+     *
      * @throws IOException if extra info data cannot ber parsed
      * @throws ClassNotFoundException if a type for extra infos is not found
+     * @throws CmsException if the existing users cannot be read
      *
      */
 
     // code taken from org.opencms.importexport.CmsImportVersion6
-    private void importUsers() throws IOException, ClassNotFoundException {
+    private void importUsers()
+        throws IOException, ClassNotFoundException, CmsException {
+        // read all existing users at once instead of trying to read every user
+        this.existingUsers = new HashSet();
+        final Iterator itExisting = OpenCms.getOrgUnitManager()
+                                           .getUsers(getCms(), "", true)
+                                           .iterator();
+
+        while (itExisting.hasNext()) {
+            this.existingUsers.add(((CmsUser) itExisting.next()).getName());
+        }
+
         // getAll user nodes
         final List userNodes = getDocXml()
                                    .selectNodes("//" +
@@ -394,9 +438,181 @@ public class VfsUserImport extends XmlHandling {
             }
 
             // import this user
-            importUser5(name, flags, password, firstname, lastname, email,
-                dateCreated, userInfo, userGroups);
+            final String fqn = CmsOrganizationalUnit.removeLeadingSeparator(name);
+
+            if (this.existingUsers.contains(fqn)) {
+                // make sure a user created in the current chunk is written before
+                if (this.chunkUserGroups.containsKey(fqn)) {
+                    this.flushUserChunk();
+                }
+
+                importUser5(name, flags, password, firstname, lastname,
+                    email, dateCreated, userInfo, userGroups);
+            } else {
+                this.existingUsers.add(fqn);
+                this.chunkUsers.add(new CmsUser(new CmsUUID(), name,
+                        this.convertPassword(password), firstname, lastname,
+                        email, 0, Integer.parseInt(flags), dateCreated,
+                        userInfo));
+                this.chunkUserGroups.put(fqn, userGroups);
+
+                if (this.chunkUsers.size() >= USER_CHUNK_SIZE) {
+                    this.flushUserChunk();
+                }
+            }
+        }
+
+        this.flushUserChunk();
+    }
+
+    /**
+     * Writes the new users of the current chunk in one transaction and
+     * assigns the roles of the users afterwards.
+     *
+     * If the chunk cannot be written, every user of the chunk is imported
+     * separately, so that only the erroneous users are skipped.
+     */
+    private void flushUserChunk() {
+        if (this.chunkUsers.isEmpty()) {
+            return;
+        }
+
+        // resolve the group memberships
+        final Map groupNames = new HashMap();
+        Iterator itUsers = this.chunkUsers.iterator();
+
+        while (itUsers.hasNext()) {
+            final CmsUser user = (CmsUser) itUsers.next();
+            final List userGroups = (List) this.chunkUserGroups.get(CmsOrganizationalUnit.removeLeadingSeparator(
+                        user.getName()));
+            final List names = new ArrayList();
+
+            for (int i = 0; i < userGroups.size(); i++) {
+                final ImportGroup group = this.readImportGroup((String) userGroups.get(
+                            i));
+
+                if ((group != null) && group.isGroup) {
+                    names.add(userGroups.get(i));
+                }
+            }
+
+            groupNames.put(user.getId(), names);
+        }
+
+        boolean imported = true;
+
+        try {
+            getCms().importUsers(this.chunkUsers, groupNames);
+        } catch (final CmsException exc) {
+            imported = false;
+        }
+
+        itUsers = this.chunkUsers.iterator();
+
+        while (itUsers.hasNext()) {
+            final CmsUser user = (CmsUser) itUsers.next();
+            final String name = user.getName();
+            final List userGroups = (List) this.chunkUserGroups.get(CmsOrganizationalUnit.removeLeadingSeparator(
+                        name));
+
+            if (!imported) {
+                // the password is already converted here
+                importUser(name, String.valueOf(user.getFlags()),
+                    user.getPassword(), user.getFirstname(),
+                    user.getLastname(), user.getEmail(),
+                    user.getDateCreated(), user.getAdditionalInfo(), userGroups);
+
+                continue;
+            }
+
+            getReport()
+                .print(Messages.get().container(Messages.RPT_IMPORT_USER_0),
+                I_CmsReport.FORMAT_NOTE);
+            getReport()
+                .print(org.opencms.report.Messages.get()
+                                                  .container(org.opencms.report.Messages.RPT_ARGUMENT_1,
+                    name));
+            getReport()
+                .print(org.opencms.report.Messages.get()
+                                                  .container(org.opencms.report.Messages.RPT_DOTS_0));
+
+            for (int i = 0; i < userGroups.size(); i++) {
+                final String groupName = (String) userGroups.get(i);
+                final ImportGroup group = this.readImportGroup(groupName);
+                boolean added = group != null;
+
+                try {
+                    for (int j = 0; added && (j < group.roles.size()); j++) {
+                        OpenCms.getRoleManager()
+                               .addUserToRole(getCms(),
+                            (CmsRole) group.roles.get(j), name);
+                    }
+                } catch (final CmsException exc) {
+                    added = false;
+                }
+
+                if (!added) {
+                    getReport()
+                        .println(Messages.get()
+                                         .container(Messages.RPT_USER_COULDNT_BE_ADDED_TO_GROUP_2,
+                            name, groupName), I_CmsReport.FORMAT_WARNING);
+                }
+            }
+
+            getReport()
+                .println(org.opencms.report.Messages.get()
+                                                    .container(org.opencms.report.Messages.RPT_OK_0),
+                I_CmsReport.FORMAT_OK);
         }
+
+        this.chunkUsers = new ArrayList();
+        this.chunkUserGroups = new HashMap();
+    }
+
+    /**
+     * Reads the group with the given name and the roles implied by it or by
+     * one of its parent groups, the result is cached for the whole import.
+     *
+     * @param groupName the name of the group
+     * @return the group information, or null if the group cannot be read
+     */
+    private ImportGroup readImportGroup(final String groupName) {
+        if (this.importGroups.containsKey(groupName)) {
+            return (ImportGroup) this.importGroups.get(groupName);
+        }
+
+        ImportGroup importGroup = new ImportGroup();
+
+        try {
+            CmsGroup group = getCms().readGroup(groupName);
+
+            if (group.isVirtual() || group.isRole()) {
+                importGroup.roles.add(CmsRole.valueOf(group));
+            } else {
+                importGroup.isGroup = true;
+            }
+
+            // parent group checking for roles ADDED BY COMUNDUS
+            String parentName = groupName;
+            CmsGroup parentGroup = this.getCms().getParent(parentName);
+
+            while (parentGroup != null) {
+                group = parentGroup;
+                parentName = group.getName();
+
+                if (group.isVirtual() || group.isRole()) {
+                    importGroup.roles.add(CmsRole.valueOf(group));
+                }
+
+                parentGroup = this.getCms().getParent(parentName);
+            }
+        } catch (final CmsException exc) {
+            importGroup = null;
+        }
+
+        this.importGroups.put(groupName, importGroup);
+
+        return importGroup;
     }
 
     /**
@@ -406,9 +622,23 @@ public class VfsUserImport extends XmlHandling {
 
     // code taken from CmsImportVersion5
     protected void importUser5(final String name, final String flags,
-        String password, final String firstname, final String lastname,
+        final String password, final String firstname, final String lastname,
         final String email, final long dateCreated, final Map userInfo,
         final List userGroups) {
+        importUser(name, flags, this.convertPassword(password), firstname,
+            lastname, email, dateCreated, userInfo, userGroups);
+    }
+
+    /**
+     * Converts the given password digest if configured for the password
+     * handler.
+     *
+     * @param password the password digest from the import file
+     * @return the password digest to store
+     */
+
+    // code taken from CmsImportVersion5
+    private String convertPassword(final String password) {
         boolean convert = false;
 
         final Map config = OpenCms.getPasswordHandler().getConfiguration();
@@ -421,11 +651,10 @@ public class VfsUserImport extends XmlHandling {
         }
 
         if (convert) {
-            password = convertDigestEncoding(password);
+            return convertDigestEncoding(password);
         }
 
-        importUser(name, flags, password, firstname, lastname, email,
-            dateCreated, userInfo, userGroups);
+        return password;
     }
 
     /**
@@ -459,5 +688,8 @@ public class VfsUserImport extends XmlHandling {
     // code taken from org.opencms.importexport.A_CmsImport
     private void initialize() {
         this.groupsToCreate = new Stack();
+        this.importGroups = new HashMap();
+        this.chunkUsers = new ArrayList();
+        this.chunkUserGroups = new HashMap();
     }
 }
@@ -33,6 +33,10 @@ package org.opencms.cache;
 
 import org.opencms.main.CmsLog;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
 import org.apache.commons.logging.Log;
 
 /**
@@ -51,6 +55,13 @@ import org.apache.commons.logging.Log;
  * To add/remove cached objects from the data structure that stores them, the objects have to
  * implement the methods defined in the interface I_CmsLruCacheObject to be notified when they
  * are added/removed from the CmsFlexLruCache.<p>
+ * 
+ * All changes of the list are done while holding a lock. Reading a cached object only needs to
+ * be recorded with {@link #access(I_CmsLruCacheObject)}, which does not wait for the lock: 
+ * The access is written to a small buffer of the current thread's stripe, and the buffered accesses 
+ * are applied to the list when the lock is free, or at the latest before objects are evicted. 
+ * If the buffer is full before it could be applied, the oldest recorded accesses are dropped, 
+ * so under heavy load the order of the list is an approximation.<p>
  *
  * @see org.opencms.cache.I_CmsLruCacheObject
  * 
@@ -62,9 +73,21 @@ import org.apache.commons.logging.Log;
  */
 public class CmsLruCache extends java.lang.Object {
 
+    /** The number of accesses buffered per stripe, must be a power of 2. */
+    private static final int ACCESS_BUFFER_SIZE = 32;
+
+    /** The max. number of access buffer stripes. */
+    private static final int ACCESS_BUFFER_STRIPES = 16;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsLruCache.class);
 
+    /** The recorded accesses of all stripes. */
+    private AtomicReferenceArray m_accessBuffer;
+
+    /** The access counters of the stripes. */
+    private AtomicInteger[] m_accessCounters;
+
     /** The avg. sum of costs the cached objects. */
     private int m_avgCacheCosts;
 
@@ -74,6 +97,9 @@ public class CmsLruCache extends java.lang.Object {
     /** The tail of the list of double linked LRU cache objects. */
     private I_CmsLruCacheObject m_listTail;
 
+    /** The lock that protects the list. */
+    private ReentrantLock m_lock;
+
     /** The max. sum of costs the cached objects might reach. */
     private int m_maxCacheCosts;
 
@@ -81,10 +107,13 @@ public class CmsLruCache extends java.lang.Object {
     private int m_maxObjectCosts;
 
     /** The costs of all cached objects. */
-    private int m_objectCosts;
+    private volatile int m_objectCosts;
 
     /** The sum of all cached objects. */
-    private int m_objectCount;
+    private volatile int m_objectCount;
+
+    /** The mask to calculate the stripe of a thread. */
+    private int m_stripeMask;
 
     /**
      * The constructor with all options.<p>
@@ -98,6 +127,46 @@ public class CmsLruCache extends java.lang.Object {
         m_maxCacheCosts = theMaxCacheCosts;
         m_avgCacheCosts = theAvgCacheCosts;
         m_maxObjectCosts = theMaxObjectCosts;
+        m_lock = new ReentrantLock();
+
+        int stripes = 1;
+        int processors = Runtime.getRuntime().availableProcessors();
+        while ((stripes < processors) && (stripes < ACCESS_BUFFER_STRIPES)) {
+            stripes <<= 1;
+        }
+        m_stripeMask = stripes - 1;
+        m_accessBuffer = new AtomicReferenceArray(stripes * ACCESS_BUFFER_SIZE);
+        m_accessCounters = new AtomicInteger[stripes];
+        for (int i = 0; i < stripes; i++) {
+            m_accessCounters[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Records that a cached object has been read.<p>
+     * 
+     * In contrast to {@link #touch(I_CmsLruCacheObject)}, this method does not wait for other threads 
+     * that use the cache. The object is moved to the head of the list later, 
+     * or not at all if the cache is very busy.<p>
+     * 
+     * @param theCacheObject the object that has been read
+     */
+    public void access(I_CmsLruCacheObject theCacheObject) {
+
+        if (theCacheObject == null) {
+            return;
+        }
+        int stripe = (int)Thread.currentThread().getId() & m_stripeMask;
+        int count = m_accessCounters[stripe].getAndIncrement() & (ACCESS_BUFFER_SIZE - 1);
+        m_accessBuffer.set((stripe * ACCESS_BUFFER_SIZE) + count, theCacheObject);
+        if ((count == (ACCESS_BUFFER_SIZE - 1)) && m_lock.tryLock()) {
+            // the buffer of this stripe is full, apply the accesses if no other thread is using the list
+            try {
+                drainAccessBuffer();
+            } finally {
+                m_lock.unlock();
+            }
+        }
     }
 
     /**
@@ -109,7 +178,7 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being added to the cache
      * @return true if the object was added to the cache, false if the object was denied because its cache costs were higher than the allowed max. cache costs per object
      */
-    public synchronized boolean add(I_CmsLruCacheObject theCacheObject) {
+    public boolean add(I_CmsLruCacheObject theCacheObject) {
 
         if (theCacheObject == null) {
             // null can't be added or touched in the cache 
@@ -127,16 +196,22 @@ public class CmsLruCache extends java.lang.Object {
             return false;
         }
 
-        if (!isCached(theCacheObject)) {
-            // add the object to the list of all cached objects in the cache
-            addHead(theCacheObject);
-        } else {
-            touch(theCacheObject);
-        }
+        m_lock.lock();
+        try {
+            if (!isCached(theCacheObject)) {
+                // add the object to the list of all cached objects in the cache
+                addHead(theCacheObject);
+            } else {
+                moveToHead(theCacheObject);
+            }
 
-        // check if the cache has to trash the last-recently-used objects before adding a new object
-        if (m_objectCosts > m_maxCacheCosts) {
-            gc();
+            // check if the cache has to trash the last-recently-used objects before adding a new object
+            if (m_objectCosts > m_maxCacheCosts) {
+                drainAccessBuffer();
+                gc();
+            }
+        } finally {
+            m_lock.unlock();
         }
 
         return true;
@@ -145,20 +220,28 @@ public class CmsLruCache extends java.lang.Object {
     /**
      * Removes all cached objects in this cache.<p>
      */
-    public synchronized void clear() {
+    public void clear() {
 
-        // remove all objects from the linked list from the tail to the head:
-        I_CmsLruCacheObject currentObject = m_listTail;
-        while (currentObject != null) {
-            currentObject = currentObject.getNextLruObject();
-            removeTail();
-        }
+        m_lock.lock();
+        try {
+            // remove all objects from the linked list from the tail to the head:
+            I_CmsLruCacheObject currentObject = m_listTail;
+            while (currentObject != null) {
+                currentObject = currentObject.getNextLruObject();
+                removeTail();
+            }
 
-        // reset the data structure
-        m_objectCosts = 0;
-        m_objectCount = 0;
-        m_listHead = null;
-        m_listTail = null;
+            // reset the data structure
+            m_objectCosts = 0;
+            m_objectCount = 0;
+            m_listHead = null;
+            m_listTail = null;
+            for (int i = 0, s = m_accessBuffer.length(); i < s; i++) {
+                m_accessBuffer.set(i, null);
+            }
+        } finally {
+            m_lock.unlock();
+        }
     }
 
     /**
@@ -204,50 +287,44 @@ public class CmsLruCache extends java.lang.Object {
     /**
      * Removes an object from the list of all cached objects in this cache,
      * no matter what position it has inside the list.<p>
+     * 
+     * The recorded accesses are applied first, so that the buffers don't keep 
+     * a reference to the removed object.<p>
      *
      * @param theCacheObject the object being removed from the list of all cached objects
      * @return a reference to the object that was removed
      */
-    public synchronized I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
+    public I_CmsLruCacheObject remove(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
-            // theCacheObject is null or not inside the cache
-            return null;
+        m_lock.lock();
+        try {
+            drainAccessBuffer();
+            return removeObject(theCacheObject);
+        } finally {
+            m_lock.unlock();
         }
+    }
 
-        // set the list pointers correct
-        if (theCacheObject.getNextLruObject() == null) {
-            // remove the object from the head pos.
-            I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
-
-            if (newHead != null) {
-                // if newHead is null, theCacheObject 
-                // was the only object in the cache
-                newHead.setNextLruObject(null);
-            }
-
-            m_listHead = newHead;
-        } else if (theCacheObject.getPreviousLruObject() == null) {
-            // remove the object from the tail pos.
-            I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
+    /**
+     * Removes the last recently used objects from this cache until 
+     * the costs of all cached objects are not higher than the given costs.<p>
+     * 
+     * This is used to release memory when the system runs low on memory,
+     * without dropping the complete cache.<p>
+     * 
+     * @param maxCosts the max. costs of all cached objects that should remain in the cache
+     */
+    public void shrink(int maxCosts) {
 
-            if (newTail != null) {
-                // if newTail is null, theCacheObject 
-                // was the only object in the cache                
-                newTail.setPreviousLruObject(null);
+        m_lock.lock();
+        try {
+            drainAccessBuffer();
+            while ((m_listTail != null) && (m_objectCosts > maxCosts)) {
+                removeTail();
             }
-
-            m_listTail = newTail;
-        } else {
-            // remove the object from within the list
-            theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
-            theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+        } finally {
+            m_lock.unlock();
         }
-
-        // update cache stats. and notify the cached object
-        decreaseCache(theCacheObject);
-
-        return theCacheObject;
     }
 
     /**
@@ -282,52 +359,32 @@ public class CmsLruCache extends java.lang.Object {
      * @param theCacheObject the object being touched
      * @return true if an object was found and touched
      */
-    public synchronized boolean touch(I_CmsLruCacheObject theCacheObject) {
+    public boolean touch(I_CmsLruCacheObject theCacheObject) {
 
-        if (!isCached(theCacheObject)) {
-            return false;
-        }
+        m_lock.lock();
+        try {
+            if (!isCached(theCacheObject)) {
+                return false;
+            }
 
-        // only objects with cache costs < the max. allowed object cache costs can be cached!
-        if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
-            if (LOG.isInfoEnabled()) {
-                LOG.info(Messages.get().getBundle().key(
-                    Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
-                    new Integer(theCacheObject.getLruCacheCosts()),
-                    new Integer(m_maxObjectCosts)));
+            // only objects with cache costs < the max. allowed object cache costs can be cached!
+            if ((m_maxObjectCosts != -1) && (theCacheObject.getLruCacheCosts() > m_maxObjectCosts)) {
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.LOG_CACHE_COSTS_TOO_HIGH_2,
+                        new Integer(theCacheObject.getLruCacheCosts()),
+                        new Integer(m_maxObjectCosts)));
+                }
+                drainAccessBuffer();
+                removeObject(theCacheObject);
+                return false;
             }
-            remove(theCacheObject);
-            return false;
-        }
 
-        // set the list pointers correct
-        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
-        if (nextObj == null) {
-            // case 1: the object is already at the head pos.
+            moveToHead(theCacheObject);
             return true;
+        } finally {
+            m_lock.unlock();
         }
-        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
-        if (prevObj == null) {
-            // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
-            I_CmsLruCacheObject newTail = nextObj;
-            newTail.setPreviousLruObject(null);
-            m_listTail = newTail;
-        } else {
-            // case 3: the object is somewhere within the list, remove it to put it the front as the new head
-            prevObj.setNextLruObject(nextObj);
-            nextObj.setPreviousLruObject(prevObj);
-        }
-
-        // set the touched object as the new head in the linked list:
-        I_CmsLruCacheObject oldHead = m_listHead;
-        if (oldHead != null) {
-            oldHead.setNextLruObject(theCacheObject);
-            theCacheObject.setNextLruObject(null);
-            theCacheObject.setPreviousLruObject(oldHead);
-        }
-        m_listHead = theCacheObject;
-
-        return true;
     }
 
     /**
@@ -391,6 +448,22 @@ public class CmsLruCache extends java.lang.Object {
         m_objectCount--;
     }
 
+    /**
+     * Moves the objects recorded by {@link #access(I_CmsLruCacheObject)} to the head of the list.<p>
+     * 
+     * The lock must be held by the current thread.<p>
+     */
+    private void drainAccessBuffer() {
+
+        for (int i = 0, s = m_accessBuffer.length(); i < s; i++) {
+            I_CmsLruCacheObject theCacheObject = (I_CmsLruCacheObject)m_accessBuffer.getAndSet(i, null);
+            // the object may have been removed after the access was recorded
+            if ((theCacheObject != null) && isCached(theCacheObject)) {
+                moveToHead(theCacheObject);
+            }
+        }
+    }
+
     /**
      * Removes the last recently used objects from the list of all cached objects as long
      * as the costs of all cached objects are higher than the allowed avg. costs of the cache.<p>
@@ -459,10 +532,99 @@ public class CmsLruCache extends java.lang.Object {
         return false;
     }
 
+    /**
+     * Moves a cached object to the head of the list of all cached objects.<p>
+     * 
+     * The lock must be held by the current thread.<p>
+     *
+     * @param theCacheObject the cached object
+     */
+    private void moveToHead(I_CmsLruCacheObject theCacheObject) {
+
+        // set the list pointers correct
+        I_CmsLruCacheObject nextObj = theCacheObject.getNextLruObject();
+        if (nextObj == null) {
+            // case 1: the object is already at the head pos.
+            return;
+        }
+        I_CmsLruCacheObject prevObj = theCacheObject.getPreviousLruObject();
+        if (prevObj == null) {
+            // case 2: the object at the tail pos., remove it from the tail to put it to the front as the new head
+            I_CmsLruCacheObject newTail = nextObj;
+            newTail.setPreviousLruObject(null);
+            m_listTail = newTail;
+        } else {
+            // case 3: the object is somewhere within the list, remove it to put it the front as the new head
+            prevObj.setNextLruObject(nextObj);
+            nextObj.setPreviousLruObject(prevObj);
+        }
+
+        // set the touched object as the new head in the linked list:
+        I_CmsLruCacheObject oldHead = m_listHead;
+        if (oldHead != null) {
+            oldHead.setNextLruObject(theCacheObject);
+            theCacheObject.setNextLruObject(null);
+            theCacheObject.setPreviousLruObject(oldHead);
+        }
+        m_listHead = theCacheObject;
+    }
+
+    /**
+     * Removes an object from the list of all cached objects in this cache.<p>
+     * 
+     * The lock must be held by the current thread.<p>
+     *
+     * @param theCacheObject the object being removed from the list of all cached objects
+     * @return a reference to the object that was removed
+     */
+    private I_CmsLruCacheObject removeObject(I_CmsLruCacheObject theCacheObject) {
+
+        if (!isCached(theCacheObject)) {
+            // theCacheObject is null or not inside the cache
+            return null;
+        }
+
+        // set the list pointers correct
+        if (theCacheObject.getNextLruObject() == null) {
+            // remove the object from the head pos.
+            I_CmsLruCacheObject newHead = theCacheObject.getPreviousLruObject();
+
+            if (newHead != null) {
+                // if newHead is null, theCacheObject 
+                // was the only object in the cache
+                newHead.setNextLruObject(null);
+            }
+
+            m_listHead = newHead;
+        } else if (theCacheObject.getPreviousLruObject() == null) {
+            // remove the object from the tail pos.
+            I_CmsLruCacheObject newTail = theCacheObject.getNextLruObject();
+
+            if (newTail != null) {
+                // if newTail is null, theCacheObject 
+                // was the only object in the cache                
+                newTail.setPreviousLruObject(null);
+            }
+
+            m_listTail = newTail;
+        } else {
+            // remove the object from within the list
+            theCacheObject.getPreviousLruObject().setNextLruObject(theCacheObject.getNextLruObject());
+            theCacheObject.getNextLruObject().setPreviousLruObject(theCacheObject.getPreviousLruObject());
+        }
+
+        // update cache stats. and notify the cached object
+        decreaseCache(theCacheObject);
+
+        return theCacheObject;
+    }
+
     /**
      * Removes the tailing object from the list of all cached objects.<p>
+     * 
+     * The lock must be held by the current thread.<p>
      */
-    private synchronized void removeTail() {
+    private void removeTail() {
 
         I_CmsLruCacheObject oldTail = m_listTail;
         if (oldTail != null) {
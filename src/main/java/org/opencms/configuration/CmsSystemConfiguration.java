@@ -276,6 +276,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** The duration after which responsibles will be notified about out-dated content. */
     public static final String N_NOTIFICATION_TIME = "notification-time";
 
+    /** The node name for the offheapcachebytes node. */
+    public static final String N_OFFHEAPCACHEBYTES = "offheapcachebytes";
+
     /** The node name for the job parameters. */
     public static final String N_PARAMETERS = "parameters";
 
@@ -288,6 +291,15 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** The node name for the permission handler. */
     public static final String N_PERMISSIONHANDLER = "permissionhandler";
 
+    /** The node name for the profileheader node. */
+    public static final String N_PROFILEHEADER = "profileheader";
+
+    /** The node name for the profilesamplerate node. */
+    public static final String N_PROFILESAMPLERATE = "profilesamplerate";
+
+    /** The node name for the profilethreshold node. */
+    public static final String N_PROFILETHRESHOLD = "profilethreshold";
+
     /** The node name for the prevent-response-flush node. */
     public static final String N_PREVENTRESPONSEFLUSH = "prevent-response-flush";
 
@@ -312,6 +324,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** The node name for the context remote addr. */
     public static final String N_REMOTEADDR = "remoteaddr";
 
+    /** The node name for the renderwaittime node. */
+    public static final String N_RENDERWAITTIME = "renderwaittime";
+
     /** The node name for the context requested uri. */
     public static final String N_REQUESTEDURI = "requesteduri";
 
@@ -366,6 +381,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** The size of the driver manager's cache for groups. */
     public static final String N_SIZE_GROUPS = "size-groups";
 
+    /** The size of the driver manager's cache for resources of the Online project. */
+    public static final String N_SIZE_ONLINERESOURCES = "size-onlineresources";
+
     /** The size of the driver manager's cache for organizational units. */
     public static final String N_SIZE_ORGUNITS = "size-orgunits";
 
@@ -429,12 +447,33 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** The node name for the version history. */
     public static final String N_VERSIONHISTORY = "versionhistory";
 
+    /** The node name for the warmupdelay node. */
+    public static final String N_WARMUPDELAY = "warmupdelay";
+
+    /** The node name for the warmupliverequests node. */
+    public static final String N_WARMUPLIVEREQUESTS = "warmupliverequests";
+
+    /** The node name for the warmupserver node. */
+    public static final String N_WARMUPSERVER = "warmupserver";
+
+    /** The node name for the warmupstartdelay node. */
+    public static final String N_WARMUPSTARTDELAY = "warmupstartdelay";
+
+    /** The node name for the warmupthreads node. */
+    public static final String N_WARMUPTHREADS = "warmupthreads";
+
+    /** The node name for the warmupurls node. */
+    public static final String N_WARMUPURLS = "warmupurls";
+
     /** The node name for the warning-interval node. */
     public static final String N_WARNING_INTERVAL = "warning-interval";
 
     /** The node name for the workplace-server node. */
     public static final String N_WORKPLACE_SERVER = "workplace-server";
 
+    /** The attribute name for the deferred node. */
+    private static final String A_DEFERRED = "deferred";
+
     /** The attribute name for the deleted node. */
     private static final String A_DELETED = "deleted";
 
@@ -468,6 +507,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
+    /** Indicates if the pruning of the version history is deferred to a background job. */
+    private boolean m_historyPruningDeferred;
+
     /** The maximum number of historical versions per resource. */
     private int m_historyVersions;
 
@@ -687,10 +729,11 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
             0);
 
         // add version history rules
-        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, "setHistorySettings", 3);
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, "setHistorySettings", 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 0, A_ENABLED);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 1, A_COUNT);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 2, A_DELETED);
+        digester.addCallParam("*/" + N_SYSTEM + "/" + N_VERSIONHISTORY, 3, A_DEFERRED);
 
         // add mail configuration rule
         digester.addObjectCreate("*/" + N_SYSTEM + "/" + N_MAIL, CmsMailSettings.class);
@@ -933,6 +976,53 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_AVGCACHEBYTES, 3);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXENTRYBYTES, 4);
         digester.addCallParam("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_MAXKEYS, 5);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_OFFHEAPCACHEBYTES,
+            "setOffHeapCacheBytes",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PROFILESAMPLERATE,
+            "setProfileSampleRate",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PROFILEHEADER, "setProfileHeader", 0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_PROFILETHRESHOLD,
+            "setProfileThreshold",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_RENDERWAITTIME,
+            "setRenderWaitTime",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPURLS,
+            "setWarmupUrls",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod("*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPSERVER, "setWarmupServer", 0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPTHREADS,
+            "setWarmupThreads",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPDELAY,
+            "setWarmupDelay",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPSTARTDELAY,
+            "setWarmupStartDelay",
+            0,
+            new Class[] {Integer.TYPE});
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_FLEXCACHE + "/" + N_WARMUPLIVEREQUESTS,
+            "setWarmupLiveRequests",
+            0,
+            new Class[] {Integer.TYPE});
 
         // set the FlexCacheConfiguration initialized once before
         digester.addSetNext("*/" + N_SYSTEM + "/" + N_FLEXCACHE, "setCmsFlexCacheConfiguration");
@@ -962,6 +1052,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
             "setProjectResourcesCacheSize",
             0);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_CACHE + "/" + N_SIZE_RESOURCES, "setResourceCacheSize", 0);
+        digester.addCallMethod(
+            "*/" + N_SYSTEM + "/" + N_CACHE + "/" + N_SIZE_ONLINERESOURCES,
+            "setOnlineResourceCacheSize",
+            0);
         digester.addCallMethod("*/" + N_SYSTEM + "/" + N_CACHE + "/" + N_SIZE_ROLES, "setRolesCacheSize", 0);
         digester.addCallMethod(
             "*/" + N_SYSTEM + "/" + N_CACHE + "/" + N_SIZE_RESOURCELISTS,
@@ -1051,6 +1145,7 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
             m_historyEnabled = OpenCms.getSystemInfo().isHistoryEnabled();
             m_historyVersions = OpenCms.getSystemInfo().getHistoryVersions();
             m_historyVersionsAfterDeletion = OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion();
+            m_historyPruningDeferred = OpenCms.getSystemInfo().isHistoryPruningDeferred();
             // m_resourceInitHandlers instance must be the one from configuration
             // m_requestHandlers instance must be the one from configuration
             m_siteManager = OpenCms.getSiteManager();
@@ -1136,6 +1231,9 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
         historyElement.addAttribute(A_ENABLED, String.valueOf(m_historyEnabled));
         historyElement.addAttribute(A_COUNT, new Integer(m_historyVersions).toString());
         historyElement.addAttribute(A_DELETED, new Integer(m_historyVersionsAfterDeletion).toString());
+        if (m_historyPruningDeferred) {
+            historyElement.addAttribute(A_DEFERRED, String.valueOf(m_historyPruningDeferred));
+        }
 
         // resourceinit
         Element resourceinitElement = systemElement.addElement(N_RESOURCEINIT);
@@ -1324,6 +1422,38 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
         flexcacheElement.addElement(N_MAXENTRYBYTES).addText(
             String.valueOf(m_cmsFlexCacheConfiguration.getMaxEntryBytes()));
         flexcacheElement.addElement(N_MAXKEYS).addText(String.valueOf(m_cmsFlexCacheConfiguration.getMaxKeys()));
+        if (m_cmsFlexCacheConfiguration.getOffHeapCacheBytes() > 0) {
+            flexcacheElement.addElement(N_OFFHEAPCACHEBYTES).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getOffHeapCacheBytes()));
+        }
+        if (m_cmsFlexCacheConfiguration.getProfileSampleRate() > 0) {
+            flexcacheElement.addElement(N_PROFILESAMPLERATE).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getProfileSampleRate()));
+        }
+        if (m_cmsFlexCacheConfiguration.getProfileHeader() != null) {
+            flexcacheElement.addElement(N_PROFILEHEADER).addText(m_cmsFlexCacheConfiguration.getProfileHeader());
+        }
+        if (m_cmsFlexCacheConfiguration.getProfileThreshold() > 0) {
+            flexcacheElement.addElement(N_PROFILETHRESHOLD).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getProfileThreshold()));
+        }
+        if (m_cmsFlexCacheConfiguration.getRenderWaitTime() != CmsFlexCacheConfiguration.DEFAULT_RENDER_WAIT_TIME) {
+            flexcacheElement.addElement(N_RENDERWAITTIME).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getRenderWaitTime()));
+        }
+        if (m_cmsFlexCacheConfiguration.getWarmupUrls() > 0) {
+            flexcacheElement.addElement(N_WARMUPURLS).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getWarmupUrls()));
+            flexcacheElement.addElement(N_WARMUPSERVER).addText(m_cmsFlexCacheConfiguration.getWarmupServer());
+            flexcacheElement.addElement(N_WARMUPTHREADS).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getWarmupThreads()));
+            flexcacheElement.addElement(N_WARMUPDELAY).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getWarmupDelay()));
+            flexcacheElement.addElement(N_WARMUPSTARTDELAY).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getWarmupStartDelay()));
+            flexcacheElement.addElement(N_WARMUPLIVEREQUESTS).addText(
+                String.valueOf(m_cmsFlexCacheConfiguration.getWarmupLiveRequests()));
+        }
 
         // create <http-authentication> node
         Element httpAuthenticationElement = systemElement.addElement(N_HTTP_AUTHENTICATION);
@@ -1350,6 +1480,10 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
                 Integer.toString(m_cacheSettings.getConfiguredProjectResourcesCacheSize()));
         }
         cacheElement.addElement(N_SIZE_RESOURCES).setText(Integer.toString(m_cacheSettings.getResourceCacheSize()));
+        if (m_cacheSettings.getConfiguredOnlineResourceCacheSize() > -1) {
+            cacheElement.addElement(N_SIZE_ONLINERESOURCES).setText(
+                Integer.toString(m_cacheSettings.getConfiguredOnlineResourceCacheSize()));
+        }
         if (m_cacheSettings.getConfiguredRolesCacheSize() > -1) {
             cacheElement.addElement(N_SIZE_ROLES).setText(
                 Integer.toString(m_cacheSettings.getConfiguredRolesCacheSize()));
@@ -1806,6 +1940,18 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
         return m_historyEnabled;
     }
 
+    /**
+     * Returns if the pruning of the VFS version history is deferred to a background job.<p>
+     * 
+     * @return if the pruning of the VFS version history is deferred to a background job
+     * 
+     * @see org.opencms.scheduler.jobs.CmsHistoryPruneJob
+     */
+    public boolean isHistoryPruningDeferred() {
+
+        return m_historyPruningDeferred;
+    }
+
     /**
      * Sets the authorization handler.<p>
      * 
@@ -1927,18 +2073,27 @@ public class CmsSystemConfiguration extends A_CmsXmlConfiguration implements I_C
      * @param historyEnabled if true the history is enabled
      * @param historyVersions the maximum number of versions that are kept per VFS resource
      * @param historyVersionsAfterDeletion the maximum number of versions for deleted resources
+     * @param historyPruningDeferred if true the version history is pruned by a background job and not during publishing
      */
-    public void setHistorySettings(String historyEnabled, String historyVersions, String historyVersionsAfterDeletion) {
+    public void setHistorySettings(
+        String historyEnabled,
+        String historyVersions,
+        String historyVersionsAfterDeletion,
+        String historyPruningDeferred) {
 
         m_historyEnabled = Boolean.valueOf(historyEnabled).booleanValue();
         m_historyVersions = Integer.valueOf(historyVersions).intValue();
         m_historyVersionsAfterDeletion = Integer.valueOf(historyVersionsAfterDeletion).intValue();
+        m_historyPruningDeferred = Boolean.valueOf(historyPruningDeferred).booleanValue();
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_HISTORY_SETTINGS_3,
                 Boolean.valueOf(m_historyEnabled),
                 new Integer(m_historyVersions),
                 new Integer(m_historyVersionsAfterDeletion)));
+            if (m_historyPruningDeferred) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_HISTORY_PRUNING_DEFERRED_0));
+            }
         }
     }
 
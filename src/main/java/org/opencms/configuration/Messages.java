@@ -93,6 +93,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_GUESTS_GROUP_1 = "INIT_GUESTS_GROUP_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_HISTORY_PRUNING_DEFERRED_0 = "INIT_HISTORY_PRUNING_DEFERRED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_HISTORY_SETTINGS_3 = "INIT_HISTORY_SETTINGS_3";
 
@@ -97,7 +97,7 @@ public class CmsCacheKey implements I_CmsCacheKey {
     /**
      * @see org.opencms.db.I_CmsCacheKey#getCacheKeyForUserPermissions(java.lang.String, org.opencms.db.CmsDbContext, org.opencms.file.CmsResource, org.opencms.security.CmsPermissionSet)
      */
-    public String getCacheKeyForUserPermissions(
+    public Object getCacheKeyForUserPermissions(
         String prefix,
         CmsDbContext context,
         CmsResource resource,
@@ -106,14 +106,11 @@ public class CmsCacheKey implements I_CmsCacheKey {
         if (!context.getProjectId().isNullUUID()) {
             return "";
         }
-        StringBuffer cacheBuffer = new StringBuffer(64);
-        cacheBuffer.append(prefix);
-        cacheBuffer.append('_');
-        cacheBuffer.append(context.currentUser().getName());
-        cacheBuffer.append(context.currentProject().isOnlineProject() ? "_0_" : "_1_");
-        cacheBuffer.append(requiredPermissions.getPermissionString());
-        cacheBuffer.append('_');
-        cacheBuffer.append(resource.getStructureId().toString());
-        return cacheBuffer.toString();
+        return new CmsPermissionCacheKey(
+            prefix,
+            context.currentUser().getId(),
+            context.currentProject().isOnlineProject(),
+            requiredPermissions,
+            resource.getStructureId());
     }
 }
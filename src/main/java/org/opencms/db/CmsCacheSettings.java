@@ -51,6 +51,9 @@ public class CmsCacheSettings {
     /** The size of the driver manager's cache for groups. */
     private int m_groupCacheSize;
 
+    /** The size of the driver manager's cache for resources of the Online project. */
+    private int m_onlineResourceCacheSize = -1; // this configuration entry is optional 
+
     /** The size of the driver manager's cache for organizational units. */
     private int m_orgUnitCacheSize = -1; // this configuration entry is optional 
 
@@ -112,6 +115,18 @@ public class CmsCacheSettings {
         return m_cacheKeyGenerator;
     }
 
+    /**
+     * Returns the size of the driver manager's cache for resources of the Online project.<p>
+     *
+     * Might be <code>-1</code> if configuration entry is missing.<p>
+     *
+     * @return the size of the driver manager's cache for resources of the Online project
+     */
+    public int getConfiguredOnlineResourceCacheSize() {
+
+        return m_onlineResourceCacheSize;
+    }
+
     /**
      * Returns the size of the driver manager's cache for organizational units.<p>
      *
@@ -170,6 +185,19 @@ public class CmsCacheSettings {
         return m_groupCacheSize;
     }
 
+    /**
+     * Returns the size of the driver manager's cache for resources of the Online project.<p>
+     * 
+     * @return the size of the driver manager's cache for resources of the Online project
+     */
+    public int getOnlineResourceCacheSize() {
+
+        if (m_onlineResourceCacheSize < 0) {
+            return getResourceCacheSize();
+        }
+        return m_onlineResourceCacheSize;
+    }
+
     /**
      * Returns the size of the driver manager's cache for organizational units.<p>
      * 
@@ -322,6 +350,16 @@ public class CmsCacheSettings {
         m_groupCacheSize = getIntValue(size, 64);
     }
 
+    /**
+     * Sets the size of the driver manager's cache for resources of the Online project.<p>
+     *
+     * @param size the size of the driver manager's cache for resources of the Online project
+     */
+    public void setOnlineResourceCacheSize(String size) {
+
+        m_onlineResourceCacheSize = getIntValue(size, -1);
+    }
+
     /**
      * Sets the size of the driver manager's cache for organizational units.<p>
      *
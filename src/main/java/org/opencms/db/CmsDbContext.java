@@ -38,11 +38,20 @@ import org.opencms.file.CmsVfsException;
 import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.i18n.CmsMessageContainer;
 import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
 import org.opencms.report.I_CmsReport;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsUUID;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
 /**
  * Wraps context information to access the OpenCms database.<p> 
  * 
@@ -54,6 +63,9 @@ import org.opencms.util.CmsUUID;
  */
 public class CmsDbContext {
 
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbContext.class);
+
     /** The current Flex request context info (if available). */
     protected CmsFlexRequestContextInfo m_flexRequestContextInfo;
 
@@ -63,6 +75,12 @@ public class CmsDbContext {
     /** The wrapped user request context. */
     protected CmsRequestContext m_requestContext;
 
+    /** Indicates if the connections borrowed for this context are kept until the context is cleared. */
+    private boolean m_connectionAffinity;
+
+    /** The connections kept by this context, with the pool URL as key, or <code>null</code>. */
+    private Map m_connections;
+
     /**
      * Creates a new, empty database context.<p> 
      */
@@ -91,6 +109,7 @@ public class CmsDbContext {
      */
     public void clear() {
 
+        releaseConnections();
         m_requestContext = null;
         m_flexRequestContextInfo = null;
     }
@@ -115,6 +134,21 @@ public class CmsDbContext {
         return m_requestContext.currentUser();
     }
 
+    /**
+     * Returns the connection for the given pool kept by this context.<p>
+     * 
+     * @param poolUrl the URL of the pool
+     * 
+     * @return the connection kept by this context, or <code>null</code> if there is none
+     */
+    public Connection getConnection(String poolUrl) {
+
+        if (m_connections == null) {
+            return null;
+        }
+        return (Connection)m_connections.get(poolUrl);
+    }
+
     /**
      * Returns the current Flex request context info.<p>
      * 
@@ -145,6 +179,40 @@ public class CmsDbContext {
         return m_requestContext;
     }
 
+    /**
+     * Checks if the given connection is kept by this context.<p>
+     * 
+     * A connection kept by this context must not be closed by the drivers,
+     * it is released when the context is cleared.<p>
+     * 
+     * @param con the connection to check
+     * 
+     * @return <code>true</code> if the given connection is kept by this context
+     */
+    public boolean holdsConnection(Connection con) {
+
+        if ((m_connections == null) || (con == null)) {
+            return false;
+        }
+        Iterator i = m_connections.values().iterator();
+        while (i.hasNext()) {
+            if (i.next() == con) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the connections borrowed for this context are kept until the context is cleared.<p>
+     * 
+     * @return <code>true</code> if the connections borrowed for this context are kept until the context is cleared
+     */
+    public boolean isConnectionAffinity() {
+
+        return m_connectionAffinity;
+    }
+
     /**
      * Returns true if the database context uses the default implementation.<p>
      * 
@@ -212,6 +280,34 @@ public class CmsDbContext {
         throwException(message, throwable);
     }
 
+    /**
+     * Keeps the given connection for the given pool until this context is cleared.<p>
+     * 
+     * @param poolUrl the URL of the pool
+     * @param con the connection to keep
+     */
+    public void setConnection(String poolUrl, Connection con) {
+
+        if (m_connections == null) {
+            m_connections = new HashMap(4);
+        }
+        m_connections.put(poolUrl, con);
+    }
+
+    /**
+     * Sets if the connections borrowed for this context are kept until the context is cleared.<p>
+     * 
+     * This saves the round trips to the connection pool if a single operation 
+     * calls many driver methods. A context with connection affinity must be used 
+     * by a single thread only, and it must be cleared after use.<p>
+     * 
+     * @param connectionAffinity <code>true</code> if the connections should be kept
+     */
+    public void setConnectionAffinity(boolean connectionAffinity) {
+
+        m_connectionAffinity = connectionAffinity;
+    }
+
     /**
      * Sets the project id of the context.<p>
      *
@@ -242,4 +338,26 @@ public class CmsDbContext {
             throw new CmsVfsException(message, throwable);
         }
     }
+
+    /**
+     * Returns all connections kept by this context to their pools.<p>
+     */
+    private void releaseConnections() {
+
+        if (m_connections == null) {
+            return;
+        }
+        Iterator i = m_connections.values().iterator();
+        while (i.hasNext()) {
+            Connection con = (Connection)i.next();
+            try {
+                if (!con.isClosed()) {
+                    con.close();
+                }
+            } catch (SQLException e) {
+                LOG.debug(e.getLocalizedMessage(), e);
+            }
+        }
+        m_connections = null;
+    }
 }
\ No newline at end of file
@@ -36,6 +36,9 @@ import org.opencms.file.CmsRequestContext;
 /**
  * A default implementation of {@link I_CmsDbContextFactory}.<p>
  * 
+ * The created database contexts keep the connections they borrow until they are cleared,
+ * see {@link CmsDbContext#setConnectionAffinity(boolean)}.<p>
+ * 
  * @author Thomas Weckert 
  * 
  * @version $Revision: 1.7 $
@@ -49,7 +52,9 @@ public class CmsDbContextFactory implements I_CmsDbContextFactory {
      */
     public CmsDbContext getDbContext() {
 
-        return new CmsDbContext();
+        CmsDbContext dbc = new CmsDbContext();
+        dbc.setConnectionAffinity(true);
+        return dbc;
     }
 
     /**
@@ -57,7 +62,9 @@ public class CmsDbContextFactory implements I_CmsDbContextFactory {
      */
     public CmsDbContext getDbContext(CmsRequestContext context) {
 
-        return new CmsDbContext(context);
+        CmsDbContext dbc = new CmsDbContext(context);
+        dbc.setConnectionAffinity(true);
+        return dbc;
     }
 
     /**
@@ -36,13 +36,19 @@ import org.opencms.util.CmsStringUtil;
 
 import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
 
 import org.apache.commons.collections.ExtendedProperties;
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
+import org.apache.commons.dbcp.PoolingDataSource;
 import org.apache.commons.dbcp.PoolingDriver;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
@@ -54,6 +60,16 @@ import org.apache.commons.pool.impl.GenericObjectPool;
  * Only JDBC Driver based pools are supported currently. JNDI DataSource 
  * based pools might be added probably later.<p>
  * 
+ * A pool can have read-only replicas that receive the read-only statements for the Online project. 
+ * The replicas are configured as pools of their own and are referenced by the primary pool:<pre>
+ * db.pools=default,replica
+ * db.pool.default.replicas=replica
+ * db.pool.default.replicaLag=10000
+ * db.pool.replica.poolUrl=opencms:replica
+ * db.pool.replica.jdbcUrl=...</pre>
+ * While a publish is running all reads go to the primary pool, the replication lag is the 
+ * time in milliseconds after the publish during which the reads still go to the primary pool.<p>
+ * 
  * <b>Please note:</b> This class is subject to change in later versions.
  * To obtain information about the connections, please use the
  * {@link org.opencms.db.CmsSqlManager}.<p>
@@ -132,6 +148,12 @@ public final class CmsDbPool {
     /** Key for pooling flag. */
     public static final String KEY_POOLING = "pooling";
 
+    /** Key for the replication lag of the replicas in milliseconds. */
+    public static final String KEY_REPLICA_LAG = "replicaLag";
+
+    /** Key for the read-only replicas of a pool. */
+    public static final String KEY_REPLICAS = "replicas";
+
     /** Key for test on borrow flag. */
     public static final String KEY_TEST_ON_BORROW = "testOnBorrow";
 
@@ -159,6 +181,12 @@ public final class CmsDbPool {
     /** The prefix used for opencms JDBC pools. */
     public static final String OPENCMS_URL_PREFIX = "opencms:";
 
+    /** The data sources of the created pools, with the pool URL including the DBCP prefix as key. */
+    private static final Map DATA_SOURCES = new ConcurrentHashMap();
+
+    /** The replicas of the created pools, with the pool URL including the DBCP prefix as key. */
+    private static final Map REPLICAS = new ConcurrentHashMap();
+
     /**
      * Default constructor.<p>
      * 
@@ -325,6 +353,32 @@ public final class CmsDbPool {
         PoolingDriver driver = new PoolingDriver();
         driver.registerPool(poolUrl, connectionPool);
 
+        // the data source gives direct access to the pool without going through the JDBC driver manager
+        PoolingDataSource dataSource = new PoolingDataSource(connectionPool);
+        dataSource.setAccessToUnderlyingConnectionAllowed(true);
+        DATA_SOURCES.put(DBCP_JDBC_URL_PREFIX + poolUrl, dataSource);
+
+        // read-only statements for the Online project may be sent to replicas of this pool
+        String[] replicaKeys = config.getStringArray(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICAS);
+        if ((replicaKeys != null) && (replicaKeys.length > 0)) {
+            String[] replicaUrls = new String[replicaKeys.length];
+            for (int i = 0; i < replicaKeys.length; i++) {
+                replicaUrls[i] = DBCP_JDBC_URL_PREFIX + getDbPoolName(config, replicaKeys[i].trim());
+            }
+            long replicaLag = config.getLong(KEY_DATABASE_POOL + '.' + key + '.' + KEY_REPLICA_LAG, 10000L);
+            REPLICAS.put(DBCP_JDBC_URL_PREFIX + poolUrl, new CmsDbReplicas(
+                DBCP_JDBC_URL_PREFIX + poolUrl,
+                replicaUrls,
+                replicaLag));
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_REPLICA_POOLS_3,
+                    poolUrl,
+                    CmsStringUtil.collectionAsString(Arrays.asList(replicaKeys), ","),
+                    new Long(replicaLag)));
+            }
+        }
+
         Connection con = null;
         boolean connect = false;
         int connectionTests = 0;
@@ -360,6 +414,18 @@ public final class CmsDbPool {
         return driver;
     }
 
+    /**
+     * Returns the data source for the pool with the given URL.<p>
+     * 
+     * @param dbPoolUrl the URL of the pool, including the DBCP prefix
+     * 
+     * @return the data source, or <code>null</code> if the pool was not created by this class
+     */
+    public static DataSource getDataSource(String dbPoolUrl) {
+
+        return (DataSource)DATA_SOURCES.get(dbPoolUrl);
+    }
+
     /**
      * Returns the database pool name for a given configuration key.<p>
      * 
@@ -399,4 +465,53 @@ public final class CmsDbPool {
 
         return OPENCMS_DEFAULT_POOL_NAME;
     }
+
+    /**
+     * Returns the replicas of the pool with the given URL.<p>
+     * 
+     * @param dbPoolUrl the URL of the pool, including the DBCP prefix
+     * 
+     * @return the replicas, or <code>null</code> if no replicas are configured for the pool
+     */
+    public static CmsDbReplicas getReplicas(String dbPoolUrl) {
+
+        return (CmsDbReplicas)REPLICAS.get(dbPoolUrl);
+    }
+
+    /**
+     * Notifies the replicas of all pools that a publish has finished writing to the primary databases.<p>
+     * 
+     * @see CmsDbReplicas#publishFinished()
+     */
+    public static void publishFinished() {
+
+        Iterator i = REPLICAS.values().iterator();
+        while (i.hasNext()) {
+            ((CmsDbReplicas)i.next()).publishFinished();
+        }
+    }
+
+    /**
+     * Notifies the replicas of all pools that a publish starts writing to the primary databases.<p>
+     * 
+     * @see CmsDbReplicas#publishStarted()
+     */
+    public static void publishStarted() {
+
+        Iterator i = REPLICAS.values().iterator();
+        while (i.hasNext()) {
+            ((CmsDbReplicas)i.next()).publishStarted();
+        }
+    }
+
+    /**
+     * Removes the data source for the pool with the given name, after the pool has been closed.<p>
+     * 
+     * @param poolName the name of the pool, without the DBCP prefix
+     */
+    public static void removeDataSource(String poolName) {
+
+        DATA_SOURCES.remove(DBCP_JDBC_URL_PREFIX + poolName);
+        REPLICAS.remove(DBCP_JDBC_URL_PREFIX + poolName);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/db/CmsDbReplicas.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.main.CmsLog;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * The read-only replica pools of a primary database pool.<p>
+ * 
+ * Read-only statements for the Online project can be sent to a replica of the primary database,
+ * see {@link org.opencms.db.generic.CmsSqlManager#getReadConnection(CmsDbContext, org.opencms.util.CmsUUID)}.
+ * The replicas are used in turn. A replica that fails to provide a connection is skipped
+ * for {@link #RETRY_INTERVAL} milliseconds. While a publish writes to the primary database, and 
+ * for the configured replication lag after it, all reads go to the primary pool, so that the 
+ * caches are not filled with outdated content from a replica that has not caught up yet.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+public final class CmsDbReplicas {
+
+    /** The time in milliseconds a failed replica is skipped. */
+    public static final long RETRY_INTERVAL = 30000L;
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDbReplicas.class);
+
+    /** The time until which a replica is skipped because it failed, one entry per replica. */
+    private AtomicLongArray m_failedUntil;
+
+    /** The replication lag in milliseconds. */
+    private long m_lag;
+
+    /** The counter to use the replicas in turn. */
+    private AtomicInteger m_next;
+
+    /** The number of running publish jobs, all reads go to the primary pool while this is not zero. */
+    private AtomicInteger m_publishing;
+
+    /** The time until which all reads go to the primary pool. */
+    private volatile long m_primaryUntil;
+
+    /** The URL of the primary pool, including the DBCP prefix. */
+    private String m_primaryUrl;
+
+    /** The URLs of the replica pools, including the DBCP prefix. */
+    private String[] m_replicaUrls;
+
+    /**
+     * Creates the replicas of a primary pool.<p>
+     * 
+     * @param primaryUrl the URL of the primary pool, including the DBCP prefix
+     * @param replicaUrls the URLs of the replica pools, including the DBCP prefix
+     * @param lag the replication lag in milliseconds
+     */
+    public CmsDbReplicas(String primaryUrl, String[] replicaUrls, long lag) {
+
+        m_primaryUrl = primaryUrl;
+        m_replicaUrls = replicaUrls;
+        m_lag = lag;
+        m_failedUntil = new AtomicLongArray(replicaUrls.length);
+        m_next = new AtomicInteger();
+        m_publishing = new AtomicInteger();
+    }
+
+    /**
+     * Returns the replication lag in milliseconds.<p>
+     * 
+     * @return the replication lag in milliseconds
+     */
+    public long getLag() {
+
+        return m_lag;
+    }
+
+    /**
+     * Returns the URL of the primary pool.<p>
+     * 
+     * @return the URL of the primary pool, including the DBCP prefix
+     */
+    public String getPrimaryUrl() {
+
+        return m_primaryUrl;
+    }
+
+    /**
+     * Returns the URL of the replica pool to use for the next read.<p>
+     * 
+     * @return the URL of the replica pool, or <code>null</code> if the read should go to the primary pool
+     */
+    public String getReplicaUrl() {
+
+        long now = System.currentTimeMillis();
+        if ((m_publishing.get() > 0) || (now < m_primaryUntil)) {
+            return null;
+        }
+        int start = m_next.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < m_replicaUrls.length; i++) {
+            int index = (start + i) % m_replicaUrls.length;
+            if (now >= m_failedUntil.get(index)) {
+                return m_replicaUrls[index];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the URLs of the replica pools.<p>
+     * 
+     * @return the URLs of the replica pools, including the DBCP prefix
+     */
+    public String[] getReplicaUrls() {
+
+        return m_replicaUrls;
+    }
+
+    /**
+     * Sends all reads to the primary pool for the replication lag after a publish, 
+     * must be called when the publish has finished writing, before the caches are flushed.<p>
+     * 
+     * @see #publishStarted()
+     */
+    public void publishFinished() {
+
+        m_primaryUntil = System.currentTimeMillis() + m_lag;
+        m_publishing.decrementAndGet();
+    }
+
+    /**
+     * Sends all reads to the primary pool until {@link #publishFinished()} is called, 
+     * must be called before a publish writes to the primary database.<p>
+     */
+    public void publishStarted() {
+
+        m_publishing.incrementAndGet();
+    }
+
+    /**
+     * Skips the given replica for {@link #RETRY_INTERVAL} milliseconds, because it failed.<p>
+     * 
+     * @param replicaUrl the URL of the failed replica
+     * @param cause the cause of the failure
+     */
+    public void replicaFailed(String replicaUrl, Throwable cause) {
+
+        for (int i = 0; i < m_replicaUrls.length; i++) {
+            if (m_replicaUrls[i].equals(replicaUrl)) {
+                m_failedUntil.set(i, System.currentTimeMillis() + RETRY_INTERVAL);
+            }
+        }
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_REPLICA_FAILED_3,
+                replicaUrl,
+                m_primaryUrl,
+                new Long(RETRY_INTERVAL / 1000)), cause);
+        }
+    }
+}
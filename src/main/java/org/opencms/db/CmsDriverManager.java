@@ -287,6 +287,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The history driver. */
     private I_CmsHistoryDriver m_historyDriver;
 
+    /** Lock object for pruning the version history. */
+    private Object m_historyPruneLock = new Object();
+
+    /** The publish tag up to which the version history has been pruned. */
+    private int m_historyPruneTag;
+
     /** The HTML link validator. */
     private CmsRelationSystemValidator m_htmlLinkValidator;
 
@@ -296,6 +302,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
     /** The lock manager. */
     private CmsLockManager m_lockManager;
 
+    /** The cache for resources of the Online project read by path or structure id. */
+    private CmsOnlineResourceCache m_onlineResourceCache;
+
     /** The project driver. */
     private I_CmsProjectDriver m_projectDriver;
 
@@ -889,6 +898,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 OpenCms.getMemoryMonitor().clearCache();
+                if (m_onlineResourceCache != null) {
+                    m_onlineResourceCache.clear();
+                }
                 break;
             case I_CmsEventListener.EVENT_CLEAR_PRINCIPAL_CACHES:
                 OpenCms.getMemoryMonitor().clearPrincipalsCache();
@@ -1778,10 +1790,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // clear the internal caches
             OpenCms.getMemoryMonitor().clearAccessControlListCache();
-            OpenCms.getMemoryMonitor().flushProperties();
-            OpenCms.getMemoryMonitor().flushPropertyLists();
 
             if (newResource != null) {
+                uncacheProperties(dbc, newResource, false);
+
                 // fire an event that a new resource has been created
                 OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_CREATED, Collections.singletonMap(
                     "resource",
@@ -2078,8 +2090,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
             }
         } finally {
             // clear the driver manager cache
-            OpenCms.getMemoryMonitor().flushProperties();
-            OpenCms.getMemoryMonitor().flushPropertyLists();
+            Iterator itResources = resources.iterator();
+            while (itResources.hasNext()) {
+                OpenCms.getMemoryMonitor().uncacheProperties(
+                    ((CmsResource)itResources.next()).getRootPath(),
+                    dbc.currentProject().isOnlineProject());
+            }
 
             // fire an event that all properties of a resource have been deleted
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -2829,8 +2845,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // flush all caches
         OpenCms.getMemoryMonitor().clearAccessControlListCache();
-        OpenCms.getMemoryMonitor().flushProperties();
-        OpenCms.getMemoryMonitor().flushPropertyLists();
+        uncacheProperties(dbc, resource, false);
         OpenCms.getMemoryMonitor().flushProjectResources();
 
         OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_RESOURCE_DELETED, Collections.singletonMap(
@@ -2973,6 +2988,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
                     for (int j = 0; j < pools.length; j++) {
                         try {
                             driver.closePool(pools[j]);
+                            CmsDbPool.removeDataSource(pools[j]);
                             if (CmsLog.INIT.isDebugEnabled()) {
                                 CmsLog.INIT.debug(Messages.get().getBundle().key(
                                     Messages.INIT_CLOSE_CONN_POOL_1,
@@ -4461,6 +4477,102 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return newUser;
     }
 
+    /**
+     * Creates the given users by import, together with their additional infos 
+     * and group memberships, in one transaction.<p>
+     * 
+     * The users are checked the same way as in 
+     * {@link #importUser(CmsDbContext, String, String, String, String, String, String, int, long, Map)},
+     * but written with JDBC batches. The user group cache is flushed only once 
+     * after all users have been written.<p>
+     * 
+     * Only "normal" groups are supported for the memberships, roles must be 
+     * assigned with {@link #addUserToGroup(CmsDbContext, String, String, boolean)}.<p>
+     * 
+     * @param dbc the current database context
+     * @param users the <code>{@link CmsUser}</code> objects to import, the users must not exist yet
+     * @param userGroups map with the user id as key and a collection of 
+     *      the names of the groups the user should be added to as value 
+     * 
+     * @throws CmsException if something goes wrong, in this case no user is imported
+     */
+    public void importUsers(CmsDbContext dbc, List users, Map userGroups) throws CmsException {
+
+        Map orgUnits = new HashMap();
+        Map groupIds = new HashMap();
+        List newUsers = new ArrayList(users.size());
+        Map memberships = new HashMap();
+
+        Iterator itUsers = users.iterator();
+        while (itUsers.hasNext()) {
+            CmsUser user = (CmsUser)itUsers.next();
+            // no space before or after the name
+            String name = CmsOrganizationalUnit.removeLeadingSeparator(user.getName()).trim();
+            // check the user name
+            String userName = CmsOrganizationalUnit.getSimpleName(name);
+            OpenCms.getValidationHandler().checkUserName(userName);
+            if (CmsStringUtil.isEmptyOrWhitespaceOnly(userName)) {
+                throw new CmsIllegalArgumentException(Messages.get().container(Messages.ERR_BAD_USER_1, userName));
+            }
+            // check the ou
+            String ouFqn = CmsOrganizationalUnit.getParentFqn(name);
+            CmsOrganizationalUnit ou = (CmsOrganizationalUnit)orgUnits.get(ouFqn);
+            if (ou == null) {
+                ou = readOrganizationalUnit(dbc, ouFqn);
+                orgUnits.put(ouFqn, ou);
+            }
+            // check the password
+            validatePassword(user.getPassword());
+
+            // check webuser ou
+            int flags = user.getFlags();
+            if (ou.hasFlagWebuser() && ((flags & I_CmsPrincipal.FLAG_USER_WEBUSER) == 0)) {
+                flags += I_CmsPrincipal.FLAG_USER_WEBUSER;
+            }
+            newUsers.add(new CmsUser(
+                user.getId(),
+                name,
+                user.getPassword(),
+                user.getFirstname(),
+                user.getLastname(),
+                user.getEmail(),
+                0,
+                flags,
+                user.getDateCreated(),
+                user.getAdditionalInfo()));
+
+            // resolve the groups
+            Collection groupNames = (Collection)userGroups.get(user.getId());
+            if ((groupNames == null) || groupNames.isEmpty()) {
+                continue;
+            }
+            Set ids = new HashSet();
+            Iterator itGroups = groupNames.iterator();
+            while (itGroups.hasNext()) {
+                String groupName = CmsOrganizationalUnit.removeLeadingSeparator((String)itGroups.next());
+                CmsUUID groupId = (CmsUUID)groupIds.get(groupName);
+                if (groupId == null) {
+                    CmsGroup group = readGroup(dbc, groupName);
+                    if (group.isRole() || group.isVirtual()) {
+                        // roles require the additional checks of addUserToGroup
+                        throw new CmsDbEntryNotFoundException(Messages.get().container(
+                            Messages.ERR_UNKNOWN_GROUP_1,
+                            groupName));
+                    }
+                    groupId = group.getId();
+                    groupIds.put(groupName, groupId);
+                }
+                ids.add(groupId);
+            }
+            memberships.put(user.getId(), ids);
+        }
+
+        m_userDriver.importUsers(dbc, newUsers, memberships);
+
+        // flush the cache once for all users
+        OpenCms.getMemoryMonitor().flushUserGroups();
+    }
+
     /**
      * Initializes the driver and sets up all required modules and connections.<p>
      * 
@@ -4482,6 +4594,9 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // initialize the key generator
         m_keyGenerator = (I_CmsCacheKey)Class.forName(settings.getCacheKeyGenerator()).newInstance();
 
+        // initialize the Online resource cache
+        m_onlineResourceCache = new CmsOnlineResourceCache(settings.getOnlineResourceCacheSize());
+
         // initialize the HTML link validator
         m_htmlLinkValidator = new CmsRelationSystemValidator(this);
 
@@ -4947,10 +5062,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
         // move lock 
         m_lockManager.moveResource(source.getRootPath(), destRes.getRootPath());
 
-        // flush all relevant caches
+        // flush all relevant caches, the paths below a moved folder have changed
         OpenCms.getMemoryMonitor().clearAccessControlListCache();
-        OpenCms.getMemoryMonitor().flushProperties();
-        OpenCms.getMemoryMonitor().flushPropertyLists();
+        uncacheProperties(dbc, source, true);
+        uncacheProperties(dbc, destRes, true);
         OpenCms.getMemoryMonitor().flushProjectResources();
 
         List resources = new ArrayList(4);
@@ -5200,6 +5315,84 @@ public final class CmsDriverManager implements I_CmsEventListener {
         m_connectionPools.add(driver);
     }
 
+    /**
+     * Prunes the version history of all resources published since the last run, 
+     * keeping the number of versions configured in the version history settings.<p>
+     * 
+     * The historical versions are deleted in ranges of <code>publishTags</code> publish tags, 
+     * until either all published resources have been pruned or the given time budget is used up.
+     * The next call continues where the last call has stopped, the first call after startup 
+     * prunes the complete version history.<p>
+     * 
+     * @param dbc the current database context
+     * @param publishTags the number of publish tags to prune at once
+     * @param timeBudget the maximum time in milliseconds to spend, is ignored if not positive
+     * @param report the report for output logging
+     * 
+     * @return the number of deleted versions
+     * 
+     * @throws CmsException if operation was not successful
+     */
+    public int pruneHistoricalVersions(
+        CmsDbContext dbc,
+        int publishTags,
+        long timeBudget,
+        I_CmsReport report) throws CmsException {
+
+        synchronized (m_historyPruneLock) {
+            long start = System.currentTimeMillis();
+            int lastPublishTag = m_historyDriver.readNextPublishTag(dbc) - 1;
+            if (m_historyPruneTag > lastPublishTag) {
+                // the history has been reset in the meantime
+                m_historyPruneTag = 0;
+            }
+            int versionsToKeep = OpenCms.getSystemInfo().getHistoryVersions();
+            int versionsDeleted = OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion();
+            int deleted = 0;
+
+            report.println(Messages.get().container(
+                Messages.RPT_START_PRUNE_HISTORY_2,
+                new Integer(m_historyPruneTag + 1),
+                new Integer(lastPublishTag)), I_CmsReport.FORMAT_HEADLINE);
+            if (m_historyPruneTag >= lastPublishTag) {
+                report.println(Messages.get().container(Messages.RPT_DELETE_NOTHING_0), I_CmsReport.FORMAT_OK);
+            }
+            while (m_historyPruneTag < lastPublishTag) {
+                if ((timeBudget > 0) && ((System.currentTimeMillis() - start) >= timeBudget)) {
+                    report.println(
+                        Messages.get().container(Messages.RPT_PRUNE_HISTORY_BUDGET_0),
+                        I_CmsReport.FORMAT_NOTE);
+                    break;
+                }
+                int toPublishTag = Math.min(m_historyPruneTag + Math.max(publishTags, 1), lastPublishTag);
+                report.print(Messages.get().container(
+                    Messages.RPT_PRUNE_HISTORY_RANGE_2,
+                    new Integer(m_historyPruneTag + 1),
+                    new Integer(toPublishTag)), I_CmsReport.FORMAT_NOTE);
+                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+
+                int count = m_historyDriver.pruneEntries(
+                    dbc,
+                    m_historyPruneTag,
+                    toPublishTag,
+                    versionsToKeep,
+                    versionsDeleted);
+                m_historyPruneTag = toPublishTag;
+                deleted += count;
+
+                report.print(
+                    Messages.get().container(Messages.RPT_VERSION_DELETING_1, new Integer(count)),
+                    I_CmsReport.FORMAT_NOTE);
+                report.print(org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_DOTS_0));
+                report.println(
+                    org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
+                    I_CmsReport.FORMAT_OK);
+            }
+            report.println(Messages.get().container(Messages.RPT_END_PRUNE_HISTORY_0), I_CmsReport.FORMAT_HEADLINE);
+            return deleted;
+        }
+    }
+
     /**
      * Publishes the given publish job.<p>
      * 
@@ -5213,6 +5406,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
     public void publishJob(CmsObject cms, CmsDbContext dbc, CmsPublishList publishList, I_CmsReport report)
     throws CmsException {
 
+        boolean publishing = false;
         try {
             // check state and lock
             List allResources = new ArrayList(publishList.getFolderList());
@@ -5253,10 +5447,15 @@ public final class CmsDriverManager implements I_CmsEventListener {
             CmsProject onlineProject = readProject(dbc, CmsProject.ONLINE_PROJECT_ID);
 
             // clear the cache
-            OpenCms.getMemoryMonitor().clearCache();
+            OpenCms.getMemoryMonitor().clearCacheForPublishing();
 
             int publishTag = getNextPublishTag(dbc);
+            // read from the primary databases only, the replicas will lag behind the published changes
+            CmsDbPool.publishStarted();
+            publishing = true;
             getProjectDriver().publishProject(dbc, report, onlineProject, publishList, publishTag);
+            // make the published resources visible to the module actions below
+            uncacheOnlineResources(publishList);
 
             // iterate the initialized module action instances
             Iterator i = OpenCms.getModuleManager().getModuleNames().iterator();
@@ -5282,8 +5481,16 @@ public final class CmsDriverManager implements I_CmsEventListener {
                 cms.getRequestContext().setCurrentProject(onlineProject);
             }
         } finally {
+            if (publishing) {
+                // keep reading from the primary databases for the replication lag, 
+                // this must start before the caches are cleared so they are refilled from the primary
+                CmsDbPool.publishFinished();
+            }
             // clear the cache again
-            OpenCms.getMemoryMonitor().clearCache();
+            OpenCms.getMemoryMonitor().clearCacheForPublishing();
+            // the Online resource cache is not flushed completely, only the published resources are removed,
+            // this is repeated here in case the publish job failed or resources were read concurrently
+            uncacheOnlineResources(publishList);
         }
     }
 
@@ -6515,7 +6722,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         CmsUUID projectId = getProjectIdForContext(dbc);
         // please note: the filter will be applied in the security manager later
-        CmsResource resource = m_vfsDriver.readResource(dbc, projectId, structureID, filter.includeDeleted());
+        CmsResource resource;
+        if (CmsProject.isOnlineProject(projectId)) {
+            resource = readOnlineResource(dbc, structureID, filter.includeDeleted());
+        } else {
+            resource = m_vfsDriver.readResource(dbc, projectId, structureID, filter.includeDeleted());
+        }
 
         // context dates need to be updated
         updateContextDates(dbc, resource);
@@ -6544,7 +6756,12 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         CmsUUID projectId = getProjectIdForContext(dbc);
         // please note: the filter will be applied in the security manager later
-        CmsResource resource = m_vfsDriver.readResource(dbc, projectId, resourcePath, filter.includeDeleted());
+        CmsResource resource;
+        if (CmsProject.isOnlineProject(projectId)) {
+            resource = readOnlineResource(dbc, resourcePath, filter.includeDeleted());
+        } else {
+            resource = m_vfsDriver.readResource(dbc, projectId, resourcePath, filter.includeDeleted());
+        }
 
         // context dates need to be updated 
         updateContextDates(dbc, resource);
@@ -8247,8 +8464,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             OpenCms.getMemoryMonitor().clearResourceCache();
-            OpenCms.getMemoryMonitor().flushProperties();
-            OpenCms.getMemoryMonitor().flushPropertyLists();
+            uncacheProperties(dbc, resource, false);
 
             // fire an event that a property of a resource has been modified
             Map data = new HashMap();
@@ -8317,8 +8533,7 @@ public final class CmsDriverManager implements I_CmsEventListener {
         } finally {
             // update the driver manager cache
             OpenCms.getMemoryMonitor().clearResourceCache();
-            OpenCms.getMemoryMonitor().flushProperties();
-            OpenCms.getMemoryMonitor().flushPropertyLists();
+            uncacheProperties(dbc, resource, false);
 
             // fire an event that the properties of a resource have been modified
             OpenCms.fireCmsEvent(new CmsEvent(
@@ -9201,6 +9416,64 @@ public final class CmsDriverManager implements I_CmsEventListener {
         return result;
     }
 
+    /**
+     * Reads a resource of the Online project by structure id, using the Online resource cache.<p>
+     * 
+     * @param dbc the current database context
+     * @param structureId the structure id of the resource to read
+     * @param includeDeleted if deleted resources should be included
+     * 
+     * @return the resource that was read
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private CmsResource readOnlineResource(CmsDbContext dbc, CmsUUID structureId, boolean includeDeleted)
+    throws CmsDataAccessException {
+
+        CmsResource resource = m_onlineResourceCache.getResource(structureId);
+        if (resource == null) {
+            long generation = m_onlineResourceCache.getGeneration();
+            resource = m_vfsDriver.readResource(dbc, CmsProject.ONLINE_PROJECT_ID, structureId, includeDeleted);
+            m_onlineResourceCache.cacheResource(resource.getRootPath(), resource, generation);
+        }
+        return resource;
+    }
+
+    /**
+     * Reads a resource of the Online project by path, using the Online resource cache.<p>
+     * 
+     * Paths that do not exist are cached as well.<p>
+     * 
+     * @param dbc the current database context
+     * @param resourcePath the name of the resource to read (full path)
+     * @param includeDeleted if deleted resources should be included
+     * 
+     * @return the resource that was read
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    private CmsResource readOnlineResource(CmsDbContext dbc, String resourcePath, boolean includeDeleted)
+    throws CmsDataAccessException {
+
+        CmsResource resource = m_onlineResourceCache.getResource(resourcePath);
+        if (resource == null) {
+            if (m_onlineResourceCache.isResourceNotFound(resourcePath)) {
+                throw new CmsVfsResourceNotFoundException(Messages.get().container(
+                    Messages.ERR_READ_RESOURCE_1,
+                    dbc.removeSiteRoot(resourcePath)));
+            }
+            long generation = m_onlineResourceCache.getGeneration();
+            try {
+                resource = m_vfsDriver.readResource(dbc, CmsProject.ONLINE_PROJECT_ID, resourcePath, includeDeleted);
+            } catch (CmsVfsResourceNotFoundException e) {
+                m_onlineResourceCache.cacheResourceNotFound(resourcePath, generation);
+                throw e;
+            }
+            m_onlineResourceCache.cacheResource(resourcePath, resource, generation);
+        }
+        return resource;
+    }
+
     /**
      * Sorts the given list of {@link CmsAccessControlEntry} objects.<p>
      * 
@@ -9299,6 +9572,87 @@ public final class CmsDriverManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Removes the cached properties of the given resource in the current project.<p>
+     * 
+     * If the resource has siblings, the properties of all Online or of all offline resources 
+     * are removed, since the shared property values of the siblings may have changed.<p>
+     * 
+     * @param dbc the current database context
+     * @param resource the changed resource
+     * @param subtree if <code>true</code>, all properties below a folder are removed, 
+     *      otherwise only the properties read with the "search" option
+     */
+    private void uncacheProperties(CmsDbContext dbc, CmsResource resource, boolean subtree) {
+
+        boolean online = dbc.currentProject().isOnlineProject();
+        if (resource.getSiblingCount() > 1) {
+            OpenCms.getMemoryMonitor().flushProperties(online);
+        } else if (subtree && resource.isFolder()) {
+            OpenCms.getMemoryMonitor().uncachePropertiesInSubtree(resource.getRootPath(), online);
+        } else {
+            OpenCms.getMemoryMonitor().uncacheProperties(resource.getRootPath(), online);
+        }
+    }
+
+    /**
+     * Removes the resources of the given publish list from the Online resource cache
+     * and from the Online property caches.<p>
+     * 
+     * Besides the published resources themselves, this removes their siblings and, 
+     * for folders that were created, deleted or moved, all cached paths below the folder.<p>
+     * 
+     * @param publishList the list of published resources
+     */
+    private void uncacheOnlineResources(CmsPublishList publishList) {
+
+        Set paths = new HashSet();
+        Set folders = new HashSet();
+        Set structureIds = new HashSet();
+        Set resourceIds = new HashSet();
+
+        boolean flushProperties = false;
+
+        List allResources = new ArrayList(publishList.getFolderList());
+        allResources.addAll(publishList.getDeletedFolderList());
+        allResources.addAll(publishList.getFileList());
+        Iterator it = allResources.iterator();
+        while (it.hasNext()) {
+            CmsResource resource = (CmsResource)it.next();
+            paths.add(CmsFileUtil.removeTrailingSeparator(resource.getRootPath()));
+            structureIds.add(resource.getStructureId());
+            resourceIds.add(resource.getResourceId());
+            // the shared property values of siblings may have changed
+            flushProperties |= (resource.getSiblingCount() > 1);
+            if (resource.isFolder()) {
+                CmsResource onlineFolder = m_onlineResourceCache.getResource(resource.getStructureId());
+                if ((onlineFolder == null)
+                    || !resource.getState().isChanged()
+                    || !onlineFolder.getRootPath().equals(resource.getRootPath())) {
+                    // the folder was created, deleted or (possibly) moved, so the paths below it have changed 
+                    folders.add(resource.getRootPath());
+                    if (onlineFolder != null) {
+                        folders.add(onlineFolder.getRootPath());
+                    }
+                }
+            }
+        }
+        m_onlineResourceCache.uncacheResources(paths, folders, structureIds, resourceIds);
+
+        if (flushProperties) {
+            OpenCms.getMemoryMonitor().flushProperties(true);
+        } else {
+            Iterator itPaths = allResources.iterator();
+            while (itPaths.hasNext()) {
+                OpenCms.getMemoryMonitor().uncacheProperties(((CmsResource)itPaths.next()).getRootPath(), true);
+            }
+            Iterator itFolders = folders.iterator();
+            while (itFolders.hasNext()) {
+                OpenCms.getMemoryMonitor().uncachePropertiesInSubtree((String)itFolders.next(), true);
+            }
+        }
+    }
+
     /**
      * Undoes all content changes of a resource.<p>
      * 
@@ -9480,8 +9834,10 @@ public final class CmsDriverManager implements I_CmsEventListener {
 
         // update the cache
         OpenCms.getMemoryMonitor().clearResourceCache();
-        OpenCms.getMemoryMonitor().flushProperties();
-        OpenCms.getMemoryMonitor().flushPropertyLists();
+        if (offlineResource != null) {
+            uncacheProperties(dbc, offlineResource, moveUndone);
+        }
+        uncacheProperties(dbc, onlineResource, moveUndone);
 
         if (offlineResource != null) {
             OpenCms.fireCmsEvent(new CmsEvent(
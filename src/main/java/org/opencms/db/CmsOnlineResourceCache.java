@@ -0,0 +1,305 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/db/CmsOnlineResourceCache.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.file.CmsResource;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * Caches the resources of the Online project read by path or by structure id.<p>
+ * 
+ * The resources are cached under the path they were requested with. A second map 
+ * from the structure id to this path allows lookups by structure id without storing 
+ * the resource twice. Paths which do not exist in the Online project are cached too, 
+ * so repeated lookups of missing resources do not hit the database. They are kept in a 
+ * separate, smaller map, so requests for many missing paths can not evict the cached resources.<p>
+ * 
+ * Since resources of the Online project only change during publishing, the cache is 
+ * not flushed by changes in offline projects. After a publish job only the entries 
+ * affected by the published resources are removed, see {@link #uncacheResources(Set, Set, Set, Set)}.<p>
+ * 
+ * To prevent caching a resource that was read before a concurrent publish job 
+ * has finished, a resource must be cached with the generation number that was 
+ * valid before the resource was read, see {@link #getGeneration()}.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public class CmsOnlineResourceCache {
+
+    /**
+     * LRU map which also removes the structure id mapping of evicted resources.<p>
+     */
+    private class CmsPathMap extends LRUMap {
+
+        /** Serial version UID required for safe serialization. */
+        private static final long serialVersionUID = -3862712459147536247L;
+
+        /**
+         * Creates a new path map.<p>
+         * 
+         * @param maxSize the maximum size of the map
+         */
+        CmsPathMap(int maxSize) {
+
+            super(maxSize);
+        }
+
+        /**
+         * @see org.apache.commons.collections.map.LRUMap#removeLRU(org.apache.commons.collections.map.AbstractLinkedMap.LinkEntry)
+         */
+        protected boolean removeLRU(LinkEntry entry) {
+
+            m_idMap.remove(((CmsResource)entry.getValue()).getStructureId());
+            return true;
+        }
+    }
+
+    /** The max. number of cached not found paths is the max. number of cached paths divided by this factor. */
+    private static final int NOT_FOUND_FACTOR = 4;
+
+    /** The generation number, increased every time entries are removed. */
+    private long m_generation;
+
+    /** Maps the structure ids of the cached resources to the path they are cached with. */
+    private Map m_idMap;
+
+    /** Contains the requested paths that do not exist. */
+    private Map m_notFoundMap;
+
+    /** Maps the requested paths to the cached resources. */
+    private Map m_pathMap;
+
+    /**
+     * Creates a new Online resource cache.<p>
+     * 
+     * @param maxSize the maximum number of cached paths
+     */
+    public CmsOnlineResourceCache(int maxSize) {
+
+        m_pathMap = new CmsPathMap(maxSize);
+        m_notFoundMap = new LRUMap(Math.max(maxSize / NOT_FOUND_FACTOR, 1));
+        m_idMap = new HashMap(maxSize);
+        // map must be of type "LRUMap" so that memory monitor can acecss all information
+        OpenCms.getMemoryMonitor().register(CmsDriverManager.class.getName() + ".onlineResourceCache", m_pathMap);
+        OpenCms.getMemoryMonitor().register(CmsDriverManager.class.getName() + ".onlineNotFoundCache", m_notFoundMap);
+    }
+
+    /**
+     * Caches the given resource under the given path.<p>
+     * 
+     * @param path the path the resource was read with
+     * @param resource the resource to cache
+     * @param generation the generation number obtained before the resource was read 
+     */
+    public synchronized void cacheResource(String path, CmsResource resource, long generation) {
+
+        if (generation != m_generation) {
+            // entries have been removed while the resource was read, it may be outdated
+            return;
+        }
+        m_notFoundMap.remove(path);
+        CmsResource old = (CmsResource)m_pathMap.put(path, resource.clone());
+        if ((old != null) && !old.getStructureId().equals(resource.getStructureId())) {
+            m_idMap.remove(old.getStructureId());
+        }
+        m_idMap.put(resource.getStructureId(), path);
+    }
+
+    /**
+     * Caches that the given path does not exist.<p>
+     * 
+     * @param path the path that was not found
+     * @param generation the generation number obtained before the path was read 
+     */
+    public synchronized void cacheResourceNotFound(String path, long generation) {
+
+        if (generation != m_generation) {
+            return;
+        }
+        CmsResource old = (CmsResource)m_pathMap.remove(path);
+        if (old != null) {
+            m_idMap.remove(old.getStructureId());
+        }
+        m_notFoundMap.put(path, Boolean.TRUE);
+    }
+
+    /**
+     * Removes all entries from the cache.<p>
+     */
+    public synchronized void clear() {
+
+        m_generation++;
+        m_pathMap.clear();
+        m_notFoundMap.clear();
+        m_idMap.clear();
+    }
+
+    /**
+     * Returns the current generation number.<p>
+     * 
+     * @return the current generation number
+     */
+    public synchronized long getGeneration() {
+
+        return m_generation;
+    }
+
+    /**
+     * Returns a copy of the resource cached for the given path.<p>
+     * 
+     * @param path the path to look up
+     * 
+     * @return a copy of the cached resource, or <code>null</code> if the path is not cached 
+     *      or if it is cached as not found, see {@link #isResourceNotFound(String)}
+     */
+    public synchronized CmsResource getResource(String path) {
+
+        CmsResource resource = (CmsResource)m_pathMap.get(path);
+        if (resource != null) {
+            return (CmsResource)resource.clone();
+        }
+        return null;
+    }
+
+    /**
+     * Returns a copy of the resource cached for the given structure id.<p>
+     * 
+     * @param structureId the structure id to look up
+     * 
+     * @return a copy of the cached resource, or <code>null</code> if the structure id is not cached
+     */
+    public synchronized CmsResource getResource(CmsUUID structureId) {
+
+        String path = (String)m_idMap.get(structureId);
+        if (path == null) {
+            return null;
+        }
+        return getResource(path);
+    }
+
+    /**
+     * Checks if the given path is cached as not found.<p>
+     * 
+     * @param path the path to look up
+     * 
+     * @return <code>true</code> if the given path is cached as not found
+     */
+    public synchronized boolean isResourceNotFound(String path) {
+
+        return m_notFoundMap.get(path) != null;
+    }
+
+    /**
+     * Returns the number of cached paths, including the paths cached as not found.<p>
+     * 
+     * @return the number of cached paths
+     */
+    public synchronized int size() {
+
+        return m_pathMap.size() + m_notFoundMap.size();
+    }
+
+    /**
+     * Removes all entries affected by a publish job from the cache.<p>
+     * 
+     * An entry is removed if its path is one of the given paths or below one of the given folders, 
+     * or if the cached resource has one of the given structure or resource ids.
+     * All this is checked in a single pass over the cached resources and the cached not found paths.<p>
+     * 
+     * @param paths the root paths of the published resources, without trailing slash
+     * @param folders the root paths of the published folders which may have changed the paths below them
+     * @param structureIds the structure ids of the published resources
+     * @param resourceIds the resource ids of the published resources, to remove the siblings too
+     */
+    public synchronized void uncacheResources(Set paths, Set folders, Set structureIds, Set resourceIds) {
+
+        m_generation++;
+        Set removed = new HashSet();
+        Iterator it = m_pathMap.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry entry = (Map.Entry)it.next();
+            CmsResource resource = (CmsResource)entry.getValue();
+            if (structureIds.contains(resource.getStructureId())
+                || resourceIds.contains(resource.getResourceId())
+                || isAffected((String)entry.getKey(), paths, folders)) {
+                removed.add(resource.getStructureId());
+                it.remove();
+            }
+        }
+        m_idMap.keySet().removeAll(removed);
+        it = m_notFoundMap.keySet().iterator();
+        while (it.hasNext()) {
+            if (isAffected((String)it.next(), paths, folders)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Checks if the given path is one of the given paths or below one of the given folders.<p>
+     * 
+     * @param path the cached path
+     * @param paths the root paths of the published resources, without trailing slash
+     * @param folders the root paths of the published folders which may have changed the paths below them
+     * 
+     * @return <code>true</code> if the given path is affected by the publish job
+     */
+    private boolean isAffected(String path, Set paths, Set folders) {
+
+        if (paths.contains(CmsFileUtil.removeTrailingSeparator(path))) {
+            return true;
+        }
+        if (folders.isEmpty()) {
+            return false;
+        }
+        String parent = CmsResource.getParentFolder(path);
+        while (parent != null) {
+            if (folders.contains(parent)) {
+                return true;
+            }
+            parent = CmsResource.getParentFolder(parent);
+        }
+        return false;
+    }
+}
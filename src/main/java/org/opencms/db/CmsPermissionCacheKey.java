@@ -0,0 +1,147 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/db/CmsPermissionCacheKey.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import org.opencms.security.CmsPermissionSet;
+import org.opencms.util.CmsUUID;
+
+/**
+ * Immutable key for the permission cache.<p>
+ * 
+ * The key consists of the prefix given by the permission handler, the id of the user, 
+ * the project type, the required permissions and the structure id of the resource.
+ * The hash code is calculated once when the key is created, 
+ * so no Strings have to be built or hashed for a permission cache lookup.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public final class CmsPermissionCacheKey {
+
+    /** The allowed permissions of the required permission set. */
+    private final int m_allowedPermissions;
+
+    /** The denied permissions of the required permission set. */
+    private final int m_deniedPermissions;
+
+    /** The precalculated hash code. */
+    private final int m_hashCode;
+
+    /** Indicates if the key is for the Online project. */
+    private final boolean m_online;
+
+    /** The prefix to distinguish keys additionally. */
+    private final String m_prefix;
+
+    /** The structure id of the resource. */
+    private final CmsUUID m_structureId;
+
+    /** The id of the user. */
+    private final CmsUUID m_userId;
+
+    /**
+     * Creates a new permission cache key.<p>
+     * 
+     * @param prefix to distinguish keys additionally
+     * @param userId the id of the user
+     * @param online <code>true</code> if the key is for the Online project
+     * @param requiredPermissions the permissions to check
+     * @param structureId the structure id of the resource
+     */
+    public CmsPermissionCacheKey(
+        String prefix,
+        CmsUUID userId,
+        boolean online,
+        CmsPermissionSet requiredPermissions,
+        CmsUUID structureId) {
+
+        m_prefix = prefix;
+        m_userId = userId;
+        m_online = online;
+        m_allowedPermissions = requiredPermissions.getAllowedPermissions();
+        m_deniedPermissions = requiredPermissions.getDeniedPermissions();
+        m_structureId = structureId;
+
+        int hash = structureId.hashCode();
+        hash = 31 * hash + userId.hashCode();
+        hash = 31 * hash + m_allowedPermissions;
+        hash = 31 * hash + m_deniedPermissions;
+        hash = 31 * hash + prefix.hashCode();
+        m_hashCode = online ? hash : ~hash;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsPermissionCacheKey)) {
+            return false;
+        }
+        CmsPermissionCacheKey other = (CmsPermissionCacheKey)obj;
+        return (m_hashCode == other.m_hashCode)
+            && (m_online == other.m_online)
+            && (m_allowedPermissions == other.m_allowedPermissions)
+            && (m_deniedPermissions == other.m_deniedPermissions)
+            && m_structureId.equals(other.m_structureId)
+            && m_userId.equals(other.m_userId)
+            && m_prefix.equals(other.m_prefix);
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+
+        return m_hashCode;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+
+        StringBuffer result = new StringBuffer(96);
+        result.append(m_prefix);
+        result.append('_');
+        result.append(m_userId);
+        result.append(m_online ? "_0_" : "_1_");
+        result.append(new CmsPermissionSet(m_allowedPermissions, m_deniedPermissions).getPermissionString());
+        result.append('_');
+        result.append(m_structureId);
+        return result.toString();
+    }
+}
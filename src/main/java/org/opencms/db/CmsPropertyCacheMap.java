@@ -0,0 +1,246 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/db/CmsPropertyCacheMap.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.db;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * LRU map for the property caches of the driver manager, 
+ * which keeps an index of the cached keys by resource path.<p>
+ * 
+ * The keys must have the format generated by the driver manager for property lookups,
+ * that is the property name, the "search" flag, the "online" flag and the root path 
+ * of the resource, like <code>Title++/sites/default/index.html</code>.
+ * The index allows to remove the entries of a single resource, and the entries of
+ * all resources below a folder, without flushing the whole cache.
+ * Online and offline entries are indexed separately.<p>
+ * 
+ * This map is not synchronized. When it is wrapped with 
+ * {@link java.util.Collections#synchronizedMap(Map)}, the <code>uncache</code> 
+ * methods must be called while holding the lock of the wrapper.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public class CmsPropertyCacheMap extends LRUMap {
+
+    /** Serial version UID required for safe serialization. */
+    private static final long serialVersionUID = 7439156227458398762L;
+
+    /** The index from the "online" flag and the root path to the set of cached keys. */
+    private SortedMap m_index;
+
+    /**
+     * Creates a new property cache map.<p>
+     * 
+     * @param maxSize the maximum size of the map
+     */
+    public CmsPropertyCacheMap(int maxSize) {
+
+        super(maxSize);
+        m_index = new TreeMap();
+    }
+
+    /**
+     * Returns the index key for the given cache key.<p>
+     * 
+     * @param key the cache key
+     * 
+     * @return the index key, or <code>null</code> if the key has no resource path
+     */
+    private static String getIndexKey(Object key) {
+
+        String str = (String)key;
+        int pos = str.indexOf('/');
+        if (pos < 1) {
+            return null;
+        }
+        // the "online" flag is the character in front of the path
+        return str.substring(pos - 1);
+    }
+
+    /**
+     * Returns the index key prefix for the given resource path.<p>
+     * 
+     * @param online <code>true</code> for the Online project
+     * @param rootPath the root path of the resource
+     * 
+     * @return the index key
+     */
+    private static String getIndexKey(boolean online, String rootPath) {
+
+        return (online ? '+' : '-') + rootPath;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#clear()
+     */
+    public void clear() {
+
+        super.clear();
+        m_index.clear();
+    }
+
+    /**
+     * Removes all entries for the Online or for the offline projects.<p>
+     * 
+     * @param online <code>true</code> to remove the Online entries, <code>false</code> for the offline entries
+     */
+    public void uncacheAll(boolean online) {
+
+        uncacheResource(online, "/");
+        uncacheSubtree(online, "/", false);
+    }
+
+    /**
+     * Removes all entries of the resource with the given root path.<p>
+     * 
+     * @param online <code>true</code> to remove the Online entries, <code>false</code> for the offline entries
+     * @param rootPath the root path of the resource
+     */
+    public void uncacheResource(boolean online, String rootPath) {
+
+        Set keys = (Set)m_index.get(getIndexKey(online, rootPath));
+        if (keys != null) {
+            removeAll(new ArrayList(keys));
+        }
+    }
+
+    /**
+     * Removes the entries of all resources below the given folder.<p>
+     * 
+     * The entries of the folder itself are not removed.<p>
+     * 
+     * @param online <code>true</code> to remove the Online entries, <code>false</code> for the offline entries
+     * @param folderPath the root path of the folder, with trailing slash
+     * @param searchedOnly if <code>true</code>, only the entries of properties read with the 
+     *      "search" option are removed, since only these inherit values from the folder
+     */
+    public void uncacheSubtree(boolean online, String folderPath, boolean searchedOnly) {
+
+        String prefix = getIndexKey(online, folderPath);
+        List keys = new ArrayList();
+        Iterator it = m_index.subMap(prefix, prefix + Character.MAX_VALUE).entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry entry = (Map.Entry)it.next();
+            if (prefix.equals(entry.getKey())) {
+                // the folder itself
+                continue;
+            }
+            Iterator itKeys = ((Set)entry.getValue()).iterator();
+            while (itKeys.hasNext()) {
+                String key = (String)itKeys.next();
+                // the "search" flag is the character in front of the "online" flag
+                if (!searchedOnly || (key.charAt(key.length() - ((String)entry.getKey()).length() - 1) == '+')) {
+                    keys.add(key);
+                }
+            }
+        }
+        removeAll(keys);
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#addMapping(int, int, java.lang.Object, java.lang.Object)
+     */
+    protected void addMapping(int hashIndex, int hashCode, Object key, Object value) {
+
+        super.addMapping(hashIndex, hashCode, key, value);
+        String indexKey = getIndexKey(key);
+        if (indexKey != null) {
+            Set keys = (Set)m_index.get(indexKey);
+            if (keys == null) {
+                keys = new HashSet();
+                m_index.put(indexKey, keys);
+            }
+            keys.add(key);
+        }
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.LRUMap#removeLRU(org.apache.commons.collections.map.AbstractLinkedMap.LinkEntry)
+     */
+    protected boolean removeLRU(LinkEntry entry) {
+
+        removeFromIndex(entry.getKey());
+        return true;
+    }
+
+    /**
+     * @see org.apache.commons.collections.map.AbstractHashedMap#removeMapping(org.apache.commons.collections.map.AbstractHashedMap.HashEntry, int, org.apache.commons.collections.map.AbstractHashedMap.HashEntry)
+     */
+    protected void removeMapping(HashEntry entry, int hashIndex, HashEntry previous) {
+
+        removeFromIndex(entry.getKey());
+        super.removeMapping(entry, hashIndex, previous);
+    }
+
+    /**
+     * Removes the given keys from this map.<p>
+     * 
+     * @param keys the keys to remove
+     */
+    private void removeAll(List keys) {
+
+        for (int i = 0; i < keys.size(); i++) {
+            remove(keys.get(i));
+        }
+    }
+
+    /**
+     * Removes the given key from the index.<p>
+     * 
+     * @param key the key to remove
+     */
+    private void removeFromIndex(Object key) {
+
+        String indexKey = getIndexKey(key);
+        if (indexKey != null) {
+            Set keys = (Set)m_index.get(indexKey);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    m_index.remove(indexKey);
+                }
+            }
+        }
+    }
+}
@@ -2713,6 +2713,42 @@ public final class CmsSecurityManager {
         return newUser;
     }
 
+    /**
+     * Creates the given users by import, together with their additional infos 
+     * and group memberships, in one transaction.<p>
+     * 
+     * @param context the current request context
+     * @param users the <code>{@link CmsUser}</code> objects to import, the users must not exist yet
+     * @param userGroups map with the user id as key and a collection of 
+     *      the names of the groups the user should be added to as value 
+     * 
+     * @throws CmsException if something goes wrong, in this case no user is imported
+     * @throws CmsRoleViolationException if the role {@link CmsRole#ACCOUNT_MANAGER} is not owned by the current user
+     * 
+     * @see CmsDriverManager#importUsers(CmsDbContext, List, Map)
+     */
+    public void importUsers(CmsRequestContext context, List users, Map userGroups)
+    throws CmsException, CmsRoleViolationException {
+
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+
+        try {
+            Set checkedOrgUnits = new HashSet();
+            Iterator it = users.iterator();
+            while (it.hasNext()) {
+                String ouFqn = getParentOrganizationalUnit(((CmsUser)it.next()).getName());
+                if (checkedOrgUnits.add(ouFqn)) {
+                    checkRole(dbc, CmsRole.ACCOUNT_MANAGER.forOrgUnit(ouFqn));
+                }
+            }
+            m_driverManager.importUsers(dbc, users, userGroups);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_IMPORT_USERS_1, new Integer(users.size())), e);
+        } finally {
+            dbc.clear();
+        }
+    }
+
     /**
      * Initializes this security manager with a given runtime info factory.<p>
      * 
@@ -3082,6 +3118,38 @@ public final class CmsSecurityManager {
         return result;
     }
 
+    /**
+     * Prunes the version history of all resources published since the last run, 
+     * keeping the number of versions configured in the version history settings.<p>
+     * 
+     * @param context the current request context
+     * @param publishTags the number of publish tags to prune at once
+     * @param timeBudget the maximum time in milliseconds to spend, is ignored if not positive
+     * @param report the report for output logging
+     * 
+     * @return the number of deleted versions
+     * 
+     * @throws CmsException if operation was not successful
+     * @throws CmsRoleViolationException if the current user does not have the role {@link CmsRole#WORKPLACE_MANAGER}
+     * 
+     * @see CmsDriverManager#pruneHistoricalVersions(CmsDbContext, int, long, I_CmsReport)
+     */
+    public int pruneHistoricalVersions(CmsRequestContext context, int publishTags, long timeBudget, I_CmsReport report)
+    throws CmsException, CmsRoleViolationException {
+
+        int result = 0;
+        CmsDbContext dbc = m_dbContextFactory.getDbContext(context);
+        try {
+            checkRole(dbc, CmsRole.WORKPLACE_MANAGER.forOrgUnit(null));
+            result = m_driverManager.pruneHistoricalVersions(dbc, publishTags, timeBudget, report);
+        } catch (Exception e) {
+            dbc.report(null, Messages.get().container(Messages.ERR_PRUNE_HISTORY_0), e);
+        } finally {
+            dbc.clear();
+        }
+        return result;
+    }
+
     /**
      * Publishes the resources of a specified publish list.<p>
      *
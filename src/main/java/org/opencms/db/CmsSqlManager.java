@@ -36,6 +36,8 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.util.List;
 
+import javax.sql.DataSource;
+
 /**
  * Superclass for all SQL manager implementations.<p>
  * 
@@ -95,12 +97,19 @@ public class CmsSqlManager {
     /**
      * Returns a connection to the database using the given pool identified by its full url.<p>
      * 
+     * Connections of the pools created by {@link CmsDbPool} are borrowed directly from
+     * the pool's data source, other URLs are resolved by the JDBC driver manager.<p>
+     * 
      * @param dbPoolUrl the pool url
      * @return a database connection
      * @throws SQLException if something goes wrong
      */
-    public synchronized Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
+    public Connection getConnectionByUrl(String dbPoolUrl) throws SQLException {
 
+        DataSource dataSource = CmsDbPool.getDataSource(dbPoolUrl);
+        if (dataSource != null) {
+            return dataSource.getConnection();
+        }
         return DriverManager.getConnection(dbPoolUrl);
     }
 
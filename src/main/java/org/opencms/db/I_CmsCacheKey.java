@@ -72,6 +72,9 @@ public interface I_CmsCacheKey {
     /**
      * Returns the cache key for the permission cache.<p>
      * 
+     * The key is used as key of a hash map, so it must implement <code>equals</code> 
+     * and <code>hashCode</code>, like a String or a {@link CmsPermissionCacheKey}.<p>
+     * 
      * @param prefix to distinguish keys additionally
      * @param context the context
      * @param resource the resource
@@ -79,7 +82,7 @@ public interface I_CmsCacheKey {
      * 
      * @return a cache key that is unique for the set of parameters
      */
-    String getCacheKeyForUserPermissions(
+    Object getCacheKeyForUserPermissions(
         String prefix,
         CmsDbContext context,
         CmsResource resource,
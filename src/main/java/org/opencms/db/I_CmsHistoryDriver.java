@@ -155,6 +155,27 @@ public interface I_CmsHistoryDriver {
      */
     org.opencms.db.generic.CmsSqlManager initSqlManager(String classname);
 
+    /**
+     * Deletes the historical versions of all resources last published 
+     * with a publish tag in the given range, keeping maximal <code>versionsToKeep</code> 
+     * versions for existing resources and <code>versionsDeleted</code> versions for deleted resources.<p>
+     * 
+     * In contrast to {@link #deleteEntries(CmsDbContext, I_CmsHistoryResource, int, long)}, 
+     * the cut off versions are calculated and deleted for all affected resources at once.<p>
+     * 
+     * @param dbc the current database context
+     * @param fromPublishTag the publish tag to start after (exclusive)
+     * @param toPublishTag the last publish tag to prune (inclusive)
+     * @param versionsToKeep the number of versions to keep for existing resources, is ignored if negative
+     * @param versionsDeleted the number of versions to keep for deleted resources, is ignored if negative
+     * 
+     * @return the number of versions that were deleted
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    int pruneEntries(CmsDbContext dbc, int fromPublishTag, int toPublishTag, int versionsToKeep, int versionsDeleted)
+    throws CmsDataAccessException;
+
     /**
      * Reads all file headers of the resource with the given structure id.<p>
      * 
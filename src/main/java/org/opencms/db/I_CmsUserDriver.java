@@ -361,6 +361,22 @@ public interface I_CmsUserDriver extends I_CmsDriver {
      */
     List getUsers(CmsDbContext dbc, CmsOrganizationalUnit orgUnit, boolean recursive) throws CmsDataAccessException;
 
+    /**
+     * Creates the given users with their additional infos and group memberships
+     * in one database transaction, using JDBC batches.<p>
+     * 
+     * The users must not exist yet, and all given groups must exist.
+     * Either all users are created or, in case of an error, none of them.<p>
+     * 
+     * @param dbc the current database context
+     * @param users the <code>{@link CmsUser}</code> objects to create, with their fully qualified names
+     * @param userGroups map with the user id as key and a collection of the 
+     *      ids of the groups the user should be added to as value 
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    void importUsers(CmsDbContext dbc, List users, Map userGroups) throws CmsDataAccessException;
+
     /**
      * Initializes the SQL manager for this driver.<p>
      * 
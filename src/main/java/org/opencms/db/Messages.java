@@ -300,6 +300,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_IMPORT_USER_7 = "ERR_IMPORT_USER_7";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_IMPORT_USERS_1 = "ERR_IMPORT_USERS_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_INIT_CONN_POOL_1 = "ERR_INIT_CONN_POOL_1";
 
@@ -375,6 +378,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PROCESS_DB_CONTEXT_0 = "ERR_PROCESS_DB_CONTEXT_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_PRUNE_HISTORY_0 = "ERR_PRUNE_HISTORY_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String ERR_PUBLISH_NO_CMS_FILE_1 = "ERR_PUBLISH_NO_CMS_FILE_1";
 
@@ -732,6 +738,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JDBC_POOL_2 = "INIT_JDBC_POOL_2";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_REPLICA_POOLS_3 = "INIT_REPLICA_POOLS_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_SECURITY_MANAGER_INIT_0 = "INIT_SECURITY_MANAGER_INIT_0";
 
@@ -771,6 +780,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_NO_EXPORT_POINTS_CONFIGURED_0 = "LOG_NO_EXPORT_POINTS_CONFIGURED_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_REPLICA_FAILED_3 = "LOG_REPLICA_FAILED_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_UPDATE_EXORT_POINTS_ERROR_0 = "LOG_UPDATE_EXORT_POINTS_ERROR_0";
 
@@ -798,6 +810,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_END_DELETE_VERSIONS_0 = "RPT_END_DELETE_VERSIONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_END_PRUNE_HISTORY_0 = "RPT_END_PRUNE_HISTORY_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_EXPORT_POINTS_DELETE_0 = "RPT_EXPORT_POINTS_DELETE_0";
 
@@ -813,6 +828,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_PARENT_FOLDER_NOT_PUBLISHED_1 = "RPT_PARENT_FOLDER_NOT_PUBLISHED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_PRUNE_HISTORY_BUDGET_0 = "RPT_PRUNE_HISTORY_BUDGET_0";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_PRUNE_HISTORY_RANGE_2 = "RPT_PRUNE_HISTORY_RANGE_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_PUBLISH_REMOVED_RESOURCE_1 = "RPT_PUBLISH_REMOVED_RESOURCE_1";
 
@@ -828,6 +849,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String RPT_START_DELETE_VERSIONS_0 = "RPT_START_DELETE_VERSIONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String RPT_START_PRUNE_HISTORY_2 = "RPT_START_PRUNE_HISTORY_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String RPT_VERSION_DELETING_1 = "RPT_VERSION_DELETING_1";
 
@@ -434,6 +434,128 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         return CmsSqlManager.getInstance(classname);
     }
 
+    /**
+     * @see org.opencms.db.I_CmsHistoryDriver#pruneEntries(org.opencms.db.CmsDbContext, int, int, int, int)
+     */
+    public int pruneEntries(
+        CmsDbContext dbc,
+        int fromPublishTag,
+        int toPublishTag,
+        int versionsToKeep,
+        int versionsDeleted) throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+
+        // the list of [structure id, resource id, max publish tag to delete] entries
+        List cutOffs = new ArrayList();
+        // the folders without any version left, their subresources have to be cleaned up
+        List emptyStructures = new ArrayList();
+        Set resourceIds = new HashSet();
+        int structureVersions = 0;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+
+            if (versionsToKeep >= 0) {
+                internalReadPruneCutOffs(
+                    dbc,
+                    conn,
+                    "C_HISTORY_READ_PRUNE_CUTOFFS",
+                    fromPublishTag,
+                    toPublishTag,
+                    versionsToKeep,
+                    cutOffs);
+            }
+            if (versionsDeleted >= 0) {
+                int existing = cutOffs.size();
+                internalReadPruneCutOffs(
+                    dbc,
+                    conn,
+                    "C_HISTORY_READ_PRUNE_CUTOFFS_DELETED",
+                    fromPublishTag,
+                    toPublishTag,
+                    versionsDeleted,
+                    cutOffs);
+                if (versionsDeleted == 0) {
+                    for (int i = existing; i < cutOffs.size(); i++) {
+                        emptyStructures.add(new CmsUUID(((String[])cutOffs.get(i))[0]));
+                    }
+                }
+            }
+            if (cutOffs.isEmpty()) {
+                // nothing to delete
+                return 0;
+            }
+
+            // delete the properties
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_PROPERTIES_HISTORY_DELETE");
+            Iterator it = cutOffs.iterator();
+            while (it.hasNext()) {
+                String[] cutOff = (String[])it.next();
+                stmt.setString(1, cutOff[0]);
+                stmt.setInt(2, Integer.parseInt(cutOff[2]) + 1);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the structure entries
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_DELETE");
+            it = cutOffs.iterator();
+            while (it.hasNext()) {
+                String[] cutOff = (String[])it.next();
+                stmt.setString(1, cutOff[0]);
+                stmt.setInt(2, Integer.parseInt(cutOff[2]) + 1);
+                stmt.addBatch();
+                resourceIds.add(cutOff[1]);
+            }
+            int[] counts = stmt.executeBatch();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    structureVersions += counts[i];
+                }
+            }
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the resource entries not used by any structure entry any longer
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_RESOURCES_HISTORY_PRUNE");
+            it = resourceIds.iterator();
+            while (it.hasNext()) {
+                String resourceId = (String)it.next();
+                stmt.setString(1, resourceId);
+                stmt.setString(2, resourceId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+
+            // delete the content entries not used by any structure entry any longer
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_CONTENT_HISTORY_PRUNE");
+            it = resourceIds.iterator();
+            while (it.hasNext()) {
+                String resourceId = (String)it.next();
+                stmt.setString(1, resourceId);
+                stmt.setString(2, resourceId);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+
+        // deleted folders without any version left do not need their subresource versions
+        Iterator it = emptyStructures.iterator();
+        while (it.hasNext()) {
+            internalCleanupSubResources(dbc, (CmsUUID)it.next());
+        }
+        return structureVersions;
+    }
+
     /**
      * @see org.opencms.db.I_CmsHistoryDriver#readAllAvailableVersions(CmsDbContext, CmsUUID)
      */
@@ -1603,36 +1725,47 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
     protected void internalCleanup(CmsDbContext dbc, I_CmsHistoryResource resource) throws CmsDataAccessException {
 
         boolean isFolder = resource.getRootPath().endsWith("/");
+
+        // if the resource is a folder and if no versions left
+        if (isFolder && (readLastVersion(dbc, resource.getStructureId()) == 0)) {
+            internalCleanupSubResources(dbc, resource.getStructureId());
+        }
+    }
+
+    /**
+     * Deletes all historical entries of the direct subresources of a folder.<p>
+     * 
+     * @param dbc the current database context
+     * @param folderId the structure id of the folder
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalCleanupSubResources(CmsDbContext dbc, CmsUUID folderId) throws CmsDataAccessException {
+
         List subResources = new ArrayList();
 
-        // if the resource is a folder
-        if (isFolder) {
-            // and if no versions left
-            if (readLastVersion(dbc, resource.getStructureId()) == 0) {
-                // get all direct subresources                    
-                Connection conn = null;
-                PreparedStatement stmt = null;
-                ResultSet res = null;
+        // get all direct subresources                    
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet res = null;
 
-                try {
-                    conn = m_sqlManager.getConnection(dbc);
+        try {
+            conn = m_sqlManager.getConnection(dbc);
 
-                    stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_SUBRESOURCES");
-                    stmt.setString(1, resource.getStructureId().toString());
-                    res = stmt.executeQuery();
-                    while (res.next()) {
-                        CmsUUID structureId = new CmsUUID(res.getString(1));
-                        int version = res.getInt(2);
-                        subResources.add(readResource(dbc, structureId, version));
-                    }
-                } catch (SQLException e) {
-                    throw new CmsDbSqlException(Messages.get().container(
-                        Messages.ERR_GENERIC_SQL_1,
-                        CmsDbSqlException.getErrorQuery(stmt)), e);
-                } finally {
-                    m_sqlManager.closeAll(dbc, conn, stmt, res);
-                }
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_STRUCTURE_HISTORY_READ_SUBRESOURCES");
+            stmt.setString(1, folderId.toString());
+            res = stmt.executeQuery();
+            while (res.next()) {
+                CmsUUID structureId = new CmsUUID(res.getString(1));
+                int version = res.getInt(2);
+                subResources.add(readResource(dbc, structureId, version));
             }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, conn, stmt, res);
         }
 
         // delete all subresource versions
@@ -1914,6 +2047,53 @@ public class CmsHistoryDriver implements I_CmsDriver, I_CmsHistoryDriver {
         }
     }
 
+    /**
+     * Reads the publish tags up to which the historical versions of resources have to be pruned.<p>
+     * 
+     * @param dbc the current database context
+     * @param conn the connection to use
+     * @param query the key of the query to execute
+     * @param fromPublishTag the publish tag to start after (exclusive)
+     * @param toPublishTag the last publish tag to prune (inclusive)
+     * @param versionsToKeep the number of versions to keep
+     * @param cutOffs the list to add the <code>[structure id, resource id, publish tag]</code> entries to
+     * 
+     * @throws CmsDataAccessException if something goes wrong
+     */
+    protected void internalReadPruneCutOffs(
+        CmsDbContext dbc,
+        Connection conn,
+        String query,
+        int fromPublishTag,
+        int toPublishTag,
+        int versionsToKeep,
+        List cutOffs) throws CmsDataAccessException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, query);
+            stmt.setInt(1, fromPublishTag);
+            stmt.setInt(2, toPublishTag);
+            stmt.setInt(3, toPublishTag);
+            stmt.setInt(4, versionsToKeep);
+            res = stmt.executeQuery();
+            while (res.next()) {
+                int publishTag = res.getInt(3);
+                if (publishTag > 0) {
+                    cutOffs.add(new String[] {res.getString(1), res.getString(2), String.valueOf(publishTag)});
+                }
+            }
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Tests if a history resource does exist.<p>
      * 
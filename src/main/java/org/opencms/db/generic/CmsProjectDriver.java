@@ -873,12 +873,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 publishDeletedFile(dbc, onlineProject, offlineResource, publishHistoryId, publishTag);
 
                 dbc.pop();
-                // delete old historical entries
-                m_driverManager.getHistoryDriver().deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                    -1);
+                if (!OpenCms.getSystemInfo().isHistoryPruningDeferred()) {
+                    // delete old historical entries
+                    m_driverManager.getHistoryDriver().deleteEntries(
+                        dbc,
+                        new CmsHistoryFile(offlineResource),
+                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
+                        -1);
+                }
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -908,12 +910,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                     publishTag);
 
                 dbc.pop();
-                // delete old historical entries
-                m_driverManager.getHistoryDriver().deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                if (!OpenCms.getSystemInfo().isHistoryPruningDeferred()) {
+                    // delete old historical entries
+                    m_driverManager.getHistoryDriver().deleteEntries(
+                        dbc,
+                        new CmsHistoryFile(offlineResource),
+                        OpenCms.getSystemInfo().getHistoryVersions(),
+                        -1);
+                }
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -936,12 +940,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                 publishNewFile(dbc, onlineProject, offlineResource, publishedContentIds, publishHistoryId, publishTag);
 
                 dbc.pop();
-                // delete old historical entries
-                m_driverManager.getHistoryDriver().deleteEntries(
-                    dbc,
-                    new CmsHistoryFile(offlineResource),
-                    OpenCms.getSystemInfo().getHistoryVersions(),
-                    -1);
+                if (!OpenCms.getSystemInfo().isHistoryPruningDeferred()) {
+                    // delete old historical entries
+                    m_driverManager.getHistoryDriver().deleteEntries(
+                        dbc,
+                        new CmsHistoryFile(offlineResource),
+                        OpenCms.getSystemInfo().getHistoryVersions(),
+                        -1);
+                }
 
                 report.println(
                     org.opencms.report.Messages.get().container(org.opencms.report.Messages.RPT_OK_0),
@@ -1328,12 +1334,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                             publishTag);
 
                         dbc.pop();
-                        // delete old historical entries
-                        m_driverManager.getHistoryDriver().deleteEntries(
-                            dbc,
-                            new CmsHistoryFile(currentFolder),
-                            OpenCms.getSystemInfo().getHistoryVersions(),
-                            -1);
+                        if (!OpenCms.getSystemInfo().isHistoryPruningDeferred()) {
+                            // delete old historical entries
+                            m_driverManager.getHistoryDriver().deleteEntries(
+                                dbc,
+                                new CmsHistoryFile(currentFolder),
+                                OpenCms.getSystemInfo().getHistoryVersions(),
+                                -1);
+                        }
 
                         // reset the resource state to UNCHANGED and the last-modified-in-project-ID to 0
                         internalResetResourceState(dbc, currentFolder);
@@ -1453,12 +1461,14 @@ public class CmsProjectDriver implements I_CmsDriver, I_CmsProjectDriver {
                         publishTag);
 
                     dbc.pop();
-                    // delete old historical entries
-                    m_driverManager.getHistoryDriver().deleteEntries(
-                        dbc,
-                        new CmsHistoryFile(currentFolder),
-                        OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
-                        -1);
+                    if (!OpenCms.getSystemInfo().isHistoryPruningDeferred()) {
+                        // delete old historical entries
+                        m_driverManager.getHistoryDriver().deleteEntries(
+                            dbc,
+                            new CmsHistoryFile(currentFolder),
+                            OpenCms.getSystemInfo().getHistoryVersionsAfterDeletion(),
+                            -1);
+                    }
 
                     m_driverManager.unlockResource(dbc, currentFolder, true, true);
 
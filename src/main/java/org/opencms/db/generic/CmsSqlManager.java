@@ -33,9 +33,15 @@ package org.opencms.db.generic;
 
 import org.opencms.db.CmsDbContext;
 import org.opencms.db.CmsDbPool;
+import org.opencms.db.CmsDbReplicas;
 import org.opencms.file.CmsProject;
+import org.opencms.flex.CmsFlexProfiler;
+import org.opencms.flex.CmsFlexRequestContextInfo;
 import org.opencms.main.CmsLog;
 import org.opencms.main.CmsRuntimeException;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricCounter;
+import org.opencms.monitor.CmsMetricTimer;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.util.CmsUUID;
 
@@ -78,12 +84,27 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
     /** A map to cache queries with replaced search patterns. */
     protected Map m_cachedQueries;
 
+    /** The timer for the time needed to get a connection from the pool. */
+    protected CmsMetricTimer m_connectionTimer;
+
     /** The type ID of the driver (vfs, user, project or history) from where this SQL manager is referenced. */
     protected int m_driverType;
 
     /** The pool URL to get connections from the JDBC driver manager, including DBCP's pool URL prefix. */
     protected String m_poolUrl;
 
+    /** The replicas of the pool, or <code>null</code> if no replicas are configured. */
+    protected CmsDbReplicas m_replicas;
+
+    /** Counts the replica connections that were reused from the database context. */
+    protected CmsMetricCounter m_replicaReusedCounter;
+
+    /** The timer for the time needed to get a connection from a replica pool. */
+    protected CmsMetricTimer m_replicaTimer;
+
+    /** Counts the connections that were reused from the database context instead of borrowed from the pool. */
+    protected CmsMetricCounter m_reusedCounter;
+
     /** A map holding all SQL queries. */
     protected Map m_queries;
 
@@ -148,7 +169,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      * @param stmnt the statement
      * @param res the result set
      */
-    public synchronized void closeAll(CmsDbContext dbc, Connection con, Statement stmnt, ResultSet res) {
+    public void closeAll(CmsDbContext dbc, Connection con, Statement stmnt, ResultSet res) {
 
         // NOTE: we have to close Connections/Statements that way, because a dbcp PoolablePreparedStatement
         // is not a DelegatedStatement; for that reason its not removed from the trace of the connection when it is closed.
@@ -159,9 +180,15 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
 
+        CmsFlexProfiler profiler = getProfiler(dbc);
+        if ((profiler != null) && (con != null)) {
+            profiler.connectionClosed(con);
+        }
+
         try {
-            // first, close the connection and (eventually) implicitly all assigned statements and result sets
-            if ((con != null) && !con.isClosed()) {
+            // first, close the connection and (eventually) implicitly all assigned statements and result sets,
+            // a connection kept by the database context is released when the context is cleared
+            if ((con != null) && !con.isClosed() && ((dbc == null) || !dbc.holdsConnection(con))) {
                 con.close();
             }
         } catch (SQLException e) {
@@ -217,6 +244,9 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
      * 
      * Use this method to get a connection for reading/writing project independent data.<p>
      * 
+     * If the database context has connection affinity, the connection is borrowed only once
+     * and kept by the context until it is cleared.<p>
+     * 
      * @param dbc the current database context
      * 
      * @return a JDBC connection
@@ -228,7 +258,7 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             LOG.error(Messages.get().getBundle().key(Messages.LOG_NULL_DB_CONTEXT_0));
         }
         // match the ID to a JDBC pool URL of the OpenCms JDBC pools {online|offline|backup}
-        return getConnectionByUrl(m_poolUrl);
+        return getConnection(dbc, m_poolUrl, m_connectionTimer, m_reusedCounter);
     }
 
     /**
@@ -297,6 +327,41 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         return con.prepareStatement(query);
     }
 
+    /**
+     * Returns a JDBC connection for read-only statements in the given project.<p>
+     * 
+     * If replicas are configured for the pool of this SQL manager, and the statements read
+     * the Online project for a request in the Online project, a connection of a replica 
+     * is returned. Otherwise, or if the replica fails to provide a connection, 
+     * a connection of the primary pool is returned.<p>
+     * 
+     * The returned connection must only be used for read-only statements.<p>
+     * 
+     * @param dbc the current database context
+     * @param projectId the id of the project that is read
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if no connection could be obtained
+     */
+    public Connection getReadConnection(CmsDbContext dbc, CmsUUID projectId) throws SQLException {
+
+        if ((m_replicas == null) || !isReplicaRead(dbc, projectId)) {
+            return getConnection(dbc);
+        }
+        String replicaUrl = m_replicas.getReplicaUrl();
+        if (replicaUrl == null) {
+            // all replicas failed or a publish has just finished
+            return getConnection(dbc);
+        }
+        try {
+            return getConnection(dbc, replicaUrl, m_replicaTimer, m_replicaReusedCounter);
+        } catch (SQLException e) {
+            m_replicas.replicaFailed(replicaUrl, e);
+            return getConnection(dbc);
+        }
+    }
+
     /**
      * Initializes this SQL manager.<p>
      * 
@@ -312,6 +377,17 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         m_driverType = driverType;
         m_poolUrl = poolUrl;
 
+        // the time to get a connection includes the time spent waiting for a free connection of the pool
+        String poolName = poolUrl.substring(poolUrl.lastIndexOf(':') + 1);
+        m_connectionTimer = OpenCms.getMetricsRegistry().getTimer("db.connection." + poolName);
+        m_reusedCounter = OpenCms.getMetricsRegistry().getCounter("db.connection." + poolName + ".reused");
+
+        m_replicas = CmsDbPool.getReplicas(poolUrl);
+        if (m_replicas != null) {
+            m_replicaTimer = OpenCms.getMetricsRegistry().getTimer("db.connection." + poolName + ".replica");
+            m_replicaReusedCounter = OpenCms.getMetricsRegistry().getCounter(
+                "db.connection." + poolName + ".replica.reused");
+        }
     }
 
     /**
@@ -454,6 +530,41 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
         super.finalize();
     }
 
+    /**
+     * Returns the Flex profiler of the request the given database context belongs to.<p>
+     * 
+     * @param dbc the current database context, may be <code>null</code>
+     * 
+     * @return the profiler, or <code>null</code> if the request is not profiled
+     */
+    protected CmsFlexProfiler getProfiler(CmsDbContext dbc) {
+
+        if (dbc == null) {
+            return null;
+        }
+        CmsFlexRequestContextInfo info = dbc.getFlexRequestContextInfo();
+        return (info != null) ? info.getProfiler() : null;
+    }
+
+    /**
+     * Checks if a read-only statement for the given project may be sent to a replica.<p>
+     * 
+     * This is the case if the Online project is read for a request in the Online project.
+     * Reads of an Offline request, including all reads of a publish, go to the primary pool.<p>
+     * 
+     * @param dbc the current database context
+     * @param projectId the id of the project that is read
+     * 
+     * @return <code>true</code> if the statement may be sent to a replica
+     */
+    protected boolean isReplicaRead(CmsDbContext dbc, CmsUUID projectId) {
+
+        return (dbc != null)
+            && (dbc.getRequestContext() != null)
+            && dbc.currentProject().isOnlineProject()
+            && CmsProject.isOnlineProject(projectId);
+    }
+
     /**
      * Loads a Java properties hash containing SQL queries.<p>
      * 
@@ -515,4 +626,48 @@ public class CmsSqlManager extends org.opencms.db.CmsSqlManager {
             m_queries.put(currentKey, currentValue);
         }
     }
+
+    /**
+     * Returns a JDBC connection from the given pool.<p>
+     * 
+     * If the database context has connection affinity, the connection is borrowed only once
+     * and kept by the context until it is cleared.<p>
+     * 
+     * @param dbc the current database context
+     * @param poolUrl the URL of the pool
+     * @param timer the timer for the time needed to get a connection from the pool
+     * @param reusedCounter counts the connections reused from the database context
+     * 
+     * @return a JDBC connection
+     * 
+     * @throws SQLException if no connection could be obtained
+     */
+    private Connection getConnection(
+        CmsDbContext dbc,
+        String poolUrl,
+        CmsMetricTimer timer,
+        CmsMetricCounter reusedCounter) throws SQLException {
+
+        boolean affinity = (dbc != null) && dbc.isConnectionAffinity();
+        Connection con = affinity ? dbc.getConnection(poolUrl) : null;
+        if ((con != null) && !con.isClosed()) {
+            // reuse the connection kept by the database context
+            reusedCounter.increment();
+        } else {
+            long start = System.nanoTime();
+            try {
+                con = getConnectionByUrl(poolUrl);
+            } finally {
+                timer.stop(start);
+            }
+            if (affinity) {
+                dbc.setConnection(poolUrl, con);
+            }
+        }
+        CmsFlexProfiler profiler = getProfiler(dbc);
+        if (profiler != null) {
+            profiler.connectionOpened(con);
+        }
+        return con;
+    }
 }
\ No newline at end of file
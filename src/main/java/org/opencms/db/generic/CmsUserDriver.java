@@ -83,6 +83,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -973,6 +974,88 @@ public class CmsUserDriver implements I_CmsDriver, I_CmsUserDriver {
         }
     }
 
+    /**
+     * @see org.opencms.db.I_CmsUserDriver#importUsers(org.opencms.db.CmsDbContext, java.util.List, java.util.Map)
+     */
+    public void importUsers(CmsDbContext dbc, List users, Map userGroups) throws CmsDataAccessException {
+
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        boolean wasInTransaction = false;
+        boolean committed = false;
+
+        try {
+            conn = m_sqlManager.getConnection(dbc);
+            wasInTransaction = !conn.getAutoCommit();
+            if (!wasInTransaction) {
+                conn.setAutoCommit(false);
+            }
+
+            // write the users
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_USERS_ADD_10");
+            Iterator itUsers = users.iterator();
+            while (itUsers.hasNext()) {
+                CmsUser user = (CmsUser)itUsers.next();
+                stmt.setString(1, user.getId().toString());
+                stmt.setString(2, CmsOrganizationalUnit.getSimpleName(user.getName()));
+                stmt.setString(3, user.getPassword());
+                stmt.setString(4, m_sqlManager.validateEmpty(user.getFirstname()));
+                stmt.setString(5, m_sqlManager.validateEmpty(user.getLastname()));
+                stmt.setString(6, m_sqlManager.validateEmpty(user.getEmail()));
+                stmt.setLong(7, user.getLastlogin());
+                stmt.setInt(8, user.getFlags());
+                stmt.setString(9, CmsOrganizationalUnit.SEPARATOR
+                    + CmsOrganizationalUnit.getParentFqn(user.getName()));
+                stmt.setLong(10, (user.getDateCreated() == 0 ? System.currentTimeMillis() : user.getDateCreated()));
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+            stmt = null;
+
+            // write the additional infos
+            internalImportUserInfos(dbc, conn, users);
+
+            // write the group memberships
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_GROUPS_ADD_USER_TO_GROUP_3");
+            Iterator itMemberships = userGroups.entrySet().iterator();
+            while (itMemberships.hasNext()) {
+                Map.Entry entry = (Map.Entry)itMemberships.next();
+                CmsUUID userId = (CmsUUID)entry.getKey();
+                Iterator itGroups = ((Collection)entry.getValue()).iterator();
+                while (itGroups.hasNext()) {
+                    CmsUUID groupId = (CmsUUID)itGroups.next();
+                    stmt.setString(1, groupId.toString());
+                    stmt.setString(2, userId.toString());
+                    // flag field is not used yet
+                    stmt.setInt(3, 0);
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+
+            if (!wasInTransaction) {
+                conn.commit();
+                conn.setAutoCommit(true);
+            }
+            committed = true;
+        } catch (SQLException e) {
+            throw new CmsDbSqlException(Messages.get().container(
+                Messages.ERR_GENERIC_SQL_1,
+                CmsDbSqlException.getErrorQuery(stmt)), e);
+        } finally {
+            if (!committed && !wasInTransaction && (conn != null)) {
+                try {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                } catch (SQLException e) {
+                    LOG.error(e.getLocalizedMessage(), e);
+                }
+            }
+            m_sqlManager.closeAll(dbc, conn, stmt, null);
+        }
+    }
+
     /**
      * @see org.opencms.db.I_CmsUserDriver#initSqlManager(String)
      */
@@ -2438,6 +2521,55 @@ public class CmsUserDriver implements I_CmsDriver, I_CmsUserDriver {
         return paths;
     }
 
+    /**
+     * Writes the additional infos of the given users during a batched import.<p>
+     * 
+     * The given connection is part of the import transaction and must not be closed.<p>
+     * 
+     * @param dbc the current database context
+     * @param conn the connection of the import transaction
+     * @param users the imported <code>{@link CmsUser}</code> objects
+     * 
+     * @throws CmsDataAccessException if something goes wrong with the serialization
+     * @throws SQLException if something goes wrong
+     */
+    protected void internalImportUserInfos(CmsDbContext dbc, Connection conn, List users)
+    throws CmsDataAccessException, SQLException {
+
+        PreparedStatement stmt = null;
+        try {
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_USERDATA_WRITE_4");
+            Iterator itUsers = users.iterator();
+            while (itUsers.hasNext()) {
+                CmsUser user = (CmsUser)itUsers.next();
+                if (user.getAdditionalInfo() == null) {
+                    continue;
+                }
+                Iterator itEntries = user.getAdditionalInfo().entrySet().iterator();
+                while (itEntries.hasNext()) {
+                    Map.Entry entry = (Map.Entry)itEntries.next();
+                    if ((entry.getKey() == null) || (entry.getValue() == null)) {
+                        continue;
+                    }
+                    stmt.setString(1, user.getId().toString());
+                    stmt.setString(2, (String)entry.getKey());
+                    try {
+                        m_sqlManager.setBytes(stmt, 3, CmsDataTypeUtil.dataSerialize(entry.getValue()));
+                    } catch (IOException e) {
+                        throw new CmsDbIoException(Messages.get().container(
+                            Messages.ERR_SERIALIZING_USER_DATA_1,
+                            user.getId()), e);
+                    }
+                    stmt.setString(4, entry.getValue().getClass().getName());
+                    stmt.addBatch();
+                }
+            }
+            stmt.executeBatch();
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+        }
+    }
+
     /**
      * Updates a group to a virtual group.<p>
      * 
@@ -1385,7 +1385,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         PreparedStatement stmt = null;
         ResultSet res = null;
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatementForSql(conn, query.toString());
             stmt.setString(1, resource.getStructureId().toString());
             res = stmt.executeQuery();
@@ -1422,7 +1422,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         byte[] byteRes = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             if (projectId.equals(CmsProject.ONLINE_PROJECT_ID)) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_ONLINE_FILES_CONTENT");
             } else {
@@ -1650,7 +1650,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         int resultSize = 0;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, project.getUuid(), "C_PROPERTIES_READ");
 
             stmt.setString(1, key);
@@ -1717,7 +1717,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         CmsProperty property;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, project.getUuid());
             stmt = m_sqlManager.getPreparedStatement(conn, project.getUuid(), "C_PROPERTIES_READALL");
             stmt.setString(1, resource.getStructureId().toString());
             stmt.setString(2, resource.getResourceId().toString());
@@ -1910,7 +1910,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READBYID");
 
             stmt.setString(1, structureId.toString());
@@ -1960,7 +1960,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         boolean endsWithSlash = path.endsWith("/");
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_RESOURCES_READ");
 
             stmt.setString(1, path);
@@ -2215,7 +2215,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         Connection conn = null;
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
             StringBuffer queryBuf = new StringBuffer(256);
             queryBuf.append(m_sqlManager.readQuery(projectId, "C_RESOURCES_READ_TREE"));
             queryBuf.append(conditions);
@@ -2263,7 +2263,7 @@ public class CmsVfsDriver implements I_CmsDriver, I_CmsVfsDriver {
         List vfsLinks = new ArrayList();
 
         try {
-            conn = m_sqlManager.getConnection(dbc);
+            conn = m_sqlManager.getReadConnection(dbc, projectId);
 
             if (includeDeleted) {
                 stmt = m_sqlManager.getPreparedStatement(conn, projectId, "C_SELECT_VFS_SIBLINGS");
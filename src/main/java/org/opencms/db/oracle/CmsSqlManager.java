@@ -83,7 +83,7 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
      * @param commit the additional statement for the 'commit' command
      * @param wasInTransaction if using transactions
      */
-    public static synchronized void closeAllInTransaction(
+    public static void closeAllInTransaction(
         org.opencms.db.generic.CmsSqlManager sqlManager,
         CmsDbContext dbc,
         Connection con,
@@ -140,7 +140,10 @@ public class CmsSqlManager extends org.opencms.db.generic.CmsSqlManager {
             if (con != null) {
                 try {
                     con.setAutoCommit(true);
-                    con.close();
+                    if ((dbc == null) || !dbc.holdsConnection(con)) {
+                        // a connection kept by the database context is released when the context is cleared
+                        con.close();
+                    }
                 } catch (SQLException se) {
                     // ignore
                     if (LOG.isDebugEnabled()) {
@@ -38,6 +38,7 @@ import org.opencms.db.CmsDbSqlException;
 import org.opencms.db.generic.CmsSqlManager;
 import org.opencms.db.generic.Messages;
 import org.opencms.file.CmsDataAccessException;
+import org.opencms.file.CmsUser;
 import org.opencms.util.CmsDataTypeUtil;
 import org.opencms.util.CmsUUID;
 
@@ -48,6 +49,9 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.dbcp.DelegatingResultSet;
 
@@ -126,6 +130,77 @@ public class CmsUserDriver extends org.opencms.db.generic.CmsUserDriver {
         internalUpdateUserInfo(dbc, userId, key, value);
     }
 
+    /**
+     * @see org.opencms.db.generic.CmsUserDriver#internalImportUserInfos(org.opencms.db.CmsDbContext, java.sql.Connection, java.util.List)
+     */
+    protected void internalImportUserInfos(CmsDbContext dbc, Connection conn, List users)
+    throws CmsDataAccessException, SQLException {
+
+        PreparedStatement stmt = null;
+        ResultSet res = null;
+        CmsUUID userId = null;
+
+        try {
+            // first create all entries with empty blobs in one batch
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_ORACLE_USERDATA_WRITE_3");
+            Iterator itUsers = users.iterator();
+            while (itUsers.hasNext()) {
+                CmsUser user = (CmsUser)itUsers.next();
+                if (user.getAdditionalInfo() == null) {
+                    continue;
+                }
+                Iterator itEntries = user.getAdditionalInfo().entrySet().iterator();
+                while (itEntries.hasNext()) {
+                    Map.Entry entry = (Map.Entry)itEntries.next();
+                    if ((entry.getKey() != null) && (entry.getValue() != null)) {
+                        stmt.setString(1, user.getId().toString());
+                        stmt.setString(2, (String)entry.getKey());
+                        stmt.setString(3, entry.getValue().getClass().getName());
+                        stmt.addBatch();
+                    }
+                }
+            }
+            stmt.executeBatch();
+            m_sqlManager.closeAll(dbc, null, stmt, null);
+            stmt = null;
+
+            // now write the blobs, still in the import transaction
+            stmt = m_sqlManager.getPreparedStatement(conn, "C_ORACLE_USERDATA_UPDATE_2");
+            itUsers = users.iterator();
+            while (itUsers.hasNext()) {
+                CmsUser user = (CmsUser)itUsers.next();
+                if (user.getAdditionalInfo() == null) {
+                    continue;
+                }
+                userId = user.getId();
+                Iterator itEntries = user.getAdditionalInfo().entrySet().iterator();
+                while (itEntries.hasNext()) {
+                    Map.Entry entry = (Map.Entry)itEntries.next();
+                    if ((entry.getKey() == null) || (entry.getValue() == null)) {
+                        continue;
+                    }
+                    stmt.setString(1, userId.toString());
+                    stmt.setString(2, (String)entry.getKey());
+                    res = ((DelegatingResultSet)stmt.executeQuery()).getInnermostDelegate();
+                    if (!res.next()) {
+                        throw new CmsDbEntryNotFoundException(Messages.get().container(
+                            Messages.ERR_NO_USER_WITH_ID_1,
+                            userId));
+                    }
+                    OutputStream output = getOutputStreamFromBlob(res, "DATA_VALUE");
+                    output.write(CmsDataTypeUtil.dataSerialize(entry.getValue()));
+                    output.close();
+                    res.close();
+                    res = null;
+                }
+            }
+        } catch (IOException e) {
+            throw new CmsDbIoException(Messages.get().container(Messages.ERR_SERIALIZING_USER_DATA_1, userId), e);
+        } finally {
+            m_sqlManager.closeAll(dbc, null, stmt, res);
+        }
+    }
+
     /**
      * Updates the given user information entry.<p>
      * 
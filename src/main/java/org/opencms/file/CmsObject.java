@@ -2107,6 +2107,29 @@ public final class CmsObject {
         return importUser(id, name, password, firstname, lastname, email, flags, System.currentTimeMillis(), info);
     }
 
+    /**
+     * Creates the given users by import, together with their additional infos 
+     * and group memberships.<p>
+     * 
+     * All users are written in one database transaction using JDBC batches,
+     * the caches are flushed only once for all users. Either all users are imported, 
+     * or in case of an error none of them.<p>
+     * 
+     * The users must not exist yet. Only "normal" groups can be given as memberships, 
+     * use {@link org.opencms.security.CmsRoleManager#addUserToRole(CmsObject, org.opencms.security.CmsRole, String)} 
+     * to assign roles.<p>
+     * 
+     * @param users the <code>{@link CmsUser}</code> objects to import
+     * @param userGroups map with the user id as key and a collection of 
+     *      the names of the groups the user should be added to as value 
+     *
+     * @throws CmsException if something goes wrong
+     */
+    public void importUsers(List users, Map userGroups) throws CmsException {
+
+        m_securityManager.importUsers(m_context, users, userGroups);
+    }
+
     /**
      * Checks if the current user has role access to <code>{@link CmsRole#ROOT_ADMIN}</code>.<p>
      *
@@ -2322,6 +2345,23 @@ public final class CmsObject {
         return m_securityManager.moveToLostAndFound(m_context, resource, false);
     }
 
+    /**
+     * Prunes the version history of all resources published since the last run, 
+     * keeping the number of versions configured in the version history settings.<p>
+     * 
+     * @param publishTags the number of publish tags to prune at once
+     * @param timeBudget the maximum time in milliseconds to spend, is ignored if not positive
+     * @param report the report for output logging
+     * 
+     * @return the number of deleted versions
+     * 
+     * @throws CmsException if operation was not successful
+     */
+    public int pruneHistoricalVersions(int publishTags, long timeBudget, I_CmsReport report) throws CmsException {
+
+        return m_securityManager.pruneHistoricalVersions(m_context, publishTags, timeBudget, report);
+    }
+
     /**
      * Publishes the current project, printing messages to a shell report.<p>
      *
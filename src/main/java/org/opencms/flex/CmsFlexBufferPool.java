@@ -0,0 +1,298 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/flex/CmsFlexBufferPool.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A pool of direct (off-heap) memory used by the Flex cache to store the output of cached entries.<p>
+ * 
+ * The memory is allocated in slabs of {@link #SLAB_SIZE} bytes, which are created on demand 
+ * until the configured maximum size is reached. Every slab is divided into pages of {@link #PAGE_SIZE} bytes.
+ * The pages are never returned to the operating system, instead released pages are kept 
+ * in a free list and reused for the next stored block.<p>
+ * 
+ * Since the memory is not part of the Java heap, the cached output does not need to be 
+ * traversed or copied by the garbage collector.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ * 
+ * @see org.opencms.flex.CmsFlexCacheEntry
+ */
+public class CmsFlexBufferPool {
+
+    /**
+     * A block of bytes stored in the pages of a buffer pool.<p>
+     */
+    public static class Block {
+
+        /** The number of bytes stored in the block. */
+        int m_length;
+
+        /** The pages used by the block. */
+        int[] m_pages;
+
+        /**
+         * Creates a new block.<p>
+         * 
+         * @param pages the pages used by the block
+         * @param length the number of bytes stored in the block
+         */
+        Block(int[] pages, int length) {
+
+            m_pages = pages;
+            m_length = length;
+        }
+
+        /**
+         * Returns the number of bytes stored in this block.<p>
+         * 
+         * @return the number of bytes stored in this block
+         */
+        public int getLength() {
+
+            return m_length;
+        }
+    }
+
+    /** The size of a page in bytes. */
+    public static final int PAGE_SIZE = 4096;
+
+    /** The size of a slab in bytes. */
+    public static final int SLAB_SIZE = 256 * PAGE_SIZE;
+
+    /** The number of pages in a slab. */
+    private static final int PAGES_PER_SLAB = SLAB_SIZE / PAGE_SIZE;
+
+    /** The number of free pages in the free list. */
+    private int m_freeCount;
+
+    /** The free list of page numbers. */
+    private int[] m_freePages;
+
+    /** The allocated slabs. */
+    private ByteBuffer[] m_slabs;
+
+    /** The number of allocated slabs. */
+    private int m_slabCount;
+
+    /** Thread local transfer buffer used for writing the blocks to an output stream. */
+    private ThreadLocal m_transferBuffer = new ThreadLocal() {
+
+        /**
+         * @see java.lang.ThreadLocal#initialValue()
+         */
+        protected Object initialValue() {
+
+            return new byte[PAGE_SIZE];
+        }
+    };
+
+    /**
+     * Creates a new buffer pool.<p>
+     * 
+     * @param maxBytes the maximum number of bytes of direct memory to use, 
+     *      this is rounded up to a multiple of {@link #SLAB_SIZE}
+     */
+    public CmsFlexBufferPool(int maxBytes) {
+
+        int maxSlabs = Math.max(1, (maxBytes + SLAB_SIZE - 1) / SLAB_SIZE);
+        m_slabs = new ByteBuffer[maxSlabs];
+        m_freePages = new int[maxSlabs * PAGES_PER_SLAB];
+        m_freeCount = 0;
+        m_slabCount = 0;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory allocated by this pool.<p>
+     * 
+     * @return the number of bytes of direct memory allocated by this pool
+     */
+    public synchronized long getAllocatedBytes() {
+
+        return (long)m_slabCount * SLAB_SIZE;
+    }
+
+    /**
+     * Returns the number of bytes currently used for stored blocks.<p>
+     * 
+     * @return the number of bytes currently used for stored blocks
+     */
+    public synchronized long getUsedBytes() {
+
+        return ((long)m_slabCount * PAGES_PER_SLAB - m_freeCount) * PAGE_SIZE;
+    }
+
+    /**
+     * Returns the maximum number of bytes of direct memory this pool may allocate.<p>
+     * 
+     * @return the maximum number of bytes of direct memory this pool may allocate
+     */
+    public long getMaxBytes() {
+
+        return (long)m_slabs.length * SLAB_SIZE;
+    }
+
+    /**
+     * Returns the pages of the given block to the free list.<p>
+     * 
+     * The block must not be used after it has been released.<p>
+     * 
+     * @param block the block to release
+     */
+    public synchronized void release(Block block) {
+
+        if (block.m_pages == null) {
+            // already released
+            return;
+        }
+        for (int i = block.m_pages.length - 1; i >= 0; i--) {
+            m_freePages[m_freeCount++] = block.m_pages[i];
+        }
+        block.m_pages = null;
+    }
+
+    /**
+     * Copies the given bytes into the pool.<p>
+     * 
+     * @param bytes the bytes to store
+     * 
+     * @return the block the bytes have been stored in, 
+     *      or <code>null</code> if there are not enough free pages left in the pool
+     */
+    public Block store(byte[] bytes) {
+
+        int[] pages = allocate((bytes.length + PAGE_SIZE - 1) / PAGE_SIZE);
+        if (pages == null) {
+            return null;
+        }
+        int offset = 0;
+        for (int i = 0; i < pages.length; i++) {
+            int len = Math.min(PAGE_SIZE, bytes.length - offset);
+            getPage(pages[i]).put(bytes, offset, len);
+            offset += len;
+        }
+        return new Block(pages, bytes.length);
+    }
+
+    /**
+     * Returns the contents of the given block as a new byte array.<p>
+     * 
+     * @param block the block to read
+     * 
+     * @return the contents of the given block
+     */
+    public byte[] toByteArray(Block block) {
+
+        byte[] result = new byte[block.m_length];
+        int[] pages = block.m_pages;
+        int offset = 0;
+        for (int i = 0; i < pages.length; i++) {
+            int len = Math.min(PAGE_SIZE, block.m_length - offset);
+            getPage(pages[i]).get(result, offset, len);
+            offset += len;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the contents of the given block to an output stream.<p>
+     * 
+     * @param block the block to write
+     * @param out the output stream to write to
+     * 
+     * @throws IOException in case of errors writing to the stream
+     */
+    public void writeTo(Block block, OutputStream out) throws IOException {
+
+        byte[] transfer = (byte[])m_transferBuffer.get();
+        int[] pages = block.m_pages;
+        int offset = 0;
+        for (int i = 0; i < pages.length; i++) {
+            int len = Math.min(PAGE_SIZE, block.m_length - offset);
+            getPage(pages[i]).get(transfer, 0, len);
+            out.write(transfer, 0, len);
+            offset += len;
+        }
+    }
+
+    /**
+     * Takes the given number of pages from the free list, allocating a new slab if required.<p>
+     * 
+     * @param count the number of pages required
+     * 
+     * @return the page numbers, or <code>null</code> if the pool is exhausted
+     */
+    private synchronized int[] allocate(int count) {
+
+        while ((m_freeCount < count) && (m_slabCount < m_slabs.length)) {
+            // allocate a new slab and add its pages to the free list
+            m_slabs[m_slabCount] = ByteBuffer.allocateDirect(SLAB_SIZE);
+            int firstPage = m_slabCount * PAGES_PER_SLAB;
+            for (int i = PAGES_PER_SLAB - 1; i >= 0; i--) {
+                m_freePages[m_freeCount++] = firstPage + i;
+            }
+            m_slabCount++;
+        }
+        if (m_freeCount < count) {
+            return null;
+        }
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = m_freePages[--m_freeCount];
+        }
+        return result;
+    }
+
+    /**
+     * Returns an independent buffer view on the given page, positioned at the start of the page.<p>
+     * 
+     * @param page the page number
+     * 
+     * @return a buffer view on the given page
+     */
+    private ByteBuffer getPage(int page) {
+
+        // no need to synchronize here: a slab is never replaced once allocated, and a page number 
+        // is only known to callers that got it from a synchronized allocate() call or from a block
+        // published through the synchronized cache maps
+        ByteBuffer result = m_slabs[page / PAGES_PER_SLAB].duplicate();
+        int start = (page % PAGES_PER_SLAB) * PAGE_SIZE;
+        result.limit(start + PAGE_SIZE);
+        result.position(start);
+        return result;
+    }
+}
@@ -34,23 +34,30 @@ package org.opencms.flex;
 import org.opencms.cache.CmsLruCache;
 import org.opencms.cache.I_CmsLruCacheObject;
 import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricCounter;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.security.CmsRole;
 import org.opencms.util.CmsFileUtil;
-import org.opencms.util.CmsStringUtil;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
 
-import org.apache.commons.collections.map.LRUMap;
 import org.apache.commons.logging.Log;
 
 /**
@@ -62,7 +69,7 @@ import org.apache.commons.logging.Log;
  * The first hash-level is calculated from the resource name, i.e. the
  * name of the resource as it is referred to in the VFS of OpenCms.
  * The second hash-level is calculated from the cache-key of the resource,
- * which also is a String representing the specifc variation of the cached entry.<p>
+ * which is a {@link CmsFlexVariationKey} representing the specifc variation of the cached entry.<p>
  *
  * A suffix [online] or [offline] is appended to te resource name
  * to distinguish between the online and offline projects of OpenCms.
@@ -73,7 +80,7 @@ import org.apache.commons.logging.Log;
  * Entries in the first level of the cache are of type CmsFlexCacheVariation,
  * which is a sub-class of CmsFlexCache.
  * This class is a simple data type that contains of a Map of CmsFlexCacheEntries,
- * with variations - Strings as keys.<p>
+ * with variation keys as keys.<p>
  *
  * Here's a short summary of used terms:
  * <ul>
@@ -83,15 +90,28 @@ import org.apache.commons.logging.Log;
  * <li><b>resource:</b>
  * A String with the resource name and an appended [online] of [offline] suffix.
  * <li><b>variation:</b>
- * A String describing a variation of a cached entry in the CmsFlexCache language.
+ * A CmsFlexVariationKey describing a variation of a cached entry, 
+ * its String form is written in the CmsFlexCache language.
  * <li><b>entry:</b>
  * A CmsFlexCacheEntry data structure which is describes a cached OpenCms resource.
  * For every entry a key is saved which contains the resource name and the variation.
  * </ul>
  *
+ * Both levels are concurrent maps, so looking up an entry does not block other requests.
+ * The entries are also organized in a {@link CmsLruCache} that evicts entries by their byte size,
+ * a cache hit is recorded there without waiting for its lock.
+ * If the number of resources exceeds the configured maximum, 
+ * the resources that have not been looked up for the longest time are removed in a batch.<p>
+ *
+ * Only one request renders a missing variation at a time, see {@link CmsFlexRendering}.
+ * Other requests for the same variation wait for its result up to the configured render wait time.
+ * If the resource has the <code>stale-while-revalidate</code> cache directive, 
+ * an expired entry is still delivered to the other requests while one request renders it again.<p>
+ *
  * Cache clearing is handled using events.
  * The cache is fully flushed if an event {@link I_CmsEventListener#EVENT_PUBLISH_PROJECT} 
- * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.<p>
+ * or {@link I_CmsEventListener#EVENT_CLEAR_CACHES} is caught.
+ * If configured, the most requested URLs are requested again afterwards, see {@link CmsFlexCacheWarmup}.<p>
  *
  * @author Alexander Kandzior 
  * @author Thomas Weckert  
@@ -117,8 +137,14 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         /** The key belonging to the resource. */
         public CmsFlexCacheKey m_key;
 
+        /** The time the resource was last looked up, used to remove the least recently used resources. */
+        volatile long m_lastAccess;
+
         /** Maps variations to CmsFlexCacheEntries. */
-        public Map m_map;
+        public ConcurrentMap m_map;
+
+        /** Maps variations to the renderings currently in progress. */
+        ConcurrentMap m_renderings;
 
         /**
          * Generates a new instance of CmsFlexCacheVariation.<p>
@@ -128,61 +154,41 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         public CmsFlexCacheVariation(CmsFlexCacheKey theKey) {
 
             m_key = theKey;
-            m_map = new Hashtable(INITIAL_CAPACITY_VARIATIONS);
+            m_map = new ConcurrentHashMap(INITIAL_CAPACITY_VARIATIONS);
+            m_renderings = new ConcurrentHashMap(INITIAL_CAPACITY_VARIATIONS);
+            m_lastAccess = System.currentTimeMillis();
         }
     }
 
     /**
-     * Extended LRUMap that handles the variations in case a key is removed.<p>
+     * A variation of a resource that is currently rendered by a request.<p>
      * 
-     * @author Alexander Kandzior 
+     * The rendering request registers the variation before it renders the resource,
+     * and releases it after the result has been put in the cache, or rendering has failed.
+     * Other requests for the same variation wait until the rendering is released.<p>
      */
-    class CmsFlexKeyMap extends LRUMap {
+    static class CmsFlexRendering extends Object {
 
-        /** Serial version UID required for safe serialization. */
-        private static final long serialVersionUID = 6931995916013396902L;
+        /** Released when the rendering is finished. */
+        final CountDownLatch m_done;
 
-        /**
-         * Initialize the map with the given size.<p>
-         * 
-         * @param maxSize the maximum number of key to cache 
-         */
-        public CmsFlexKeyMap(int maxSize) {
+        /** The renderings of the resource this rendering is registered in. */
+        final ConcurrentMap m_renderings;
 
-            super(maxSize);
-        }
+        /** The rendered variation. */
+        final CmsFlexVariationKey m_variation;
 
         /**
-         * Ensures that all variations that referenced by this key are released
-         * if the key is released.<p>
-         * 
-         * @param entry the entry to remove
+         * Creates a new rendering.<p>
          * 
-         * @return <code>true</code> to actually delete the entry
-         * 
-         * @see LRUMap#removeLRU(LinkEntry)
+         * @param renderings the renderings of the resource this rendering will be registered in
+         * @param variation the rendered variation
          */
-        protected boolean removeLRU(LinkEntry entry) {
+        CmsFlexRendering(ConcurrentMap renderings, CmsFlexVariationKey variation) {
 
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
-            if (v == null) {
-                return true;
-            }
-            Map m = v.m_map;
-            if ((m == null) || (m.size() == 0)) {
-                return true;
-            }
-            Object[] entries = m.values().toArray();
-            synchronized (m_variationCache) {
-                for (int i = 0, s = entries.length; i < s; i++) {
-                    CmsFlexCacheEntry e = (CmsFlexCacheEntry)entries[i];
-                    m_variationCache.remove(e);
-                }
-                v.m_map.clear();
-                v.m_map = null;
-                v.m_key = null;
-            }
-            return true;
+            m_done = new CountDownLatch(1);
+            m_renderings = renderings;
+            m_variation = variation;
         }
     }
 
@@ -222,24 +228,72 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
     /** Online repository constant. */
     public static final String REPOSITORY_ONLINE = "online";
 
+    /** The number of resources removed in one batch is the max. number of resources divided by this value. */
+    private static final int KEY_EVICTION_BATCH = 16;
+
+    /** The time of the last access of a resource is updated at most once in this number of milliseconds. */
+    private static final long KEY_ACCESS_RESOLUTION = 1000;
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCache.class);
 
     /** The LRU cache to organize the cached entries. */
     protected CmsLruCache m_variationCache;
 
+    /** The buffer pool to store the output of cached entries off heap, or <code>null</code> if disabled. */
+    private CmsFlexBufferPool m_bufferPool;
+
     /** Indicates if offline resources should be cached or not. */
     private boolean m_cacheOffline;
 
+    /** Counts the lookups that got an entry rendered by another request they have waited for. */
+    private CmsMetricCounter m_collapsedCounter;
+
     /** Indicates if the cache is enabled or not. */
     private boolean m_enabled;
 
+    /** Counts the lookups that found an expired entry. */
+    private CmsMetricCounter m_expiredCounter;
+
+    /** Counts the lookups that found a valid entry. */
+    private CmsMetricCounter m_hitCounter;
+
+    /** Signals that least recently used resources are being removed. */
+    private AtomicBoolean m_evictingKeys;
+
     /** Hashmap to store the entries for fast lookup. */
-    private Map m_keyCache;
+    private ConcurrentMap m_keyCache;
+
+    /** The max. number of resources in the cache. */
+    private int m_maxKeys;
+
+    /** Counts the lookups that found no entry. */
+    private CmsMetricCounter m_missCounter;
+
+    /** Counts the requests to decide which requests are sampled by the profiler. */
+    private AtomicLong m_profileCounter;
+
+    /** The name of the request header that triggers the profiler, or <code>null</code>. */
+    private String m_profileHeader;
+
+    /** Every n-th request is profiled, 0 to disable sampling. */
+    private int m_profileSampleRate;
+
+    /** The min. duration in milliseconds of a profiled request to be logged. */
+    private int m_profileThreshold;
+
+    /** The max. time in milliseconds a request waits for another request rendering the same variation. */
+    private int m_renderWaitTime;
 
     /** Counter for the size. */
     private int m_size;
 
+    /** Counts the lookups that got an expired entry while it was rendered again. */
+    private CmsMetricCounter m_staleCounter;
+
+    /** The warm-up after startup and publish, or <code>null</code> if disabled. */
+    private CmsFlexCacheWarmup m_warmup;
+
     /**
      * Constructor for class CmsFlexCache.<p>
      *
@@ -259,21 +313,49 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         int maxCacheBytes = configuration.getMaxCacheBytes();
         int avgCacheBytes = configuration.getAvgCacheBytes();
         int maxEntryBytes = configuration.getMaxEntryBytes();
-        int maxKeys = configuration.getMaxKeys();
+        m_maxKeys = configuration.getMaxKeys();
+        m_evictingKeys = new AtomicBoolean();
 
         m_variationCache = new CmsLruCache(maxCacheBytes, avgCacheBytes, maxEntryBytes);
+
+        CmsMetricsRegistry metrics = OpenCms.getMetricsRegistry();
+        m_hitCounter = metrics.getCounter("flexcache.hits");
+        m_missCounter = metrics.getCounter("flexcache.misses");
+        m_expiredCounter = metrics.getCounter("flexcache.expired");
+        m_staleCounter = metrics.getCounter("flexcache.stale");
+        m_collapsedCounter = metrics.getCounter("flexcache.collapsed");
+        m_renderWaitTime = configuration.getRenderWaitTime();
+
+        m_profileCounter = new AtomicLong();
+        m_profileHeader = configuration.getProfileHeader();
+        m_profileSampleRate = configuration.getProfileSampleRate();
+        m_profileThreshold = configuration.getProfileThreshold();
+
         OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_entryLruCache", m_variationCache);
 
         if (m_enabled) {
-            CmsFlexKeyMap flexKeyMap = new CmsFlexKeyMap(maxKeys);
-            m_keyCache = Collections.synchronizedMap(flexKeyMap);
-            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", flexKeyMap);
+            m_keyCache = new ConcurrentHashMap(INITIAL_CAPACITY_CACHE);
+            OpenCms.getMemoryMonitor().register(getClass().getName() + ".m_resourceMap", m_keyCache);
+
+            if (configuration.getOffHeapCacheBytes() > 0) {
+                m_bufferPool = new CmsFlexBufferPool(configuration.getOffHeapCacheBytes());
+                if (LOG.isInfoEnabled()) {
+                    LOG.info(Messages.get().getBundle().key(
+                        Messages.INIT_FLEXCACHE_OFFHEAP_1,
+                        new Long(m_bufferPool.getMaxBytes())));
+                }
+            }
 
             OpenCms.addCmsEventListener(this, new int[] {
                 I_CmsEventListener.EVENT_PUBLISH_PROJECT,
                 I_CmsEventListener.EVENT_CLEAR_CACHES,
                 I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY,
                 I_CmsEventListener.EVENT_FLEX_CACHE_CLEAR});
+
+            if (configuration.getWarmupUrls() > 0) {
+                m_warmup = new CmsFlexCacheWarmup(configuration);
+                m_warmup.initialize();
+            }
         }
 
         if (LOG.isInfoEnabled()) {
@@ -313,6 +395,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_RECEIVED_EVENT_CLEAR_CACHE_0));
                 }
                 clear();
+                if (m_warmup != null) {
+                    m_warmup.warmUp();
+                }
                 break;
             case I_CmsEventListener.EVENT_FLEX_PURGE_JSP_REPOSITORY:
                 if (LOG.isDebugEnabled()) {
@@ -367,6 +452,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the buffer pool used to store the output of cached entries off heap.<p>
+     * 
+     * @return the buffer pool, or <code>null</code> if the output is stored on the heap
+     */
+    public CmsFlexBufferPool getBufferPool() {
+
+        return m_bufferPool;
+    }
+
     /**
      * Returns the CmsFlexCacheKey data structure for a given
      * key (i.e. resource name).<p>
@@ -433,7 +528,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         Object o = m_keyCache.get(key);
         if (o != null) {
-            return ((CmsFlexCacheVariation)o).m_map.keySet();
+            Object[] variations = ((CmsFlexCacheVariation)o).m_map.keySet().toArray();
+            Set result = new HashSet(variations.length);
+            for (int i = 0; i < variations.length; i++) {
+                result.add(variations[i].toString());
+            }
+            return result;
         }
         return null;
     }
@@ -472,6 +572,16 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         return m_keyCache.size();
     }
 
+    /**
+     * Stops the warm-up of the cache and writes its request statistics.<p>
+     */
+    public void shutDown() {
+
+        if (m_warmup != null) {
+            m_warmup.shutDown();
+        }
+    }
+
     /**
      * Returns the total number of entries in the cache.<p>
      *
@@ -496,12 +606,98 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         super.finalize();
     }
 
+    /**
+     * Waits until another request has rendered the given variation of a resource.<p>
+     * 
+     * If no other request renders the variation, the variation is registered for the 
+     * given request, which then has to render the resource and release the rendering 
+     * with {@link #releaseRendering(CmsFlexRequestKey)}.<p>
+     * 
+     * @param requestKey the key of the request
+     * @param key the key of the resource
+     * @param variation the variation of the request
+     * 
+     * @return the entry rendered by another request, or <code>null</code> if the request 
+     *      has to render the resource itself
+     */
+    CmsFlexCacheEntry awaitRendering(CmsFlexRequestKey requestKey, CmsFlexCacheKey key, CmsFlexVariationKey variation) {
+
+        if (!isEnabled() || (m_renderWaitTime <= 0) || (requestKey.getRendering() != null)) {
+            // waiting is disabled, or the request already renders the variation
+            return null;
+        }
+        CmsFlexCacheVariation v = (CmsFlexCacheVariation)m_keyCache.get(key.getResource());
+        if (v == null) {
+            return null;
+        }
+        CmsFlexRendering rendering = new CmsFlexRendering(v.m_renderings, variation);
+        CmsFlexRendering current = (CmsFlexRendering)v.m_renderings.putIfAbsent(variation, rendering);
+        if (current == null) {
+            // no other request renders the variation
+            requestKey.setRendering(rendering);
+            return null;
+        }
+        try {
+            if (!current.m_done.await(m_renderWaitTime, TimeUnit.MILLISECONDS)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(
+                        Messages.LOG_FLEXCACHE_RENDER_WAIT_TIMEOUT_2,
+                        key.getResource(),
+                        new Integer(m_renderWaitTime)));
+                }
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        // the cache may have been cleared in the meantime, so the variations are looked up again 
+        v = (CmsFlexCacheVariation)m_keyCache.get(key.getResource());
+        if (v == null) {
+            return null;
+        }
+        CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
+        if ((entry == null) || (entry.getDateExpires() < System.currentTimeMillis())) {
+            // the result of the other request could not be cached
+            return null;
+        }
+        m_collapsedCounter.increment();
+        m_variationCache.access(entry);
+        return entry;
+    }
+
+    /**
+     * Creates a profiler for the given top level request, if the request should be profiled.<p>
+     * 
+     * A request is profiled if it sends the configured profile header, 
+     * or if it is selected by the configured sample rate.<p>
+     * 
+     * @param req the top level request
+     * 
+     * @return a new profiler, or <code>null</code> if the request should not be profiled
+     */
+    CmsFlexProfiler createProfiler(HttpServletRequest req) {
+
+        if ((m_profileHeader != null) && (req.getHeader(m_profileHeader) != null)) {
+            return new CmsFlexProfiler(req.getRequestURI(), m_profileThreshold, true);
+        }
+        if ((m_profileSampleRate > 0) && ((m_profileCounter.incrementAndGet() % m_profileSampleRate) == 0)) {
+            return new CmsFlexProfiler(req.getRequestURI(), m_profileThreshold, false);
+        }
+        return null;
+    }
+
     /**
      * Looks up a specific entry in the cache.<p>
      * 
      * In case a found entry has a timeout set, it will be checked upon lookup.
      * In case the timeout of the entry has been reached, it will be removed from
      * the cache (and null will be returned in this case).<p>
+     * 
+     * If the resource has the <code>stale-while-revalidate</code> cache directive, an expired 
+     * entry is kept for the given number of seconds. The first request after the expiration gets 
+     * <code>null</code> and the variation is registered for it, so it renders the resource again.
+     * Other requests get the expired entry until the new one is put in the cache.<p>
      *
      * @param key The key to look for in the cache
      * @return the entry found for the key, or null if key is not in the cache
@@ -512,29 +708,48 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
             // cache is disabled
             return null;
         }
-        Object o = m_keyCache.get(key.getResource());
-        if (o != null) {
+        CmsFlexCacheVariation v = getVariation(key.getResource());
+        if (v != null) {
             // found a matching key in the cache
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)o;
-            String variation = v.m_key.matchRequestKey(key);
+            CmsFlexVariationKey variation = v.m_key.getVariationKey(key);
 
-            if (CmsStringUtil.isEmpty(variation)) {
+            if (variation == null) {
                 // requested resource is not cacheable
                 return null;
             }
             CmsFlexCacheEntry entry = (CmsFlexCacheEntry)v.m_map.get(variation);
             if (entry == null) {
                 // no cache entry available for variation
+                m_missCounter.increment();
                 return null;
             }
-            if (entry.getDateExpires() < System.currentTimeMillis()) {
+            long now = System.currentTimeMillis();
+            if (entry.getDateExpires() < now) {
+                int staleWhileRevalidate = v.m_key.getStaleWhileRevalidate();
+                if ((staleWhileRevalidate > 0) && ((entry.getDateExpires() + (staleWhileRevalidate * 1000L)) > now)) {
+                    CmsFlexRendering rendering = new CmsFlexRendering(v.m_renderings, variation);
+                    if (v.m_renderings.putIfAbsent(variation, rendering) == null) {
+                        // this request renders the variation again
+                        key.setRendering(rendering);
+                        m_expiredCounter.increment();
+                        return null;
+                    }
+                    // another request renders the variation, deliver the expired entry meanwhile
+                    m_staleCounter.increment();
+                    m_variationCache.access(entry);
+                    return entry;
+                }
                 // cache entry avaiable but expired, remove entry
                 m_variationCache.remove(entry);
+                m_expiredCounter.increment();
                 return null;
             }
             // return the found cache entry
+            m_hitCounter.increment();
+            m_variationCache.access(entry);
             return entry;
         } else {
+            m_missCounter.increment();
             return null;
         }
     }
@@ -550,12 +765,12 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return null;
         }
-        Object o = m_keyCache.get(resource);
-        if (o != null) {
+        CmsFlexCacheVariation v = getVariation(resource);
+        if (v != null) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_FOUND_1, resource));
             }
-            return ((CmsFlexCacheVariation)o).m_key;
+            return v.m_key;
         } else {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1, resource));
@@ -591,7 +806,7 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      * @param variation the pre-calculated variation for the entry
      * @return true if the value was added to the cache, false otherwise
      */
-    boolean put(CmsFlexCacheKey key, CmsFlexCacheEntry entry, String variation) {
+    boolean put(CmsFlexCacheKey key, CmsFlexCacheEntry entry, CmsFlexVariationKey variation) {
 
         if (!isEnabled()) {
             return false;
@@ -601,14 +816,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         }
         if (variation != null) {
             // This is a cachable result
-            key.setVariation(variation);
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(
                     Messages.LOG_FLEXCACHE_ADD_ENTRY_WITH_VARIATION_2,
                     key.getResource(),
-                    key.getVariation()));
+                    variation));
             }
-            put(key, entry);
+            int maxEntryCosts = m_variationCache.getMaxObjectCosts();
+            if ((m_bufferPool != null) && ((maxEntryCosts == -1) || (entry.getLruCacheCosts() <= maxEntryCosts))) {
+                // move the output off heap before the entry becomes visible to other requests,
+                // entries too large for the LRU cache are not cached and stay on the heap
+                entry.moveToBufferPool(m_bufferPool);
+            }
+            putEntry(key, entry, variation);
             // Note that duplicates are NOT checked, it it assumed that this is done beforehand,
             // while checking if the entry is already in the cache or not.
             return true;
@@ -631,32 +851,73 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (!isEnabled()) {
             return;
         }
-        Object o = m_keyCache.get(key.getResource());
-        if (o == null) {
+        if (m_keyCache.get(key.getResource()) == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation variationMap = new CmsFlexCacheVariation(key);
-            m_keyCache.put(key.getResource(), variationMap);
-            if (LOG.isDebugEnabled()) {
-                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+            if (m_keyCache.putIfAbsent(key.getResource(), variationMap) == null) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADD_KEY_1, key.getResource()));
+                }
+                evictKeys();
             }
         }
         // If != null the key is already in the cache, so we just do nothing
     }
 
+    /**
+     * Records a top level request for the warm-up of the cache.<p>
+     * 
+     * @param cms the current users context
+     * @param resource the requested resource
+     * @param req the top level request
+     */
+    void recordRequest(CmsObject cms, CmsResource resource, HttpServletRequest req) {
+
+        if (m_warmup != null) {
+            String[] paramNames = null;
+            CmsFlexCacheVariation variation = (CmsFlexCacheVariation)m_keyCache.get(CmsFlexCacheKey.getKeyName(
+                resource.getRootPath(),
+                true));
+            if (variation != null) {
+                paramNames = variation.m_key.getParamNames();
+            }
+            m_warmup.record(cms, req, paramNames);
+        }
+    }
+
+    /**
+     * Releases the rendering registered for the given request, 
+     * so the requests waiting for the rendered variation continue.<p>
+     * 
+     * This must be called after the result of the request has been put in the cache,
+     * or if the request could not render the resource.<p>
+     * 
+     * @param key the key of the request
+     */
+    void releaseRendering(CmsFlexRequestKey key) {
+
+        CmsFlexRendering rendering = key.getRendering();
+        if (rendering != null) {
+            key.setRendering(null);
+            rendering.m_renderings.remove(rendering.m_variation, rendering);
+            rendering.m_done.countDown();
+        }
+    }
+
     /**
      * Removes an entry from the cache.<p>
      *
-     * @param key the key which describes the entry to remove from the cache
+     * @param key the key which describes the resource of the entry to remove from the cache
+     * @param variation the variation of the entry to remove from the cache
      */
-    void remove(CmsFlexCacheKey key) {
+    void remove(CmsFlexCacheKey key, CmsFlexVariationKey variation) {
 
         if (!isEnabled()) {
             return;
         }
         Object o = m_keyCache.get(key.getResource());
         if (o != null) {
-            //Object old = ((HashMap)o).remove(key.Variation);
-            Object old = ((HashMap)o).get(key.getVariation());
+            Object old = ((CmsFlexCacheVariation)o).m_map.get(variation);
             if (old != null) {
                 getEntryLruCache().remove((I_CmsLruCacheObject)old);
             }
@@ -695,36 +956,19 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      */
     private synchronized void clearAccordingToSuffix(String suffix, boolean entriesOnly) {
 
-        Set keys = new HashSet(m_keyCache.keySet());
-        Iterator i = keys.iterator();
+        // the iterator of the concurrent map does not throw ConcurrentModificationExceptions
+        Iterator i = m_keyCache.entrySet().iterator();
         while (i.hasNext()) {
-            String s = (String)i.next();
+            Map.Entry entry = (Map.Entry)i.next();
+            String s = (String)entry.getKey();
             if (s.endsWith(suffix)) {
-                CmsFlexCacheVariation v = (CmsFlexCacheVariation)m_keyCache.get(s);
-                if (entriesOnly) {
-                    // Clear only entry
-                    m_size -= v.m_map.size();
-                    Iterator allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = (I_CmsLruCacheObject)allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-                    v.m_map = new Hashtable(INITIAL_CAPACITY_VARIATIONS);
-                } else {
+                CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
+                if (!entriesOnly) {
                     // Clear key and entry
-                    m_size -= v.m_map.size();
-                    Iterator allEntries = v.m_map.values().iterator();
-                    while (allEntries.hasNext()) {
-                        I_CmsLruCacheObject nextObject = (I_CmsLruCacheObject)allEntries.next();
-                        allEntries.remove();
-                        m_variationCache.remove(nextObject);
-                    }
-
-                    v.m_map = null;
-                    v.m_key = null;
-                    m_keyCache.remove(s);
+                    i.remove();
                 }
+                m_size -= v.m_map.size();
+                releaseEntries(v);
             }
         }
         if (LOG.isInfoEnabled()) {
@@ -751,18 +995,10 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_CLEAR_ALL_0));
         }
-        // create new set to avoid ConcurrentModificationExceptions
-        Set cacheKeys = new HashSet(m_keyCache.keySet());
-        Iterator i = cacheKeys.iterator();
+        // the iterator of the concurrent map does not throw ConcurrentModificationExceptions
+        Iterator i = m_keyCache.values().iterator();
         while (i.hasNext()) {
-            CmsFlexCacheVariation v = (CmsFlexCacheVariation)m_keyCache.get(i.next());
-            Iterator allEntries = v.m_map.values().iterator();
-            while (allEntries.hasNext()) {
-                I_CmsLruCacheObject nextObject = (I_CmsLruCacheObject)allEntries.next();
-                allEntries.remove();
-                m_variationCache.remove(nextObject);
-            }
-            v.m_map = new Hashtable(INITIAL_CAPACITY_VARIATIONS);
+            releaseEntries((CmsFlexCacheVariation)i.next());
         }
         m_size = 0;
     }
@@ -845,6 +1081,65 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         clearAccordingToSuffix(CACHE_ONLINESUFFIX, true);
     }
 
+    /**
+     * Removes the least recently used resources with all their entries 
+     * if the cache contains more than the max. number of resources.<p>
+     * 
+     * To avoid a scan of all resources for every new resource, a batch of resources is removed.
+     * Only one thread removes resources at a time, other threads don't wait for it.<p>
+     */
+    private void evictKeys() {
+
+        if ((m_keyCache.size() <= m_maxKeys) || !m_evictingKeys.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Object[] variations = m_keyCache.values().toArray();
+            int count = Math.min(variations.length, (variations.length - m_maxKeys) + (m_maxKeys / KEY_EVICTION_BATCH));
+            if (count <= 0) {
+                return;
+            }
+            long[] accessDates = new long[variations.length];
+            for (int i = 0; i < variations.length; i++) {
+                accessDates[i] = ((CmsFlexCacheVariation)variations[i]).m_lastAccess;
+            }
+            Arrays.sort(accessDates);
+            long limit = accessDates[count - 1];
+            Iterator i = m_keyCache.entrySet().iterator();
+            while (i.hasNext() && (count > 0)) {
+                Map.Entry entry = (Map.Entry)i.next();
+                CmsFlexCacheVariation v = (CmsFlexCacheVariation)entry.getValue();
+                if ((v.m_lastAccess <= limit) && m_keyCache.remove(entry.getKey(), v)) {
+                    releaseEntries(v);
+                    count--;
+                }
+            }
+        } finally {
+            m_evictingKeys.set(false);
+        }
+    }
+
+    /**
+     * Returns the variations of a resource and records the access for the removal of
+     * the least recently used resources.<p>
+     * 
+     * @param resource the resource name
+     * 
+     * @return the variations of the resource, or <code>null</code> if the resource is not cached
+     */
+    private CmsFlexCacheVariation getVariation(String resource) {
+
+        CmsFlexCacheVariation v = (CmsFlexCacheVariation)m_keyCache.get(resource);
+        if (v != null) {
+            long now = System.currentTimeMillis();
+            // avoid writing the shared field for every request of popular resources
+            if ((now - v.m_lastAccess) > KEY_ACCESS_RESOLUTION) {
+                v.m_lastAccess = now;
+            }
+        }
+        return v;
+    }
+
     /**
      * This method purges the JSP repository dirs,
      * i.e. it deletes all JSP files that OpenCms has written to the
@@ -868,6 +1163,9 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
         d = new File(org.opencms.loader.CmsJspLoader.getJspRepository() + REPOSITORY_OFFLINE + File.separator);
         CmsFileUtil.purgeDirectory(d);
 
+        // the pages must be written again
+        org.opencms.loader.CmsJspLoader.getJspRegistry().clear();
+
         clear();
         if (LOG.isInfoEnabled()) {
             LOG.info(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_PURGED_JSP_REPOSITORY_0));
@@ -879,47 +1177,59 @@ public class CmsFlexCache extends Object implements I_CmsEventListener {
      *
      * @param key the key under shich the value is saved
      * @param theCacheEntry the entry to cache
+     * @param variation the variation of the entry
      */
-    private void put(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry) {
+    private void putEntry(CmsFlexCacheKey key, CmsFlexCacheEntry theCacheEntry, CmsFlexVariationKey variation) {
 
-        Object o = m_keyCache.get(key.getResource());
         if (key.getTimeout() > 0) {
             theCacheEntry.setDateExpiresToNextTimeout(key.getTimeout());
         }
-        if (o != null) {
-            // We already have a variation map for this resource
-            Map m = ((CmsFlexCacheVariation)o).m_map;
-            boolean wasAdded = true;
-            if (!m.containsKey(key.getVariation())) {
-                wasAdded = m_variationCache.add(theCacheEntry);
-            } else {
-                wasAdded = m_variationCache.touch(theCacheEntry);
-            }
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), m);
-                m.put(key.getVariation(), theCacheEntry);
-            }
-        } else {
+        CmsFlexCacheVariation v = (CmsFlexCacheVariation)m_keyCache.get(key.getResource());
+        if (v == null) {
             // No variation map for this resource yet, so create one
             CmsFlexCacheVariation list = new CmsFlexCacheVariation(key);
-
-            boolean wasAdded = m_variationCache.add(theCacheEntry);
-
-            if (wasAdded) {
-                theCacheEntry.setVariationData(key.getVariation(), list.m_map);
-                list.m_map.put(key.getVariation(), theCacheEntry);
-                m_keyCache.put(key.getResource(), list);
+            v = (CmsFlexCacheVariation)m_keyCache.putIfAbsent(key.getResource(), list);
+            if (v == null) {
+                v = list;
+                evictKeys();
             }
         }
 
+        // the entry is put in the map before it is added to the LRU cache, 
+        // so the LRU cache can remove it again if it is evicted right away 
+        theCacheEntry.setVariationData(variation, v.m_map);
+        CmsFlexCacheEntry previous = (CmsFlexCacheEntry)v.m_map.put(variation, theCacheEntry);
+        if ((previous != null) && (previous != theCacheEntry)) {
+            // the variation has been rendered by another request in the meantime
+            m_variationCache.remove(previous);
+        }
+        if (!m_variationCache.add(theCacheEntry)) {
+            // the entry is too large to be cached, remove it from the variation map 
+            // and return its off heap output to the buffer pool
+            theCacheEntry.removeFromLruCache();
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(
                 Messages.LOG_FLEXCACHE_ADDED_ENTRY_FOR_RESOURCE_WITH_VARIATION_3,
                 new Integer(m_size),
                 key.getResource(),
-                key.getVariation()));
+                variation));
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_ADDED_ENTRY_1, theCacheEntry.toString()));
         }
     }
+
+    /**
+     * Removes all entries of a resource from the cache.<p>
+     * 
+     * @param v the variations of the resource
+     */
+    private void releaseEntries(CmsFlexCacheVariation v) {
+
+        Object[] entries = v.m_map.values().toArray();
+        for (int i = 0; i < entries.length; i++) {
+            // the entry removes itself from the variation map
+            m_variationCache.remove((I_CmsLruCacheObject)entries[i]);
+        }
+    }
 }
\ No newline at end of file
@@ -31,6 +31,8 @@
 
 package org.opencms.flex;
 
+import org.opencms.util.CmsStringUtil;
+
 /**
  * Flex Cache configuration class.<p>
  * 
@@ -42,6 +44,24 @@ package org.opencms.flex;
  */
 public class CmsFlexCacheConfiguration {
 
+    /** The default max. time in milliseconds a request waits for another request rendering the same variation. */
+    public static final int DEFAULT_RENDER_WAIT_TIME = 5000;
+
+    /** The default delay in milliseconds before a warm-up request. */
+    public static final int DEFAULT_WARMUP_DELAY = 200;
+
+    /** The default max. number of live requests per second the warm-up continues with. */
+    public static final int DEFAULT_WARMUP_LIVE_REQUESTS = 20;
+
+    /** The default URL of the server the warm-up requests are sent to. */
+    public static final String DEFAULT_WARMUP_SERVER = "http://127.0.0.1:8080";
+
+    /** The default delay in seconds before the warm-up after startup. */
+    public static final int DEFAULT_WARMUP_START_DELAY = 60;
+
+    /** The default number of threads of a warm-up. */
+    public static final int DEFAULT_WARMUP_THREADS = 2;
+
     private int m_avgCacheBytes;
 
     /** Indicates if the cache is enabled or not. */
@@ -64,6 +84,39 @@ public class CmsFlexCacheConfiguration {
 
     private int m_maxKeys;
 
+    /** The maximum number of bytes of direct memory used to store the cached output off heap, 0 to disable. */
+    private int m_offHeapCacheBytes;
+
+    /** The name of the request header that triggers the profiling of a request, or <code>null</code> to disable. */
+    private String m_profileHeader;
+
+    /** Every n-th request is profiled, 0 to disable sampling. */
+    private int m_profileSampleRate;
+
+    /** The min. duration in milliseconds of a profiled request to be logged. */
+    private int m_profileThreshold;
+
+    /** The max. time in milliseconds a request waits for another request rendering the same variation. */
+    private int m_renderWaitTime = DEFAULT_RENDER_WAIT_TIME;
+
+    /** The delay in milliseconds before a warm-up request. */
+    private int m_warmupDelay = DEFAULT_WARMUP_DELAY;
+
+    /** The max. number of live requests per second the warm-up continues with, 0 for no limit. */
+    private int m_warmupLiveRequests = DEFAULT_WARMUP_LIVE_REQUESTS;
+
+    /** The URL of the server the warm-up requests are sent to. */
+    private String m_warmupServer = DEFAULT_WARMUP_SERVER;
+
+    /** The delay in seconds before the warm-up after startup. */
+    private int m_warmupStartDelay = DEFAULT_WARMUP_START_DELAY;
+
+    /** The number of threads of a warm-up. */
+    private int m_warmupThreads = DEFAULT_WARMUP_THREADS;
+
+    /** The max. number of URLs requested by a warm-up, 0 to disable the warm-up. */
+    private int m_warmupUrls;
+
     /**
      * Empty public constructor for the digester.
      */
@@ -112,6 +165,125 @@ public class CmsFlexCacheConfiguration {
         return m_maxKeys;
     }
 
+    /**
+     * Returns the maximum number of bytes of direct memory used to store the output 
+     * of cached entries off heap.<p>
+     *
+     * @return the maximum number of off heap bytes, or 0 if the output is stored on the heap
+     */
+    public int getOffHeapCacheBytes() {
+
+        return m_offHeapCacheBytes;
+    }
+
+    /**
+     * Returns the name of the request header that triggers the profiling of a request.<p>
+     *
+     * @return the name of the request header, or <code>null</code> if profiling can not be triggered by a header
+     */
+    public String getProfileHeader() {
+
+        return m_profileHeader;
+    }
+
+    /**
+     * Returns the rate of the requests that are profiled, a value of n means that every n-th request is profiled.<p>
+     *
+     * @return the rate of the requests that are profiled, or 0 if sampling is disabled
+     */
+    public int getProfileSampleRate() {
+
+        return m_profileSampleRate;
+    }
+
+    /**
+     * Returns the min. duration in milliseconds of a profiled request to be logged.<p>
+     *
+     * @return the min. duration in milliseconds of a profiled request to be logged
+     */
+    public int getProfileThreshold() {
+
+        return m_profileThreshold;
+    }
+
+    /**
+     * Returns the max. time in milliseconds a request waits for another request 
+     * that renders the same variation of a resource.<p>
+     *
+     * @return the max. time in milliseconds to wait, or 0 if every request renders the resource itself
+     */
+    public int getRenderWaitTime() {
+
+        return m_renderWaitTime;
+    }
+
+    /**
+     * Returns the delay in milliseconds before a warm-up request.<p>
+     *
+     * @return the delay in milliseconds before a warm-up request
+     */
+    public int getWarmupDelay() {
+
+        return m_warmupDelay;
+    }
+
+    /**
+     * Returns the max. number of live requests per second the warm-up continues with.<p>
+     * 
+     * If there are more live requests, the warm-up waits.<p>
+     *
+     * @return the max. number of live requests per second, or 0 for no limit
+     */
+    public int getWarmupLiveRequests() {
+
+        return m_warmupLiveRequests;
+    }
+
+    /**
+     * Returns the URL of the server the warm-up requests are sent to, e.g. <code>http://127.0.0.1:8080</code>.<p>
+     * 
+     * This must be a HTTP connector of the local servlet container, so that the warm-up fills the 
+     * FlexCache of this server also in a cluster. The recorded URLs only contain the path and the 
+     * query, the site is selected by the server name of the site configuration.<p>
+     *
+     * @return the URL of the server the warm-up requests are sent to
+     */
+    public String getWarmupServer() {
+
+        return m_warmupServer;
+    }
+
+    /**
+     * Returns the delay in seconds before the warm-up after startup.<p>
+     *
+     * @return the delay in seconds before the warm-up after startup
+     */
+    public int getWarmupStartDelay() {
+
+        return m_warmupStartDelay;
+    }
+
+    /**
+     * Returns the number of threads of a warm-up.<p>
+     *
+     * @return the number of threads of a warm-up
+     */
+    public int getWarmupThreads() {
+
+        return m_warmupThreads;
+    }
+
+    /**
+     * Returns the max. number of the most requested URLs that are requested by a warm-up
+     * after startup and after a publish.<p>
+     *
+     * @return the max. number of URLs requested by a warm-up, or 0 if the warm-up is disabled
+     */
+    public int getWarmupUrls() {
+
+        return m_warmupUrls;
+    }
+
     /**
      * Initializes the flex cache configuration with required parameters.<p>
      * 
@@ -217,4 +389,119 @@ public class CmsFlexCacheConfiguration {
 
         m_maxKeys = maxKeys;
     }
+
+    /**
+     * Sets the maximum number of bytes of direct memory used to store the output 
+     * of cached entries off heap.<p>
+     *
+     * @param offHeapCacheBytes the maximum number of off heap bytes to set, 0 to disable
+     */
+    public void setOffHeapCacheBytes(int offHeapCacheBytes) {
+
+        m_offHeapCacheBytes = offHeapCacheBytes;
+    }
+
+    /**
+     * Sets the name of the request header that triggers the profiling of a request.<p>
+     *
+     * @param profileHeader the name of the request header to set
+     */
+    public void setProfileHeader(String profileHeader) {
+
+        m_profileHeader = CmsStringUtil.isEmptyOrWhitespaceOnly(profileHeader) ? null : profileHeader.trim();
+    }
+
+    /**
+     * Sets the rate of the requests that are profiled, a value of n means that every n-th request is profiled.<p>
+     *
+     * @param profileSampleRate the rate of the requests that are profiled, 0 to disable sampling
+     */
+    public void setProfileSampleRate(int profileSampleRate) {
+
+        m_profileSampleRate = profileSampleRate;
+    }
+
+    /**
+     * Sets the min. duration in milliseconds of a profiled request to be logged.<p>
+     *
+     * @param profileThreshold the min. duration in milliseconds to set
+     */
+    public void setProfileThreshold(int profileThreshold) {
+
+        m_profileThreshold = profileThreshold;
+    }
+
+    /**
+     * Sets the max. time in milliseconds a request waits for another request 
+     * that renders the same variation of a resource.<p>
+     *
+     * @param renderWaitTime the max. time in milliseconds to wait, 0 to disable waiting
+     */
+    public void setRenderWaitTime(int renderWaitTime) {
+
+        m_renderWaitTime = Math.max(renderWaitTime, 0);
+    }
+
+    /**
+     * Sets the delay in milliseconds before a warm-up request.<p>
+     *
+     * @param warmupDelay the delay in milliseconds to set
+     */
+    public void setWarmupDelay(int warmupDelay) {
+
+        m_warmupDelay = warmupDelay;
+    }
+
+    /**
+     * Sets the max. number of live requests per second the warm-up continues with.<p>
+     *
+     * @param warmupLiveRequests the max. number of live requests per second to set, 0 for no limit
+     */
+    public void setWarmupLiveRequests(int warmupLiveRequests) {
+
+        m_warmupLiveRequests = Math.max(warmupLiveRequests, 0);
+    }
+
+    /**
+     * Sets the URL of the server the warm-up requests are sent to.<p>
+     *
+     * @param warmupServer the URL of the server to set, e.g. <code>http://127.0.0.1:8080</code>
+     */
+    public void setWarmupServer(String warmupServer) {
+
+        if (CmsStringUtil.isNotEmptyOrWhitespaceOnly(warmupServer)) {
+            m_warmupServer = warmupServer.trim();
+        }
+    }
+
+    /**
+     * Sets the delay in seconds before the warm-up after startup.<p>
+     *
+     * @param warmupStartDelay the delay in seconds to set
+     */
+    public void setWarmupStartDelay(int warmupStartDelay) {
+
+        m_warmupStartDelay = Math.max(warmupStartDelay, 0);
+    }
+
+    /**
+     * Sets the number of threads of a warm-up.<p>
+     *
+     * @param warmupThreads the number of threads to set
+     */
+    public void setWarmupThreads(int warmupThreads) {
+
+        m_warmupThreads = warmupThreads;
+    }
+
+    /**
+     * Sets the max. number of the most requested URLs that are requested by a warm-up
+     * after startup and after a publish.<p>
+     *
+     * @param warmupUrls the max. number of URLs to set, 0 to disable the warm-up
+     */
+    public void setWarmupUrls(int warmupUrls) {
+
+        m_warmupUrls = Math.max(warmupUrls, 0);
+    }
 }
@@ -44,6 +44,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.ServletException;
 
@@ -59,7 +60,8 @@ import org.apache.commons.logging.Log;
  * A CmsFlexCacheEntry might also describe a redirect-call, but in this case
  * nothing else will be cached.<p>
  *
- * The pre-generated output is saved in <code>byte[]</code> arrays.
+ * The pre-generated output is saved in <code>byte[]</code> arrays, or in blocks of a 
+ * {@link CmsFlexBufferPool} if the Flex cache is configured to store the output off heap.
  * The include() calls are saved as Strings of the included resource name, 
  * the parameters for the calls are saved in a HashMap.
  * The headers are saved in a HashMap.
@@ -85,6 +87,9 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsFlexCacheEntry.class);
 
+    /** The buffer pool the output of this entry is stored in, or <code>null</code> if stored on the heap. */
+    private CmsFlexBufferPool m_bufferPool;
+
     /** The CacheEntry's size in bytes. */
     private int m_byteSize;
 
@@ -109,11 +114,20 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
     /** Pointer to the previous cache entry in the LRU cache. */
     private I_CmsLruCacheObject m_previous;
 
+    /** Indicates if the blocks of this entry have been returned to the buffer pool. */
+    private boolean m_released;
+
+    /** Indicates if this entry has been removed from the LRU cache. */
+    private boolean m_removed;
+
     /** A redirection target (if redirection is set). */
     private String m_redirectTarget;
 
+    /** The number of requests currently delivering this entry. */
+    private int m_users;
+
     /** The key under which this cache entry is stored in the variation map. */
-    private String m_variationKey;
+    private CmsFlexVariationKey m_variationKey;
 
     /** The variation map where this cache entry is stored. */
     private Map m_variationMap;
@@ -233,7 +247,8 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
     /**
      * Returns the list of data entries of this cache entry.<p>
      * 
-     * Data entries are byte arrays representing some kind of output
+     * Data entries are byte arrays (or {@link CmsFlexBufferPool.Block} objects if the output 
+     * is stored off heap) representing some kind of output
      * or Strings representing include calls to other resources.<p>
      *
      * @return the list of data elements of this cache entry
@@ -310,7 +325,18 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
     public void removeFromLruCache() {
 
         if ((m_variationMap != null) && (m_variationKey != null)) {
-            m_variationMap.remove(m_variationKey);
+            if (m_variationMap instanceof ConcurrentMap) {
+                // the variation may already point to a newer entry
+                ((ConcurrentMap)m_variationMap).remove(m_variationKey, this);
+            } else {
+                m_variationMap.remove(m_variationKey);
+            }
+        }
+        synchronized (this) {
+            m_removed = true;
+            if (m_users == 0) {
+                releaseBlocks();
+            }
         }
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(
@@ -369,7 +395,11 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
                     }
                 } else {
                     try {
-                        res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        if (o instanceof CmsFlexBufferPool.Block) {
+                            res.writeToOutputStream(m_bufferPool, (CmsFlexBufferPool.Block)o);
+                        } else {
+                            res.writeToOutputStream((byte[])o, hasNoSubElements);
+                        }
                     } catch (IOException e) {
                         CmsMessageContainer message = Messages.get().container(
                             Messages.LOG_FLEXCACHEKEY_NOT_FOUND_1,
@@ -501,7 +531,7 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
      * @param theVariationKey the variation key
      * @param theVariationMap the variation map
      */
-    public void setVariationData(String theVariationKey, Map theVariationMap) {
+    public void setVariationData(CmsFlexVariationKey theVariationKey, Map theVariationMap) {
 
         m_variationKey = theVariationKey;
         m_variationMap = theVariationMap;
@@ -526,6 +556,12 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
                     str += "" + count + " - <cms:include target=" + o + ">\n";
                 } else if (o instanceof byte[]) {
                     str += "" + count + " - <![CDATA[" + new String((byte[])o) + "]]>\n";
+                } else if (o instanceof CmsFlexBufferPool.Block) {
+                    str += ""
+                        + count
+                        + " - <!--[off heap block with "
+                        + ((CmsFlexBufferPool.Block)o).getLength()
+                        + " bytes]-->\n";
                 } else {
                     str += "<!--[" + o.toString() + "]-->";
                 }
@@ -535,4 +571,89 @@ public class CmsFlexCacheEntry extends Object implements I_CmsLruCacheObject, I_
         }
         return str;
     }
+
+    /**
+     * Moves the output of this completed cache entry from the heap to the given buffer pool.<p>
+     * 
+     * If the pool has not enough free pages left, the output stays on the heap.<p>
+     * 
+     * @param pool the buffer pool to store the output in
+     * 
+     * @return <code>true</code> if the output has been moved to the pool
+     */
+    boolean moveToBufferPool(CmsFlexBufferPool pool) {
+
+        if (!m_completed || (m_elements == null) || (m_bufferPool != null)) {
+            return false;
+        }
+        List elements = new ArrayList(m_elements.size());
+        for (int i = 0; i < m_elements.size(); i++) {
+            Object o = m_elements.get(i);
+            if (o instanceof byte[]) {
+                CmsFlexBufferPool.Block block = pool.store((byte[])o);
+                if (block == null) {
+                    // pool is exhausted, keep the output of this entry on the heap
+                    for (int j = 0; j < elements.size(); j++) {
+                        if (elements.get(j) instanceof CmsFlexBufferPool.Block) {
+                            pool.release((CmsFlexBufferPool.Block)elements.get(j));
+                        }
+                    }
+                    return false;
+                }
+                o = block;
+            }
+            elements.add(o);
+        }
+        m_bufferPool = pool;
+        m_elements = Collections.unmodifiableList(elements);
+        return true;
+    }
+
+    /**
+     * Signals that a request has finished delivering this entry.<p>
+     * 
+     * @see #retain()
+     */
+    synchronized void release() {
+
+        m_users--;
+        if (m_removed && (m_users == 0)) {
+            releaseBlocks();
+        }
+    }
+
+    /**
+     * Signals that a request is about to deliver this entry.<p>
+     * 
+     * The off heap output of an entry that was removed from the cache is kept 
+     * until all requests that have retained the entry have called {@link #release()}.<p>
+     * 
+     * @return <code>false</code> if the output of this entry is no longer available, 
+     *      in this case the entry must not be used and {@link #release()} must not be called
+     */
+    synchronized boolean retain() {
+
+        if (m_released) {
+            return false;
+        }
+        m_users++;
+        return true;
+    }
+
+    /**
+     * Returns the off heap blocks of this entry to the buffer pool.<p>
+     */
+    private void releaseBlocks() {
+
+        if ((m_bufferPool == null) || m_released) {
+            return;
+        }
+        m_released = true;
+        for (int i = 0; i < m_elements.size(); i++) {
+            Object o = m_elements.get(i);
+            if (o instanceof CmsFlexBufferPool.Block) {
+                m_bufferPool.release((CmsFlexBufferPool.Block)o);
+            }
+        }
+    }
 }
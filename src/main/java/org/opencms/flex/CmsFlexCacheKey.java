@@ -52,6 +52,10 @@ import org.apache.commons.logging.Log;
  * which is a key used to describe the caching behaviour
  * of a specific resource.<p>
  *
+ * The cache directives are parsed once when the key is created. For a request,
+ * {@link #getVariationKey(CmsFlexRequestKey)} then only collects the values the directives
+ * select from the request into a {@link CmsFlexVariationKey}, without building a String.<p>
+ *
  * It has a lot of variables that are directly accessed (which isn't good style, I know)
  * to avoid method calling overhead (a cache is about speed, isn't it :).<p>
  *
@@ -117,6 +121,9 @@ public class CmsFlexCacheKey {
     /** Flex cache keyword: site. */
     private static final String CACHE_17_SITE = "site";
 
+    /** Flex cache keyword: stale-while-revalidate. */
+    private static final String CACHE_18_STALE_WHILE_REVALIDATE = "stale-while-revalidate";
+
     /** The list of keywords of the Flex cache language. */
     private static final List CACHE_COMMANDS = Arrays.asList(new String[] {
         CACHE_00_ALWAYS,
@@ -136,7 +143,8 @@ public class CmsFlexCacheKey {
         CACHE_14_ELEMENT,
         CACHE_15_LOCALE,
         CACHE_16_ENCODING,
-        CACHE_17_SITE});
+        CACHE_17_SITE,
+        CACHE_18_STALE_WHILE_REVALIDATE});
 
     /** Marker to identify use of certain String key members (uri, ip etc.). */
     private static final String IS_USED = "/ /";
@@ -147,21 +155,36 @@ public class CmsFlexCacheKey {
     /** Cache key variable: Determines if this resource can be cached alwys, never or under certain conditions. -1 = never, 0=check, 1=always. */
     private int m_always;
 
+    /** The variation used for all requests if the resource is always cached. */
+    private CmsFlexVariationKey m_alwaysVariation;
+
+    /** The cache directives of this key as String, used to compare variations of different key instances. */
+    private String m_directives;
+
     /** Cache key variable: The requested element. */
     private String m_element;
 
     /** Cache key variable: The requested encoding. */
     private String m_encoding;
 
+    /** Signals that the variation is not empty even if no session attribute is found. */
+    private boolean m_fixedOutput;
+
     /** Cache key variable: The ip address of the request. */
     private String m_ip;
 
     /** Cache key variable: The requested locale. */
     private String m_locale;
 
+    /** The names of the "blocking" parameters, for the matching. */
+    private String[] m_noParamNames;
+
     /** Cache key variable: List of "blocking" parameters. */
     private Set m_noparams;
 
+    /** The names of the parameters, for the matching, or <code>null</code> if all parameters are used. */
+    private String[] m_paramNames;
+
     /** Cache key variable: List of parameters. */
     private Set m_params;
 
@@ -180,9 +203,15 @@ public class CmsFlexCacheKey {
     /** Cache key variable: List of session variables. */
     private Set m_session;
 
+    /** The names of the session variables, for the matching. */
+    private String[] m_sessionNames;
+
     /** Cache key variable: The current site root. */
     private String m_site;
 
+    /** Cache key variable: Seconds an expired entry is still delivered while it is rendered again. */
+    private int m_staleWhileRevalidate;
+
     /** Cache key variable: Timeout of the resource. */
     private long m_timeout;
 
@@ -192,8 +221,8 @@ public class CmsFlexCacheKey {
     /** Cache key variable: The user id. */
     private String m_user;
 
-    /** The cache behaviour description for the resource. */
-    private String m_variation;
+    /** The number of values of a variation key. */
+    private int m_variationSize;
 
     /**
      * This constructor is used when building a cache key from set of cache directives.<p>
@@ -214,14 +243,15 @@ public class CmsFlexCacheKey {
     public CmsFlexCacheKey(String resourcename, String cacheDirectives, boolean online) {
 
         m_resource = getKeyName(resourcename, online);
-        m_variation = "never";
         m_always = -1;
         m_timeout = -1;
+        m_staleWhileRevalidate = -1;
         if (cacheDirectives != null) {
             parseFlexKey(cacheDirectives);
         }
+        initVariation();
         if (LOG.isDebugEnabled()) {
-            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_GENERATED_1, toString()));
+            LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_GENERATED_1, m_directives));
         }
     }
 
@@ -259,21 +289,32 @@ public class CmsFlexCacheKey {
     }
 
     /**
-     * This flag is used to indicate that a parse error had
-     * occurred, which can happen if the cache directives String
-     * passed to the constructor using the response is
-     * not build according to the Flex cache language syntax.<p>
+     * Returns the names and first values of all given request parameters, sorted by name.<p>
      * 
-     * @return true if a parse error did occur, false otherwise
+     * @param params the request parameters, a map of String to String[], may be <code>null</code>
+     * 
+     * @return the names and values in the form <code>{name0, value0, name1, value1, ...}</code>, 
+     *      or <code>null</code> if no parameters are given
      */
-    public boolean hadParseError() {
+    private static String[] getParameterValues(Map params) {
 
-        return m_parseError;
+        if (params == null) {
+            return null;
+        }
+        String[] names = (String[])params.keySet().toArray(new String[params.size()]);
+        Arrays.sort(names);
+        String[] result = new String[names.length * 2];
+        for (int i = 0; i < names.length; i++) {
+            result[i * 2] = names[i];
+            // TODO: handle multiple occurances of the same parameter value
+            result[i * 2 + 1] = ((String[])params.get(names[i]))[0];
+        }
+        return result;
     }
 
     /**
-     * Compares this key to the other key passed as parameter,
-     * from comparing the two keys, a variation String is constructed.<p>
+     * Compares this key to the request key passed as parameter,
+     * from comparing the two keys, a variation key is constructed.<p>
      * 
      * This method is the "heart" of the key matching process.<p>
      *
@@ -282,14 +323,15 @@ public class CmsFlexCacheKey {
      *
      * A short example how this works:
      * If the cache key is "cache=user" and the request is done from a guest user
-     * the constructed variation will be "user=(guest)".<p>
+     * the constructed variation will contain the value "guest" and is 
+     * written as "user=(guest)" in the Flex cache language.<p>
      * 
      * @param key the key to match this key with
-     * @return null if not cachable, or the Variation String if cachable
+     * 
+     * @return null if not cachable, or the variation key if cachable
      */
-    public String matchRequestKey(CmsFlexRequestKey key) {
+    public CmsFlexVariationKey getVariationKey(CmsFlexRequestKey key) {
 
-        StringBuffer str = new StringBuffer(100);
         if (m_always < 0) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_NEVER_0));
@@ -300,15 +342,18 @@ public class CmsFlexCacheKey {
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CHECK_NO_PARAMS_0));
         }
-        if ((m_noparams != null) && (key.getParams() != null)) {
-            if ((m_noparams.size() == 0) && (key.getParams().size() > 0)) {
-                return null;
-            }
-            Iterator i = key.getParams().keySet().iterator();
-            while (i.hasNext()) {
-                if (m_noparams.contains(i.next())) {
+        if (m_noParamNames != null) {
+            Map keyParams = key.getParams();
+            if (keyParams != null) {
+                // the request key returns null if there are no parameters
+                if (m_noParamNames.length == 0) {
                     return null;
                 }
+                for (int i = 0; i < m_noParamNames.length; i++) {
+                    if (keyParams.containsKey(m_noParamNames[i])) {
+                        return null;
+                    }
+                }
             }
         }
 
@@ -316,138 +361,117 @@ public class CmsFlexCacheKey {
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHEKEY_KEYMATCH_CACHE_ALWAYS_0));
             }
-            str.append(CACHE_00_ALWAYS);
-            return str.toString();
+            return m_alwaysVariation;
         }
 
-        if (m_uri != null) {
-            appendKeyValue(str, CACHE_02_URI, key.getUri());
+        // schemes and ports may exclude the request, so check them before collecting the other values
+        String scheme = null;
+        if (m_schemes != null) {
+            scheme = key.getScheme();
+            if ((m_schemes.size() > 0) && (!m_schemes.contains(scheme))) {
+                return null;
+            }
+        }
+        Integer port = null;
+        if (m_ports != null) {
+            port = key.getPort();
+            if ((m_ports.size() > 0) && (!m_ports.contains(port))) {
+                return null;
+            }
         }
 
+        // the values must be collected in the order used by formatVariation(Object[])
+        Object[] values = new Object[m_variationSize];
+        int pos = 0;
+        if (m_uri != null) {
+            values[pos++] = key.getUri();
+        }
         if (m_site != null) {
-            appendKeyValue(str, CACHE_17_SITE, key.getSite());
+            values[pos++] = key.getSite();
         }
-
         if (m_element != null) {
-            appendKeyValue(str, CACHE_14_ELEMENT, key.getElement());
+            values[pos++] = key.getElement();
         }
-
         if (m_locale != null) {
-            appendKeyValue(str, CACHE_15_LOCALE, key.getLocale());
+            values[pos++] = key.getLocale();
         }
-
         if (m_encoding != null) {
-            appendKeyValue(str, CACHE_16_ENCODING, key.getEncoding());
+            values[pos++] = key.getEncoding();
         }
-
         if (m_ip != null) {
-            appendKeyValue(str, CACHE_13_IP, key.getIp());
+            values[pos++] = key.getIp();
         }
-
         if (m_user != null) {
-            appendKeyValue(str, CACHE_03_USER, key.getUser());
+            values[pos++] = key.getUser();
         }
-
         if (m_params != null) {
-            str.append(CACHE_04_PARAMS);
-            str.append("=(");
             Map keyParams = key.getParams();
-            if (keyParams != null) {
-                if (m_params.size() > 0) {
-                    // match only params listed in cache directives
-                    Iterator i = m_params.iterator();
-                    while (i.hasNext()) {
-                        Object o = i.next();
-                        if (keyParams.containsKey(o)) {
-                            str.append(o);
-                            str.append("=");
-                            // TODO: handle multiple occurances of the same parameter value
-                            String[] values = (String[])keyParams.get(o);
-                            str.append(values[0]);
-                            if (i.hasNext()) {
-                                str.append(",");
-                            }
-                        }
-                    }
-                } else {
-                    // match all request params
-                    Iterator i = keyParams.entrySet().iterator();
-                    while (i.hasNext()) {
-                        Map.Entry entry = (Map.Entry)i.next();
-                        str.append(entry.getKey());
-                        str.append("=");
-                        // TODO: handle multiple occurances of the same parameter value
-                        String[] values = (String[])entry.getValue();
-                        str.append(values[0]);
-                        if (i.hasNext()) {
-                            str.append(",");
-                        }
-                    }
+            if (m_paramNames != null) {
+                // match only params listed in cache directives
+                for (int i = 0; i < m_paramNames.length; i++) {
+                    String[] paramValues = (keyParams != null) ? (String[])keyParams.get(m_paramNames[i]) : null;
+                    // TODO: handle multiple occurances of the same parameter value
+                    values[pos++] = (paramValues != null) ? paramValues[0] : null;
                 }
+            } else {
+                // match all request params
+                values[pos++] = getParameterValues(keyParams);
             }
-            str.append(");");
         }
-
-        if (m_session != null) {
-            StringBuffer buf = new StringBuffer(32);
-            boolean found = false;
-            buf.append(CACHE_07_SESSION);
-            buf.append("=(");
+        boolean found = m_fixedOutput;
+        if (m_sessionNames != null) {
             HttpSession keySession = key.getSession();
-            if (keySession != null) {
+            for (int i = 0; i < m_sessionNames.length; i++) {
                 // match only session attributes listed in cache directives
-                Iterator i = m_session.iterator();
-                while (i.hasNext()) {
-                    String name = (String)i.next();
-                    Object val = keySession.getAttribute(name);
-                    if (val != null) {
-                        found = true;
-                        buf.append(name);
-                        buf.append("=");
-                        buf.append(val);
-                        if (i.hasNext()) {
-                            buf.append(",");
-                        }
-                    }
+                Object val = (keySession != null) ? keySession.getAttribute(m_sessionNames[i]) : null;
+                if (val != null) {
+                    found = true;
+                    values[pos] = String.valueOf(val);
                 }
-            }
-            if (found) {
-                buf.append(");");
-                str.append(buf);
+                pos++;
             }
         }
-
         if (m_schemes != null) {
-            String s = key.getScheme();
-            if ((m_schemes.size() > 0) && (!m_schemes.contains(s))) {
-                return null;
-            }
-            appendKeyValue(str, CACHE_08_SCHEMES, s);
+            values[pos++] = scheme;
         }
-
         if (m_ports != null) {
-            Integer i = key.getPort();
-            if ((m_ports.size() > 0) && (!m_ports.contains(i))) {
-                return null;
-            }
-            str.append(CACHE_09_PORTS);
-            str.append("=(");
-            str.append(i);
-            str.append(");");
+            values[pos++] = port;
         }
 
-        if (m_timeout > 0) {
-            str.append(CACHE_06_TIMEOUT);
-            str.append("=(");
-            str.append(m_timeout);
-            str.append(");");
-        }
-
-        if (str.length() > 0) {
-            return str.toString();
-        } else {
+        if (!found) {
+            // the variation would be empty
             return null;
         }
+        return new CmsFlexVariationKey(this, values);
+    }
+
+    /**
+     * This flag is used to indicate that a parse error had
+     * occurred, which can happen if the cache directives String
+     * passed to the constructor using the response is
+     * not build according to the Flex cache language syntax.<p>
+     * 
+     * @return true if a parse error did occur, false otherwise
+     */
+    public boolean hadParseError() {
+
+        return m_parseError;
+    }
+
+    /**
+     * Compares this key to the other key passed as parameter,
+     * from comparing the two keys, a variation String is constructed.<p>
+     * 
+     * Use {@link #getVariationKey(CmsFlexRequestKey)} to look up variations in the cache,
+     * this method builds the String form of the variation key.<p>
+     * 
+     * @param key the key to match this key with
+     * @return null if not cachable, or the Variation String if cachable
+     */
+    public String matchRequestKey(CmsFlexRequestKey key) {
+
+        CmsFlexVariationKey variation = getVariationKey(key);
+        return (variation != null) ? variation.toString() : null;
     }
 
     /** 
@@ -563,6 +587,13 @@ public class CmsFlexCacheKey {
             str.append(m_timeout);
             str.append(");");
         }
+        if (m_staleWhileRevalidate >= 0) {
+            // add stale-while-revalidate
+            str.append(CACHE_18_STALE_WHILE_REVALIDATE);
+            str.append("=(");
+            str.append(m_staleWhileRevalidate);
+            str.append(");");
+        }
         if (m_schemes != null) {
             // add schemes
             str.append(CACHE_08_SCHEMES);
@@ -604,6 +635,17 @@ public class CmsFlexCacheKey {
         return str.toString();
     }
 
+    /**
+     * Returns the names of the parameters listed in the "params" directive.<p>
+     *
+     * @return the names of the parameters listed in the "params" directive, 
+     *      or <code>null</code> if the directive is not used or lists no parameters
+     */
+    protected String[] getParamNames() {
+
+        return m_paramNames;
+    }
+
     /**
      * Returns the resource.<p>
      *
@@ -614,6 +656,19 @@ public class CmsFlexCacheKey {
         return m_resource;
     }
 
+    /**
+     * Returns the number of seconds an expired entry is still delivered 
+     * while one request renders the resource again.<p>
+     * 
+     * Note that the value is in seconds, while the timeout is in minutes.<p>
+     *
+     * @return the number of seconds an expired entry is still delivered, or -1 if not set
+     */
+    protected int getStaleWhileRevalidate() {
+
+        return m_staleWhileRevalidate;
+    }
+
     /**
      * Returns the timeout.<p>
      *
@@ -625,23 +680,155 @@ public class CmsFlexCacheKey {
     }
 
     /**
-     * Returns the variation.<p>
-     *
-     * @return the variation
+     * Writes the given variation key values in the Flex cache language.<p>
+     * 
+     * @param values the values of a variation key created by this key
+     * 
+     * @return the variation in the Flex cache language
+     * 
+     * @see CmsFlexVariationKey#toString()
+     */
+    String formatVariation(Object[] values) {
+
+        if (m_always > 0) {
+            return CACHE_00_ALWAYS;
+        }
+        StringBuffer str = new StringBuffer(100);
+        int pos = 0;
+        if (m_uri != null) {
+            appendKeyValue(str, CACHE_02_URI, (String)values[pos++]);
+        }
+        if (m_site != null) {
+            appendKeyValue(str, CACHE_17_SITE, (String)values[pos++]);
+        }
+        if (m_element != null) {
+            appendKeyValue(str, CACHE_14_ELEMENT, (String)values[pos++]);
+        }
+        if (m_locale != null) {
+            appendKeyValue(str, CACHE_15_LOCALE, (String)values[pos++]);
+        }
+        if (m_encoding != null) {
+            appendKeyValue(str, CACHE_16_ENCODING, (String)values[pos++]);
+        }
+        if (m_ip != null) {
+            appendKeyValue(str, CACHE_13_IP, (String)values[pos++]);
+        }
+        if (m_user != null) {
+            appendKeyValue(str, CACHE_03_USER, (String)values[pos++]);
+        }
+        if (m_params != null) {
+            str.append(CACHE_04_PARAMS);
+            str.append("=(");
+            if (m_paramNames != null) {
+                boolean first = true;
+                for (int i = 0; i < m_paramNames.length; i++) {
+                    Object value = values[pos++];
+                    if (value != null) {
+                        if (!first) {
+                            str.append(",");
+                        }
+                        str.append(m_paramNames[i]);
+                        str.append("=");
+                        str.append(value);
+                        first = false;
+                    }
+                }
+            } else {
+                String[] params = (String[])values[pos++];
+                if (params != null) {
+                    for (int i = 0; i < params.length; i += 2) {
+                        if (i > 0) {
+                            str.append(",");
+                        }
+                        str.append(params[i]);
+                        str.append("=");
+                        str.append(params[i + 1]);
+                    }
+                }
+            }
+            str.append(");");
+        }
+        if (m_sessionNames != null) {
+            boolean first = true;
+            for (int i = 0; i < m_sessionNames.length; i++) {
+                Object value = values[pos++];
+                if (value != null) {
+                    str.append(first ? CACHE_07_SESSION + "=(" : ",");
+                    str.append(m_sessionNames[i]);
+                    str.append("=");
+                    str.append(value);
+                    first = false;
+                }
+            }
+            if (!first) {
+                str.append(");");
+            }
+        }
+        if (m_schemes != null) {
+            appendKeyValue(str, CACHE_08_SCHEMES, (String)values[pos++]);
+        }
+        if (m_ports != null) {
+            str.append(CACHE_09_PORTS);
+            str.append("=(");
+            str.append(values[pos++]);
+            str.append(");");
+        }
+        if (m_timeout > 0) {
+            str.append(CACHE_06_TIMEOUT);
+            str.append("=(");
+            str.append(m_timeout);
+            str.append(");");
+        }
+        return str.toString();
+    }
+
+    /**
+     * Returns the cache directives of this key in the Flex cache language.<p>
+     * 
+     * @return the cache directives of this key in the Flex cache language
      */
-    protected String getVariation() {
+    String getDirectives() {
 
-        return m_variation;
+        return m_directives;
     }
 
     /**
-     * Sets the variation.<p>
-     *
-     * @param variation the variation to set
+     * Prepares the matching of request keys after the cache directives have been parsed.<p>
      */
-    protected void setVariation(String variation) {
+    private void initVariation() {
 
-        m_variation = variation;
+        m_directives = toString();
+        m_alwaysVariation = new CmsFlexVariationKey(this, new Object[0]);
+        if (m_noparams != null) {
+            m_noParamNames = (String[])m_noparams.toArray(new String[m_noparams.size()]);
+        }
+        int size = 0;
+        String[] usedValues = {m_uri, m_site, m_element, m_locale, m_encoding, m_ip, m_user};
+        for (int i = 0; i < usedValues.length; i++) {
+            if (usedValues[i] != null) {
+                size++;
+            }
+        }
+        if (m_params != null) {
+            if (m_params.size() > 0) {
+                m_paramNames = (String[])m_params.toArray(new String[m_params.size()]);
+                size += m_paramNames.length;
+            } else {
+                size++;
+            }
+        }
+        if (m_schemes != null) {
+            size++;
+        }
+        if (m_ports != null) {
+            size++;
+        }
+        m_fixedOutput = (size > 0) || (m_timeout > 0);
+        if (m_session != null) {
+            m_sessionNames = (String[])m_session.toArray(new String[m_session.size()]);
+            size += m_sessionNames.length;
+        }
+        m_variationSize = size;
     }
 
     /**
@@ -747,6 +934,9 @@ public class CmsFlexCacheKey {
                     case 17: // site
                         m_site = IS_USED;
                         break;
+                    case 18: // stale-while-revalidate
+                        m_staleWhileRevalidate = Integer.parseInt(v);
+                        break;
                     default: // unknown directive, throw error
                         m_parseError = true;
                 }
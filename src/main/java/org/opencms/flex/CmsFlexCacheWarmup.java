@@ -0,0 +1,692 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/flex/CmsFlexCacheWarmup.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsRequestContext;
+import org.opencms.i18n.CmsEncoder;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricCounter;
+import org.opencms.site.CmsSite;
+import org.opencms.site.CmsSiteMatcher;
+import org.opencms.util.CmsStringUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.Socket;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Warms up the FlexCache after startup and after a publish by requesting the most requested URLs again.<p>
+ *
+ * The FlexCache records the URLs of the top level requests of the Guest user in the Online project.
+ * A recorded URL is the matched site together with the path of the request and the parameters 
+ * listed in the "params" directive of the requested resource, so every recorded URL stands for 
+ * the variations of the resources it renders. Other parameters are never recorded, as they may contain 
+ * personal data or tokens, and neither is the server name of the request, as it is sent by the client. 
+ * Only the number of requests per URL is kept. The statistics are written to the file <code>WEB-INF/logs/flexcache-warmup.txt</code> 
+ * after every warm-up and on shutdown, so the warm-up after a restart uses the requests recorded before.<p>
+ *
+ * A warm-up requests the most requested URLs with a few low priority threads, in the order of their number
+ * of requests. A resource can only be rendered in a servlet request, so the URLs are requested over HTTP 
+ * like the static export does for template resources. The requests are sent to the configured warm-up 
+ * server, a connector of the local servlet container, so in a cluster every server warms up its own cache. 
+ * The "Host" header of a request is the server of the site configuration, so the site is matched 
+ * again. Every thread waits the configured delay before a request, 
+ * and keeps waiting while more than the configured number of live requests per second are processed,
+ * so the warm-up does not compete with the visitors. A new warm-up, e.g. after the next publish, 
+ * stops the running one.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+public class CmsFlexCacheWarmup {
+
+    /**
+     * A warm-up run, executed by all threads of the warm-up.<p>
+     */
+    private class CmsWarmupRun implements Runnable {
+
+        /** The number of threads still running. */
+        final AtomicInteger m_active;
+
+        /** The time in milliseconds to wait before the first request. */
+        final long m_delay;
+
+        /** The number of requested URLs. */
+        final AtomicInteger m_done;
+
+        /** The position of the next URL to request. */
+        final AtomicInteger m_next;
+
+        /** The URLs to request, the most requested first. */
+        final String[] m_urls;
+
+        /**
+         * Creates a new warm-up run.<p>
+         * 
+         * @param urls the URLs to request, the most requested first
+         * @param threads the number of threads executing the run
+         * @param delay the time in milliseconds to wait before the first request
+         */
+        CmsWarmupRun(String[] urls, int threads, long delay) {
+
+            m_urls = urls;
+            m_delay = delay;
+            m_active = new AtomicInteger(threads);
+            m_done = new AtomicInteger();
+            m_next = new AtomicInteger();
+        }
+
+        /**
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+
+            long startTime = System.currentTimeMillis();
+            try {
+                if (!sleep(this, m_delay)) {
+                    return;
+                }
+                while (OpenCms.getRunLevel() == OpenCms.RUNLEVEL_2_INITIALIZING) {
+                    // the servlet is not yet available
+                    if (!sleep(this, STARTUP_CHECK_INTERVAL)) {
+                        return;
+                    }
+                }
+                if (OpenCms.getRunLevel() != OpenCms.RUNLEVEL_4_SERVLET_ACCESS) {
+                    return;
+                }
+                int pos;
+                while ((pos = m_next.getAndIncrement()) < m_urls.length) {
+                    if (!awaitIdle(this)) {
+                        return;
+                    }
+                    request(m_urls[pos]);
+                    m_done.incrementAndGet();
+                }
+            } finally {
+                if ((m_active.decrementAndGet() == 0) && (m_run == this)) {
+                    if (LOG.isInfoEnabled()) {
+                        LOG.info(Messages.get().getBundle().key(
+                            Messages.LOG_FLEXCACHE_WARMUP_FINISHED_3,
+                            new Integer(m_done.get()),
+                            new Integer(m_urls.length),
+                            new Long(System.currentTimeMillis() - startTime)));
+                    }
+                    save();
+                }
+            }
+        }
+    }
+
+    /**
+     * A recorded URL with its number of requests.<p>
+     */
+    private static final class CmsRecordedUrl implements Comparable {
+
+        /** The number of requests. */
+        final int m_count;
+
+        /** The URL. */
+        final String m_url;
+
+        /**
+         * Creates a new recorded URL.<p>
+         * 
+         * @param url the URL
+         * @param count the number of requests
+         */
+        CmsRecordedUrl(String url, int count) {
+
+            m_url = url;
+            m_count = count;
+        }
+
+        /**
+         * Sorts the most requested URLs first.<p>
+         * 
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(Object obj) {
+
+            CmsRecordedUrl other = (CmsRecordedUrl)obj;
+            if (m_count != other.m_count) {
+                return (m_count > other.m_count) ? -1 : 1;
+            }
+            return m_url.compareTo(other.m_url);
+        }
+    }
+
+    /** The name of the request header that marks the requests of the warm-up. */
+    public static final String HEADER_WARMUP = "X-OpenCms-Warmup";
+
+    /** The HTTP protocol, the only protocol supported for the warm-up server. */
+    private static final String HTTP_PROTOCOL = "http";
+
+    /** The name of the file with the request statistics, relative to the WEB-INF folder. */
+    private static final String FILE_NAME = "logs/flexcache-warmup.txt";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexCacheWarmup.class);
+
+    /** The HTTP method of the recorded requests. */
+    private static final String METHOD_GET = "GET";
+
+    /** The min. delay in milliseconds before a warm-up request. */
+    private static final int MIN_DELAY = 10;
+
+    /** The number of recorded URLs is limited to the number of URLs of a warm-up multiplied with this factor. */
+    private static final int RECORD_FACTOR = 4;
+
+    /** The timeout in milliseconds to connect and to read a warm-up request. */
+    private static final int REQUEST_TIMEOUT = 60000;
+
+    /** The interval in milliseconds to check if OpenCms has been started. */
+    private static final long STARTUP_CHECK_INTERVAL = 1000;
+
+    /** The delay in milliseconds before a warm-up request. */
+    private int m_delay;
+
+    /** Counts the live requests, to measure the traffic. */
+    private AtomicInteger m_liveRequests;
+
+    /** The max. number of live requests per second the warm-up continues with, 0 for no limit. */
+    private int m_maxLiveRequests;
+
+    /** The max. number of URLs requested by a warm-up. */
+    private int m_maxUrls;
+
+    /** Signals that the least requested URLs are being removed. */
+    private AtomicBoolean m_pruning;
+
+    /** Maps the recorded URLs to their number of requests. */
+    private ConcurrentMap m_requests;
+
+    /** Counts the requests of the warm-up. */
+    private CmsMetricCounter m_requestCounter;
+
+    /** The current warm-up run, or <code>null</code>. */
+    private volatile CmsWarmupRun m_run;
+
+    /** The host name of the server the warm-up requests are sent to, or <code>null</code> if the URL is invalid. */
+    private String m_serverHost;
+
+    /** The port of the server the warm-up requests are sent to. */
+    private int m_serverPort;
+
+    /** The delay in milliseconds before the warm-up after startup. */
+    private long m_startDelay;
+
+    /** The number of threads of a warm-up. */
+    private int m_threads;
+
+    /**
+     * Creates a new FlexCache warm-up.<p>
+     * 
+     * @param configuration the flex cache configuration
+     */
+    CmsFlexCacheWarmup(CmsFlexCacheConfiguration configuration) {
+
+        m_maxUrls = configuration.getWarmupUrls();
+        m_threads = Math.max(configuration.getWarmupThreads(), 1);
+        m_delay = Math.max(configuration.getWarmupDelay(), MIN_DELAY);
+        m_startDelay = configuration.getWarmupStartDelay() * 1000L;
+        m_maxLiveRequests = configuration.getWarmupLiveRequests();
+        m_liveRequests = new AtomicInteger();
+        m_pruning = new AtomicBoolean();
+        m_requests = new ConcurrentHashMap();
+        m_requestCounter = OpenCms.getMetricsRegistry().getCounter("flexcache.warmup");
+        try {
+            URL server = new URL(configuration.getWarmupServer());
+            if (!HTTP_PROTOCOL.equals(server.getProtocol())) {
+                throw new MalformedURLException(server.getProtocol());
+            }
+            m_serverHost = server.getHost();
+            m_serverPort = (server.getPort() < 0) ? server.getDefaultPort() : server.getPort();
+        } catch (MalformedURLException e) {
+            LOG.error(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_WARMUP_SERVER_INVALID_1,
+                configuration.getWarmupServer()), e);
+        }
+    }
+
+    /**
+     * Reads the request statistics written before the last shutdown 
+     * and starts the warm-up after the configured start delay.<p>
+     */
+    void initialize() {
+
+        File file = getFile();
+        if (file.exists()) {
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CmsEncoder.ENCODING_UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int pos = line.indexOf('\t');
+                    if (pos > 0) {
+                        try {
+                            int count = Integer.parseInt(line.substring(0, pos));
+                            String key = line.substring(pos + 1);
+                            if (isValidKey(key)) {
+                                m_requests.put(key, new AtomicInteger(count));
+                            }
+                        } catch (NumberFormatException e) {
+                            // ignore invalid line
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(
+                    Messages.LOG_FLEXCACHE_WARMUP_READ_ERROR_1,
+                    file.getAbsolutePath()), e);
+            } finally {
+                try {
+                    if (reader != null) {
+                        reader.close();
+                    }
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+        start(m_startDelay);
+    }
+
+    /**
+     * Records a top level request.<p>
+     * 
+     * @param cms the current users context 
+     * @param req the top level request
+     * @param paramNames the names of the parameters listed in the "params" directive 
+     *      of the requested resource, or <code>null</code> to record the path only
+     */
+    void record(CmsObject cms, HttpServletRequest req, String[] paramNames) {
+
+        if (req.getHeader(HEADER_WARMUP) != null) {
+            // request of the warm-up
+            return;
+        }
+        m_liveRequests.incrementAndGet();
+        CmsRequestContext context = cms.getRequestContext();
+        if ((m_serverHost == null)
+            || !METHOD_GET.equals(req.getMethod())
+            || !context.currentProject().isOnlineProject()
+            || !context.currentUser().isGuestUser()) {
+            // the warm-up can only request what the Guest user gets
+            return;
+        }
+        // never record the server name, it is sent by the client
+        StringBuffer url = new StringBuffer(128);
+        url.append(context.getSiteRoot()).append('\t').append(req.getRequestURI());
+        if ((paramNames != null) && (req.getQueryString() != null)) {
+            // only the parameters the cache varies on, never the complete query
+            char separator = '?';
+            for (int i = 0; i < paramNames.length; i++) {
+                String value = req.getParameter(paramNames[i]);
+                if (value != null) {
+                    url.append(separator).append(CmsEncoder.encode(paramNames[i])).append('=').append(
+                        CmsEncoder.encode(value));
+                    separator = '&';
+                }
+            }
+        }
+        String key = url.toString();
+        if (!m_requests.containsKey(key) && !isValidKey(key)) {
+            return;
+        }
+        AtomicInteger count = (AtomicInteger)m_requests.get(key);
+        if (count == null) {
+            if ((m_requests.size() >= (m_maxUrls * RECORD_FACTOR)) && !prune()) {
+                return;
+            }
+            count = new AtomicInteger();
+            AtomicInteger previous = (AtomicInteger)m_requests.putIfAbsent(key, count);
+            if (previous != null) {
+                count = previous;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    /**
+     * Stops the running warm-up and writes the request statistics.<p>
+     */
+    void shutDown() {
+
+        m_run = null;
+        save();
+    }
+
+    /**
+     * Starts a warm-up, a running warm-up is stopped.<p>
+     */
+    void warmUp() {
+
+        start(0);
+    }
+
+    /**
+     * Waits the configured delay, and as long as more than the configured number 
+     * of live requests per second are processed.<p>
+     * 
+     * @param run the warm-up run 
+     * 
+     * @return <code>false</code> if the warm-up run has been stopped
+     */
+    private boolean awaitIdle(CmsWarmupRun run) {
+
+        int liveRequests;
+        do {
+            liveRequests = m_liveRequests.get();
+            if (!sleep(run, m_delay)) {
+                return false;
+            }
+            liveRequests = m_liveRequests.get() - liveRequests;
+        } while ((m_maxLiveRequests > 0) && ((liveRequests * 1000L) > ((long)m_maxLiveRequests * m_delay)));
+        return true;
+    }
+
+    /**
+     * Returns the file with the request statistics.<p>
+     * 
+     * @return the file with the request statistics
+     */
+    private File getFile() {
+
+        return new File(OpenCms.getSystemInfo().getAbsoluteRfsPathRelativeToWebInf(FILE_NAME));
+    }
+
+    /**
+     * Returns the value of the "Host" header for a warm-up request of the given site.<p>
+     * 
+     * This is the server of the site configuration, so the site is matched again. 
+     * If the site has no server, the warm-up server is used, and the request is 
+     * answered by the default site.<p>
+     * 
+     * @param siteRoot the site root of the recorded request
+     * 
+     * @return the value of the "Host" header for a warm-up request of the given site
+     */
+    private String getHost(String siteRoot) {
+
+        CmsSite site = OpenCms.getSiteManager().getSiteForSiteRoot(siteRoot);
+        if (site != null) {
+            CmsSiteMatcher matcher = site.getSiteMatcher();
+            if ((matcher != null) && (matcher != CmsSiteMatcher.DEFAULT_MATCHER)) {
+                return matcher.getServerName() + ":" + matcher.getServerPort();
+            }
+        }
+        return m_serverHost + ":" + m_serverPort;
+    }
+
+    /**
+     * Returns the recorded URLs, the most requested first.<p>
+     * 
+     * @return the recorded URLs
+     */
+    private CmsRecordedUrl[] getRecordedUrls() {
+
+        Object[] entries = m_requests.entrySet().toArray();
+        CmsRecordedUrl[] result = new CmsRecordedUrl[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            Map.Entry entry = (Map.Entry)entries[i];
+            result[i] = new CmsRecordedUrl((String)entry.getKey(), ((AtomicInteger)entry.getValue()).get());
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Checks if the given recorded URL can be requested, that is if it consists of the site root 
+     * and an absolute path, and contains no white space or other characters that are not allowed in a 
+     * HTTP request line.<p>
+     * 
+     * @param key the recorded URL, the site root and the path separated by a tab
+     * 
+     * @return <code>true</code> if the given recorded URL can be requested
+     */
+    private boolean isValidKey(String key) {
+
+        int pos = key.indexOf('\t');
+        if ((pos < 0) || !key.startsWith("/", pos + 1)) {
+            return false;
+        }
+        for (int i = pos + 1; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if ((c <= ' ') || (c >= 127)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes the least requested half of the recorded URLs, 
+     * and halves the number of requests of the other URLs so new URLs can catch up.<p>
+     * 
+     * Only one thread removes URLs at a time, other threads don't wait for it.<p>
+     * 
+     * @return <code>true</code> if URLs have been removed
+     */
+    private boolean prune() {
+
+        if (!m_pruning.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            CmsRecordedUrl[] urls = getRecordedUrls();
+            int keep = (m_maxUrls * RECORD_FACTOR) / 2;
+            for (int i = 0; i < urls.length; i++) {
+                if (i < keep) {
+                    AtomicInteger count = (AtomicInteger)m_requests.get(urls[i].m_url);
+                    if (count != null) {
+                        count.addAndGet(-(urls[i].m_count / 2));
+                    }
+                } else {
+                    m_requests.remove(urls[i].m_url);
+                }
+            }
+            return true;
+        } finally {
+            m_pruning.set(false);
+        }
+    }
+
+    /**
+     * Requests the given recorded URL from the warm-up server and reads the response.<p>
+     * 
+     * The request is written directly to a socket, as the "Host" header 
+     * can not be set for a <code>{@link java.net.HttpURLConnection}</code>.<p>
+     * 
+     * @param key the recorded URL to request, the site root and the path separated by a tab
+     */
+    private void request(String key) {
+
+        int pos = key.indexOf('\t');
+        String path = key.substring(pos + 1);
+        String host = getHost(key.substring(0, pos));
+        String url = HTTP_PROTOCOL + "://" + host + path;
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(m_serverHost, m_serverPort), REQUEST_TIMEOUT);
+            socket.setSoTimeout(REQUEST_TIMEOUT);
+            StringBuffer request = new StringBuffer(256);
+            request.append(METHOD_GET).append(' ').append(path).append(" HTTP/1.0\r\n");
+            request.append("Host: ").append(host).append("\r\n");
+            request.append(HEADER_WARMUP).append(": ").append(CmsStringUtil.TRUE).append("\r\n\r\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(CmsEncoder.ENCODING_ISO_8859_1));
+            out.flush();
+            // read the complete response, so the server does not run into a closed connection
+            InputStream in = socket.getInputStream();
+            byte[] buffer = new byte[4096];
+            int length = in.read(buffer);
+            String status = "";
+            if (length > 0) {
+                // the status line, e.g. "HTTP/1.1 200 OK"
+                status = new String(buffer, 0, length, CmsEncoder.ENCODING_ISO_8859_1);
+                int end = status.indexOf('\r');
+                status = status.substring(0, (end < 0) ? status.length() : end);
+            }
+            while (in.read(buffer) >= 0) {
+                // discard the output
+            }
+            m_requestCounter.increment();
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_WARMUP_REQUEST_2, url, status));
+            }
+        } catch (IOException e) {
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(Messages.LOG_FLEXCACHE_WARMUP_REQUEST_FAILED_1, url), e);
+            }
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Writes the request statistics.<p>
+     */
+    private synchronized void save() {
+
+        CmsRecordedUrl[] urls = getRecordedUrls();
+        if (urls.length == 0) {
+            return;
+        }
+        File file = getFile();
+        BufferedWriter writer = null;
+        try {
+            file.getParentFile().mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CmsEncoder.ENCODING_UTF_8));
+            for (int i = 0; i < urls.length; i++) {
+                writer.write(String.valueOf(urls[i].m_count));
+                writer.write('\t');
+                writer.write(urls[i].m_url);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            LOG.error(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_WARMUP_WRITE_ERROR_1,
+                file.getAbsolutePath()), e);
+        } finally {
+            try {
+                if (writer != null) {
+                    writer.close();
+                }
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Waits the given time.<p>
+     * 
+     * @param run the warm-up run
+     * @param millis the time to wait in milliseconds 
+     * 
+     * @return <code>false</code> if the warm-up run has been stopped
+     */
+    private boolean sleep(CmsWarmupRun run, long millis) {
+
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }
+        return m_run == run;
+    }
+
+    /**
+     * Starts a warm-up run with the most requested URLs, a running warm-up is stopped.<p>
+     * 
+     * @param delay the time in milliseconds to wait before the first request
+     */
+    private void start(long delay) {
+
+        CmsRecordedUrl[] recorded = getRecordedUrls();
+        String[] urls = new String[Math.min(recorded.length, m_maxUrls)];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = recorded[i].m_url;
+        }
+        if ((urls.length == 0) || (m_serverHost == null)) {
+            m_run = null;
+            return;
+        }
+        int threads = Math.min(m_threads, urls.length);
+        CmsWarmupRun run = new CmsWarmupRun(urls, threads, delay);
+        m_run = run;
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_FLEXCACHE_WARMUP_STARTED_2,
+                new Integer(urls.length),
+                new Long(delay)));
+        }
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(run, "OpenCms: FlexCache warm-up " + i);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+}
@@ -81,6 +81,9 @@ public class CmsFlexController {
     /** Indicates if this controller is currently in "forward" mode. */
     private boolean m_forwardMode;
 
+    /** The profiler for this request, or <code>null</code> if the request is not profiled. */
+    private CmsFlexProfiler m_profiler;
+
     /** Wrapped top request. */
     private HttpServletRequest m_req;
 
@@ -122,6 +125,7 @@ public class CmsFlexController {
         m_flexContextInfoList = base.m_flexContextInfoList;
         m_forwardMode = base.m_forwardMode;
         m_throwableResourceUri = base.m_throwableResourceUri;
+        m_profiler = base.m_profiler;
     }
 
     /**
@@ -156,6 +160,10 @@ public class CmsFlexController {
         m_flexContextInfoList = new Vector();
         m_forwardMode = false;
         m_throwableResourceUri = null;
+        if (top && (cache != null)) {
+            m_profiler = cache.createProfiler(req);
+            cache.recordRequest(cms, resource, req);
+        }
     }
 
     /**
@@ -389,6 +397,9 @@ public class CmsFlexController {
         m_resource = null;
         m_cache = null;
         m_throwable = null;
+        if (m_profiler != null) {
+            m_profiler.finish();
+        }
     }
 
     /**
@@ -477,6 +488,16 @@ public class CmsFlexController {
         return ((CmsFlexRequestContextInfo)m_flexContextInfoList.get(pos)).getDateLastModified();
     }
 
+    /**
+     * Returns the profiler for this request.<p>
+     * 
+     * @return the profiler for this request, or <code>null</code> if the request is not profiled
+     */
+    public CmsFlexProfiler getProfiler() {
+
+        return m_profiler;
+    }
+
     /**
      * Returns the size of the response stack.<p>
      * 
@@ -606,7 +627,9 @@ public class CmsFlexController {
 
         m_flexRequestList.add(req);
         m_flexResponseList.add(res);
-        m_flexContextInfoList.add(new CmsFlexRequestContextInfo());
+        CmsFlexRequestContextInfo info = new CmsFlexRequestContextInfo();
+        info.setProfiler(m_profiler);
+        m_flexContextInfoList.add(info);
         updateRequestContextInfo();
     }
 
@@ -0,0 +1,368 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/flex/CmsFlexProfiler.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import org.opencms.main.CmsLog;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Records a timing tree of all includes of a single top level request.<p>
+ * 
+ * For every include the profiler records the resource, the FlexCache status, 
+ * the number and duration of the database connections used while the include 
+ * was processed and the number of bytes it produced.<p>
+ * 
+ * A profiler is created by the {@link CmsFlexCache} for the top level controller of
+ * a request that is either sampled or that sends the configured profile header. 
+ * Once the request is finished, the profile is written to the log channel of this class
+ * if the request took longer than the configured threshold. Use a separate
+ * rolling file appender for this channel to keep the profiles apart from the main log.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+public class CmsFlexProfiler {
+
+    /**
+     * A single node of the timing tree.<p>
+     */
+    static class CmsFlexProfilerNode {
+
+        /** The number of bytes produced, or -1 if unknown. */
+        int m_bytes;
+
+        /** The FlexCache status of this node, or <code>null</code> if the cache was not used. */
+        String m_cacheStatus;
+
+        /** The child nodes. */
+        List m_children;
+
+        /** The number of database connections used by this node. */
+        int m_dbCount;
+
+        /** The time in nanoseconds the database connections of this node were in use. */
+        long m_dbNanos;
+
+        /** The duration of this node in nanoseconds. */
+        long m_nanos;
+
+        /** The parent node, or <code>null</code> for the root node. */
+        CmsFlexProfilerNode m_parent;
+
+        /** The name of the resource of this node. */
+        String m_resource;
+
+        /** The start time of this node in nanoseconds. */
+        long m_start;
+
+        /**
+         * Creates a new node.<p>
+         * 
+         * @param parent the parent node
+         * @param resource the name of the resource
+         */
+        CmsFlexProfilerNode(CmsFlexProfilerNode parent, String resource) {
+
+            m_parent = parent;
+            m_resource = resource;
+            m_bytes = -1;
+            m_children = new ArrayList(4);
+            m_start = System.nanoTime();
+        }
+    }
+
+    /** FlexCache status for an include that was found in the cache. */
+    public static final String CACHE_HIT = "hit";
+
+    /** FlexCache status for a cacheable include that was not found in the cache. */
+    public static final String CACHE_MISS = "miss";
+
+    /** The name of the response header that contains the profile summary. */
+    public static final String HEADER_PROFILE = "X-OpenCms-Profile";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsFlexProfiler.class);
+
+    /** The start times of the currently open database connections. */
+    private Map m_connections;
+
+    /** The node of the include currently processed. */
+    private CmsFlexProfilerNode m_current;
+
+    /** Indicates if the profile has already been finished. */
+    private boolean m_finished;
+
+    /** The root node for the top level request. */
+    private CmsFlexProfilerNode m_root;
+
+    /** Indicates if a summary should be sent back in a response header. */
+    private boolean m_sendHeader;
+
+    /** The min. duration in milliseconds for the profile to be logged. */
+    private long m_threshold;
+
+    /**
+     * Creates a new profiler for a top level request.<p>
+     * 
+     * @param uri the URI of the top level request
+     * @param threshold the min. duration in milliseconds for the profile to be logged
+     * @param sendHeader if a summary should be sent back in a response header
+     */
+    public CmsFlexProfiler(String uri, long threshold, boolean sendHeader) {
+
+        m_root = new CmsFlexProfilerNode(null, uri);
+        m_current = m_root;
+        m_threshold = threshold;
+        m_sendHeader = sendHeader;
+        m_connections = new IdentityHashMap();
+    }
+
+    /**
+     * Records that the given database connection is no longer used.<p>
+     * 
+     * The time since the connection was opened is added to the include currently processed.<p>
+     * 
+     * @param con the connection
+     */
+    public synchronized void connectionClosed(Connection con) {
+
+        Long start = (Long)m_connections.remove(con);
+        if (start != null) {
+            m_current.m_dbNanos += System.nanoTime() - start.longValue();
+        }
+    }
+
+    /**
+     * Records that the given database connection is used by the include currently processed.<p>
+     * 
+     * @param con the connection
+     */
+    public synchronized void connectionOpened(Connection con) {
+
+        if (!m_connections.containsKey(con)) {
+            m_connections.put(con, new Long(System.nanoTime()));
+            m_current.m_dbCount++;
+        }
+    }
+
+    /**
+     * Starts a new node for an include of the given resource.<p>
+     * 
+     * @param resource the name of the included resource
+     */
+    public synchronized void enter(String resource) {
+
+        CmsFlexProfilerNode node = new CmsFlexProfilerNode(m_current, resource);
+        m_current.m_children.add(node);
+        m_current = node;
+    }
+
+    /**
+     * Finishes the node of the include currently processed.<p>
+     * 
+     * @param bytes the number of bytes produced by the include, or -1 if unknown
+     */
+    public synchronized void exit(int bytes) {
+
+        if (m_current == m_root) {
+            return;
+        }
+        m_current.m_nanos = System.nanoTime() - m_current.m_start;
+        m_current.m_bytes = bytes;
+        m_current = m_current.m_parent;
+    }
+
+    /**
+     * Finishes the profile and writes it to the log if the request took longer than the threshold.<p>
+     * 
+     * Calling this method more than once has no effect.<p>
+     */
+    public synchronized void finish() {
+
+        if (m_finished) {
+            return;
+        }
+        m_finished = true;
+        m_root.m_nanos = System.nanoTime() - m_root.m_start;
+        long millis = m_root.m_nanos / 1000000L;
+        if ((millis >= m_threshold) && LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_FLEXPROFILER_PROFILE_3,
+                m_root.m_resource,
+                new Long(millis),
+                getReport()));
+        }
+    }
+
+    /**
+     * Returns the profile as an indented tree with one line per include.<p>
+     * 
+     * @return the profile as an indented tree
+     */
+    public synchronized String getReport() {
+
+        StringBuffer result = new StringBuffer(256);
+        appendReport(result, m_root, 0);
+        return result.toString();
+    }
+
+    /**
+     * Returns a one line summary of the profile, suitable for a response header.<p>
+     * 
+     * The summary contains the total time, the number of includes and FlexCache hits and misses,
+     * as well as the number and the duration of all database connections used.<p>
+     * 
+     * @return a one line summary of the profile
+     */
+    public synchronized String getSummary() {
+
+        long[] totals = new long[5];
+        sum(m_root, totals);
+        long nanos = m_finished ? m_root.m_nanos : (System.nanoTime() - m_root.m_start);
+        StringBuffer result = new StringBuffer(96);
+        result.append("total=").append(formatMillis(nanos));
+        result.append("; includes=").append(totals[0]);
+        result.append("; hits=").append(totals[1]);
+        result.append("; misses=").append(totals[2]);
+        result.append("; db=").append(totals[3]).append('/').append(formatMillis(totals[4]));
+        return result.toString();
+    }
+
+    /**
+     * Returns <code>true</code> if the summary should be sent back in a response header.<p>
+     * 
+     * @return <code>true</code> if the summary should be sent back in a response header
+     */
+    public boolean isSendHeader() {
+
+        return m_sendHeader;
+    }
+
+    /**
+     * Sets the FlexCache status of the include currently processed.<p>
+     * 
+     * @param cacheStatus the status, either {@link #CACHE_HIT} or {@link #CACHE_MISS}
+     */
+    public synchronized void setCacheStatus(String cacheStatus) {
+
+        m_current.m_cacheStatus = cacheStatus;
+    }
+
+    /**
+     * Sets the number of bytes produced by the top level request.<p>
+     * 
+     * @param bytes the number of bytes produced by the top level request
+     */
+    public synchronized void setResultSize(int bytes) {
+
+        m_root.m_bytes = bytes;
+    }
+
+    /**
+     * Appends the line for the given node and all child nodes to the report.<p>
+     * 
+     * @param result the report to append to
+     * @param node the node to append
+     * @param depth the depth of the node in the tree
+     */
+    private void appendReport(StringBuffer result, CmsFlexProfilerNode node, int depth) {
+
+        result.append('\n');
+        for (int i = 0; i < depth; i++) {
+            result.append("  ");
+        }
+        result.append(node.m_resource);
+        if (node.m_cacheStatus != null) {
+            result.append(" [").append(node.m_cacheStatus).append(']');
+        }
+        result.append(' ').append(formatMillis(node.m_nanos));
+        if (node.m_dbCount > 0) {
+            result.append(" db=").append(node.m_dbCount).append('/').append(formatMillis(node.m_dbNanos));
+        }
+        if (node.m_bytes >= 0) {
+            result.append(' ').append(node.m_bytes).append(" bytes");
+        }
+        Iterator i = node.m_children.iterator();
+        while (i.hasNext()) {
+            appendReport(result, (CmsFlexProfilerNode)i.next(), depth + 1);
+        }
+    }
+
+    /**
+     * Formats the given duration in nanoseconds as milliseconds with one decimal place.<p>
+     * 
+     * @param nanos the duration in nanoseconds
+     * 
+     * @return the formatted duration
+     */
+    private String formatMillis(long nanos) {
+
+        long tenths = nanos / 100000L;
+        return (tenths / 10) + "." + (tenths % 10) + "ms";
+    }
+
+    /**
+     * Adds the values of the given node and all child nodes to the totals.<p>
+     * 
+     * The totals are the number of includes, hits and misses, followed by the 
+     * number and the duration of the database connections.<p>
+     * 
+     * @param node the node to add
+     * @param totals the totals to update
+     */
+    private void sum(CmsFlexProfilerNode node, long[] totals) {
+
+        if (node != m_root) {
+            totals[0]++;
+        }
+        if (CACHE_HIT.equals(node.m_cacheStatus)) {
+            totals[1]++;
+        } else if (CACHE_MISS.equals(node.m_cacheStatus)) {
+            totals[2]++;
+        }
+        totals[3] += node.m_dbCount;
+        totals[4] += node.m_dbNanos;
+        Iterator i = node.m_children.iterator();
+        while (i.hasNext()) {
+            sum((CmsFlexProfilerNode)i.next(), totals);
+        }
+    }
+}
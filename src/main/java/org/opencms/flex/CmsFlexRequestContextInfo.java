@@ -56,6 +56,9 @@ public class CmsFlexRequestContextInfo {
     /** The currently calculated "last modified" date for this request context.  */
     private long m_dateLastModified;
 
+    /** The profiler of the request, or <code>null</code> if the request is not profiled. */
+    private CmsFlexProfiler m_profiler;
+
     /**
      * Public constructor.<p>
      */
@@ -85,6 +88,16 @@ public class CmsFlexRequestContextInfo {
         return m_dateLastModified;
     }
 
+    /**
+     * Returns the profiler of the request.<p>
+     * 
+     * @return the profiler of the request, or <code>null</code> if the request is not profiled
+     */
+    public CmsFlexProfiler getProfiler() {
+
+        return m_profiler;
+    }
+
     /**
      * Merges this context info with the values from the other context info.<p>
      *  
@@ -96,6 +109,16 @@ public class CmsFlexRequestContextInfo {
         updateDateExpires(other.getDateExpires());
     }
 
+    /**
+     * Sets the profiler of the request.<p>
+     * 
+     * @param profiler the profiler to set, or <code>null</code> if the request is not profiled
+     */
+    public void setProfiler(CmsFlexProfiler profiler) {
+
+        m_profiler = profiler;
+    }
+
     /**
      * Updates the "expires" date for this context with the given value.<p>
      * 
@@ -237,12 +237,21 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_FLEXREQUESTDISPATCHER_INCLUDE_RESOURCE_1, m_vfsTarget));
         }
+        CmsFlexProfiler profiler = controller.getProfiler();
+        if (profiler != null) {
+            profiler.enter(m_vfsTarget);
+        }
         try {
             loader.service(cms, resource, req, res);
         } catch (CmsException e) {
             // an error occurred during access to OpenCms
             controller.setThrowable(e, m_vfsTarget);
             throw new ServletException(e);
+        } finally {
+            if (profiler != null) {
+                // the output is not buffered in this mode
+                profiler.exit(-1);
+            }
         }
     }
 
@@ -298,6 +307,11 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
         // push req/res to controller stack
         controller.push(w_req, w_res);
 
+        CmsFlexProfiler profiler = controller.getProfiler();
+        if (profiler != null) {
+            profiler.enter(m_vfsTarget);
+        }
+
         // now that the req/res are on the stack, we need to make sure that they are removed later
         // that's why we have this try { ... } finally { ... } clause here
         try {
@@ -305,28 +319,16 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             if (f_req.isCacheable()) {
                 // caching is on, check if requested resource is already in cache            
                 entry = cache.get(w_req.getCmsCacheKey());
+                if ((entry != null) && !entry.retain()) {
+                    // the entry was removed from the cache and its output released in the meantime
+                    entry = null;
+                }
+                if (profiler != null) {
+                    profiler.setCacheStatus((entry != null) ? CmsFlexProfiler.CACHE_HIT : CmsFlexProfiler.CACHE_MISS);
+                }
                 if (entry != null) {
                     // the target is already in the cache
-                    try {
-                        if (LOG.isDebugEnabled()) {
-                            LOG.debug(Messages.get().getBundle().key(
-                                Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
-                                m_vfsTarget));
-                        }
-                        controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
-                        entry.service(w_req, w_res);
-                    } catch (CmsException e) {
-                        Throwable t;
-                        if (e.getCause() != null) {
-                            t = e.getCause();
-                        } else {
-                            t = e;
-                        }
-                        t = controller.setThrowable(e, m_vfsTarget);
-                        throw new ServletException(Messages.get().getBundle().key(
-                            Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
-                            m_vfsTarget), t);
-                    }
+                    serviceCacheEntry(entry, w_req, w_res, controller);
                 } else {
                     // cache is on and resource is not yet cached, so we need to read the cache key for the response
                     CmsFlexCacheKey res_key = cache.getKey(CmsFlexCacheKey.getKeyName(m_vfsTarget, w_req.isOnline()));
@@ -379,15 +381,30 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                 }
             }
 
+            CmsFlexVariationKey variation = null;
             if (entry == null) {
-                // the target is not cached (or caching off), so load it with the internal resource loader
-                I_CmsResourceLoader loader = null;
-
-                String variation = null;
                 // check cache keys to see if the result can be cached 
                 if (w_req.isCacheable()) {
-                    variation = w_res.getCmsCacheKey().matchRequestKey(w_req.getCmsCacheKey());
+                    variation = w_res.getCmsCacheKey().getVariationKey(w_req.getCmsCacheKey());
                 }
+                if (!controller.isForwardMode() && (variation != null)) {
+                    // if another request renders the same variation right now, use its result
+                    entry = cache.awaitRendering(w_req.getCmsCacheKey(), w_res.getCmsCacheKey(), variation);
+                    if ((entry != null) && entry.retain()) {
+                        if (profiler != null) {
+                            profiler.setCacheStatus(CmsFlexProfiler.CACHE_HIT);
+                        }
+                        serviceCacheEntry(entry, w_req, w_res, controller);
+                    } else {
+                        entry = null;
+                    }
+                }
+            }
+
+            if (entry == null) {
+                // the target is not cached (or caching off), so load it with the internal resource loader
+                I_CmsResourceLoader loader = null;
+
                 // indicate to the response if caching is not required                
                 w_res.setCmsCachingRequired(!controller.isForwardMode() && (variation != null));
 
@@ -461,6 +478,13 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
                 result = null;
             }
         } finally {
+            // let the requests waiting for the variation rendered by this request continue
+            cache.releaseRendering(w_req.getCmsCacheKey());
+
+            if (profiler != null) {
+                profiler.exit(w_res.getWriterSize());
+            }
+
             // indicate to response that include is finished
             f_res.setCmsIncludeMode(false);
             f_req.removeIncludeCall(m_vfsTarget);
@@ -469,4 +493,47 @@ public class CmsFlexRequestDispatcher implements RequestDispatcher {
             controller.pop();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the output of a cached entry to the response.<p>
+     * 
+     * The entry must have been retained before, it is released by this method.<p>
+     * 
+     * @param entry the cached entry
+     * @param w_req the wrapped request
+     * @param w_res the wrapped response
+     * @param controller the current flex controller
+     * 
+     * @throws ServletException if the output of the entry could not be written
+     * @throws IOException in case of an I/O error
+     */
+    private void serviceCacheEntry(
+        CmsFlexCacheEntry entry,
+        CmsFlexRequest w_req,
+        CmsFlexResponse w_res,
+        CmsFlexController controller) throws ServletException, IOException {
+
+        try {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(Messages.get().getBundle().key(
+                    Messages.LOG_FLEXREQUESTDISPATCHER_LOADING_RESOURCE_FROM_CACHE_1,
+                    m_vfsTarget));
+            }
+            controller.updateDates(entry.getDateLastModified(), entry.getDateExpires());
+            entry.service(w_req, w_res);
+        } catch (CmsException e) {
+            Throwable t;
+            if (e.getCause() != null) {
+                t = e.getCause();
+            } else {
+                t = e;
+            }
+            t = controller.setThrowable(e, m_vfsTarget);
+            throw new ServletException(Messages.get().getBundle().key(
+                Messages.ERR_FLEXREQUESTDISPATCHER_ERROR_LOADING_RESOURCE_FROM_CACHE_1,
+                m_vfsTarget), t);
+        } finally {
+            entry.release();
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.opencms.file.CmsRequestContext;
 import org.opencms.loader.I_CmsResourceLoader;
 import org.opencms.main.CmsLog;
 
+import java.util.Locale;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -46,6 +47,9 @@ import org.apache.commons.logging.Log;
 /**
  * Describes the caching behaviour (or caching options) for a Flex request.<p>
  *
+ * Values that are calculated from the request context or the request are cached,
+ * since the key is matched against the cache keys of several resources.<p>
+ *
  * @author Alexander Kandzior 
  * 
  * @version $Revision: 1.14 $ 
@@ -60,12 +64,36 @@ public class CmsFlexRequestKey {
     /** The request context this request was made in. */
     private CmsRequestContext m_context;
 
+    /** The locale the cached locale name was calculated for. */
+    private Locale m_contextLocale;
+
+    /** The site root the cached uri was calculated for. */
+    private String m_contextSite;
+
+    /** The uri the cached uri was calculated for. */
+    private String m_contextUri;
+
+    /** The cached locale name. */
+    private String m_locale;
+
+    /** The cached port. */
+    private Integer m_port;
+
     /** The (Flex) Http request this key was constructed for. */
     private HttpServletRequest m_request;
 
     /** The OpenCms resource that this key is used for. */
     private String m_resource;
 
+    /** The rendering of a variation this request has registered in the FlexCache, or <code>null</code>. */
+    private CmsFlexCache.CmsFlexRendering m_rendering;
+
+    /** The cached scheme. */
+    private String m_scheme;
+
+    /** The cached uri including the site root. */
+    private String m_uri;
+
     /**
      * This constructor is used when building a cache key from a request.<p>
      * 
@@ -134,7 +162,12 @@ public class CmsFlexRequestKey {
      */
     public String getLocale() {
 
-        return m_context.getLocale().toString();
+        Locale locale = m_context.getLocale();
+        if (locale != m_contextLocale) {
+            m_locale = locale.toString();
+            m_contextLocale = locale;
+        }
+        return m_locale;
     }
 
     /**
@@ -159,7 +192,10 @@ public class CmsFlexRequestKey {
      */
     public Integer getPort() {
 
-        return new Integer(m_request.getServerPort());
+        if (m_port == null) {
+            m_port = new Integer(m_request.getServerPort());
+        }
+        return m_port;
     }
 
     /**
@@ -179,7 +215,10 @@ public class CmsFlexRequestKey {
      */
     public String getScheme() {
 
-        return m_request.getScheme().toLowerCase();
+        if (m_scheme == null) {
+            m_scheme = m_request.getScheme().toLowerCase();
+        }
+        return m_scheme;
     }
 
     /**
@@ -210,7 +249,15 @@ public class CmsFlexRequestKey {
      */
     public String getUri() {
 
-        return m_context.addSiteRoot(m_context.getUri());
+        String uri = m_context.getUri();
+        String site = m_context.getSiteRoot();
+        if ((uri != m_contextUri) || (site != m_contextSite)) {
+            // the uri or the site root of the request context has been changed
+            m_uri = m_context.addSiteRoot(uri);
+            m_contextUri = uri;
+            m_contextSite = site;
+        }
+        return m_uri;
     }
 
     /**
@@ -222,4 +269,24 @@ public class CmsFlexRequestKey {
 
         return m_context.currentUser().getName();
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the rendering of a variation this request has registered in the FlexCache.<p>
+     * 
+     * @return the registered rendering, or <code>null</code> if this request renders no registered variation
+     */
+    CmsFlexCache.CmsFlexRendering getRendering() {
+
+        return m_rendering;
+    }
+
+    /**
+     * Sets the rendering of a variation this request has registered in the FlexCache.<p>
+     * 
+     * @param rendering the registered rendering, or <code>null</code> after it has been released
+     */
+    void setRendering(CmsFlexCache.CmsFlexRendering rendering) {
+
+        m_rendering = rendering;
+    }
+}
@@ -152,6 +152,16 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
             return m_stream.toByteArray();
         }
 
+        /**
+         * Returns the number of bytes cached in the buffer.<p>
+         *
+         * @return the number of bytes cached in the buffer
+         */
+        public int size() {
+
+            return m_stream.size();
+        }
+
         /**
          * @see java.io.OutputStream#write(byte[], int, int)
          */
@@ -573,6 +583,30 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         return m_out.getBytes();
     }
 
+    /**
+     * Returns the number of bytes that have been written on the current writers output stream.<p>
+     * 
+     * In contrast to {@link #getWriterBytes()}, the bytes are not copied.<p>
+     *
+     * @return the number of bytes that have been written on the current writers output stream
+     */
+    public int getWriterSize() {
+
+        if (isSuspended()) {
+            return 0;
+        }
+        if (m_cacheBytes != null) {
+            return m_cacheBytes.length;
+        }
+        if (m_out == null) {
+            return 0;
+        }
+        if (m_writer != null) {
+            m_writer.flush();
+        }
+        return m_out.size();
+    }
+
     /** 
      * This flag indicates if the response is suspended or not.<p>
      * 
@@ -950,6 +984,33 @@ public class CmsFlexResponse extends HttpServletResponseWrapper {
         m_suspended = value;
     }
 
+    /** 
+     * Writes a block of off heap output to the current output stream,
+     * this method should be called from CmsFlexCacheEntry.service() only.<p>
+     *
+     * @param pool the buffer pool the block is stored in
+     * @param block the block to write
+     * 
+     * @throws IOException in case something goes wrong while writing to the stream
+     */
+    void writeToOutputStream(CmsFlexBufferPool pool, CmsFlexBufferPool.Block block) throws IOException {
+
+        if (isSuspended()) {
+            return;
+        }
+        if (m_writeOnlyToBuffer) {
+            if (m_out == null) {
+                initStream();
+            }
+            // the block is copied to the internal buffer, since the pages may be reused after the request
+            pool.writeTo(block, m_out);
+        } else {
+            // the request is not buffered, so we can write directly to it's parents output stream 
+            pool.writeTo(block, m_res.getOutputStream());
+            m_res.getOutputStream().flush();
+        }
+    }
+
     /** 
      * Writes some bytes to the current output stream,
      * this method should be called from CmsFlexCacheEntry.service() only.<p>
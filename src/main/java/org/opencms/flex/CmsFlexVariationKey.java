@@ -0,0 +1,183 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/flex/CmsFlexVariationKey.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.flex;
+
+import java.util.Arrays;
+
+/**
+ * The key of a cached variation of a resource in the FlexCache.<p>
+ *
+ * The key is created by {@link CmsFlexCacheKey#getVariationKey(CmsFlexRequestKey)} and contains
+ * the values the cache directives of the resource select from the request, e.g. the URI or the user name.
+ * A 64 bit hash of the values is calculated once when the key is created.
+ * Keys with the same hash are compared value by value, so a hash collision can not mix up two variations.<p>
+ *
+ * The String representation in the Flex cache language, e.g. <code>uri=(/index.html);user=(Guest);</code>,
+ * is only built on demand, for the FlexCache administration and for logging.<p>
+ *
+ * @version $Revision: 1.1 $
+ *
+ * @since 7.0.5
+ */
+public final class CmsFlexVariationKey {
+
+    /** Multiplier used to mix the hash values (the golden ratio as 64 bit value). */
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    /** The hash value used for <code>null</code> values. */
+    private static final int HASH_NULL = 0x2F0A83C1;
+
+    /** The cache key that created this variation key. */
+    private final CmsFlexCacheKey m_cacheKey;
+
+    /** The 64 bit hash of the values. */
+    private final long m_hash;
+
+    /** The String representation, built on demand. */
+    private String m_string;
+
+    /** The values selected from the request, in the order of the cache directives. */
+    private final Object[] m_values;
+
+    /**
+     * Creates a new variation key.<p>
+     *
+     * @param cacheKey the cache key that creates this variation key
+     * @param values the values selected from the request, in the order of the cache directives
+     */
+    CmsFlexVariationKey(CmsFlexCacheKey cacheKey, Object[] values) {
+
+        m_cacheKey = cacheKey;
+        m_values = values;
+        long hash = cacheKey.getDirectives().hashCode();
+        for (int i = 0; i < values.length; i++) {
+            hash = (hash + hashValue(values[i])) * HASH_MULTIPLIER;
+            hash ^= (hash >>> 29);
+        }
+        m_hash = hash;
+    }
+
+    /**
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    public boolean equals(Object obj) {
+
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CmsFlexVariationKey)) {
+            return false;
+        }
+        CmsFlexVariationKey other = (CmsFlexVariationKey)obj;
+        if ((m_hash != other.m_hash) || (m_values.length != other.m_values.length)) {
+            return false;
+        }
+        if ((m_cacheKey != other.m_cacheKey) && !m_cacheKey.getDirectives().equals(other.m_cacheKey.getDirectives())) {
+            return false;
+        }
+        for (int i = 0; i < m_values.length; i++) {
+            if (!equalValues(m_values[i], other.m_values[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the 64 bit hash of the values of this key.<p>
+     *
+     * @return the 64 bit hash of the values of this key
+     */
+    public long getHash() {
+
+        return m_hash;
+    }
+
+    /**
+     * @see java.lang.Object#hashCode()
+     */
+    public int hashCode() {
+
+        return (int)(m_hash ^ (m_hash >>> 32));
+    }
+
+    /**
+     * Returns the variation in the Flex cache language.<p>
+     *
+     * @see java.lang.Object#toString()
+     */
+    public String toString() {
+
+        if (m_string == null) {
+            m_string = m_cacheKey.formatVariation(m_values);
+        }
+        return m_string;
+    }
+
+    /**
+     * Compares two values of a variation key.<p>
+     * 
+     * @param value the first value, may be <code>null</code>
+     * @param otherValue the second value, may be <code>null</code>
+     * 
+     * @return <code>true</code> if both values are equal
+     */
+    private static boolean equalValues(Object value, Object otherValue) {
+
+        if (value == otherValue) {
+            return true;
+        }
+        if ((value instanceof Object[]) && (otherValue instanceof Object[])) {
+            // the request parameters are stored as array
+            return Arrays.equals((Object[])value, (Object[])otherValue);
+        }
+        return (value != null) && value.equals(otherValue);
+    }
+
+    /**
+     * Returns the hash code of a value of a variation key.<p>
+     * 
+     * @param value the value, may be <code>null</code>
+     * 
+     * @return the hash code of the value
+     */
+    private static int hashValue(Object value) {
+
+        if (value == null) {
+            return HASH_NULL;
+        }
+        if (value instanceof Object[]) {
+            return Arrays.hashCode((Object[])value);
+        }
+        return value.hashCode();
+    }
+}
@@ -78,6 +78,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Static instance member. */
     private static final I_CmsMessageBundle INSTANCE = new Messages();
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_FLEXCACHE_OFFHEAP_1 = "INIT_FLEXCACHE_OFFHEAP_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_ADD_ENTRY_1 = "LOG_FLEXCACHE_ADD_ENTRY_1";
 
@@ -126,9 +129,33 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_RECEIVED_EVENT_PURGE_REPOSITORY_0 = "LOG_FLEXCACHE_RECEIVED_EVENT_PURGE_REPOSITORY_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_RENDER_WAIT_TIMEOUT_2 = "LOG_FLEXCACHE_RENDER_WAIT_TIMEOUT_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0 = "LOG_FLEXCACHE_RESOURCE_NOT_CACHEABLE_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_FINISHED_3 = "LOG_FLEXCACHE_WARMUP_FINISHED_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_READ_ERROR_1 = "LOG_FLEXCACHE_WARMUP_READ_ERROR_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_REQUEST_2 = "LOG_FLEXCACHE_WARMUP_REQUEST_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_REQUEST_FAILED_1 = "LOG_FLEXCACHE_WARMUP_REQUEST_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_SERVER_INVALID_1 = "LOG_FLEXCACHE_WARMUP_SERVER_INVALID_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_STARTED_2 = "LOG_FLEXCACHE_WARMUP_STARTED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXCACHE_WARMUP_WRITE_ERROR_1 = "LOG_FLEXCACHE_WARMUP_WRITE_ERROR_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0 = "LOG_FLEXCACHE_WILL_PURGE_JSP_REPOSITORY_0";
 
@@ -180,6 +207,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXCONTROLLER_IGNORED_EXCEPTION_1 = "LOG_FLEXCONTROLLER_IGNORED_EXCEPTION_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FLEXPROFILER_PROFILE_3 = "LOG_FLEXPROFILER_PROFILE_3";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_FLEXREQUEST_CREATED_NEW_REQUEST_1 = "LOG_FLEXREQUEST_CREATED_NEW_REQUEST_1";
 
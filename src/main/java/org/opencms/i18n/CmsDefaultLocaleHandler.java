@@ -33,6 +33,7 @@ package org.opencms.i18n;
 
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
@@ -116,8 +117,16 @@ public class CmsDefaultLocaleHandler implements I_CmsLocaleHandler {
 
             if (res != null) {
                 // the resource may not exist at all (e.g. if an unknown resource was requested by the user in the browser)
+                CmsI18nPropertyIndex propertyIndex = localeManager.getPropertyIndex();
                 try {
-                    defaultNames = adminCms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_LOCALE, true).getValue();
+                    CmsProperty property = propertyIndex.lookupProperty(
+                        adminCms,
+                        res.getRootPath(),
+                        CmsPropertyDefinition.PROPERTY_LOCALE);
+                    if (property == null) {
+                        property = adminCms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_LOCALE, true);
+                    }
+                    defaultNames = property.getValue();
                 } catch (CmsException e) {
                     LOG.warn(Messages.get().getBundle().key(Messages.ERR_READ_ENCODING_PROP_1, resourceName), e);
                 }
@@ -127,8 +136,17 @@ public class CmsDefaultLocaleHandler implements I_CmsLocaleHandler {
 
                 // get the encoding
                 try {
-                    encoding = adminCms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true).getValue(
-                        OpenCms.getSystemInfo().getDefaultEncoding());
+                    CmsProperty property = propertyIndex.lookupProperty(
+                        adminCms,
+                        res.getRootPath(),
+                        CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING);
+                    if (property == null) {
+                        property = adminCms.readPropertyObject(
+                            res,
+                            CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING,
+                            true);
+                    }
+                    encoding = property.getValue(OpenCms.getSystemInfo().getDefaultEncoding());
                 } catch (CmsException e) {
                     if (LOG.isInfoEnabled()) {
                         LOG.info(Messages.get().getBundle().key(Messages.ERR_READ_ENCODING_PROP_1, resourceName), e);
@@ -0,0 +1,274 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/i18n/CmsI18nPropertyIndex.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.i18n;
+
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.OpenCms;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Index of the locale and content encoding properties set in the Online project.<p>
+ * 
+ * The properties <code>{@link CmsPropertyDefinition#PROPERTY_LOCALE}</code> and 
+ * <code>{@link CmsPropertyDefinition#PROPERTY_CONTENT_ENCODING}</code> are evaluated for almost every request, 
+ * always with inheritance from the parent folders. Since they are usually set on a few folders only,
+ * the index reads all resources that have a value set once and resolves the inherited value of a resource
+ * by looking up the resource and its parent folders in the index.<p>
+ * 
+ * The index is built on first access and rebuilt after the next publish, 
+ * it is not used for Offline projects. The index is built by one request without holding a lock, 
+ * the concurrent requests read the properties as usual until the new index is available.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+final class CmsI18nPropertyIndex {
+
+    /**
+     * The index built for one generation.<p>
+     */
+    private static final class CmsIndex {
+
+        /** The generation the index was built for. */
+        final long m_generation;
+
+        /** The indexed property names mapped to Maps of root paths and the properties set on the resources. */
+        final Map m_values;
+
+        /**
+         * Creates a new index.<p>
+         * 
+         * @param generation the generation the index was built for
+         * @param values the indexed property names mapped to Maps of root paths and properties
+         */
+        CmsIndex(long generation, Map values) {
+
+            m_generation = generation;
+            m_values = values;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsI18nPropertyIndex.class);
+
+    /** The names of the indexed properties. */
+    private static final String[] PROPERTIES = {
+        CmsPropertyDefinition.PROPERTY_LOCALE,
+        CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING};
+
+    /** Signals that the index is being built. */
+    private final AtomicBoolean m_building;
+
+    /** An Online context with Admin permissions and the root site. */
+    private volatile CmsObject m_cms;
+
+    /** The generation of the index, incremented on every invalidation. */
+    private final AtomicLong m_generation;
+
+    /** The last built index, only valid if it was built for the current generation. */
+    private volatile CmsIndex m_index;
+
+    /**
+     * Creates a new, empty index.<p>
+     */
+    CmsI18nPropertyIndex() {
+
+        m_building = new AtomicBoolean();
+        m_generation = new AtomicLong();
+    }
+
+    /**
+     * Invalidates all entries, the index is rebuilt on next access.<p>
+     */
+    void clear() {
+
+        m_generation.incrementAndGet();
+    }
+
+    /**
+     * Initializes the index with the given Admin context.<p>
+     * 
+     * @param cms an OpenCms context object that must have been initialized with "Admin" permissions
+     */
+    void initialize(CmsObject cms) {
+
+        try {
+            CmsObject onlineCms = OpenCms.initCmsObject(cms);
+            onlineCms.getRequestContext().setSiteRoot("/");
+            onlineCms.getRequestContext().setCurrentProject(onlineCms.readProject(CmsProject.ONLINE_PROJECT_ID));
+            m_cms = onlineCms;
+        } catch (CmsException e) {
+            // without an Online context the index is not used
+            LOG.error(e.getLocalizedMessage(), e);
+        }
+        m_generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the value of the given property for the given resource, 
+     * with inheritance from the parent folders.<p>
+     * 
+     * In case the index can not be used for the given context, or is currently being built by 
+     * another request, <code>null</code> is returned,
+     * if the property is not set on the resource or a parent folder, 
+     * <code>{@link CmsProperty#getNullProperty()}</code> is returned.<p>
+     * 
+     * @param cms the current OpenCms user context
+     * @param rootPath the root path of the resource
+     * @param property the name of the property, either <code>{@link CmsPropertyDefinition#PROPERTY_LOCALE}</code>
+     *      or <code>{@link CmsPropertyDefinition#PROPERTY_CONTENT_ENCODING}</code>
+     * 
+     * @return the property, or <code>null</code> if the index can not be used
+     */
+    CmsProperty lookupProperty(CmsObject cms, String rootPath, String property) {
+
+        if ((rootPath == null) || !cms.getRequestContext().currentProject().isOnlineProject()) {
+            return null;
+        }
+        CmsIndex index = m_index;
+        if ((index == null) || (index.m_generation != m_generation.get())) {
+            index = buildIndex();
+            if (index == null) {
+                return null;
+            }
+        }
+        Map values = (Map)index.m_values.get(property);
+        if (values == null) {
+            return null;
+        }
+        String path = rootPath;
+        if (!path.endsWith("/")) {
+            // the resource may be a folder given without trailing slash
+            CmsProperty result = (CmsProperty)values.get(path);
+            if (result == null) {
+                result = (CmsProperty)values.get(path + "/");
+            }
+            if (result != null) {
+                return result;
+            }
+            path = CmsResource.getParentFolder(path);
+        }
+        while (path != null) {
+            CmsProperty result = (CmsProperty)values.get(path);
+            if (result != null) {
+                return result;
+            }
+            path = CmsResource.getParentFolder(path);
+        }
+        return CmsProperty.getNullProperty();
+    }
+
+    /**
+     * Reads all resources that have one of the indexed properties set and builds the index.<p>
+     * 
+     * Only one thread builds the index at a time, no lock is held while reading.<p>
+     * 
+     * @return the new index, or <code>null</code> if the index could not be built 
+     *      or is being built by another thread
+     */
+    private CmsIndex buildIndex() {
+
+        CmsObject cms = m_cms;
+        if ((cms == null) || !m_building.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long generation = m_generation.get();
+            Map values = readIndex(cms);
+            if (values == null) {
+                return null;
+            }
+            // an index built for an outdated generation is ignored by the lookups
+            CmsIndex index = new CmsIndex(generation, values);
+            m_index = index;
+            return (generation == m_generation.get()) ? index : null;
+        } finally {
+            m_building.set(false);
+        }
+    }
+
+    /**
+     * Reads all resources that have one of the indexed properties set.<p>
+     * 
+     * @param cms an Online context with Admin permissions and the root site
+     * 
+     * @return the indexed property names mapped to Maps of root paths and properties, 
+     *      or <code>null</code> if the properties could not be read
+     */
+    private Map readIndex(CmsObject cms) {
+
+        Map index = new HashMap();
+        try {
+            // a property can not be set if it is not defined
+            Set definitions = new HashSet();
+            List propertyDefinitions = cms.readAllPropertyDefinitions();
+            for (int i = 0; i < propertyDefinitions.size(); i++) {
+                definitions.add(((CmsPropertyDefinition)propertyDefinitions.get(i)).getName());
+            }
+            for (int i = 0; i < PROPERTIES.length; i++) {
+                Map values = new HashMap();
+                if (definitions.contains(PROPERTIES[i])) {
+                    List resources = cms.readResourcesWithProperty("/", PROPERTIES[i]);
+                    for (int j = 0; j < resources.size(); j++) {
+                        CmsResource resource = (CmsResource)resources.get(j);
+                        CmsProperty value = cms.readPropertyObject(resource, PROPERTIES[i], false);
+                        if (!value.isNullProperty()) {
+                            value.setFrozen(true);
+                            values.put(resource.getRootPath(), value);
+                        }
+                    }
+                }
+                index.put(PROPERTIES[i], values);
+            }
+        } catch (CmsException e) {
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_BUILD_PROPERTY_INDEX_FAILED_0), e);
+            return null;
+        }
+        return index;
+    }
+}
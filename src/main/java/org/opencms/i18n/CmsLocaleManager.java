@@ -33,6 +33,7 @@ package org.opencms.i18n;
 
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsProject;
+import org.opencms.file.CmsProperty;
 import org.opencms.file.CmsPropertyDefinition;
 import org.opencms.file.CmsResource;
 import org.opencms.file.CmsUser;
@@ -95,6 +96,9 @@ public class CmsLocaleManager implements I_CmsEventListener {
     /** The configured locale handler. */
     private I_CmsLocaleHandler m_localeHandler;
 
+    /** The index of the locale and encoding properties in the Online project. */
+    private CmsI18nPropertyIndex m_propertyIndex;
+
     /**
      * Initializes a new CmsLocaleManager, called from the configuration.<p>
      */
@@ -104,11 +108,14 @@ public class CmsLocaleManager implements I_CmsEventListener {
         m_availableLocales = new ArrayList();
         m_defaultLocales = new ArrayList();
         m_localeHandler = new CmsDefaultLocaleHandler();
+        m_propertyIndex = new CmsI18nPropertyIndex();
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_I18N_CONFIG_START_0));
         }
         // register this object as event listener
-        OpenCms.addCmsEventListener(this, new int[] {I_CmsEventListener.EVENT_CLEAR_CACHES});
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT});
     }
 
     /**
@@ -124,6 +131,7 @@ public class CmsLocaleManager implements I_CmsEventListener {
         m_availableLocales = new ArrayList();
         m_defaultLocales = new ArrayList();
         m_localeHandler = new CmsDefaultLocaleHandler();
+        m_propertyIndex = new CmsI18nPropertyIndex();
 
         m_defaultLocale = defaultLocale;
         m_defaultLocales.add(defaultLocale);
@@ -268,7 +276,18 @@ public class CmsLocaleManager implements I_CmsEventListener {
         String encoding = null;
         // get the encoding
         try {
-            encoding = cms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true).getValue();
+            CmsProperty property = null;
+            CmsLocaleManager localeManager = OpenCms.getLocaleManager();
+            if (localeManager != null) {
+                property = localeManager.getPropertyIndex().lookupProperty(
+                    cms,
+                    res.getRootPath(),
+                    CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING);
+            }
+            if (property == null) {
+                property = cms.readPropertyObject(res, CmsPropertyDefinition.PROPERTY_CONTENT_ENCODING, true);
+            }
+            encoding = property.getValue();
             if (encoding != null) {
                 encoding = CmsEncoder.lookupEncoding(encoding.trim(), encoding);
             }
@@ -404,6 +423,10 @@ public class CmsLocaleManager implements I_CmsEventListener {
             case I_CmsEventListener.EVENT_CLEAR_CACHES:
                 clearCaches();
                 break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                // the locale and encoding properties may have been changed
+                m_propertyIndex.clear();
+                break;
             default: // no operation
         }
     }
@@ -629,7 +652,14 @@ public class CmsLocaleManager implements I_CmsEventListener {
 
         String defaultNames = null;
         try {
-            defaultNames = cms.readPropertyObject(resource, CmsPropertyDefinition.PROPERTY_LOCALE, true).getValue();
+            CmsProperty property = m_propertyIndex.lookupProperty(
+                cms,
+                resource.getRootPath(),
+                CmsPropertyDefinition.PROPERTY_LOCALE);
+            if (property == null) {
+                property = cms.readPropertyObject(resource, CmsPropertyDefinition.PROPERTY_LOCALE, true);
+            }
+            defaultNames = property.getValue();
         } catch (CmsException e) {
             LOG.warn(Messages.get().getBundle().key(Messages.ERR_READ_ENCODING_PROP_1, cms.getSitePath(resource)), e);
         }
@@ -668,7 +698,14 @@ public class CmsLocaleManager implements I_CmsEventListener {
 
         String defaultNames = null;
         try {
-            defaultNames = cms.readPropertyObject(resourceName, CmsPropertyDefinition.PROPERTY_LOCALE, true).getValue();
+            CmsProperty property = m_propertyIndex.lookupProperty(
+                cms,
+                cms.getRequestContext().addSiteRoot(resourceName),
+                CmsPropertyDefinition.PROPERTY_LOCALE);
+            if (property == null) {
+                property = cms.readPropertyObject(resourceName, CmsPropertyDefinition.PROPERTY_LOCALE, true);
+            }
+            defaultNames = property.getValue();
         } catch (CmsException e) {
             LOG.warn(Messages.get().getBundle().key(Messages.ERR_READ_ENCODING_PROP_1, resourceName), e);
         }
@@ -828,6 +865,8 @@ public class CmsLocaleManager implements I_CmsEventListener {
 
         // init the locale handler
         m_localeHandler.initHandler(cms);
+        // init the Online property index
+        m_propertyIndex.initialize(cms);
         // set default locale 
         m_defaultLocale = (Locale)m_defaultLocales.get(0);
         // set initialized status
@@ -868,6 +907,16 @@ public class CmsLocaleManager implements I_CmsEventListener {
         }
     }
 
+    /**
+     * Returns the index of the locale and encoding properties in the Online project.<p>
+     * 
+     * @return the index of the locale and encoding properties in the Online project
+     */
+    CmsI18nPropertyIndex getPropertyIndex() {
+
+        return m_propertyIndex;
+    }
+
     /**
      * Returns a list of available locale names derived from the given locale names.<p>
      * 
@@ -901,6 +950,7 @@ public class CmsLocaleManager implements I_CmsEventListener {
         // flush all caches   
         OpenCms.getMemoryMonitor().flushLocales();
         CmsResourceBundleLoader.flushBundleCache();
+        m_propertyIndex.clear();
 
         if (LOG.isDebugEnabled()) {
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_LOCALE_MANAGER_FLUSH_CACHE_1, "EVENT_CLEAR_CACHES"));
@@ -90,6 +90,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_I18N_KEEPING_DEFAULT_LOCALE_1 = "INIT_I18N_KEEPING_DEFAULT_LOCALE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_BUILD_PROPERTY_INDEX_FAILED_0 = "LOG_BUILD_PROPERTY_INDEX_FAILED_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CREATE_LOCALE_FAILED_1 = "LOG_CREATE_LOCALE_FAILED_1";
 
@@ -73,6 +73,11 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -105,6 +110,15 @@ public class CmsExport {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsExport.class);
 
+    /** The number of files read from the database ahead of the file currently written to the ZIP archive. */
+    private static final int READ_AHEAD_FILES = 16;
+
+    /** The maximum size of a file to read ahead, bigger files are read when they are written. */
+    private static final int READ_AHEAD_MAX_SIZE = 1024 * 1024;
+
+    /** The number of threads reading files from the database ahead. */
+    private static final int READ_AHEAD_THREADS = 4;
+
     private static final int SUB_LENGTH = 4096;
 
     /** Counter for the export. */
@@ -119,6 +133,9 @@ public class CmsExport {
     /** The export parameters. */
     private CmsExportParameters m_parameters;
 
+    /** The executor reading the files to export ahead, only available while exporting resources. */
+    private ExecutorService m_readAheadExecutor;
+
     /** The top level file node where all resources are appended to. */
     private Element m_resourceNode;
 
@@ -373,7 +390,8 @@ public class CmsExport {
             // get all files in folder
             List subFiles = getCms().getFilesInFolder(folderName, CmsResourceFilter.IGNORE_EXPIRATION);
 
-            // walk through all files and export them
+            // walk through all files and collect the files to export
+            List exportFiles = new ArrayList();
             for (int i = 0; i < subFiles.size(); i++) {
                 CmsResource file = (CmsResource)subFiles.get(i);
                 CmsResourceState state = file.getState();
@@ -390,7 +408,7 @@ public class CmsExport {
                         String export = getCms().getSitePath(file);
                         if (checkExportResource(export)) {
                             if (isInExportableProject(file)) {
-                                exportFile(getCms().readFile(export, CmsResourceFilter.IGNORE_EXPIRATION));
+                                exportFiles.add(file);
                             }
                         }
                     }
@@ -398,8 +416,10 @@ public class CmsExport {
                 // release file header memory
                 subFiles.set(i, null);
             }
-            // all files are exported, release memory
             subFiles = null;
+            // export the collected files, release memory
+            exportFiles(exportFiles);
+            exportFiles = null;
 
             // walk through all subfolders and export them
             for (int i = 0; i < subFolders.size(); i++) {
@@ -888,6 +908,32 @@ public class CmsExport {
         }
 
         m_exportedResources = new HashSet();
+        m_readAheadExecutor = Executors.newFixedThreadPool(READ_AHEAD_THREADS);
+        try {
+            exportAllResources(folderNames, fileNames);
+        } finally {
+            m_readAheadExecutor.shutdownNow();
+            m_readAheadExecutor = null;
+        }
+
+        // write the XML
+        getSaxWriter().writeClose(m_resourceNode);
+        parent.remove(m_resourceNode);
+        m_resourceNode = null;
+    }
+
+    /**
+     * Exports the given folders and files.<p>
+     * 
+     * @param folderNames the list of folder names to export
+     * @param fileNames the list of file names to export
+     * 
+     * @throws CmsImportExportException if something goes wrong
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if not all resources could be appended to the ZIP archive
+     */
+    protected void exportAllResources(List folderNames, List fileNames)
+    throws CmsImportExportException, IOException, SAXException {
 
         // export the folders
         for (int i = 0; i < folderNames.size(); i++) {
@@ -929,11 +975,6 @@ public class CmsExport {
         }
         // export the files
         addFiles(fileNames);
-
-        // write the XML
-        getSaxWriter().writeClose(m_resourceNode);
-        parent.remove(m_resourceNode);
-        m_resourceNode = null;
     }
 
     /**
@@ -985,6 +1026,83 @@ public class CmsExport {
             I_CmsReport.FORMAT_OK);
     }
 
+    /**
+     * Exports the given files with all their data and content, in the order of the list.<p>
+     * 
+     * The contents of the following files are read from the database by a pool of threads
+     * while the current file is written to the ZIP archive. Files bigger than 
+     * {@link #READ_AHEAD_MAX_SIZE} are only read when they are written, so the window 
+     * keeps at most that many bytes per file on the heap.<p>
+     * 
+     * @param files the files to be exported, as <code>{@link CmsResource}</code> objects
+     * 
+     * @throws CmsException if a file could not be read 
+     * @throws SAXException if something goes wrong processing the manifest.xml
+     * @throws IOException if the ZIP entry for a file could be appended to the ZIP archive
+     */
+    protected void exportFiles(List files) throws CmsException, SAXException, IOException {
+
+        if (m_readAheadExecutor == null) {
+            for (int i = 0; i < files.size(); i++) {
+                exportFile(getCms().readFile((CmsResource)files.get(i)));
+            }
+            return;
+        }
+
+        List readAhead = new ArrayList(files.size());
+        try {
+            for (int i = 0; i < files.size(); i++) {
+                // keep the read ahead window filled
+                while ((readAhead.size() < files.size()) && (readAhead.size() <= (i + READ_AHEAD_FILES))) {
+                    final CmsResource resource = (CmsResource)files.get(readAhead.size());
+                    if (resource.getLength() > READ_AHEAD_MAX_SIZE) {
+                        // big files are read when they are written
+                        readAhead.add(null);
+                        continue;
+                    }
+                    final CmsObject cms = OpenCms.initCmsObject(getCms());
+                    readAhead.add(m_readAheadExecutor.submit(new Callable() {
+
+                        public Object call() throws Exception {
+
+                            return cms.readFile(resource);
+                        }
+                    }));
+                }
+                Future future = (Future)readAhead.get(i);
+                readAhead.set(i, null);
+                if (future == null) {
+                    exportFile(getCms().readFile((CmsResource)files.get(i)));
+                    continue;
+                }
+                CmsFile file;
+                try {
+                    file = (CmsFile)future.get();
+                } catch (InterruptedException e) {
+                    throw new CmsImportExportException(Messages.get().container(
+                        Messages.ERR_IMPORTEXPORT_ERROR_ADDING_FILE_1,
+                        getCms().getSitePath((CmsResource)files.get(i))), e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof CmsException) {
+                        throw (CmsException)e.getCause();
+                    }
+                    throw new CmsImportExportException(Messages.get().container(
+                        Messages.ERR_IMPORTEXPORT_ERROR_ADDING_FILE_1,
+                        getCms().getSitePath((CmsResource)files.get(i))), e.getCause());
+                }
+                exportFile(file);
+            }
+        } finally {
+            // cancel the pending reads if the export failed
+            for (int i = 0; i < readAhead.size(); i++) {
+                Future future = (Future)readAhead.get(i);
+                if (future != null) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
     /**
      * Exports one single group with all it's data.<p>
      *
@@ -43,6 +43,18 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
@@ -63,12 +75,33 @@ public class CmsImportHelper {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsImport.class);
 
+    /** The number of zip entries read ahead. */
+    private static final int READ_AHEAD_FILES = 32;
+
+    /** The maximum size of a zip entry to read ahead, bigger entries are read when requested. */
+    private static final long READ_AHEAD_MAX_SIZE = 1024 * 1024;
+
     /** The folder, or <code>null</code> if a zip file.*/
     private File m_folder;
 
     /** The import parameters to use. */
     private CmsImportParameters m_params;
 
+    /** The zip entries to read ahead, in the order of the zip file. */
+    private List m_readAheadEntries;
+
+    /** The executor reading the zip entries ahead, or <code>null</code> if not reading ahead. */
+    private ExecutorService m_readAheadExecutor;
+
+    /** The pending reads, sorted by the position of the zip entry. */
+    private SortedMap m_readAheadFutures;
+
+    /** The position of the next zip entry to read ahead. */
+    private int m_readAheadPosition;
+
+    /** Maps the zip entry names to their position in the zip file. */
+    private Map m_readAheadPositions;
+
     /** The zip file, or <code>null</code> if a folder.*/
     private ZipFile m_zipFile;
 
@@ -116,6 +149,7 @@ public class CmsImportHelper {
      */
     public void closeFile() {
 
+        stopReadAhead();
         if (getZipFile() != null) {
             try {
                 getZipFile().close();
@@ -141,6 +175,12 @@ public class CmsImportHelper {
      */
     public byte[] getFileBytes(String filename) throws CmsImportExportException {
 
+        if (m_readAheadExecutor != null) {
+            byte[] content = readAhead(filename);
+            if (content != null) {
+                return content;
+            }
+        }
         try {
             // is this a zip-file?
             if (getZipFile() != null) {
@@ -297,4 +337,103 @@ public class CmsImportHelper {
             m_folder = null;
         }
     }
+
+    /**
+     * Starts reading the content of the zip entries ahead in the background.<p>
+     * 
+     * Files are usually requested with {@link #getFileBytes(String)} in the order they have been 
+     * written to the zip file, so while one file is imported the following files are already decompressed.
+     * Files requested in a different order are read directly as before.<p>
+     * 
+     * Has no effect if the import file is a folder.<p>
+     */
+    public void startReadAhead() {
+
+        if ((getZipFile() == null) || (m_readAheadExecutor != null)) {
+            return;
+        }
+        m_readAheadEntries = new ArrayList();
+        m_readAheadPositions = new HashMap();
+        Enumeration entries = getZipFile().entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = (ZipEntry)entries.nextElement();
+            if (!entry.isDirectory() && !entry.getName().equals(CmsImportExportManager.EXPORT_MANIFEST)) {
+                m_readAheadPositions.put(entry.getName(), new Integer(m_readAheadEntries.size()));
+                m_readAheadEntries.add(entry);
+            }
+        }
+        m_readAheadFutures = new TreeMap();
+        m_readAheadPosition = 0;
+        m_readAheadExecutor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Stops reading the content of the zip entries ahead.<p>
+     */
+    public void stopReadAhead() {
+
+        if (m_readAheadExecutor != null) {
+            m_readAheadExecutor.shutdownNow();
+            m_readAheadExecutor = null;
+            m_readAheadEntries = null;
+            m_readAheadFutures = null;
+            m_readAheadPositions = null;
+        }
+    }
+
+    /**
+     * Returns the content of the given zip entry if it has already been read ahead, 
+     * and continues reading ahead after this entry.<p>
+     * 
+     * @param filename the name of the file to read, relative to the zip file
+     * 
+     * @return the content of the file, or <code>null</code> if it has not been read ahead
+     */
+    protected byte[] readAhead(String filename) {
+
+        Integer position = (Integer)m_readAheadPositions.get(filename);
+        if ((position == null) && filename.startsWith("/")) {
+            position = (Integer)m_readAheadPositions.get(filename.substring(1));
+        }
+        if (position == null) {
+            return null;
+        }
+
+        // the entries before the requested one have been skipped, discard them
+        SortedMap skipped = m_readAheadFutures.headMap(position);
+        Iterator it = skipped.values().iterator();
+        while (it.hasNext()) {
+            ((Future)it.next()).cancel(true);
+        }
+        skipped.clear();
+        Future future = (Future)m_readAheadFutures.remove(position);
+
+        // keep the read ahead window filled
+        m_readAheadPosition = Math.max(m_readAheadPosition, position.intValue() + 1);
+        while ((m_readAheadFutures.size() < READ_AHEAD_FILES) && (m_readAheadPosition < m_readAheadEntries.size())) {
+            final ZipEntry entry = (ZipEntry)m_readAheadEntries.get(m_readAheadPosition);
+            if ((entry.getSize() >= 0) && (entry.getSize() <= READ_AHEAD_MAX_SIZE)) {
+                m_readAheadFutures.put(new Integer(m_readAheadPosition), m_readAheadExecutor.submit(new Callable() {
+
+                    public Object call() throws Exception {
+
+                        return CmsFileUtil.readFully(getZipFile().getInputStream(entry), (int)entry.getSize());
+                    }
+                }));
+            }
+            m_readAheadPosition++;
+        }
+
+        if (future != null) {
+            try {
+                return (byte[])future.get();
+            } catch (Exception e) {
+                // read the file directly, this will report the error if there is one
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        return null;
+    }
 }
@@ -1308,6 +1308,8 @@ public class CmsImportVersion7 implements I_CmsImport {
         try {
             m_helper.openFile();
             m_helper.cacheDtdSystemId(DTD_LOCATION, DTD_FILENAME, CmsConfigurationManager.DEFAULT_DTD_PREFIX);
+            // decompress the file contents in the background while the resources are imported
+            m_helper.startReadAhead();
             // start the parsing process
             stream = m_helper.getFileStream(CmsImportExportManager.EXPORT_MANIFEST);
             digester.parse(stream);
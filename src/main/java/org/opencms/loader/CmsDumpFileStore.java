@@ -0,0 +1,417 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/loader/CmsDumpFileStore.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsFile;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsResource;
+import org.opencms.flex.CmsFlexCache;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsFileUtil;
+import org.opencms.util.CmsUUID;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * A local file store for the contents of Online files delivered by the {@link CmsDumpLoader}.<p>
+ * 
+ * The store is content addressed: every content is saved once in a file named by the MD5 digest 
+ * of the content, the same digest is used as ETag for the HTTP response. Files with a text 
+ * mime type can have an additional gzip compressed variant.<p>
+ * 
+ * An index maps the resource ids to the stored contents. An index entry is only used as long as 
+ * the date of last modification, the date of the content and the size of the resource match. 
+ * Publishing removes the entries of all published resources.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+public class CmsDumpFileStore implements I_CmsEventListener {
+
+    /**
+     * A content saved in the file store.<p>
+     */
+    public static final class CmsStoredContent {
+
+        /** The date of the content of the resource. */
+        private long m_dateContent;
+
+        /** The date of last modification of the resource. */
+        private long m_dateLastModified;
+
+        /** The MD5 digest of the content, as hex String. */
+        private String m_digest;
+
+        /** The file with the content. */
+        private File m_file;
+
+        /** The file with the gzip compressed content, or <code>null</code>. */
+        private File m_gzipFile;
+
+        /** The length of the content. */
+        private int m_length;
+
+        /**
+         * Returns the ETag for the content.<p>
+         * 
+         * @return the ETag for the content
+         */
+        public String getETag() {
+
+            return "\"" + m_digest + "\"";
+        }
+
+        /**
+         * Returns the file with the content.<p>
+         * 
+         * @return the file with the content
+         */
+        public File getFile() {
+
+            return m_file;
+        }
+
+        /**
+         * Returns the ETag for the gzip compressed content.<p>
+         * 
+         * The gzip compressed variant is a different representation and 
+         * so needs an ETag that differs from the ETag of the content.<p>
+         * 
+         * @return the ETag for the gzip compressed content
+         */
+        public String getGzipETag() {
+
+            return "\"" + m_digest + "-gz\"";
+        }
+
+        /**
+         * Returns the file with the gzip compressed content.<p>
+         * 
+         * @return the file with the gzip compressed content, or <code>null</code> if there is none
+         */
+        public File getGzipFile() {
+
+            return m_gzipFile;
+        }
+
+        /**
+         * Returns the length of the content.<p>
+         * 
+         * @return the length of the content
+         */
+        public int getLength() {
+
+            return m_length;
+        }
+    }
+
+    /** The file extension of the gzip compressed variants. */
+    public static final String GZIP_EXTENSION = ".gz";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDumpFileStore.class);
+
+    /** The stored contents, mapped by resource id. */
+    private Map m_index;
+
+    /** The number of index entries per digest, the files are deleted if there are no entries left. */
+    private Map m_references;
+
+    /** The absolute path of the store in the RFS. */
+    private String m_rfsRepository;
+
+    /**
+     * Creates a new file store.<p>
+     * 
+     * The files are stored in the "online" subfolder of the given folder, 
+     * this subfolder is purged on startup.<p>
+     * 
+     * @param basepath the base path for the store in the RFS
+     * @param foldername the folder name for the store, used as subfolder of the base path
+     */
+    public CmsDumpFileStore(String basepath, String foldername) {
+
+        m_rfsRepository = CmsFileUtil.normalizePath(basepath
+            + foldername
+            + File.separatorChar
+            + CmsFlexCache.REPOSITORY_ONLINE
+            + File.separatorChar);
+        m_index = new ConcurrentHashMap();
+        m_references = new HashMap();
+
+        // files stored in a previous run are unknown to the index
+        CmsFileUtil.purgeDirectory(new File(m_rfsRepository));
+
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT});
+    }
+
+    /**
+     * Removes all contents from the store.<p>
+     */
+    public synchronized void clear() {
+
+        m_index.clear();
+        m_references.clear();
+        CmsFileUtil.purgeDirectory(new File(m_rfsRepository));
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                CmsUUID publishHistoryId = new CmsUUID((String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID));
+                List publishedResources;
+                try {
+                    CmsObject cms = OpenCms.initCmsObject(OpenCms.getDefaultUsers().getUserGuest());
+                    publishedResources = cms.readPublishedResources(publishHistoryId);
+                } catch (CmsException e) {
+                    LOG.error(Messages.get().getBundle().key(
+                        Messages.LOG_FILE_STORE_READ_PUBLISHED_FAILED_1,
+                        publishHistoryId), e);
+                    clear();
+                    break;
+                }
+                Iterator it = publishedResources.iterator();
+                while (it.hasNext()) {
+                    uncacheResource(((CmsPublishedResource)it.next()).getResourceId());
+                }
+                break;
+            default:
+                // no operation
+        }
+    }
+
+    /**
+     * Returns the stored content for the given resource.<p>
+     * 
+     * @param resource the resource to get the stored content for
+     * 
+     * @return the stored content, or <code>null</code> if the content of the resource is not stored
+     */
+    public CmsStoredContent getContent(CmsResource resource) {
+
+        CmsStoredContent content = (CmsStoredContent)m_index.get(resource.getResourceId());
+        if ((content == null)
+            || (content.m_dateLastModified != resource.getDateLastModified())
+            || (content.m_dateContent != resource.getDateContent())
+            || (content.m_length != resource.getLength())) {
+            return null;
+        }
+        return content;
+    }
+
+    /**
+     * Returns the absolute path of the store in the RFS.<p>
+     * 
+     * @return the absolute path of the store in the RFS
+     */
+    public String getRepositoryPath() {
+
+        return m_rfsRepository;
+    }
+
+    /**
+     * Saves the content of the given file in the store.<p>
+     * 
+     * @param file the file to save the content for
+     * @param compress if <code>true</code>, a gzip compressed variant is saved as well
+     * 
+     * @return the stored content
+     * 
+     * @throws IOException in case of disk access errors
+     */
+    public CmsStoredContent storeContent(CmsFile file, boolean compress) throws IOException {
+
+        byte[] contents = file.getContents();
+        String digest = getDigest(contents);
+        // spread the files over sub folders named by the first two digest characters
+        String rfsName = m_rfsRepository + digest.substring(0, 2) + File.separatorChar + digest;
+
+        CmsStoredContent content = new CmsStoredContent();
+        content.m_digest = digest;
+        content.m_length = contents.length;
+        content.m_dateLastModified = file.getDateLastModified();
+        content.m_dateContent = file.getDateContent();
+        content.m_file = new File(rfsName);
+        writeFile(content.m_file, contents, false);
+        if (compress) {
+            content.m_gzipFile = new File(rfsName + GZIP_EXTENSION);
+            writeFile(content.m_gzipFile, contents, true);
+        }
+
+        synchronized (this) {
+            addReference(digest);
+            CmsStoredContent old = (CmsStoredContent)m_index.put(file.getResourceId(), content);
+            if (old != null) {
+                removeReference(old);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Removes the stored content of the given resource.<p>
+     * 
+     * @param resourceId the id of the resource
+     */
+    public synchronized void uncacheResource(CmsUUID resourceId) {
+
+        CmsStoredContent old = (CmsStoredContent)m_index.remove(resourceId);
+        if (old != null) {
+            removeReference(old);
+        }
+    }
+
+    /**
+     * Increments the number of index entries for the given digest.<p>
+     * 
+     * @param digest the digest
+     */
+    private void addReference(String digest) {
+
+        Integer count = (Integer)m_references.get(digest);
+        m_references.put(digest, new Integer((count == null) ? 1 : count.intValue() + 1));
+    }
+
+    /**
+     * Returns the MD5 digest of the given contents as hex String.<p>
+     * 
+     * @param contents the contents
+     * 
+     * @return the MD5 digest of the given contents as hex String
+     */
+    private String getDigest(byte[] contents) {
+
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // MD5 is always available
+            throw new RuntimeException(e);
+        }
+        byte[] digest = md.digest(contents);
+        StringBuffer result = new StringBuffer(digest.length * 2);
+        for (int i = 0; i < digest.length; i++) {
+            int b = digest[i] & 0xff;
+            if (b < 16) {
+                result.append('0');
+            }
+            result.append(Integer.toHexString(b));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Decrements the number of index entries for the digest of the given content, 
+     * and deletes the files if there is no entry left.<p>
+     * 
+     * @param content the content that was removed from the index
+     */
+    private void removeReference(CmsStoredContent content) {
+
+        Integer count = (Integer)m_references.get(content.m_digest);
+        if ((count != null) && (count.intValue() > 1)) {
+            m_references.put(content.m_digest, new Integer(count.intValue() - 1));
+            return;
+        }
+        m_references.remove(content.m_digest);
+        content.m_file.delete();
+        if (content.m_gzipFile != null) {
+            content.m_gzipFile.delete();
+        }
+    }
+
+    /**
+     * Writes the given contents to the given file, if the file does not exist already.<p>
+     * 
+     * The contents are written to a temporary file first that is renamed afterwards,
+     * so that no incomplete files are delivered.<p>
+     * 
+     * @param file the file to write
+     * @param contents the contents to write
+     * @param compress if <code>true</code>, the contents are gzip compressed
+     * 
+     * @throws IOException in case of disk access errors
+     */
+    private void writeFile(File file, byte[] contents, boolean compress) throws IOException {
+
+        if (file.exists()) {
+            // the same content is already stored
+            return;
+        }
+        File folder = file.getParentFile();
+        if (!folder.exists()) {
+            folder.mkdirs();
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", folder);
+        OutputStream out = new FileOutputStream(tmp);
+        try {
+            if (compress) {
+                out = new GZIPOutputStream(out);
+            }
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            // another thread has stored the same content in the meantime
+            tmp.delete();
+        }
+    }
+}
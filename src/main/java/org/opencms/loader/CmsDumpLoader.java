@@ -35,6 +35,7 @@ import org.opencms.file.CmsFile;
 import org.opencms.file.CmsObject;
 import org.opencms.file.CmsResource;
 import org.opencms.flex.CmsFlexController;
+import org.opencms.loader.CmsDumpFileStore.CmsStoredContent;
 import org.opencms.main.CmsException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
@@ -42,7 +43,14 @@ import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 import org.opencms.workplace.CmsWorkplaceManager;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.Locale;
@@ -55,6 +63,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.collections.ExtendedProperties;
+import org.apache.commons.logging.Log;
 
 /**
  * Dump loader for binary or other unprocessed resource types.<p>
@@ -70,15 +79,30 @@ import org.apache.commons.collections.ExtendedProperties;
  */
 public class CmsDumpLoader implements I_CmsResourceLoader {
 
+    /** The name of the configuration parameter for the folder of the file store, relative to the web application. */
+    public static final String PARAM_FILE_STORE = "filestore.folder";
+
     /** The id of this loader. */
     public static final int RESOURCE_LOADER_ID = 1;
 
+    /** The range unit supported for partial responses. */
+    private static final String BYTES_UNIT = "bytes";
+
+    /** The gzip content encoding. */
+    private static final String GZIP_ENCODING = "gzip";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsDumpLoader.class);
+
     /** The maximum age for dumped contents in the clients cache. */
     private static long m_clientCacheMaxAge;
 
     /** The resource loader configuration. */
     private Map m_configuration;
 
+    /** The file store for the contents of Online files, or <code>null</code> if not configured. */
+    private CmsDumpFileStore m_fileStore;
+
     /**
      * The constructor of the class is empty and does nothing.<p>
      */
@@ -191,10 +215,20 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             m_clientCacheMaxAge = Long.parseLong(maxAge);
         }
 
+        String fileStore = config.getString(PARAM_FILE_STORE);
+        if (CmsStringUtil.isNotEmpty(fileStore) && (m_fileStore == null)) {
+            m_fileStore = new CmsDumpFileStore(OpenCms.getSystemInfo().getWebApplicationRfsPath(), fileStore);
+        }
+
         if (CmsLog.INIT.isInfoEnabled()) {
             if (maxAge != null) {
                 CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_CLIENT_CACHE_MAX_AGE_1, maxAge));
             }
+            if (m_fileStore != null) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_FILE_STORE_PATH_1,
+                    m_fileStore.getRepositoryPath()));
+            }
             CmsLog.INIT.info(Messages.get().getBundle().key(
                 Messages.INIT_LOADER_INITIALIZED_1,
                 this.getClass().getName()));
@@ -244,6 +278,14 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             return;
         }
 
+        if (isFileStoreEnabled(cms, resource) && !CmsWorkplaceManager.isWorkplaceUser(req)) {
+            // deliver the file directly from the file store
+            CmsStoredContent content = getStoredContent(cms, resource);
+            if ((content != null) && sendStoredContent(content, resource, req, res)) {
+                return;
+            }
+        }
+
         // make sure we have the file contents available
         CmsFile file = cms.readFile(resource);
 
@@ -257,19 +299,7 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
             res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, System.currentTimeMillis());
             CmsRequestUtil.setNoCacheHeaders(res);
         } else {
-            // set date last modified header
-            res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, file.getDateLastModified());
-
-            // set "Expires" only if cache control is not already set
-            if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
-                long expireTime = resource.getDateExpired();
-                if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
-                    expireTime--;
-                    // flex controller will automatically reduce this to a reasonable value
-                }
-                // now set "Expires" header        
-                CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
-            }
+            setCacheHeaders(resource, file.getDateLastModified(), res);
         }
 
         service(cms, file, req, res);
@@ -281,6 +311,17 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
     public void service(CmsObject cms, CmsResource resource, ServletRequest req, ServletResponse res)
     throws CmsException, IOException {
 
+        if (isFileStoreEnabled(cms, resource)) {
+            // write the file directly from the file store
+            CmsStoredContent content = getStoredContent(cms, resource);
+            if (content != null) {
+                FileInputStream in = openStoredFile(resource, content.getFile());
+                if (in != null) {
+                    transfer(in, 0, content.getLength(), res.getOutputStream());
+                    return;
+                }
+            }
+        }
         res.getOutputStream().write(cms.readFile(resource).getContents());
     }
 
@@ -316,4 +357,365 @@ public class CmsDumpLoader implements I_CmsResourceLoader {
         }
         return false;
     }
+
+    /**
+     * Returns the stored content of the given resource from the file store, 
+     * reading the file and saving it in the store if required.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param resource the resource to get the stored content for
+     * 
+     * @return the stored content, or <code>null</code> if the content could not be stored
+     * 
+     * @throws CmsException if the file can not be read
+     */
+    protected CmsStoredContent getStoredContent(CmsObject cms, CmsResource resource) throws CmsException {
+
+        CmsStoredContent content = m_fileStore.getContent(resource);
+        if (content == null) {
+            CmsFile file = cms.readFile(resource);
+            String mimeType = OpenCms.getResourceManager().getMimeType(
+                resource.getName(),
+                cms.getRequestContext().getEncoding());
+            try {
+                content = m_fileStore.storeContent(file, isTextMimeType(mimeType));
+            } catch (IOException e) {
+                LOG.error(Messages.get().getBundle().key(
+                    Messages.LOG_FILE_STORE_WRITE_FAILED_1,
+                    resource.getRootPath()), e);
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Checks if the given resource is delivered from the file store.<p>
+     * 
+     * This is the case for all Online resources that are not already read 
+     * with their content, as for example scaled images.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param resource the resource to check
+     * 
+     * @return <code>true</code> if the given resource is delivered from the file store
+     */
+    protected boolean isFileStoreEnabled(CmsObject cms, CmsResource resource) {
+
+        return (m_fileStore != null)
+            && !(resource instanceof CmsFile)
+            && cms.getRequestContext().currentProject().isOnlineProject();
+    }
+
+    /**
+     * Sends the given stored content to the client.<p>
+     * 
+     * A single byte range is delivered as partial content, otherwise the gzip compressed
+     * variant is used if it exists and the client accepts it. The "If-None-Match" header 
+     * is checked against the ETag of the variant that would be sent.<p>
+     * 
+     * @param content the stored content to send
+     * @param resource the resource the content belongs to
+     * @param req the current request
+     * @param res the current response
+     * 
+     * @return <code>false</code> if the stored file is not available, nothing has been sent to the client then 
+     * 
+     * @throws IOException in case of errors writing to the response
+     */
+    protected boolean sendStoredContent(
+        CmsStoredContent content,
+        CmsResource resource,
+        HttpServletRequest req,
+        HttpServletResponse res) throws IOException {
+
+        long length = content.getLength();
+        long[] range = null;
+        String rangeHeader = req.getHeader(CmsRequestUtil.HEADER_RANGE);
+        String ifRange = req.getHeader(CmsRequestUtil.HEADER_IF_RANGE);
+        if ((rangeHeader != null) && ((ifRange == null) || ifRange.equals(content.getETag()))) {
+            // ranges are only delivered from the uncompressed content
+            range = parseRange(rangeHeader, length);
+        }
+
+        File file = content.getFile();
+        String etag = content.getETag();
+        boolean gzip = false;
+        if ((range == null) && (content.getGzipFile() != null)) {
+            String acceptEncoding = req.getHeader(CmsRequestUtil.HEADER_ACCEPT_ENCODING);
+            gzip = isGzipAccepted(acceptEncoding);
+            if (gzip) {
+                file = content.getGzipFile();
+                etag = content.getGzipETag();
+            }
+        }
+
+        if (isETagMatching(req.getHeader(CmsRequestUtil.HEADER_IF_NONE_MATCH), etag)) {
+            setStoredContentHeaders(content, etag, resource, res);
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        FileInputStream in = openStoredFile(resource, file);
+        if (in == null) {
+            return false;
+        }
+
+        setStoredContentHeaders(content, etag, resource, res);
+        res.setHeader(CmsRequestUtil.HEADER_ACCEPT_RANGES, BYTES_UNIT);
+
+        long start = 0;
+        if (range == null) {
+            // set response status to "200 - OK" (required for static export "on-demand")
+            res.setStatus(HttpServletResponse.SC_OK);
+            if (gzip) {
+                res.setHeader(CmsRequestUtil.HEADER_CONTENT_ENCODING, GZIP_ENCODING);
+                length = file.length();
+            }
+        } else if (range.length == 0) {
+            in.close();
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, BYTES_UNIT + " */" + length);
+            res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return true;
+        } else {
+            start = range[0];
+            res.setHeader(CmsRequestUtil.HEADER_CONTENT_RANGE, BYTES_UNIT
+                + " "
+                + range[0]
+                + "-"
+                + range[1]
+                + "/"
+                + length);
+            length = range[1] - range[0] + 1;
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        }
+        res.setContentLength((int)length);
+        transfer(in, start, length, res.getOutputStream());
+        return true;
+    }
+
+    /**
+     * Sets the "Last-Modified" and "Expires" headers for the given resource.<p>
+     * 
+     * @param resource the resource to set the headers for
+     * @param dateLastModified the date of last modification to send
+     * @param res the current response
+     */
+    protected void setCacheHeaders(CmsResource resource, long dateLastModified, HttpServletResponse res) {
+
+        // set date last modified header
+        res.setDateHeader(CmsRequestUtil.HEADER_LAST_MODIFIED, dateLastModified);
+
+        // set "Expires" only if cache control is not already set
+        if (!res.containsHeader(CmsRequestUtil.HEADER_CACHE_CONTROL)) {
+            long expireTime = resource.getDateExpired();
+            if (expireTime == CmsResource.DATE_EXPIRED_DEFAULT) {
+                expireTime--;
+                // flex controller will automatically reduce this to a reasonable value
+            }
+            // now set "Expires" header        
+            CmsFlexController.setDateExpiresHeader(res, expireTime, m_clientCacheMaxAge);
+        }
+    }
+
+    /**
+     * Checks if the given "If-None-Match" header matches the given ETag.<p>
+     * 
+     * @param ifNoneMatch the "If-None-Match" header, may be <code>null</code>
+     * @param etag the ETag of the content
+     * 
+     * @return <code>true</code> if the header matches the ETag
+     */
+    private boolean isETagMatching(String ifNoneMatch, String etag) {
+
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String[] tags = CmsStringUtil.splitAsArray(ifNoneMatch, ',');
+        for (int i = 0; i < tags.length; i++) {
+            String tag = tags[i].trim();
+            if (tag.startsWith("W/")) {
+                // weak comparison is sufficient for "If-None-Match"
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given "Accept-Encoding" header accepts the gzip content encoding.<p>
+     * 
+     * A coding with the quality value 0 is not acceptable. If "gzip" is not listed, 
+     * the quality value of "*" applies.<p>
+     * 
+     * @param acceptEncoding the "Accept-Encoding" header, may be <code>null</code>
+     * 
+     * @return <code>true</code> if the header accepts the gzip content encoding
+     */
+    private boolean isGzipAccepted(String acceptEncoding) {
+
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzipQuality = -1;
+        double anyQuality = -1;
+        String[] codings = CmsStringUtil.splitAsArray(acceptEncoding, ',');
+        for (int i = 0; i < codings.length; i++) {
+            String coding = codings[i];
+            double quality = 1;
+            int pos = coding.indexOf(';');
+            if (pos >= 0) {
+                String param = coding.substring(pos + 1).trim();
+                coding = coding.substring(0, pos);
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        // an invalid quality value is not acceptable
+                        quality = 0;
+                    }
+                }
+            }
+            coding = coding.trim().toLowerCase();
+            if (coding.equals(GZIP_ENCODING) || coding.equals("x-" + GZIP_ENCODING)) {
+                gzipQuality = Math.max(gzipQuality, quality);
+            } else if (coding.equals("*")) {
+                anyQuality = Math.max(anyQuality, quality);
+            }
+        }
+        return (gzipQuality >= 0) ? (gzipQuality > 0) : (anyQuality > 0);
+    }
+
+    /**
+     * Checks if the given mime type is a text type that is worth to be compressed.<p>
+     * 
+     * @param mimeType the mime type to check
+     * 
+     * @return <code>true</code> if the given mime type is a text type
+     */
+    private boolean isTextMimeType(String mimeType) {
+
+        return (mimeType != null)
+            && (mimeType.startsWith("text/") || (mimeType.indexOf("javascript") >= 0) || mimeType.endsWith("xml"));
+    }
+
+    /**
+     * Opens the given file of the file store.<p>
+     * 
+     * If the file does not exist anymore, the content is removed from the store.<p>
+     * 
+     * @param resource the resource the file belongs to
+     * @param file the file to open
+     * 
+     * @return the stream to read the file, or <code>null</code> if the file does not exist
+     */
+    private FileInputStream openStoredFile(CmsResource resource, File file) {
+
+        try {
+            return new FileInputStream(file);
+        } catch (FileNotFoundException e) {
+            m_fileStore.uncacheResource(resource.getResourceId());
+            return null;
+        }
+    }
+
+    /**
+     * Parses the given "Range" header, only a single byte range is supported.<p>
+     * 
+     * @param rangeHeader the "Range" header
+     * @param length the length of the content
+     * 
+     * @return the first and last byte position of the range, an empty array if the range 
+     *      can not be satisfied, or <code>null</code> if the header should be ignored
+     */
+    private long[] parseRange(String rangeHeader, long length) {
+
+        String header = rangeHeader.trim();
+        if (!header.startsWith(BYTES_UNIT + "=") || (header.indexOf(',') >= 0)) {
+            // no byte range or multiple ranges, send the complete content
+            return null;
+        }
+        String spec = header.substring(BYTES_UNIT.length() + 1).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        long first;
+        long last;
+        try {
+            if (dash == 0) {
+                // suffix range: the last n bytes
+                long suffix = Long.parseLong(spec.substring(1).trim());
+                if (suffix <= 0) {
+                    return new long[0];
+                }
+                first = Math.max(0, length - suffix);
+                last = length - 1;
+            } else {
+                first = Long.parseLong(spec.substring(0, dash).trim());
+                String lastPos = spec.substring(dash + 1).trim();
+                last = (lastPos.length() == 0) ? length - 1 : Math.min(Long.parseLong(lastPos), length - 1);
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if ((first >= length) || (first > last)) {
+            return new long[0];
+        }
+        return new long[] {first, last};
+    }
+
+    /**
+     * Sets the ETag, "Vary" and cache headers for a stored content, 
+     * these are required for the "304 - Not Modified" response as well.<p>
+     * 
+     * @param content the stored content
+     * @param etag the ETag of the variant of the content that is delivered
+     * @param resource the resource the content belongs to
+     * @param res the current response
+     */
+    private void setStoredContentHeaders(
+        CmsStoredContent content,
+        String etag,
+        CmsResource resource,
+        HttpServletResponse res) {
+
+        res.setHeader(CmsRequestUtil.HEADER_ETAG, etag);
+        if (content.getGzipFile() != null) {
+            res.setHeader(CmsRequestUtil.HEADER_VARY, CmsRequestUtil.HEADER_ACCEPT_ENCODING);
+        }
+        setCacheHeaders(resource, resource.getDateLastModified(), res);
+    }
+
+    /**
+     * Transfers a part of the given file to the given output stream and closes the file.<p>
+     * 
+     * @param in the file to transfer
+     * @param start the position of the first byte to transfer
+     * @param length the number of bytes to transfer
+     * @param out the output stream to write to
+     * 
+     * @throws IOException in case of errors reading the file or writing the output stream
+     */
+    private void transfer(FileInputStream in, long start, long length, OutputStream out) throws IOException {
+
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0) {
+                    // the file has been truncated
+                    break;
+                }
+                position += count;
+            }
+        } finally {
+            in.close();
+        }
+    }
 }
\ No newline at end of file
@@ -41,6 +41,7 @@ import org.opencms.file.CmsVfsResourceNotFoundException;
 import org.opencms.file.history.CmsHistoryResourceHandler;
 import org.opencms.flex.CmsFlexCache;
 import org.opencms.flex.CmsFlexController;
+import org.opencms.flex.CmsFlexProfiler;
 import org.opencms.flex.CmsFlexRequest;
 import org.opencms.flex.CmsFlexResponse;
 import org.opencms.i18n.CmsEncoder;
@@ -64,13 +65,18 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.SocketException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
 
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
@@ -165,11 +171,14 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     /** The directory to store the generated JSP pages in (absolute path). */
     private static String m_jspRepository;
 
+    /** The registry of the JSP pages written to the repository. */
+    private static CmsJspRepositoryRegistry m_jspRegistry = new CmsJspRepositoryRegistry();
+
     /** The directory to store the generated JSP pages in (relative path in web application). */
     private static String m_jspWebAppRepository;
 
-    /** Help variable to keep synchronized the jsp writing process. */
-    private static Set m_processingFiles = Collections.synchronizedSet(new HashSet());
+    /** The JSP pages currently processed, mapped to the latch other threads wait on until the processing is done. */
+    private static ConcurrentMap m_processingFiles = new ConcurrentHashMap();
 
     /** The CmsFlexCache used to store generated cache entries in. */
     private CmsFlexCache m_cache;
@@ -203,6 +212,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         return m_jspRepository;
     }
 
+    /**
+     * Returns the registry of the JSP pages written to the repository.<p>
+     * 
+     * @return the registry of the JSP pages written to the repository
+     */
+    public static CmsJspRepositoryRegistry getJspRegistry() {
+
+        return m_jspRegistry;
+    }
+
     /**
      * Updates a JSP page in the "real" file system in case the VFS resource has changed.<p>
      * 
@@ -257,34 +276,49 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             jspVfsName + extension,
             controller.getCurrentRequest().isOnline());
 
-        File d = new File(jspPath).getParentFile();
-        if ((d == null) || (d.exists() && !(d.isDirectory() && d.canRead()))) {
-            CmsMessageContainer message = Messages.get().container(Messages.LOG_ACCESS_DENIED_1, jspPath);
-            LOG.error(message.key());
-            // can not continue
-            throw new ServletException(message.key());
-        }
-
-        if (!d.exists()) {
-            // create directory structure
-            d.mkdirs();
+        CountDownLatch latch = new CountDownLatch(1);
+        while (true) {
+            if (!controller.getCurrentRequest().isDoRecompile()) {
+                // check if the page is known to be up to date, this requires no file system access
+                long fileLastModified = m_jspRegistry.getFileLastModified(jspPath, resource.getDateLastModified());
+                if (fileLastModified > 0) {
+                    controller.updateDates(fileLastModified, CmsResource.DATE_EXPIRED_DEFAULT);
+                    return jspTargetName;
+                }
+            }
+            // check if the file is being concurrently processed
+            CountDownLatch processing = (CountDownLatch)m_processingFiles.putIfAbsent(jspPath, latch);
+            if (processing == null) {
+                break;
+            }
+            // wait until the first thread finishes
+            try {
+                processing.await();
+            } catch (InterruptedException e) {
+                // ignore
+            }
         }
 
         try {
-            // check if the file is being concurrently processed
-            while (m_processingFiles.contains(jspVfsName)) {
-                // wait a little bit until the first thread finishes
-                try {
-                    synchronized (m_processingFiles) {
-                        m_processingFiles.wait(100);
-                    }
-                } catch (InterruptedException e) {
-                    // ignore
-                }
+            // the registry entry must not be stored if the registry is invalidated during the update
+            long generation = m_jspRegistry.getGeneration();
+
+            File d = new File(jspPath).getParentFile();
+            if ((d == null) || (d.exists() && !(d.isDirectory() && d.canRead()))) {
+                CmsMessageContainer message = Messages.get().container(Messages.LOG_ACCESS_DENIED_1, jspPath);
+                LOG.error(message.key());
+                // can not continue
+                throw new ServletException(message.key());
+            }
+
+            if (!d.exists()) {
+                // create directory structure
+                d.mkdirs();
             }
-            m_processingFiles.add(jspVfsName);
+
             // check if the JSP must be updated
             boolean mustUpdate = false;
+            List includes = null;
             File f = new File(jspPath);
             if (!f.exists()) {
                 // file does not exist in real FS
@@ -309,7 +343,8 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                 // prevent recursive update when including the same file
                 updatedFiles.add(jspTargetName);
                 // update strong link dependencies
-                mustUpdate = updateStrongLinks(resource, controller, updatedFiles);
+                includes = readStrongLinks(resource, controller);
+                mustUpdate = updateStrongLinks(includes, controller, updatedFiles);
             }
 
             if (mustUpdate) {
@@ -367,9 +402,30 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             }
 
             // update "last modified" and "expires" date on controller
-            controller.updateDates(f.lastModified(), CmsResource.DATE_EXPIRED_DEFAULT);
+            long fileLastModified = f.lastModified();
+            controller.updateDates(fileLastModified, CmsResource.DATE_EXPIRED_DEFAULT);
+
+            if (includes == null) {
+                includes = readStrongLinks(resource, controller);
+            }
+            if ((includes != null) && (fileLastModified > 0)) {
+                // register the page, so that it is not checked again until it or one of its includes is modified
+                List includePaths = new ArrayList(includes.size());
+                for (int i = 0; i < includes.size(); i++) {
+                    includePaths.add(((CmsResource)includes.get(i)).getRootPath());
+                }
+                m_jspRegistry.register(
+                    jspPath,
+                    jspVfsName,
+                    controller.getCurrentRequest().isOnline(),
+                    resource.getDateLastModified(),
+                    fileLastModified,
+                    includePaths,
+                    generation);
+            }
         } finally {
-            m_processingFiles.remove(jspVfsName);
+            m_processingFiles.remove(jspPath);
+            latch.countDown();
         }
 
         return jspTargetName;
@@ -889,22 +945,16 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     }
 
     /**
-     * Updates all jsp files that include the given jsp file using the 'link.strong' macro.<p>
+     * Returns the jsp files included by the given jsp file using the 'link.strong' macro.<p>
      * 
-     * @param resource the current updated jsp file
+     * @param resource the jsp file
      * @param controller the controller for the jsp integration
-     * @param updatedFiles the already updated files
      * 
-     * @return <code>true</code> if the given JSP file should be updated due to dirty included files
-     * 
-     * @throws ServletException might be thrown in the process of including the JSP 
-     * @throws IOException might be thrown in the process of including the JSP 
-     * @throws CmsLoaderException if the resource type can not be read
+     * @return a list of <code>{@link CmsResource}</code> objects, 
+     *      or <code>null</code> if the relations could not be read
      */
-    private static boolean updateStrongLinks(CmsResource resource, CmsFlexController controller, Set updatedFiles)
-    throws CmsLoaderException, IOException, ServletException {
+    private static List readStrongLinks(CmsResource resource, CmsFlexController controller) {
 
-        int numberOfUpdates = updatedFiles.size();
         CmsObject cms = controller.getCmsObject();
         CmsRelationFilter filter = CmsRelationFilter.TARGETS.filterType(CmsRelationType.JSP_STRONG);
         Iterator it;
@@ -915,8 +965,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
             if (LOG.isErrorEnabled()) {
                 LOG.error(e.getLocalizedMessage(), e);
             }
-            return false;
+            return null;
         }
+        List result = new ArrayList();
         while (it.hasNext()) {
             CmsRelation relation = (CmsRelation)it.next();
             CmsResource target = null;
@@ -929,6 +980,34 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                 }
                 continue;
             }
+            result.add(target);
+        }
+        return result;
+    }
+
+    /**
+     * Updates all jsp files that include the given jsp file using the 'link.strong' macro.<p>
+     * 
+     * @param targets the jsp files included by the current updated jsp file, as returned by 
+     *      {@link #readStrongLinks(CmsResource, CmsFlexController)}
+     * @param controller the controller for the jsp integration
+     * @param updatedFiles the already updated files
+     * 
+     * @return <code>true</code> if the given JSP file should be updated due to dirty included files
+     * 
+     * @throws ServletException might be thrown in the process of including the JSP 
+     * @throws IOException might be thrown in the process of including the JSP 
+     * @throws CmsLoaderException if the resource type can not be read
+     */
+    private static boolean updateStrongLinks(List targets, CmsFlexController controller, Set updatedFiles)
+    throws CmsLoaderException, IOException, ServletException {
+
+        if (targets == null) {
+            return false;
+        }
+        int numberOfUpdates = updatedFiles.size();
+        for (int i = 0; i < targets.size(); i++) {
+            CmsResource target = (CmsResource)targets.get(i);
             // check if page was already updated
             if (updatedFiles.contains(target.getRootPath())) {
                 // no need to write the included file to the real FS more than once
@@ -950,11 +1029,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
     }
 
     /** 
-     * Destroy this ResourceLoder, this is a NOOP so far.  
+     * Destroy this ResourceLoder, this stops the warm-up of the FlexCache.  
      */
     public void destroy() {
 
-        // NOOP
+        if (m_cache != null) {
+            m_cache.shutDown();
+        }
     }
 
     /**
@@ -1079,6 +1160,9 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
         // get the "error pages are committed or not" flag from the configuration
         m_errorPagesAreNotCommited = config.getBoolean(PARAM_JSP_ERRORPAGE_COMMITTED, true);
 
+        // the registry of the written JSP pages must be informed about modified resources
+        m_jspRegistry.registerEventListener();
+
         // output setup information
         if (CmsLog.INIT.isInfoEnabled()) {
             CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_JSP_REPOSITORY_ABS_PATH_1, m_jspRepository));
@@ -1270,6 +1354,13 @@ public class CmsJspLoader implements I_CmsResourceLoader, I_CmsFlexCacheEnabledL
                     } else if (controller.isTop()) {
                         // process headers and write output if this is the "top" request/response                                  
                         res.setContentLength(result.length);
+                        CmsFlexProfiler profiler = controller.getProfiler();
+                        if (profiler != null) {
+                            profiler.setResultSize(result.length);
+                            if (profiler.isSendHeader()) {
+                                res.setHeader(CmsFlexProfiler.HEADER_PROFILE, profiler.getSummary());
+                            }
+                        }
                         // check for preset error code
                         Integer errorCode = (Integer)req.getAttribute(CmsRequestUtil.ATTRIBUTE_ERRORCODE);
                         if (errorCode == null) {
@@ -0,0 +1,330 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/loader/CmsJspRepositoryRegistry.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.loader;
+
+import org.opencms.file.CmsResource;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the JSP files that the {@link CmsJspLoader} has written to the "real" file system.<p>
+ * 
+ * For every written JSP the date of last modification of the VFS resource, the date of last modification 
+ * of the file in the JSP repository and the VFS resources included with the <code>link.strong</code> macro 
+ * are stored. As long as a JSP is registered, the loader does not need to access the file system or to read 
+ * the relations of the JSP to know that the file in the repository is up to date.<p>
+ * 
+ * The registry listens to the resource modification events. If a resource is modified, the entries of the resource 
+ * and of all JSPs including it, directly or indirectly, are removed. Publishing removes all Online entries.
+ * The dependencies of a JSP are removed together with its entry, so the registry never holds more than 
+ * the JSPs in the repository and the resources they include.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+public final class CmsJspRepositoryRegistry implements I_CmsEventListener {
+
+    /**
+     * A registered JSP.<p>
+     */
+    private static final class CmsJspRepositoryEntry {
+
+        /** The date of last modification of the VFS resource. */
+        long m_dateLastModified;
+
+        /** The root paths of the VFS resources the JSP depends on, including its own. */
+        String[] m_dependencies;
+
+        /** The date of last modification of the file in the JSP repository. */
+        long m_fileLastModified;
+
+        /** Indicates if this entry is for the Online project. */
+        boolean m_online;
+
+        /** The root path of the VFS resource. */
+        String m_rootPath;
+    }
+
+    /** The root paths of the VFS resources mapped to the Sets of repository paths that depend on them. */
+    private Map m_dependents;
+
+    /** The registered JSPs, mapped by their repository path. */
+    private Map m_entries;
+
+    /** The generation of the registry, incremented on every invalidation. */
+    private volatile long m_generation;
+
+    /**
+     * Creates a new, empty JSP repository registry.<p>
+     */
+    public CmsJspRepositoryRegistry() {
+
+        m_entries = new ConcurrentHashMap();
+        m_dependents = new HashMap();
+    }
+
+    /**
+     * Removes all registered JSPs.<p>
+     */
+    public synchronized void clear() {
+
+        m_generation++;
+        m_entries.clear();
+        m_dependents.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                uncacheOnline();
+                break;
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+                CmsResource resource = (CmsResource)event.getData().get("resource");
+                if (resource != null) {
+                    uncacheResource(resource.getRootPath());
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+                List resources = (List)event.getData().get("resources");
+                if (resources != null) {
+                    for (int i = 0; i < resources.size(); i++) {
+                        uncacheResource(((CmsResource)resources.get(i)).getRootPath());
+                    }
+                }
+                break;
+            default:
+                // no operation
+        }
+    }
+
+    /**
+     * Returns the current generation of the registry.<p>
+     * 
+     * The generation must be read before a JSP is checked, 
+     * and passed to {@link #register(String, String, boolean, long, long, List, long)} afterwards.<p>
+     * 
+     * @return the current generation of the registry
+     */
+    public long getGeneration() {
+
+        return m_generation;
+    }
+
+    /**
+     * Returns the date of last modification of the file in the JSP repository, 
+     * if the given JSP is registered and up to date.<p>
+     * 
+     * @param jspPath the path of the JSP in the repository
+     * @param dateLastModified the date of last modification of the VFS resource
+     * 
+     * @return the date of last modification of the file in the JSP repository, 
+     *      or <code>-1</code> if the JSP must be checked
+     */
+    public long getFileLastModified(String jspPath, long dateLastModified) {
+
+        CmsJspRepositoryEntry entry = (CmsJspRepositoryEntry)m_entries.get(jspPath);
+        if ((entry == null) || (entry.m_dateLastModified != dateLastModified)) {
+            return -1;
+        }
+        return entry.m_fileLastModified;
+    }
+
+    /**
+     * Registers all required event listeners.<p>
+     */
+    public void registerEventListener() {
+
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED});
+    }
+
+    /**
+     * Registers a JSP that has been checked or written to the JSP repository.<p>
+     * 
+     * Nothing is registered if the registry has been invalidated since the given generation 
+     * was read, because the check may have been done with outdated data.<p>
+     * 
+     * @param jspPath the path of the JSP in the repository
+     * @param rootPath the root path of the VFS resource
+     * @param online indicates if the JSP was written for the Online project
+     * @param dateLastModified the date of last modification of the VFS resource
+     * @param fileLastModified the date of last modification of the file in the JSP repository
+     * @param includes the root paths of the VFS resources included with the <code>link.strong</code> macro
+     * @param generation the generation of the registry read before the JSP was checked
+     */
+    public synchronized void register(
+        String jspPath,
+        String rootPath,
+        boolean online,
+        long dateLastModified,
+        long fileLastModified,
+        List includes,
+        long generation) {
+
+        if (generation != m_generation) {
+            return;
+        }
+        CmsJspRepositoryEntry entry = new CmsJspRepositoryEntry();
+        entry.m_rootPath = rootPath;
+        entry.m_online = online;
+        entry.m_dateLastModified = dateLastModified;
+        entry.m_fileLastModified = fileLastModified;
+        entry.m_dependencies = new String[includes.size() + 1];
+        entry.m_dependencies[0] = rootPath;
+        for (int i = 0; i < includes.size(); i++) {
+            entry.m_dependencies[i + 1] = (String)includes.get(i);
+        }
+        CmsJspRepositoryEntry previous = (CmsJspRepositoryEntry)m_entries.put(jspPath, entry);
+        if (previous != null) {
+            // the includes of the JSP may have changed
+            removeDependents(jspPath, previous);
+        }
+        for (int i = 0; i < entry.m_dependencies.length; i++) {
+            addDependent(entry.m_dependencies[i], jspPath);
+        }
+    }
+
+    /**
+     * Removes the entries of all Online JSPs.<p>
+     */
+    public synchronized void uncacheOnline() {
+
+        m_generation++;
+        Iterator it = m_entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry mapEntry = (Map.Entry)it.next();
+            CmsJspRepositoryEntry entry = (CmsJspRepositoryEntry)mapEntry.getValue();
+            if (entry.m_online) {
+                it.remove();
+                removeDependents((String)mapEntry.getKey(), entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the entries of the given VFS resource and of all JSPs that include it, 
+     * directly or indirectly.<p>
+     * 
+     * @param rootPath the root path of the modified VFS resource
+     */
+    public synchronized void uncacheResource(String rootPath) {
+
+        m_generation++;
+        List paths = new ArrayList();
+        Set visited = new HashSet();
+        paths.add(rootPath);
+        while (!paths.isEmpty()) {
+            String path = (String)paths.remove(paths.size() - 1);
+            if (!visited.add(path)) {
+                continue;
+            }
+            Set dependents = (Set)m_dependents.remove(path);
+            if (dependents == null) {
+                continue;
+            }
+            Iterator it = dependents.iterator();
+            while (it.hasNext()) {
+                String jspPath = (String)it.next();
+                CmsJspRepositoryEntry entry = (CmsJspRepositoryEntry)m_entries.remove(jspPath);
+                if (entry != null) {
+                    removeDependents(jspPath, entry);
+                    // the JSPs including this one must be checked again as well
+                    paths.add(entry.m_rootPath);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a repository path to the dependents of a VFS resource.<p>
+     * 
+     * @param rootPath the root path of the VFS resource
+     * @param jspPath the repository path of the depending JSP
+     */
+    private void addDependent(String rootPath, String jspPath) {
+
+        Set dependents = (Set)m_dependents.get(rootPath);
+        if (dependents == null) {
+            dependents = new HashSet();
+            m_dependents.put(rootPath, dependents);
+        }
+        dependents.add(jspPath);
+    }
+
+    /**
+     * Removes a repository path from the dependents of all VFS resources the given entry depends on.<p>
+     * 
+     * @param jspPath the repository path of the removed JSP
+     * @param entry the removed entry
+     */
+    private void removeDependents(String jspPath, CmsJspRepositoryEntry entry) {
+
+        for (int i = 0; i < entry.m_dependencies.length; i++) {
+            Set dependents = (Set)m_dependents.get(entry.m_dependencies[i]);
+            if (dependents != null) {
+                dependents.remove(jspPath);
+                if (dependents.isEmpty()) {
+                    m_dependents.remove(entry.m_dependencies[i]);
+                }
+            }
+        }
+    }
+}
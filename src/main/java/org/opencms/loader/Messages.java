@@ -144,6 +144,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_DUPLICATE_COLLECTOR_SKIPPED_1 = "INIT_DUPLICATE_COLLECTOR_SKIPPED_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_FILE_STORE_PATH_1 = "INIT_FILE_STORE_PATH_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_GET_RESTYPE_2 = "INIT_GET_RESTYPE_2";
 
@@ -204,6 +207,12 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_ERR_UPDATE_1 = "LOG_ERR_UPDATE_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FILE_STORE_READ_PUBLISHED_FAILED_1 = "LOG_FILE_STORE_READ_PUBLISHED_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_FILE_STORE_WRITE_FAILED_1 = "LOG_FILE_STORE_WRITE_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_IGNORING_EXC_1 = "LOG_IGNORING_EXC_1";
 
@@ -26,6 +26,19 @@ import java.io.IOException;
 //ADDED BY COMUNDUS
 //(C) comundus GmbH, D-71332 WAIBLINGEN, www.comundus.com
 public final class CmOpenCmsShell {
+    /**
+     * Key in opencms.properties to switch the fast start mode of the shell
+     * on or off, default is on.
+     *
+     * In fast start mode only the database drivers, the security manager and
+     * the resource types are initialized at startup, the scheduler, search,
+     * static export, publish, module and workplace managers are initialized
+     * when they are used for the first time. The static export, module and
+     * search managers are initialized together with the publish manager,
+     * so they receive the events of every publish.
+     */
+    public static final String CONFIGURATION_FASTSTART = "shell.faststart";
+
     /**
      * The Singleton instance.
      */
@@ -132,6 +145,8 @@ public final class CmOpenCmsShell {
         final String propertyPath = this.opencmsCore.getSystemInfo()
                                                     .getConfigurationFileRfsPath();
         final ExtendedProperties configuration = CmsPropertyUtils.loadProperties(propertyPath);
+        final boolean fastStart = configuration.getBoolean(CmOpenCmsShell.CONFIGURATION_FASTSTART,
+                true);
         // now upgrade to runlevel 2
         // requires servlet-api indirectly
         // this adds some rows to an empty database:
@@ -147,7 +162,8 @@ public final class CmOpenCmsShell {
         // CMS_TASK: Online, _setupProject
         // CMS_TASKTYPE: Ad-Hoc
         // CMS_USERS: Export, Guest, Admin
-        this.opencmsCore = this.opencmsCore.upgradeRunlevel(configuration);
+        this.opencmsCore = this.opencmsCore.upgradeRunlevel(configuration,
+                fastStart);
         // create a context object with 'Guest' permissions
         this.cmsObject = this.opencmsCore.initCmsObject(this.opencmsCore.getDefaultUsers()
                                                                         .getUserGuest());
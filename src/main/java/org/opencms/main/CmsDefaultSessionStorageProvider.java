@@ -34,18 +34,17 @@ package org.opencms.main;
 import org.opencms.util.CmsUUID;
 
 import java.util.ArrayList;
-import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-
-import org.apache.commons.collections.FastHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The default session storage provider implementation.<p>
  * 
- * Implementation based on a {@link FastHashMap}.<p> 
+ * Implementation based on a {@link ConcurrentHashMap}, with a second map 
+ * that indexes the session ids by user id, so that the sessions of a user 
+ * can be found without iterating all sessions.<p> 
  * 
  * @author  Michael Moossen
  * 
@@ -56,7 +55,10 @@ import org.apache.commons.collections.FastHashMap;
 public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProvider {
 
     /** Stores the session info objects mapped to the session id. */
-    private FastHashMap m_sessions;
+    private Map m_sessions;
+
+    /** Stores Maps with the session ids as keys mapped to the user id. */
+    private ConcurrentHashMap m_userSessions;
 
     /**
      * @see org.opencms.main.I_CmsSessionStorageProvider#get(org.opencms.util.CmsUUID)
@@ -71,16 +73,7 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
      */
     public List getAll() {
 
-        List result = new ArrayList();
-        Iterator i = m_sessions.keySet().iterator();
-        while (i.hasNext()) {
-            CmsSessionInfo sessionInfo = (CmsSessionInfo)m_sessions.get(i.next());
-            if (sessionInfo != null) {
-                // may be the case in case of concurrent modification
-                result.add(sessionInfo);
-            }
-        }
-        return result;
+        return new ArrayList(m_sessions.values());
     }
 
     /**
@@ -89,11 +82,15 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
     public List getAllOfUser(CmsUUID userId) {
 
         List userSessions = new ArrayList();
-        Iterator i = m_sessions.keySet().iterator();
-        while (i.hasNext()) {
-            CmsSessionInfo sessionInfo = (CmsSessionInfo)m_sessions.get(i.next());
-            if (userId.equals(sessionInfo.getUserId())) {
-                userSessions.add(sessionInfo);
+        Map sessionIds = (Map)m_userSessions.get(userId);
+        if (sessionIds != null) {
+            Iterator i = sessionIds.keySet().iterator();
+            while (i.hasNext()) {
+                CmsSessionInfo sessionInfo = (CmsSessionInfo)m_sessions.get(i.next());
+                if ((sessionInfo != null) && userId.equals(sessionInfo.getUserId())) {
+                    // may not be the case in case of concurrent modification
+                    userSessions.add(sessionInfo);
+                }
             }
         }
         return userSessions;
@@ -113,9 +110,9 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
     public void initialize() {
 
         // create a map for all sessions, these will be mapped using their session id
-        m_sessions = new FastHashMap();
-        // set to "fast" mode (will be reset for write access)
-        m_sessions.setFast(true);
+        m_sessions = new ConcurrentHashMap();
+        // create the index of the session ids by user id
+        m_userSessions = new ConcurrentHashMap();
     }
 
     /**
@@ -123,7 +120,16 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
      */
     public CmsSessionInfo put(CmsSessionInfo sessionInfo) {
 
-        return (CmsSessionInfo)m_sessions.put(sessionInfo.getSessionId(), sessionInfo);
+        CmsUUID sessionId = sessionInfo.getSessionId();
+        CmsSessionInfo previous = (CmsSessionInfo)m_sessions.put(sessionId, sessionInfo);
+        if ((previous != null) && !previous.getUserId().equals(sessionInfo.getUserId())) {
+            // the user of the session has been switched
+            removeUserSession(previous.getUserId(), sessionId);
+        }
+        if (previous != sessionInfo) {
+            addUserSession(sessionInfo.getUserId(), sessionId);
+        }
+        return previous;
     }
 
     /**
@@ -131,7 +137,11 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
      */
     public CmsSessionInfo remove(CmsUUID sessionId) {
 
-        return (CmsSessionInfo)m_sessions.remove(sessionId);
+        CmsSessionInfo sessionInfo = (CmsSessionInfo)m_sessions.remove(sessionId);
+        if (sessionInfo != null) {
+            removeUserSession(sessionInfo.getUserId(), sessionId);
+        }
+        return sessionInfo;
     }
 
     /**
@@ -140,7 +150,7 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
     public void shutdown() {
 
         m_sessions.clear();
-        m_sessions = null;
+        m_userSessions.clear();
     }
 
     /**
@@ -148,34 +158,58 @@ public class CmsDefaultSessionStorageProvider implements I_CmsSessionStorageProv
      */
     public void validate() {
 
-        try {
-            // change session map to full synchronization or "slow" mode
-            m_sessions.setFast(false);
-            Iterator itSessions = m_sessions.entrySet().iterator();
-            while (itSessions.hasNext()) {
-                Map.Entry entry = (Entry)itSessions.next();
-                CmsUUID sessionId = (CmsUUID)entry.getKey();
-                CmsSessionInfo sessionInfo = (CmsSessionInfo)entry.getValue();
-                if (sessionInfo != null && m_sessions.get(sessionId) != null) {
-                    // may be the case in case of concurrent modification
-                    if (sessionInfo.isExpired()) {
-                        // session is invalid, try to remove it
-                        try {
-                            itSessions.remove();
-                        } catch (ConcurrentModificationException ex) {
-                            // ignore, better luck next time...
-                        }
-                    }
+        // the iterators of the concurrent map never throw a ConcurrentModificationException 
+        Iterator itSessions = m_sessions.values().iterator();
+        while (itSessions.hasNext()) {
+            CmsSessionInfo sessionInfo = (CmsSessionInfo)itSessions.next();
+            if (sessionInfo.isExpired()) {
+                // session is invalid, remove it
+                if (m_sessions.remove(sessionInfo.getSessionId()) != null) {
+                    removeUserSession(sessionInfo.getUserId(), sessionInfo.getSessionId());
                 }
             }
-        } catch (ConcurrentModificationException ex) {
-            // CME can also be triggered from the Iterator#next() method.
-            // ignore, better luck next time...
-        } finally {
-            // it may be null during shutdown
-            if (m_sessions != null) {
-                // reset session map to "fast" mode
-                m_sessions.setFast(true);
+        }
+    }
+
+    /**
+     * Adds the given session id to the index of the given user.<p>
+     * 
+     * @param userId the id of the user
+     * @param sessionId the id of the session
+     */
+    private void addUserSession(CmsUUID userId, CmsUUID sessionId) {
+
+        while (true) {
+            ConcurrentHashMap sessionIds = (ConcurrentHashMap)m_userSessions.get(userId);
+            if (sessionIds == null) {
+                sessionIds = new ConcurrentHashMap(4);
+                ConcurrentHashMap existing = (ConcurrentHashMap)m_userSessions.putIfAbsent(userId, sessionIds);
+                if (existing != null) {
+                    sessionIds = existing;
+                }
+            }
+            sessionIds.put(sessionId, Boolean.TRUE);
+            if (m_userSessions.get(userId) == sessionIds) {
+                // the index of the user has not been removed concurrently
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the given session id from the index of the given user.<p>
+     * 
+     * @param userId the id of the user
+     * @param sessionId the id of the session
+     */
+    private void removeUserSession(CmsUUID userId, CmsUUID sessionId) {
+
+        ConcurrentHashMap sessionIds = (ConcurrentHashMap)m_userSessions.get(userId);
+        if (sessionIds != null) {
+            sessionIds.remove(sessionId);
+            if (sessionIds.isEmpty()) {
+                // a session id added concurrently is added again to a new index by addUserSession 
+                m_userSessions.remove(userId, sessionIds);
             }
         }
     }
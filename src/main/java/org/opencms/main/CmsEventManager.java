@@ -31,12 +31,15 @@
 
 package org.opencms.main;
 
+import org.opencms.monitor.CmsMetricTimer;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 
@@ -69,12 +72,16 @@ public class CmsEventManager {
     /** Stores the active event listeners. */
     private Map m_eventListeners;
 
+    /** The timers for the listener processing time, with the event type as key. */
+    private Map m_eventTimers;
+
     /**
      * Create a new instance of an OpenCms event manager.<p>
      */
     public CmsEventManager() {
 
         m_eventListeners = new HashMap();
+        m_eventTimers = new ConcurrentHashMap();
     }
 
     /**
@@ -123,8 +130,10 @@ public class CmsEventManager {
      */
     public void fireEvent(CmsEvent event) {
 
+        long start = System.nanoTime();
         fireEventHandler((List)m_eventListeners.get(event.getTypeInteger()), event);
         fireEventHandler((List)m_eventListeners.get(I_CmsEventListener.LISTENERS_FOR_ALL_EVENTS), event);
+        getEventTimer(event.getTypeInteger()).stop(start);
     }
 
     /**
@@ -174,6 +183,26 @@ public class CmsEventManager {
         return m_eventListeners;
     }
 
+    /**
+     * Returns the timer for the listener processing time of the given event type.<p>
+     * 
+     * The timers are looked up once per event type and then kept in this event manager,
+     * so firing an event does not build any metric names.<p>
+     * 
+     * @param eventType the event type
+     * 
+     * @return the timer for the listener processing time of the given event type
+     */
+    protected CmsMetricTimer getEventTimer(Integer eventType) {
+
+        CmsMetricTimer timer = (CmsMetricTimer)m_eventTimers.get(eventType);
+        if (timer == null) {
+            timer = OpenCms.getMetricsRegistry().getTimer("event." + eventType);
+            m_eventTimers.put(eventType, timer);
+        }
+        return timer;
+    }
+
     /**
      * Initialize this event manager with all events from the given base event manager.<p> 
      * 
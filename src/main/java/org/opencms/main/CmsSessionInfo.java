@@ -66,6 +66,9 @@ public class CmsSessionInfo implements Comparable, Serializable {
     /** Maximum size of the broadcast queue for one user. */
     public static final int QUEUE_SIZE = 10;
 
+    /** The time in milliseconds after which a request updates the time of last access of the session info. */
+    public static final long UPDATE_INTERVAL = 5000;
+
     /** Serial version UID required for safe serialization. */
     private static final long serialVersionUID = 927301527031117920L;
 
@@ -91,7 +94,7 @@ public class CmsSessionInfo implements Comparable, Serializable {
     private long m_timeCreated;
 
     /** The time this session info was last updated. */
-    private long m_timeUpdated;
+    private volatile long m_timeUpdated;
 
     /** The id of user to which this session info belongs. */
     private CmsUUID m_userId;
@@ -292,6 +295,33 @@ public class CmsSessionInfo implements Comparable, Serializable {
         return str.toString();
     }
 
+    /**
+     * Checks if this session info must be updated with the data of the given request context.<p>
+     * 
+     * This is the case if the site root, the project or the organizational unit have been changed,
+     * or if the session info has not been updated for {@link #UPDATE_INTERVAL} milliseconds. 
+     * This way the requests of a session do not update the session info every time.<p>
+     * 
+     * @param context the current request context
+     * 
+     * @return <code>true</code> if this session info must be updated
+     */
+    protected boolean isUpdateRequired(CmsRequestContext context) {
+
+        if ((System.currentTimeMillis() - m_timeUpdated) > UPDATE_INTERVAL) {
+            return true;
+        }
+        if (!context.currentProject().getUuid().equals(m_projectId)) {
+            return true;
+        }
+        String siteRoot = context.getSiteRoot();
+        if ((siteRoot == null) ? (m_siteRoot != null) : !siteRoot.equals(m_siteRoot)) {
+            return true;
+        }
+        String ouFqn = context.getOuFqn();
+        return (ouFqn == null) ? (m_ouFqn != null) : !ouFqn.equals(m_ouFqn);
+    }
+
     /**
      * Sets the id of the current project of the user of this session info.<p>
      * 
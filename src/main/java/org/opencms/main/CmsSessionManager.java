@@ -47,6 +47,7 @@ import org.opencms.workplace.tools.CmsToolManager;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
@@ -83,14 +84,11 @@ public class CmsSessionManager {
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsSessionManager.class);
 
-    /** Lock object for synchronized session count updates. */
-    private Object m_lockSessionCount;
-
     /** Counter for the currently active sessions. */
-    private int m_sessionCountCurrent;
+    private AtomicInteger m_sessionCountCurrent;
 
     /** Counter for all sessions created so far. */
-    private int m_sessionCountTotal;
+    private AtomicInteger m_sessionCountTotal;
 
     /** Session storage provider instance. */
     private I_CmsSessionStorageProvider m_sessionStorageProvider;
@@ -100,8 +98,9 @@ public class CmsSessionManager {
      */
     protected CmsSessionManager() {
 
-        // create a lock object for the session counter
-        m_lockSessionCount = new Object();
+        // create the session counters
+        m_sessionCountCurrent = new AtomicInteger();
+        m_sessionCountTotal = new AtomicInteger();
     }
 
     /**
@@ -143,7 +142,7 @@ public class CmsSessionManager {
      */
     public int getSessionCountCurrent() {
 
-        return m_sessionCountCurrent;
+        return m_sessionCountCurrent.get();
     }
 
     /**
@@ -153,7 +152,7 @@ public class CmsSessionManager {
      */
     public int getSessionCountTotal() {
 
-        return m_sessionCountTotal;
+        return m_sessionCountTotal.get();
     }
 
     /**
@@ -488,15 +487,13 @@ public class CmsSessionManager {
      */
     protected void sessionCreated(HttpSessionEvent event) {
 
-        synchronized (m_lockSessionCount) {
-            m_sessionCountCurrent = (m_sessionCountCurrent <= 0) ? 1 : (m_sessionCountCurrent + 1);
-            m_sessionCountTotal++;
-            if (LOG.isInfoEnabled()) {
-                LOG.info(Messages.get().getBundle().key(
-                    Messages.LOG_SESSION_CREATED_2,
-                    new Integer(m_sessionCountTotal),
-                    new Integer(m_sessionCountCurrent)));
-            }
+        int current = updateSessionCountCurrent(1);
+        int total = m_sessionCountTotal.incrementAndGet();
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_SESSION_CREATED_2,
+                new Integer(total),
+                new Integer(current)));
         }
 
         if (LOG.isDebugEnabled()) {
@@ -514,14 +511,12 @@ public class CmsSessionManager {
      */
     protected void sessionDestroyed(HttpSessionEvent event) {
 
-        synchronized (m_lockSessionCount) {
-            m_sessionCountCurrent = (m_sessionCountCurrent <= 0) ? 0 : (m_sessionCountCurrent - 1);
-            if (LOG.isInfoEnabled()) {
-                LOG.info(Messages.get().getBundle().key(
-                    Messages.LOG_SESSION_DESTROYED_2,
-                    new Integer(m_sessionCountTotal),
-                    new Integer(m_sessionCountCurrent)));
-            }
+        int current = updateSessionCountCurrent(-1);
+        if (LOG.isInfoEnabled()) {
+            LOG.info(Messages.get().getBundle().key(
+                Messages.LOG_SESSION_DESTROYED_2,
+                new Integer(m_sessionCountTotal.get()),
+                new Integer(current)));
         }
 
         CmsSessionInfo sessionInfo = getSessionInfo(event.getSession());
@@ -584,9 +579,11 @@ public class CmsSessionManager {
             // get the session info object for the user
             CmsSessionInfo sessionInfo = getSessionInfo(req);
             if (sessionInfo != null) {
-                // update the users session information
-                sessionInfo.update(cms.getRequestContext());
-                addSessionInfo(sessionInfo);
+                if (sessionInfo.isUpdateRequired(cms.getRequestContext())) {
+                    // update the users session information
+                    sessionInfo.update(cms.getRequestContext());
+                    addSessionInfo(sessionInfo);
+                }
             } else {
                 HttpSession session = req.getSession(false);
                 // only create session info if a session is already available 
@@ -618,4 +615,23 @@ public class CmsSessionManager {
         }
         m_sessionStorageProvider.validate();
     }
-}
\ No newline at end of file
+
+    /**
+     * Adds the given delta to the counter of the currently active sessions, 
+     * the counter never gets less than zero.<p>
+     * 
+     * @param delta the value to add
+     * 
+     * @return the updated number of currently active sessions
+     */
+    private int updateSessionCountCurrent(int delta) {
+
+        while (true) {
+            int current = m_sessionCountCurrent.get();
+            int updated = (current <= 0) ? Math.max(delta, 0) : (current + delta);
+            if (m_sessionCountCurrent.compareAndSet(current, updated)) {
+                return updated;
+            }
+        }
+    }
+}
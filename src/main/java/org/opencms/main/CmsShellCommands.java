@@ -830,6 +830,20 @@ class CmsShellCommands implements I_CmsShellCommands {
         }
     }
 
+    /**
+     * Displays the current values of all runtime metrics.<p>
+     * 
+     * @see org.opencms.monitor.CmsMetricsRegistry#getReport()
+     */
+    public void metrics() {
+
+        Iterator i = OpenCms.getMetricsRegistry().getReport().iterator();
+        while (i.hasNext()) {
+            System.out.println(i.next());
+        }
+        System.out.println();
+    }
+
     /**
      * Does performance measurements of the OpenCms core.<p>
      * 
@@ -1056,6 +1070,14 @@ class CmsShellCommands implements I_CmsShellCommands {
         importModuleFromDefault(importFile);
     }
 
+    /**
+     * Resets all runtime metrics.<p>
+     */
+    public void resetMetrics() {
+
+        OpenCms.getMetricsRegistry().reset();
+    }
+
     /**
      * Sets the current project to the provided project id.<p>
      * 
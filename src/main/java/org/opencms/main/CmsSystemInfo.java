@@ -93,6 +93,9 @@ public class CmsSystemInfo {
     /** Indicates if the version history is enabled. */
     private boolean m_historyEnabled;
 
+    /** Indicates if the pruning of the version history is deferred to a background job. */
+    private boolean m_historyPruningDeferred;
+
     /** The maximum number of entries in the version history (per resource). */
     private int m_historyVersions;
 
@@ -521,6 +524,19 @@ public class CmsSystemInfo {
         return m_historyEnabled;
     }
 
+    /**
+     * Returns if the pruning of the VFS version history is deferred to a background job.<p>
+     * 
+     * If deferred, publishing does not delete old historical versions, this is done by 
+     * the <code>{@link org.opencms.scheduler.jobs.CmsHistoryPruneJob}</code> instead.<p>
+     * 
+     * @return if the pruning of the VFS version history is deferred to a background job
+     */
+    public boolean isHistoryPruningDeferred() {
+
+        return m_historyPruningDeferred;
+    }
+
     /**
      * Sets the project in which time stamps for the content notification are read.<p>
      * 
@@ -547,10 +563,16 @@ public class CmsSystemInfo {
      * @param historyEnabled if true the history is enabled
      * @param historyVersions the maximum number of versions that are kept per VFS resource
      * @param historyVersionsAfterDeletion the maximum number of versions that are kept for deleted resources
+     * @param historyPruningDeferred if true the version history is pruned by a background job and not during publishing
      */
-    public void setVersionHistorySettings(boolean historyEnabled, int historyVersions, int historyVersionsAfterDeletion) {
+    public void setVersionHistorySettings(
+        boolean historyEnabled,
+        int historyVersions,
+        int historyVersionsAfterDeletion,
+        boolean historyPruningDeferred) {
 
         m_historyEnabled = historyEnabled;
+        m_historyPruningDeferred = historyPruningDeferred;
         m_historyVersions = historyVersions;
         if (historyVersionsAfterDeletion < 0) {
             m_historyVersionsAfterDeletion = historyVersions;
@@ -254,6 +254,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_ETHERNET_ADDRESS_1 = "INIT_ETHERNET_ADDRESS_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_FASTSTART_0 = "INIT_FASTSTART_0";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_FILE_ENCODING_1 = "INIT_FILE_ENCODING_1";
 
@@ -269,6 +272,9 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String INIT_JAVA_VM_1 = "INIT_JAVA_VM_1";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_LAZY_MANAGER_1 = "INIT_LAZY_MANAGER_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String INIT_LINE_0 = "INIT_LINE_0";
 
@@ -41,6 +41,7 @@ import org.opencms.importexport.CmsImportExportManager;
 import org.opencms.loader.CmsResourceManager;
 import org.opencms.module.CmsModuleManager;
 import org.opencms.monitor.CmsMemoryMonitor;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.repository.CmsRepositoryManager;
 import org.opencms.scheduler.CmsScheduleManager;
@@ -288,6 +289,16 @@ public final class OpenCms {
         return OpenCmsCore.getInstance().getMemoryMonitor();
     }
 
+    /**
+     * Returns the registry for the runtime metrics of the OpenCms core.<p>
+     * 
+     * @return the registry for the runtime metrics
+     */
+    public static CmsMetricsRegistry getMetricsRegistry() {
+
+        return OpenCmsCore.getInstance().getMetricsRegistry();
+    }
+
     /**
      * Returns the module manager.<p>
      * 
@@ -67,6 +67,7 @@ import org.opencms.lock.CmsLockManager;
 import org.opencms.module.CmsModuleManager;
 import org.opencms.monitor.CmsMemoryMonitor;
 import org.opencms.monitor.CmsMemoryMonitorConfiguration;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.publish.CmsPublishEngine;
 import org.opencms.publish.CmsPublishManager;
 import org.opencms.repository.CmsRepositoryManager;
@@ -175,9 +176,18 @@ public final class OpenCmsCore {
     /** The set of configured export points. */
     private Set m_exportPoints;
 
+    /** Indicates if the "fast start" mode is used, where expensive managers are initialized on first use. */
+    private boolean m_fastStart;
+
     /** The site manager contains information about the Cms import/export. */
     private CmsImportExportManager m_importExportManager;
 
+    /** The Admin context used for the initialization of managers deferred in "fast start" mode. */
+    private CmsObject m_lazyInitCms;
+
+    /** The managers that still wait for their initialization in "fast start" mode, or <code>null</code>. */
+    private Set m_lazyManagers;
+
     /** The link manager to resolve links in &lt;cms:link&gt; tags. */
     private CmsLinkManager m_linkManager;
 
@@ -190,6 +200,9 @@ public final class OpenCmsCore {
     /** The memory monitor for the collection of memory and runtime statistics. */
     private CmsMemoryMonitor m_memoryMonitor;
 
+    /** The registry for the runtime metrics. */
+    private CmsMetricsRegistry m_metricsRegistry;
+
     /** The module manager. */
     private CmsModuleManager m_moduleManager;
 
@@ -477,6 +490,16 @@ public final class OpenCmsCore {
         return m_memoryMonitor;
     }
 
+    /**
+     * Returns the registry for the runtime metrics.<p>
+     * 
+     * @return the registry for the runtime metrics
+     */
+    protected CmsMetricsRegistry getMetricsRegistry() {
+
+        return m_metricsRegistry;
+    }
+
     /**
      * Returns the module manager.<p>
      * 
@@ -484,6 +507,9 @@ public final class OpenCmsCore {
      */
     protected CmsModuleManager getModuleManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_moduleManager);
+        }
         return m_moduleManager;
     }
 
@@ -553,6 +579,9 @@ public final class OpenCmsCore {
      */
     protected CmsPublishManager getPublishManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_publishManager);
+        }
         return m_publishManager;
     }
 
@@ -631,6 +660,9 @@ public final class OpenCmsCore {
      */
     protected CmsScheduleManager getScheduleManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_scheduleManager);
+        }
         return m_scheduleManager;
     }
 
@@ -642,6 +674,9 @@ public final class OpenCmsCore {
      */
     protected CmsSearchManager getSearchManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_searchManager);
+        }
         return m_searchManager;
     }
 
@@ -693,6 +728,9 @@ public final class OpenCmsCore {
      */
     protected CmsStaticExportManager getStaticExportManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_staticExportManager);
+        }
         return m_staticExportManager;
     }
 
@@ -734,6 +772,9 @@ public final class OpenCmsCore {
      */
     protected CmsWorkplaceManager getWorkplaceManager() {
 
+        if (m_lazyManagers != null) {
+            initLazyManager(m_workplaceManager);
+        }
         return m_workplaceManager;
     }
 
@@ -984,6 +1025,9 @@ public final class OpenCmsCore {
         }
         m_memoryMonitor.initialize(systemConfiguration);
 
+        // expose the runtime metrics with JMX
+        m_metricsRegistry.registerMBean(getSystemInfo().getWebApplicationName());
+
         // get the event manager from the configuration and initialize it with the events already registered
         CmsEventManager configuredEventManager = systemConfiguration.getEventManager();
         configuredEventManager.initialize(m_eventManager);
@@ -1005,7 +1049,8 @@ public final class OpenCmsCore {
         getSystemInfo().setVersionHistorySettings(
             systemConfiguration.isHistoryEnabled(),
             systemConfiguration.getHistoryVersions(),
-            systemConfiguration.getHistoryVersionsAfterDeletion());
+            systemConfiguration.getHistoryVersionsAfterDeletion(),
+            systemConfiguration.isHistoryPruningDeferred());
         // set mail configuration
         getSystemInfo().setMailSettings(systemConfiguration.getMailSettings());
         // set HTTP authentication settings
@@ -1146,10 +1191,27 @@ public final class OpenCmsCore {
             throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_ADMINCMS_0), e);
         }
 
+        if (m_fastStart) {
+            // the managers not required for the basic VFS operations are initialized on first use
+            m_lazyInitCms = adminCms;
+            m_lazyManagers = new HashSet();
+            m_lazyManagers.add(m_scheduleManager);
+            m_lazyManagers.add(m_staticExportManager);
+            m_lazyManagers.add(m_publishManager);
+            m_lazyManagers.add(m_moduleManager);
+            m_lazyManagers.add(m_searchManager);
+            m_lazyManagers.add(m_workplaceManager);
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_FASTSTART_0));
+            }
+        }
+
         // now initialize the managers
         try {
-            // initialize the scheduler
-            m_scheduleManager.initialize(initCmsObject(adminCms));
+            if (!m_fastStart) {
+                // initialize the scheduler
+                m_scheduleManager.initialize(initCmsObject(adminCms));
+            }
 
             // initialize the locale manager
             m_localeManager = systemConfiguration.getLocaleManager();
@@ -1158,8 +1220,10 @@ public final class OpenCmsCore {
             // initialize the site manager
             m_siteManager.initialize(initCmsObject(adminCms));
 
-            // initialize the static export manager
-            m_staticExportManager.initialize(initCmsObject(adminCms));
+            if (!m_fastStart) {
+                // initialize the static export manager
+                m_staticExportManager.initialize(initCmsObject(adminCms));
+            }
 
             // initialize the XML content type manager
             m_xmlContentTypeManager.initialize(initCmsObject(adminCms));
@@ -1167,25 +1231,31 @@ public final class OpenCmsCore {
             // initialize the publish manager
             m_publishManager.setPublishEngine(m_publishEngine);
             m_publishManager.setSecurityManager(m_securityManager);
-            m_publishManager.initialize(initCmsObject(adminCms));
+            if (!m_fastStart) {
+                m_publishManager.initialize(initCmsObject(adminCms));
 
-            // initialize the module manager
-            m_moduleManager.initialize(initCmsObject(adminCms), m_configurationManager);
+                // initialize the module manager
+                m_moduleManager.initialize(initCmsObject(adminCms), m_configurationManager);
+            }
 
             // initialize the resource manager
             m_resourceManager.initialize(initCmsObject(adminCms));
 
-            // initialize the search manager
-            m_searchManager.initialize(initCmsObject(adminCms));
+            if (!m_fastStart) {
+                // initialize the search manager
+                m_searchManager.initialize(initCmsObject(adminCms));
 
-            // initialize the workplace manager
-            m_workplaceManager.initialize(initCmsObject(adminCms));
+                // initialize the workplace manager
+                m_workplaceManager.initialize(initCmsObject(adminCms));
+            }
 
             // initialize the session manager
             m_sessionManager.initialize(sessionStorageProvider);
 
-            // everything is initialized, now start publishing
-            m_publishManager.startPublishing();
+            if (!m_fastStart) {
+                // everything is initialized, now start publishing
+                m_publishManager.startPublishing();
+            }
         } catch (CmsException e) {
             throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
         }
@@ -1324,6 +1394,8 @@ public final class OpenCmsCore {
             m_localeManager = new CmsLocaleManager(Locale.ENGLISH);
             m_sessionManager = new CmsSessionManager();
             m_runtimeProperties = new Hashtable();
+            // the metrics registry must be available before any subsystem reports into it
+            m_metricsRegistry = new CmsMetricsRegistry();
             // the default event manager must be available because the configuration already registers events 
             m_eventManager = new CmsEventManager();
             // default link manager is required for test cases
@@ -1538,6 +1610,24 @@ public final class OpenCmsCore {
                     LOG.debug(Messages.get().getBundle().key(Messages.LOG_SHUTDOWN_TRACE_0), new Exception());
                 }
 
+                if (m_lazyManagers != null) {
+                    // managers deferred in "fast start" mode and never used need no shutdown
+                    synchronized (m_lazyManagers) {
+                        if (m_lazyManagers.contains(m_staticExportManager)) {
+                            m_staticExportManager = null;
+                        }
+                        if (m_lazyManagers.contains(m_moduleManager)) {
+                            m_moduleManager = null;
+                        }
+                        if (m_lazyManagers.contains(m_scheduleManager)) {
+                            m_scheduleManager = null;
+                        }
+                        m_lazyManagers.clear();
+                    }
+                    m_lazyManagers = null;
+                    m_lazyInitCms = null;
+                }
+
                 try {
                     // the first thing we have to do is to wait until the current publish process finishes
                     m_publishEngine.shutDown();
@@ -1620,6 +1710,9 @@ public final class OpenCmsCore {
                         Messages.LOG_ERROR_MEMORY_MONITOR_SHUTDOWN_1,
                         e.getMessage()), e);
                 }
+                if (m_metricsRegistry != null) {
+                    m_metricsRegistry.unregisterMBean();
+                }
                 String runtime = CmsStringUtil.formatRuntime(getSystemInfo().getRuntime());
                 if (CmsLog.INIT.isInfoEnabled()) {
                     CmsLog.INIT.info(Messages.get().getBundle().key(Messages.INIT_OPENCMS_STOPPED_1, runtime));
@@ -1679,6 +1772,29 @@ public final class OpenCmsCore {
      */
     protected OpenCmsCore upgradeRunlevel(ExtendedProperties configuration) throws CmsInitException {
 
+        return upgradeRunlevel(configuration, false);
+    }
+
+    /**
+     * Upgrades to runlevel {@link OpenCms#RUNLEVEL_3_SHELL_ACCESS},
+     * this is shell access to the database but no Servlet context.<p>
+     * 
+     * In "fast start" mode only the database drivers, the security manager, the resource types 
+     * and the other managers required for basic VFS operations are initialized during startup.
+     * The scheduler, the static export, publish, module, search and workplace managers 
+     * are initialized when they are accessed for the first time.<p>
+     * 
+     * To upgrade the runlevel, the system must be in runlevel {@link OpenCms#RUNLEVEL_1_CORE_OBJECT},
+     * otherwise an exception is thrown.<p>
+     * 
+     * @param configuration the configuration
+     * @param fastStart if <code>true</code>, the "fast start" mode is used
+     * @throws CmsInitException in case OpenCms can not be initialized
+     * @return the initialized OpenCmsCore
+     */
+    protected OpenCmsCore upgradeRunlevel(ExtendedProperties configuration, boolean fastStart)
+    throws CmsInitException {
+
         synchronized (LOCK) {
             if ((m_instance != null) && (getRunLevel() >= OpenCms.RUNLEVEL_2_INITIALIZING)) {
                 // instance already in runlevel 3 or 4
@@ -1694,6 +1810,7 @@ public final class OpenCmsCore {
 
             // set the runlevel to "initializing OpenCms"
             setRunLevel(OpenCms.RUNLEVEL_2_INITIALIZING);
+            m_instance.m_fastStart = fastStart;
             // initialize the configuration
             m_instance.initConfiguration(configuration);
             // upgrade the runlevel - OpenCms shell is available
@@ -2137,6 +2254,64 @@ public final class OpenCmsCore {
         return cms;
     }
 
+    /**
+     * Initializes a manager that was deferred in "fast start" mode, 
+     * if this has not already been done.<p>
+     * 
+     * @param manager the manager to initialize
+     */
+    private void initLazyManager(Object manager) {
+
+        Set lazyManagers = m_lazyManagers;
+        if (lazyManagers == null) {
+            // system has been shut down
+            return;
+        }
+        synchronized (lazyManagers) {
+            // the manager is removed before it is initialized, so it is not initialized again 
+            // if it is requested during its own initialization
+            if (!lazyManagers.remove(manager)) {
+                // already initialized
+                return;
+            }
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_LAZY_MANAGER_1,
+                    manager.getClass().getName()));
+            }
+            boolean initialized = false;
+            try {
+                if (manager == m_scheduleManager) {
+                    m_scheduleManager.initialize(initCmsObject(m_lazyInitCms));
+                } else if (manager == m_staticExportManager) {
+                    m_staticExportManager.initialize(initCmsObject(m_lazyInitCms));
+                } else if (manager == m_publishManager) {
+                    m_publishManager.initialize(initCmsObject(m_lazyInitCms));
+                    // the managers that react on a publish must be ready before the first publish job runs,
+                    // as they register their event listeners only when they are initialized
+                    initLazyManager(m_staticExportManager);
+                    initLazyManager(m_moduleManager);
+                    initLazyManager(m_searchManager);
+                    m_publishManager.startPublishing();
+                } else if (manager == m_moduleManager) {
+                    m_moduleManager.initialize(initCmsObject(m_lazyInitCms), m_configurationManager);
+                } else if (manager == m_searchManager) {
+                    m_searchManager.initialize(initCmsObject(m_lazyInitCms));
+                } else if (manager == m_workplaceManager) {
+                    m_workplaceManager.initialize(initCmsObject(m_lazyInitCms));
+                }
+                initialized = true;
+            } catch (CmsException e) {
+                throw new CmsInitException(Messages.get().container(Messages.ERR_CRITICAL_INIT_MANAGERS_0), e);
+            } finally {
+                if (!initialized) {
+                    // the initialization failed, so it is tried again on the next access
+                    lazyManagers.add(manager);
+                }
+            }
+        }
+    }
+
     /**
      * This method sends a request to the client to display a login form,
      * it is needed for HTTP-Authentification.<p>
@@ -0,0 +1,88 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsCacheSizeGauge.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.cache.CmsLruCache;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Metric that reports the current size of a cache registered at the memory monitor.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+final class CmsCacheSizeGauge implements I_CmsMetric {
+
+    /** The monitored cache. */
+    private final Object m_cache;
+
+    /**
+     * Creates a new gauge for the given cache.<p>
+     * 
+     * @param cache the monitored cache
+     */
+    CmsCacheSizeGauge(Object cache) {
+
+        m_cache = cache;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#getValues()
+     */
+    public Map getValues() {
+
+        Map result = new LinkedHashMap();
+        if (m_cache instanceof CmsLruCache) {
+            CmsLruCache cache = (CmsLruCache)m_cache;
+            result.put("size", new Long(cache.size()));
+            result.put("costs", new Long(cache.getObjectCosts()));
+            result.put("maxCosts", new Long(cache.getMaxCacheCosts()));
+        } else if (m_cache instanceof Map) {
+            result.put("size", new Long(((Map)m_cache).size()));
+        } else if (m_cache instanceof Collection) {
+            result.put("size", new Long(((Collection)m_cache).size()));
+        }
+        return result;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#reset()
+     */
+    public void reset() {
+
+        // the size of a cache can not be reset
+    }
+}
@@ -37,6 +37,7 @@ import org.opencms.cache.CmsVfsMemoryObjectCache;
 import org.opencms.configuration.CmsSystemConfiguration;
 import org.opencms.db.CmsCacheSettings;
 import org.opencms.db.CmsDriverManager;
+import org.opencms.db.CmsPropertyCacheMap;
 import org.opencms.db.CmsPublishedResource;
 import org.opencms.db.CmsSecurityManager;
 import org.opencms.file.CmsFile;
@@ -119,6 +120,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Maximum depth for object size recursion. */
     private static final int MAX_DEPTH = 5;
 
+    /** Percentage below the max. usage the memory usage must fall to release the memory pressure. */
+    private static final int PRESSURE_HYSTERESIS = 10;
+
+    /** Memory pressure level at which all caches are cleared. */
+    private static final int PRESSURE_LEVEL_CLEAR = 3;
+
+    /** Percentage of the cache entries that is removed per memory pressure level. */
+    private static final int PRESSURE_SHRINK_STEP = 50;
+
     /** Cache for access control lists. */
     private Map m_accessControlListCache;
 
@@ -188,6 +198,12 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** The current memory status. */
     private CmsMemoryStatus m_memoryCurrent;
 
+    /** The current memory pressure level, 0 if the system is not low on memory. */
+    private int m_memoryPressureLevel;
+
+    /** The caches that are shrunk step by step under memory pressure. */
+    private List m_memoryPressureTargets;
+
     /** Contains the object to be monitored. */
     private Map m_monitoredObjects;
 
@@ -206,9 +222,15 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /** Cache for properties. */
     private Map m_propertyCache;
 
+    /** The property cache map, indexed by resource path. */
+    private CmsPropertyCacheMap m_propertyCacheMap;
+
     /** Cache for property lists. */
     private Map m_propertyListCache;
 
+    /** The property list cache map, indexed by resource path. */
+    private CmsPropertyCacheMap m_propertyListCacheMap;
+
     /** Cache for published resources. */
     private Map m_publishedResourcesCache;
 
@@ -257,6 +279,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     public CmsMemoryMonitor() {
 
         m_monitoredObjects = new HashMap();
+        m_memoryPressureTargets = new ArrayList();
     }
 
     /**
@@ -567,7 +590,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * @param key the cache key
      * @param permission the permission check result to cache
      */
-    public void cachePermission(String key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
+    public void cachePermission(Object key, I_CmsPermissionHandler.CmsPermissionCheckResult permission) {
 
         m_permissionCache.put(key, permission);
     }
@@ -784,6 +807,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         flushPublishedResources();
     }
 
+    /**
+     * Clears the internal caches affected by publishing.<p>
+     * 
+     * These are the same caches as cleared by {@link #clearCache()}, except the property caches.
+     * Publishing does not change offline properties, and the Online properties of the published 
+     * resources are removed with {@link #uncacheProperties(String, boolean)} 
+     * and {@link #uncachePropertiesInSubtree(String, boolean)}.<p>
+     */
+    public void clearCacheForPublishing() {
+
+        clearPrincipalsCache();
+
+        flushProjects();
+        flushResources();
+        flushResourceLists();
+        flushProjectResources();
+        flushPublishedResources();
+    }
+
     /**
      * Clears all internal principal-related caches.<p>
      */
@@ -934,6 +976,21 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_propertyCache.clear();
     }
 
+    /**
+     * Flushes the Online or the offline half of the property and property list caches.<p>
+     * 
+     * @param online <code>true</code> to flush the Online properties, <code>false</code> for the offline properties
+     */
+    public void flushProperties(boolean online) {
+
+        synchronized (m_propertyCache) {
+            m_propertyCacheMap.uncacheAll(online);
+        }
+        synchronized (m_propertyListCache) {
+            m_propertyListCacheMap.uncacheAll(online);
+        }
+    }
+
     /**
      * Flushes the property list cache.<p>
      */
@@ -1175,7 +1232,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
      * 
      * @return the permission check result cached with the given cache key
      */
-    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(String key) {
+    public I_CmsPermissionHandler.CmsPermissionCheckResult getCachedPermission(Object key) {
 
         return (I_CmsPermissionHandler.CmsPermissionCheckResult)m_permissionCache.get(key);
     }
@@ -1505,7 +1562,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // temporary xml entities cache
         LRUMap xmlTemporaryCache = new LRUMap(128);
         m_xmlTemporaryEntityCache = Collections.synchronizedMap(xmlTemporaryCache);
-        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", m_xmlTemporaryEntityCache);
+        register(CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache", xmlTemporaryCache);
 
         // permanent xml entities cache
         Map xmlPermanentCache = new HashMap(32);
@@ -1515,7 +1572,7 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         // xml content definitions cache
         LRUMap contentDefinitionsCache = new LRUMap(64);
         m_contentDefinitionsCache = Collections.synchronizedMap(contentDefinitionsCache);
-        register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", m_contentDefinitionsCache);
+        register(CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache", contentDefinitionsCache);
 
         // lock cache
         Map lockCache = new HashMap();
@@ -1594,14 +1651,14 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         register(CmsDriverManager.class.getName() + ".resourceListCache", lruMap);
 
         // property cache
-        lruMap = new LRUMap(cacheSettings.getPropertyCacheSize());
-        m_propertyCache = Collections.synchronizedMap(lruMap);
-        register(CmsDriverManager.class.getName() + ".propertyCache", lruMap);
+        m_propertyCacheMap = new CmsPropertyCacheMap(cacheSettings.getPropertyCacheSize());
+        m_propertyCache = Collections.synchronizedMap(m_propertyCacheMap);
+        register(CmsDriverManager.class.getName() + ".propertyCache", m_propertyCacheMap);
 
         // property list cache
-        lruMap = new LRUMap(cacheSettings.getPropertyListsCacheSize());
-        m_propertyListCache = Collections.synchronizedMap(lruMap);
-        register(CmsDriverManager.class.getName() + ".propertyListCache", lruMap);
+        m_propertyListCacheMap = new CmsPropertyCacheMap(cacheSettings.getPropertyListsCacheSize());
+        m_propertyListCache = Collections.synchronizedMap(m_propertyListCacheMap);
+        register(CmsDriverManager.class.getName() + ".propertyListCache", m_propertyListCacheMap);
 
         // published resources list cache
         lruMap = new LRUMap(5);
@@ -1623,6 +1680,57 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_memObjectCache = Collections.synchronizedMap(memObjectCache);
         register(CmsMemoryObjectCache.class.getName(), memObjectCache);
 
+        // caches that are shrunk before all caches are cleared if the system runs low on memory
+        String driverManager = CmsDriverManager.class.getName();
+        addMemoryPressureTarget(
+            CmsXmlEntityResolver.class.getName() + ".xmlEntityTemporaryCache",
+            m_xmlTemporaryEntityCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            CmsSecurityManager.class.getName(),
+            m_permissionCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            driverManager + ".publishedResourcesCache",
+            m_publishedResourcesCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            driverManager + ".resourceListCache",
+            m_resourceListCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            driverManager + ".propertyListCache",
+            m_propertyListCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            driverManager + ".roleListsCache",
+            m_roleListsCache,
+            CmsMemoryPressureTarget.PRIORITY_LOW);
+        addMemoryPressureTarget(
+            CmsXmlEntityResolver.class.getName() + ".contentDefinitionsCache",
+            m_contentDefinitionsCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+        addMemoryPressureTarget(
+            driverManager + ".accessControlListCache",
+            m_accessControlListCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+        addMemoryPressureTarget(
+            driverManager + ".propertyCache",
+            m_propertyCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+        addMemoryPressureTarget(
+            driverManager + ".resourceCache",
+            m_resourceCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+        addMemoryPressureTarget(
+            driverManager + ".rolesCache",
+            m_rolesCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+        addMemoryPressureTarget(
+            driverManager + ".userGroupsCache",
+            m_userGroupsCache,
+            CmsMemoryPressureTarget.PRIORITY_MEDIUM);
+
         if (LOG.isDebugEnabled()) {
             // this will happen only once during system startup
             LOG.debug(Messages.get().getBundle().key(Messages.LOG_MM_CREATED_1, new Date(System.currentTimeMillis())));
@@ -1705,8 +1813,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
                 monitor.monitorWriteLog(true);
                 // send warning email
                 monitor.monitorSendEmail(true);
-                // clean up caches     
-                monitor.clearCaches();
+                // release memory step by step, clearing all caches is the last resort
+                monitor.increaseMemoryPressure();
+            } else if (monitor.m_memoryPressureLevel > 0) {
+                // check if the memory usage has fallen far enough below the limit
+                monitor.releaseMemoryPressure();
             }
 
             // check if regular a log entry must be written
@@ -1740,6 +1851,8 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
     /**
      * Adds a new object to the monitor.<p>
      * 
+     * The size of the object is also exposed as metric named <code>cache.objectName</code>.<p>
+     * 
      * @param objectName name of the object
      * @param object the object for monitoring
      */
@@ -1747,6 +1860,11 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
 
         if (enabled()) {
             m_monitoredObjects.put(objectName, object);
+            // expose the size of the object as metric, replacing the metric of an object registered before
+            String metricName = "cache." + objectName;
+            CmsMetricsRegistry metrics = OpenCms.getMetricsRegistry();
+            metrics.unregister(metricName);
+            metrics.register(metricName, new CmsCacheSizeGauge(object));
         }
     }
 
@@ -1895,6 +2013,52 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_projectCache.remove(project.getName());
     }
 
+    /**
+     * Removes the cached properties and property lists of a single resource.<p>
+     * 
+     * If the resource is a folder, the cached properties of all resources below 
+     * which have been read with the "search" option are also removed, since these 
+     * may have been inherited from the folder.<p>
+     * 
+     * @param rootPath the root path of the resource, folders must end with a slash
+     * @param online <code>true</code> to remove the Online properties, <code>false</code> for the offline properties
+     */
+    public void uncacheProperties(String rootPath, boolean online) {
+
+        synchronized (m_propertyCache) {
+            m_propertyCacheMap.uncacheResource(online, rootPath);
+            if (CmsResource.isFolder(rootPath)) {
+                m_propertyCacheMap.uncacheSubtree(online, rootPath, true);
+            }
+        }
+        synchronized (m_propertyListCache) {
+            m_propertyListCacheMap.uncacheResource(online, rootPath);
+            if (CmsResource.isFolder(rootPath)) {
+                m_propertyListCacheMap.uncacheSubtree(online, rootPath, true);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached properties and property lists of a folder and of all resources below it.<p>
+     * 
+     * This is required if the paths below the folder have changed, e.g. because the folder was moved.<p>
+     * 
+     * @param folderPath the root path of the folder, with trailing slash
+     * @param online <code>true</code> to remove the Online properties, <code>false</code> for the offline properties
+     */
+    public void uncachePropertiesInSubtree(String folderPath, boolean online) {
+
+        synchronized (m_propertyCache) {
+            m_propertyCacheMap.uncacheResource(online, folderPath);
+            m_propertyCacheMap.uncacheSubtree(online, folderPath, false);
+        }
+        synchronized (m_propertyListCache) {
+            m_propertyListCacheMap.uncacheResource(online, folderPath);
+            m_propertyListCacheMap.uncacheSubtree(online, folderPath, false);
+        }
+    }
+
     /**
      * Removes the given publish job from the cache.<p>
      * 
@@ -1948,6 +2112,23 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         m_xmlTemporaryEntityCache.remove(key);
     }
 
+    /**
+     * Adds a cache to the caches that are shrunk step by step under memory pressure.<p>
+     * 
+     * The cache must have been registered with the given name before.<p>
+     * 
+     * @param name the name the cache was registered with
+     * @param cache the synchronized map the cache is accessed with
+     * @param priority the priority of the cache
+     */
+    private void addMemoryPressureTarget(String name, Map cache, int priority) {
+
+        Object registered = m_monitoredObjects.get(name);
+        if (registered instanceof LRUMap) {
+            m_memoryPressureTargets.add(new CmsMemoryPressureTarget(name, (LRUMap)registered, cache, priority));
+        }
+    }
+
     /**
      * Clears the OpenCms caches.<p> 
      */
@@ -1963,8 +2144,16 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         if (LOG.isWarnEnabled()) {
             LOG.warn(Messages.get().getBundle().key(Messages.LOG_CLEAR_CACHE_MEM_CONS_0));
         }
+        Runtime runtime = Runtime.getRuntime();
+        long usedMemory = runtime.totalMemory() - runtime.freeMemory();
         OpenCms.fireCmsEvent(new CmsEvent(I_CmsEventListener.EVENT_CLEAR_CACHES, Collections.EMPTY_MAP));
         System.gc();
+        if (LOG.isWarnEnabled()) {
+            long released = usedMemory - (runtime.totalMemory() - runtime.freeMemory());
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_MM_PRESSURE_CLEARED_1,
+                new Long(Math.max(released, 0))));
+        }
     }
 
     /**
@@ -2096,6 +2285,25 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         return "-";
     }
 
+    /**
+     * Raises the memory pressure level and releases memory according to the new level.<p>
+     * 
+     * On the first levels the least recently used entries of the caches are removed, 
+     * starting with the caches that have a low priority. 
+     * All caches are only cleared if this does not release enough memory.<p>
+     */
+    private void increaseMemoryPressure() {
+
+        if (m_memoryPressureLevel < PRESSURE_LEVEL_CLEAR) {
+            m_memoryPressureLevel++;
+        }
+        if (m_memoryPressureLevel >= PRESSURE_LEVEL_CLEAR) {
+            clearCaches();
+        } else {
+            shrinkCaches(m_memoryPressureLevel);
+        }
+    }
+
     /**
      * Sends a warning or status email with OpenCms Memory information.<p>
      * 
@@ -2367,6 +2575,70 @@ public class CmsMemoryMonitor implements I_CmsScheduledJob {
         }
     }
 
+    /**
+     * Resets the memory pressure level if the memory usage has fallen 
+     * far enough below the configured max. usage.<p>
+     * 
+     * The difference between the max. usage and the release threshold avoids 
+     * that the caches are shrunk again as soon as the memory usage rises a little.<p>
+     */
+    private void releaseMemoryPressure() {
+
+        long threshold = m_maxUsagePercent - PRESSURE_HYSTERESIS;
+        if (m_memoryCurrent.getUsage() < threshold) {
+            m_memoryPressureLevel = 0;
+            if (LOG.isInfoEnabled()) {
+                LOG.info(Messages.get().getBundle().key(
+                    Messages.LOG_MM_PRESSURE_RELEASED_2,
+                    new Long(m_memoryCurrent.getUsage()),
+                    new Long(threshold)));
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used entries from the caches according to the given memory pressure level.<p>
+     * 
+     * Besides the system caches, all registered {@link CmsLruCache} instances like the FlexCache are shrunk.<p>
+     * 
+     * @param level the memory pressure level
+     */
+    private void shrinkCaches(int level) {
+
+        List targets = new ArrayList(m_memoryPressureTargets);
+        List keyList = Arrays.asList(m_monitoredObjects.keySet().toArray());
+        Collections.sort(keyList);
+        for (Iterator keys = keyList.iterator(); keys.hasNext();) {
+            String key = (String)keys.next();
+            Object obj = m_monitoredObjects.get(key);
+            if (obj instanceof CmsLruCache) {
+                targets.add(new CmsMemoryPressureTarget(key, (CmsLruCache)obj, CmsMemoryPressureTarget.PRIORITY_MEDIUM));
+            }
+        }
+
+        long total = 0;
+        for (Iterator i = targets.iterator(); i.hasNext();) {
+            CmsMemoryPressureTarget target = (CmsMemoryPressureTarget)i.next();
+            int percent = Math.min((level - target.getPriority()) * PRESSURE_SHRINK_STEP, 100);
+            if (percent <= 0) {
+                continue;
+            }
+            long released = target.shrink(percent);
+            total += released;
+            if (LOG.isWarnEnabled()) {
+                LOG.warn(Messages.get().getBundle().key(
+                    Messages.LOG_MM_PRESSURE_SHRINK_4,
+                    new Object[] {new Integer(level), target.getName(), new Integer(percent), new Long(released)}));
+            }
+        }
+        if (LOG.isWarnEnabled()) {
+            LOG.warn(Messages.get().getBundle().key(
+                Messages.LOG_MM_PRESSURE_SHRINK_TOTAL_2,
+                new Integer(level),
+                new Long(total)));
+        }
+    }
+
     /**
      * Updates the memory information of the memory monitor.<p> 
      */
@@ -0,0 +1,153 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMemoryPressureTarget.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.cache.CmsLruCache;
+
+import java.util.Map;
+
+import org.apache.commons.collections.map.LRUMap;
+
+/**
+ * A cache that is shrunk by the memory monitor when the system runs low on memory.<p>
+ * 
+ * A target is either a {@link LRUMap} or a {@link CmsLruCache}. Shrinking always removes
+ * the least recently used entries first, so the working set of the cache is kept as long as possible.<p>
+ * 
+ * Targets with a lower priority are shrunk earlier and further than targets with a higher priority.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+final class CmsMemoryPressureTarget {
+
+    /** Priority of caches that are cheap to rebuild. */
+    public static final int PRIORITY_LOW = 0;
+
+    /** Priority of caches that are more expensive to rebuild. */
+    public static final int PRIORITY_MEDIUM = 1;
+
+    /** The cache to shrink, either a {@link LRUMap} or a {@link CmsLruCache}. */
+    private final Object m_cache;
+
+    /** The object to synchronize on when the cache is modified. */
+    private final Object m_mutex;
+
+    /** The name the cache is registered with at the memory monitor. */
+    private final String m_name;
+
+    /** The priority of the cache. */
+    private final int m_priority;
+
+    /**
+     * Creates a new target for a cache that is accessed through a synchronized map.<p>
+     * 
+     * @param name the name the cache is registered with at the memory monitor
+     * @param cache the LRU map that holds the cached objects
+     * @param mutex the synchronized map wrapping the LRU map
+     * @param priority the priority of the cache
+     */
+    public CmsMemoryPressureTarget(String name, LRUMap cache, Map mutex, int priority) {
+
+        m_name = name;
+        m_cache = cache;
+        m_mutex = mutex;
+        m_priority = priority;
+    }
+
+    /**
+     * Creates a new target for a cost based LRU cache.<p>
+     * 
+     * @param name the name the cache is registered with at the memory monitor
+     * @param cache the LRU cache
+     * @param priority the priority of the cache
+     */
+    public CmsMemoryPressureTarget(String name, CmsLruCache cache, int priority) {
+
+        m_name = name;
+        m_cache = cache;
+        m_mutex = cache;
+        m_priority = priority;
+    }
+
+    /**
+     * Returns the name the cache is registered with at the memory monitor.<p>
+     * 
+     * @return the name the cache is registered with at the memory monitor
+     */
+    public String getName() {
+
+        return m_name;
+    }
+
+    /**
+     * Returns the priority of the cache.<p>
+     * 
+     * @return the priority of the cache
+     */
+    public int getPriority() {
+
+        return m_priority;
+    }
+
+    /**
+     * Removes the given percentage of the least recently used entries from the cache.<p>
+     * 
+     * @param percent the percentage of the entries to remove, between 0 and 100
+     * 
+     * @return the estimated number of bytes that have been released
+     */
+    public long shrink(int percent) {
+
+        if (m_cache instanceof CmsLruCache) {
+            CmsLruCache lruCache = (CmsLruCache)m_cache;
+            synchronized (m_mutex) {
+                int costs = lruCache.getObjectCosts();
+                lruCache.shrink((int)(((long)costs * (100 - percent)) / 100));
+                return costs - lruCache.getObjectCosts();
+            }
+        }
+        long released = 0;
+        LRUMap lruMap = (LRUMap)m_cache;
+        synchronized (m_mutex) {
+            int count = (lruMap.size() * percent) / 100;
+            for (int i = 0; (i < count) && !lruMap.isEmpty(); i++) {
+                // the first key of the map is the least recently used one
+                Object key = lruMap.firstKey();
+                Object value = lruMap.remove(key);
+                released += CmsMemoryMonitor.getMemorySize(key) + CmsMemoryMonitor.getValueSize(value);
+            }
+        }
+        return released;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMetricCounter.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A metric that counts occurrences, for example cache hits.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public final class CmsMetricCounter implements I_CmsMetric {
+
+    /** The current count. */
+    private final AtomicLong m_count;
+
+    /**
+     * Creates a new counter.<p>
+     */
+    public CmsMetricCounter() {
+
+        m_count = new AtomicLong();
+    }
+
+    /**
+     * Adds the given value to the counter.<p>
+     * 
+     * @param delta the value to add
+     */
+    public void add(long delta) {
+
+        m_count.addAndGet(delta);
+    }
+
+    /**
+     * Returns the current count.<p>
+     * 
+     * @return the current count
+     */
+    public long getCount() {
+
+        return m_count.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#getValues()
+     */
+    public Map getValues() {
+
+        Map result = new LinkedHashMap();
+        result.put("count", new Long(getCount()));
+        return result;
+    }
+
+    /**
+     * Increments the counter by one.<p>
+     */
+    public void increment() {
+
+        m_count.incrementAndGet();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#reset()
+     */
+    public void reset() {
+
+        m_count.set(0);
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMetricHistogram.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A metric that records the distribution of values.<p>
+ * 
+ * The values are counted in buckets with exponentially growing bounds, 
+ * bucket <code>n</code> holds all values that need <code>n</code> bits. 
+ * So recording a value takes constant time and memory, and the percentiles 
+ * are approximated with a precision of a factor of two.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public final class CmsMetricHistogram implements I_CmsMetric {
+
+    /** The number of buckets, one for each possible bit length of a positive long value. */
+    private static final int BUCKETS = 64;
+
+    /** The counts of the values per bucket. */
+    private final AtomicLongArray m_buckets;
+
+    /** The number of recorded values. */
+    private final AtomicLong m_count;
+
+    /** The largest recorded value. */
+    private final AtomicLong m_max;
+
+    /** The sum of all recorded values. */
+    private final AtomicLong m_total;
+
+    /**
+     * Creates a new histogram.<p>
+     */
+    public CmsMetricHistogram() {
+
+        m_buckets = new AtomicLongArray(BUCKETS);
+        m_count = new AtomicLong();
+        m_max = new AtomicLong();
+        m_total = new AtomicLong();
+    }
+
+    /**
+     * Returns the number of recorded values.<p>
+     * 
+     * @return the number of recorded values
+     */
+    public long getCount() {
+
+        return m_count.get();
+    }
+
+    /**
+     * Returns the largest recorded value.<p>
+     * 
+     * @return the largest recorded value
+     */
+    public long getMax() {
+
+        return m_max.get();
+    }
+
+    /**
+     * Returns the mean of all recorded values.<p>
+     * 
+     * @return the mean of all recorded values
+     */
+    public double getMean() {
+
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        return (double)getTotal() / count;
+    }
+
+    /**
+     * Returns an approximation of the given percentile of the recorded values.<p>
+     * 
+     * The result is the upper bound of the bucket that contains the percentile,
+     * but never more than the largest recorded value.<p>
+     * 
+     * @param percentile the percentile, between 0 and 1
+     * 
+     * @return an approximation of the percentile
+     */
+    public long getPercentile(double percentile) {
+
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += m_buckets.get(i);
+            if (seen >= rank) {
+                return Math.min((1L << i) - 1, getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns the sum of all recorded values.<p>
+     * 
+     * @return the sum of all recorded values
+     */
+    public long getTotal() {
+
+        return m_total.get();
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#getValues()
+     */
+    public Map getValues() {
+
+        Map result = new LinkedHashMap();
+        result.put("count", new Long(getCount()));
+        result.put("mean", new Double(getMean()));
+        result.put("max", new Long(getMax()));
+        result.put("p50", new Long(getPercentile(0.5)));
+        result.put("p95", new Long(getPercentile(0.95)));
+        result.put("p99", new Long(getPercentile(0.99)));
+        return result;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#reset()
+     */
+    public void reset() {
+
+        for (int i = 0; i < BUCKETS; i++) {
+            m_buckets.set(i, 0);
+        }
+        m_count.set(0);
+        m_max.set(0);
+        m_total.set(0);
+    }
+
+    /**
+     * Records a value.<p>
+     * 
+     * Negative values are recorded as 0.<p>
+     * 
+     * @param value the value to record
+     */
+    public void update(long value) {
+
+        if (value < 0) {
+            value = 0;
+        }
+        m_buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        m_count.incrementAndGet();
+        m_total.addAndGet(value);
+        long max = m_max.get();
+        while ((value > max) && !m_max.compareAndSet(max, value)) {
+            max = m_max.get();
+        }
+    }
+}
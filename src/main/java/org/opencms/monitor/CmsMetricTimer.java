@@ -0,0 +1,130 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMetricTimer.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A metric that records the distribution of durations.<p>
+ * 
+ * Usage:<pre>
+ * long start = System.nanoTime();
+ * try {
+ *     // the timed operation
+ * } finally {
+ *     timer.stop(start);
+ * }</pre>
+ * 
+ * The durations are recorded in microseconds and reported in milliseconds.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public final class CmsMetricTimer implements I_CmsMetric {
+
+    /** The distribution of the durations in microseconds. */
+    private final CmsMetricHistogram m_histogram;
+
+    /**
+     * Creates a new timer.<p>
+     */
+    public CmsMetricTimer() {
+
+        m_histogram = new CmsMetricHistogram();
+    }
+
+    /**
+     * Returns the number of recorded durations.<p>
+     * 
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+
+        return m_histogram.getCount();
+    }
+
+    /**
+     * Returns the sum of all recorded durations in milliseconds.<p>
+     * 
+     * @return the sum of all recorded durations in milliseconds
+     */
+    public long getTotalMillis() {
+
+        return m_histogram.getTotal() / 1000;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#getValues()
+     */
+    public Map getValues() {
+
+        Map result = new LinkedHashMap();
+        result.put("count", new Long(getCount()));
+        result.put("totalMillis", new Long(getTotalMillis()));
+        result.put("meanMillis", new Double(m_histogram.getMean() / 1000));
+        result.put("maxMillis", new Double(m_histogram.getMax() / 1000.0));
+        result.put("p50Millis", new Double(m_histogram.getPercentile(0.5) / 1000.0));
+        result.put("p95Millis", new Double(m_histogram.getPercentile(0.95) / 1000.0));
+        result.put("p99Millis", new Double(m_histogram.getPercentile(0.99) / 1000.0));
+        return result;
+    }
+
+    /**
+     * @see org.opencms.monitor.I_CmsMetric#reset()
+     */
+    public void reset() {
+
+        m_histogram.reset();
+    }
+
+    /**
+     * Records the duration since the given start time.<p>
+     * 
+     * @param startNanos the start time as returned by {@link System#nanoTime()}
+     */
+    public void stop(long startNanos) {
+
+        update(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records a duration.<p>
+     * 
+     * @param nanos the duration in nanoseconds
+     */
+    public void update(long nanos) {
+
+        m_histogram.update(nanos / 1000);
+    }
+}
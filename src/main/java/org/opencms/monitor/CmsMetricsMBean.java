@@ -0,0 +1,201 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMetricsMBean.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+
+/**
+ * Dynamic MBean that exposes the metrics of a {@link CmsMetricsRegistry}.<p>
+ * 
+ * Every value of every metric is a read only attribute named <code>metric.value</code>, 
+ * for example <code>flexcache.hits.count</code>. The attributes are collected again 
+ * each time the MBean info is requested, so metrics registered later show up as well.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+class CmsMetricsMBean implements DynamicMBean {
+
+    /** Name of the operation that returns the metrics report. */
+    private static final String OPERATION_REPORT = "report";
+
+    /** Name of the operation that resets all metrics. */
+    private static final String OPERATION_RESET = "reset";
+
+    /** The registry with the metrics to expose. */
+    private final CmsMetricsRegistry m_registry;
+
+    /**
+     * Creates a new MBean for the given registry.<p>
+     * 
+     * @param registry the registry with the metrics to expose
+     */
+    CmsMetricsMBean(CmsMetricsRegistry registry) {
+
+        m_registry = registry;
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getAttribute(java.lang.String)
+     */
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+
+        int pos = attribute.lastIndexOf('.');
+        if (pos > 0) {
+            I_CmsMetric metric = m_registry.getMetric(attribute.substring(0, pos));
+            if (metric != null) {
+                Object value = metric.getValues().get(attribute.substring(pos + 1));
+                if (value != null) {
+                    return value;
+                }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getAttributes(java.lang.String[])
+     */
+    public AttributeList getAttributes(String[] attributes) {
+
+        AttributeList result = new AttributeList();
+        for (int i = 0; i < attributes.length; i++) {
+            try {
+                result.add(new Attribute(attributes[i], getAttribute(attributes[i])));
+            } catch (AttributeNotFoundException e) {
+                // the metric was removed in the meantime, skip it
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#getMBeanInfo()
+     */
+    public MBeanInfo getMBeanInfo() {
+
+        List attributes = new ArrayList();
+        Iterator names = m_registry.getMetricNames().iterator();
+        while (names.hasNext()) {
+            String name = (String)names.next();
+            I_CmsMetric metric = m_registry.getMetric(name);
+            if (metric == null) {
+                continue;
+            }
+            Iterator values = metric.getValues().entrySet().iterator();
+            while (values.hasNext()) {
+                Map.Entry entry = (Map.Entry)values.next();
+                attributes.add(new MBeanAttributeInfo(
+                    name + "." + entry.getKey(),
+                    entry.getValue().getClass().getName(),
+                    name + " (" + entry.getKey() + ")",
+                    true,
+                    false,
+                    false));
+            }
+        }
+        MBeanOperationInfo[] operations = new MBeanOperationInfo[] {
+            new MBeanOperationInfo(
+                OPERATION_REPORT,
+                "Returns the current values of all metrics",
+                new MBeanParameterInfo[0],
+                String.class.getName(),
+                MBeanOperationInfo.INFO),
+            new MBeanOperationInfo(
+                OPERATION_RESET,
+                "Resets all metrics",
+                new MBeanParameterInfo[0],
+                Void.TYPE.getName(),
+                MBeanOperationInfo.ACTION)};
+        return new MBeanInfo(
+            getClass().getName(),
+            "OpenCms runtime metrics",
+            (MBeanAttributeInfo[])attributes.toArray(new MBeanAttributeInfo[attributes.size()]),
+            null,
+            operations,
+            null);
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#invoke(java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    public Object invoke(String actionName, Object[] params, String[] signature)
+    throws MBeanException, ReflectionException {
+
+        if (OPERATION_RESET.equals(actionName)) {
+            m_registry.reset();
+            return null;
+        }
+        if (OPERATION_REPORT.equals(actionName)) {
+            StringBuffer result = new StringBuffer();
+            Iterator it = m_registry.getReport().iterator();
+            while (it.hasNext()) {
+                result.append(it.next()).append('\n');
+            }
+            return result.toString();
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#setAttribute(javax.management.Attribute)
+     */
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+
+        // all attributes are read only
+        throw new AttributeNotFoundException(attribute.getName());
+    }
+
+    /**
+     * @see javax.management.DynamicMBean#setAttributes(javax.management.AttributeList)
+     */
+    public AttributeList setAttributes(AttributeList attributes) {
+
+        // all attributes are read only
+        return new AttributeList();
+    }
+}
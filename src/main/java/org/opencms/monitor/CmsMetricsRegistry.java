@@ -0,0 +1,305 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/CmsMetricsRegistry.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import org.opencms.main.CmsIllegalArgumentException;
+import org.opencms.main.CmsLog;
+import org.opencms.util.CmsStringUtil;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Registry for the runtime metrics of the OpenCms core.<p>
+ * 
+ * The subsystems look up their counters and timers once and keep the references,
+ * so recording a value only touches a few atomic variables and never the registry itself.<p>
+ * 
+ * All metrics are exposed with a single dynamic MBean in the platform MBean server 
+ * and can be listed with the <code>metrics</code> shell command.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ * 
+ * @see org.opencms.main.OpenCms#getMetricsRegistry()
+ */
+public class CmsMetricsRegistry {
+
+    /** The JMX domain of the OpenCms MBeans. */
+    public static final String JMX_DOMAIN = "org.opencms";
+
+    /** The instance name used if no web application name is available, for example in the shell. */
+    private static final String DEFAULT_INSTANCE_NAME = "opencms";
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsMetricsRegistry.class);
+
+    /** The registered metrics, with the metric name as key. */
+    private final Map m_metrics;
+
+    /** The name of the MBean that exposes the metrics, or <code>null</code> if not registered. */
+    private ObjectName m_objectName;
+
+    /**
+     * Creates a new, empty metrics registry.<p>
+     */
+    public CmsMetricsRegistry() {
+
+        m_metrics = new ConcurrentHashMap();
+    }
+
+    /**
+     * Returns the counter with the given name, creating it if required.<p>
+     * 
+     * @param name the name of the counter
+     * 
+     * @return the counter with the given name
+     */
+    public CmsMetricCounter getCounter(String name) {
+
+        I_CmsMetric metric = getMetric(name);
+        if (metric == null) {
+            metric = register(name, new CmsMetricCounter());
+        }
+        return (CmsMetricCounter)checkType(name, metric, CmsMetricCounter.class);
+    }
+
+    /**
+     * Returns the histogram with the given name, creating it if required.<p>
+     * 
+     * @param name the name of the histogram
+     * 
+     * @return the histogram with the given name
+     */
+    public CmsMetricHistogram getHistogram(String name) {
+
+        I_CmsMetric metric = getMetric(name);
+        if (metric == null) {
+            metric = register(name, new CmsMetricHistogram());
+        }
+        return (CmsMetricHistogram)checkType(name, metric, CmsMetricHistogram.class);
+    }
+
+    /**
+     * Returns the metric with the given name.<p>
+     * 
+     * @param name the name of the metric
+     * 
+     * @return the metric with the given name, or <code>null</code> if not registered
+     */
+    public I_CmsMetric getMetric(String name) {
+
+        return (I_CmsMetric)m_metrics.get(name);
+    }
+
+    /**
+     * Returns the sorted names of all registered metrics.<p>
+     * 
+     * @return the sorted names of all registered metrics
+     */
+    public List getMetricNames() {
+
+        List result = new ArrayList(m_metrics.keySet());
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Returns a report with the current values of all registered metrics.<p>
+     * 
+     * Each element of the list is a String of the form 
+     * <code>metric.value = number</code>.<p>
+     * 
+     * @return a report with the current values of all registered metrics
+     */
+    public List getReport() {
+
+        List result = new ArrayList();
+        Iterator names = getMetricNames().iterator();
+        while (names.hasNext()) {
+            String name = (String)names.next();
+            I_CmsMetric metric = getMetric(name);
+            if (metric == null) {
+                continue;
+            }
+            Iterator values = metric.getValues().entrySet().iterator();
+            while (values.hasNext()) {
+                Map.Entry entry = (Map.Entry)values.next();
+                result.add(name + "." + entry.getKey() + " = " + entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the timer with the given name, creating it if required.<p>
+     * 
+     * @param name the name of the timer
+     * 
+     * @return the timer with the given name
+     */
+    public CmsMetricTimer getTimer(String name) {
+
+        I_CmsMetric metric = getMetric(name);
+        if (metric == null) {
+            metric = register(name, new CmsMetricTimer());
+        }
+        return (CmsMetricTimer)checkType(name, metric, CmsMetricTimer.class);
+    }
+
+    /**
+     * Registers a metric with the given name.<p>
+     * 
+     * If a metric with the given name is already registered, 
+     * the existing metric is kept and returned.<p>
+     * 
+     * @param name the name of the metric
+     * @param metric the metric to register
+     * 
+     * @return the metric registered with the given name
+     */
+    public I_CmsMetric register(String name, I_CmsMetric metric) {
+
+        I_CmsMetric existing = (I_CmsMetric)((ConcurrentHashMap)m_metrics).putIfAbsent(name, metric);
+        return (existing != null) ? existing : metric;
+    }
+
+    /**
+     * Exposes the metrics with a MBean in the platform MBean server.<p>
+     * 
+     * An MBean that was registered before with the same instance name, 
+     * for example by a previous deployment of the web application, is replaced.<p>
+     * 
+     * @param instanceName the name of the OpenCms instance, used to distinguish several instances in one JVM
+     */
+    public synchronized void registerMBean(String instanceName) {
+
+        if (CmsStringUtil.isEmptyOrWhitespaceOnly(instanceName)) {
+            instanceName = DEFAULT_INSTANCE_NAME;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(JMX_DOMAIN
+                + ":type=Metrics,instance="
+                + ObjectName.quote(instanceName));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new CmsMetricsMBean(this), objectName);
+            m_objectName = objectName;
+            if (CmsLog.INIT.isInfoEnabled()) {
+                CmsLog.INIT.info(Messages.get().getBundle().key(
+                    Messages.INIT_METRICS_MBEAN_REGISTERED_1,
+                    objectName.toString()));
+            }
+        } catch (Exception e) {
+            // metrics are optional, OpenCms runs fine without JMX
+            LOG.error(Messages.get().getBundle().key(Messages.LOG_METRICS_MBEAN_REGISTER_FAILED_1, instanceName), e);
+        }
+    }
+
+    /**
+     * Resets all registered metrics.<p>
+     */
+    public void reset() {
+
+        Iterator it = m_metrics.values().iterator();
+        while (it.hasNext()) {
+            ((I_CmsMetric)it.next()).reset();
+        }
+    }
+
+    /**
+     * Removes the metric with the given name.<p>
+     * 
+     * @param name the name of the metric to remove
+     */
+    public void unregister(String name) {
+
+        m_metrics.remove(name);
+    }
+
+    /**
+     * Removes the MBean from the platform MBean server, if it was registered.<p>
+     */
+    public synchronized void unregisterMBean() {
+
+        if (m_objectName == null) {
+            return;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(m_objectName)) {
+                server.unregisterMBean(m_objectName);
+            }
+        } catch (Exception e) {
+            LOG.error(Messages.get().getBundle().key(
+                Messages.LOG_METRICS_MBEAN_UNREGISTER_FAILED_1,
+                m_objectName.toString()), e);
+        }
+        m_objectName = null;
+    }
+
+    /**
+     * Checks that the metric registered with the given name is of the requested type.<p>
+     * 
+     * @param name the name of the metric
+     * @param metric the registered metric
+     * @param type the requested type
+     * 
+     * @return the metric
+     * 
+     * @throws CmsIllegalArgumentException if the metric is of a different type
+     */
+    private I_CmsMetric checkType(String name, I_CmsMetric metric, Class type) throws CmsIllegalArgumentException {
+
+        if (!type.isInstance(metric)) {
+            throw new CmsIllegalArgumentException(Messages.get().container(
+                Messages.ERR_METRIC_TYPE_3,
+                name,
+                metric.getClass().getName(),
+                type.getName()));
+        }
+        return metric;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/monitor/I_CmsMetric.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.monitor;
+
+import java.util.Map;
+
+/**
+ * Describes a runtime metric that is collected in the {@link CmsMetricsRegistry}.<p>
+ * 
+ * @version $Revision: 1.1 $
+ * 
+ * @since 7.0.5
+ */
+public interface I_CmsMetric {
+
+    /**
+     * Returns the current values of this metric.<p>
+     * 
+     * The keys of the map are the names of the values, 
+     * the values of the map are {@link Number} objects.<p>
+     * 
+     * @return the current values of this metric
+     */
+    Map getValues();
+
+    /**
+     * Resets this metric to its initial state.<p>
+     */
+    void reset();
+}
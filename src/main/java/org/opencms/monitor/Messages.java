@@ -45,12 +45,24 @@ import org.opencms.i18n.I_CmsMessageBundle;
  */
 public final class Messages extends A_CmsMessageBundle {
 
+    /** Message constant for key in the resource bundle. */
+    public static final String ERR_METRIC_TYPE_3 = "ERR_METRIC_TYPE_3";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String INIT_METRICS_MBEAN_REGISTERED_1 = "INIT_METRICS_MBEAN_REGISTERED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CAUGHT_THROWABLE_1 = "LOG_CAUGHT_THROWABLE_1";
 
     /** Message constant for key in the resource bundle. */
     public static final String LOG_CLEAR_CACHE_MEM_CONS_0 = "LOG_CLEAR_CACHE_MEM_CONS_0";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_METRICS_MBEAN_REGISTER_FAILED_1 = "LOG_METRICS_MBEAN_REGISTER_FAILED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_METRICS_MBEAN_UNREGISTER_FAILED_1 = "LOG_METRICS_MBEAN_UNREGISTER_FAILED_1";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_CONNECTIONS_3 = "LOG_MM_CONNECTIONS_3";
 
@@ -84,6 +96,18 @@ public final class Messages extends A_CmsMessageBundle {
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_NOWARN_STATUS_5 = "LOG_MM_NOWARN_STATUS_5";
 
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_PRESSURE_CLEARED_1 = "LOG_MM_PRESSURE_CLEARED_1";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_PRESSURE_RELEASED_2 = "LOG_MM_PRESSURE_RELEASED_2";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_PRESSURE_SHRINK_4 = "LOG_MM_PRESSURE_SHRINK_4";
+
+    /** Message constant for key in the resource bundle. */
+    public static final String LOG_MM_PRESSURE_SHRINK_TOTAL_2 = "LOG_MM_PRESSURE_SHRINK_TOTAL_2";
+
     /** Message constant for key in the resource bundle. */
     public static final String LOG_MM_SESSION_STAT_3 = "LOG_MM_SESSION_STAT_3";
 
@@ -46,6 +46,7 @@ import org.opencms.main.CmsInitException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsAuthentificationException;
 import org.opencms.security.CmsRole;
@@ -621,6 +622,8 @@ public final class CmsPublishEngine implements Runnable {
             return;
         }
         // trigger the old event mechanism
+        CmsMetricsRegistry metrics = OpenCms.getMetricsRegistry();
+        long eventStart = System.nanoTime();
         CmsDbContext dbc = m_dbContextFactory.getDbContext(publishJob.getCmsObject().getRequestContext());
         try {
             // fire an event that a project has been published
@@ -643,11 +646,16 @@ public final class CmsPublishEngine implements Runnable {
                 // ignore
             }
             dbc = null;
+            metrics.getTimer("publish.event").stop(eventStart);
         }
         // fire the publish finish event
         m_listeners.fireFinish(new CmsPublishJobRunning(publishJob));
         // finish the job
         publishJob.finish();
+        // record the durations of the publish phases, the job times are in milliseconds
+        metrics.getTimer("publish.queue").update((publishJob.getStartTime() - publishJob.getEnqueueTime()) * 1000000L);
+        metrics.getTimer("publish.job").update((publishJob.getFinishTime() - publishJob.getStartTime()) * 1000000L);
+        metrics.getCounter("publish.resources").add(publishJob.getSize());
         // put the publish job into the history list
         m_publishHistory.add(publishJob);
         // wipe the dead thread
@@ -188,33 +188,36 @@ public class CmsPublishQueue {
                 for (Iterator i = publishJobs.iterator(); i.hasNext();) {
                     CmsPublishJobInfoBean job = (CmsPublishJobInfoBean)i.next();
                     dbc = m_publishEngine.getDbContextFactory().getDbContext();
-                    if (!job.isStarted()) {
-                        // add jobs not already started to queue again
-                        try {
-                            job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
-                            m_publishEngine.lockPublishList(job);
-                            OpenCms.getMemoryMonitor().cachePublishJob(job);
-                        } catch (CmsException exc) {
-                            // skip job
-                            if (LOG.isErrorEnabled()) {
-                                LOG.error(Messages.get().getBundle().key(
-                                    Messages.ERR_PUBLISH_JOB_INVALID_1,
-                                    job.getPublishHistoryId()), exc);
+                    try {
+                        if (!job.isStarted()) {
+                            // add jobs not already started to queue again
+                            try {
+                                job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
+                                m_publishEngine.lockPublishList(job);
+                                OpenCms.getMemoryMonitor().cachePublishJob(job);
+                            } catch (CmsException exc) {
+                                // skip job
+                                if (LOG.isErrorEnabled()) {
+                                    LOG.error(Messages.get().getBundle().key(
+                                        Messages.ERR_PUBLISH_JOB_INVALID_1,
+                                        job.getPublishHistoryId()), exc);
+                                }
+                                m_publishEngine.getDriverManager().deletePublishJob(dbc, job.getPublishHistoryId());
+                            }
+                        } else {
+                            try {
+                                // remove locks, set finish info and move job to history
+                                job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
+                                m_publishEngine.unlockPublishList(job);
+                                new CmsPublishJobEnqueued(job).m_publishJob.finish();
+                                m_publishEngine.getPublishHistory().add(job);
+                            } catch (CmsException exc) {
+                                LOG.error(exc.getLocalizedMessage(), exc);
                             }
-                            m_publishEngine.getDriverManager().deletePublishJob(dbc, job.getPublishHistoryId());
-                        } finally {
-                            dbc.clear();
-                        }
-                    } else {
-                        try {
-                            // remove locks, set finish info and move job to history
-                            job.revive(adminCms, driverManager.readPublishList(dbc, job.getPublishHistoryId()));
-                            m_publishEngine.unlockPublishList(job);
-                            new CmsPublishJobEnqueued(job).m_publishJob.finish();
-                            m_publishEngine.getPublishHistory().add(job);
-                        } catch (CmsException exc) {
-                            LOG.error(exc.getLocalizedMessage(), exc);
                         }
+                    } finally {
+                        // return the connection kept by the context to the pool
+                        dbc.clear();
                     }
                 }
             }
@@ -0,0 +1,109 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/scheduler/jobs/CmsHistoryPruneJob.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.scheduler.jobs;
+
+import org.opencms.file.CmsObject;
+import org.opencms.report.CmsLogReport;
+import org.opencms.scheduler.I_CmsScheduledJob;
+import org.opencms.util.CmsStringUtil;
+
+import java.util.Map;
+
+/**
+ * A schedulable OpenCms job to prune the version history in the background.<p>
+ * 
+ * The job deletes the historical versions exceeding the configured number of versions 
+ * (see the <code>versionhistory</code> node in <code>opencms-system.xml</code>) 
+ * for all resources published since the last run. The versions are deleted for ranges of 
+ * publish tags at once instead of resource by resource, so this job should be used 
+ * together with the <code>deferred="true"</code> attribute of the <code>versionhistory</code> node, 
+ * which disables the pruning during publishing.<p>
+ * 
+ * The user to execute the process should have have access to the required "Workplace manager" role.<p>
+ * 
+ * Job parameters:<p>
+ * <dl>
+ * <dt><code>publishTags={Number/Integer}</code></dt>
+ * <dd>Number/Integer to control how many publish tags are pruned at once.
+ * The default is 50.</dd>
+ * <dt><code>timeBudget={Number/Integer}</code></dt>
+ * <dd>Number/Integer to configure the maximum number of seconds a run may take, 
+ * the next run will continue where the last run has stopped. 
+ * A value of 0 means no limit, the default is 60 seconds.</dd>
+ * </dl>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5
+ */
+public class CmsHistoryPruneJob implements I_CmsScheduledJob {
+
+    /** The default number of publish tags pruned at once. */
+    public static final int DEFAULT_PUBLISHTAGS = 50;
+
+    /** The default time budget in seconds. */
+    public static final int DEFAULT_TIMEBUDGET = 60;
+
+    /** Name of the parameter where to configure how many publish tags are pruned at once. */
+    public static final String PARAM_PUBLISHTAGS = "publishTags";
+
+    /** Name of the parameter where to configure the maximum number of seconds a run may take. */
+    public static final String PARAM_TIMEBUDGET = "timeBudget";
+
+    /**
+     * @see org.opencms.scheduler.I_CmsScheduledJob#launch(org.opencms.file.CmsObject, java.util.Map)
+     */
+    public String launch(CmsObject cms, Map parameters) throws Exception {
+
+        // read the optional parameter for the number of publish tags to prune at once
+        String publishTagsStr = (String)parameters.get(PARAM_PUBLISHTAGS);
+        int publishTags = DEFAULT_PUBLISHTAGS;
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(publishTagsStr)) {
+            publishTags = Integer.parseInt(publishTagsStr.trim());
+        }
+
+        // read the optional parameter for the time budget
+        String timeBudgetStr = (String)parameters.get(PARAM_TIMEBUDGET);
+        int timeBudget = DEFAULT_TIMEBUDGET;
+        if (!CmsStringUtil.isEmptyOrWhitespaceOnly(timeBudgetStr)) {
+            timeBudget = Integer.parseInt(timeBudgetStr.trim());
+        }
+
+        // create a new report
+        CmsLogReport report = new CmsLogReport(cms.getRequestContext().getLocale(), CmsHistoryPruneJob.class);
+
+        // prune the versions
+        cms.pruneHistoricalVersions(publishTags, timeBudget * 1000L, report);
+
+        return null;
+    }
+}
@@ -41,6 +41,8 @@ import org.opencms.main.CmsException;
 import org.opencms.main.CmsIllegalArgumentException;
 import org.opencms.main.CmsLog;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricTimer;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.search.documents.A_CmsVfsDocument;
 import org.opencms.search.documents.I_CmsDocumentFactory;
 import org.opencms.search.documents.I_CmsTermHighlighter;
@@ -166,6 +168,15 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
     /** The configured sources for this index. */
     private List m_sourceNames;
 
+    /** The timer for the time spent in Lucene. */
+    private CmsMetricTimer m_timerLucene;
+
+    /** The timer for the time spent in processing the results. */
+    private CmsMetricTimer m_timerResults;
+
+    /** The timer for the total time of a search. */
+    private CmsMetricTimer m_timerTotal;
+
     /**
      * Default constructor only intended to be used by the xml configuration. <p>
      * 
@@ -896,6 +907,13 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
 
         timeTotal += System.currentTimeMillis();
 
+        // record the search latencies, the times are in milliseconds
+        if (m_timerTotal != null) {
+            m_timerTotal.update(timeTotal * 1000000L);
+            m_timerLucene.update(timeLucene * 1000000L);
+            m_timerResults.update(timeResultProcessing * 1000000L);
+        }
+
         Object[] logParams = new Object[] {
             new Integer(hits == null ? 0 : hits.length()),
             new Long(timeTotal),
@@ -993,6 +1011,14 @@ public class CmsSearchIndex implements I_CmsConfigurationParameterHandler {
             }
         }
         m_name = name;
+
+        // resolve the timers only once, not for every search
+        CmsMetricsRegistry metrics = OpenCms.getMetricsRegistry();
+        if (metrics != null) {
+            m_timerTotal = metrics.getTimer("search." + name + ".total");
+            m_timerLucene = metrics.getTimer("search." + name + ".lucene");
+            m_timerResults = metrics.getTimer("search." + name + ".results");
+        }
     }
 
     /**
@@ -92,7 +92,7 @@ public class CmsDefaultPermissionHandler implements I_CmsPermissionHandler {
 
         // checking the filter is less cost intensive then checking the cache,
         // this is why basic filter results are not cached
-        String cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
+        Object cacheKey = m_keyGenerator.getCacheKeyForUserPermissions(
             filter.requireVisible() && checkLock ? "11" : (!filter.requireVisible() && checkLock ? "01"
             : (filter.requireVisible() && !checkLock ? "10" : "00")),
             dbc,
@@ -44,6 +44,8 @@ import org.opencms.util.CmsMacroResolver;
 import org.opencms.util.CmsRequestUtil;
 import org.opencms.util.CmsStringUtil;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Vector;
 
 import org.htmlparser.Attribute;
@@ -97,6 +99,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** List of attributes that may contain links for the object tag ("codebase" has to be first). */
     private static final String[] OBJECT_TAG_LINKED_ATTRIBS = new String[] {"codebase", "data", "datasrc"};
 
+    /** Processing mode "compile links". */
+    private static final int COMPILE_LINKS = 2;
+
     /** Processing mode "process links". */
     private static final int PROCESS_LINKS = 1;
 
@@ -121,6 +126,9 @@ public class CmsLinkProcessor extends CmsHtmlParser {
     /** Another OpenCms context based on the current users OpenCms context, but with the site root set to '/'. */
     private CmsObject m_rootCms;
 
+    /** The link slots collected in "compile" mode. */
+    private List m_slots;
+
     /**
      * Creates a new link processor.<p>
      * 
@@ -186,6 +194,33 @@ public class CmsLinkProcessor extends CmsHtmlParser {
         return new String(result);
     }
 
+    /**
+     * Returns the value to set for a link attribute in "process" mode.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param link the link to get the value for
+     * @param param if <code>true</code>, the link is the value of a <code>param</code> tag
+     * 
+     * @return the XML escaped link
+     */
+    static String getProcessedLink(CmsObject cms, CmsLink link, boolean param) {
+
+        // link management check
+        String l = link.getLink(cms);
+        if (param) {
+            // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
+            // another solution should be a kind of macro...
+            if (!l.endsWith(CmsRequestUtil.URL_DELIMITER) && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
+                if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
+                    l += CmsRequestUtil.PARAMETER_DELIMITER;
+                } else {
+                    l += CmsRequestUtil.URL_DELIMITER;
+                }
+            }
+        }
+        return CmsEncoder.escapeXml(l);
+    }
+
     /**
      * Unescapes all <code>&amp;amp;</code>, that is replaces them with a <code>&</code>.<p>
      * 
@@ -201,6 +236,29 @@ public class CmsLinkProcessor extends CmsHtmlParser {
 
     }
 
+    /**
+     * Compiles the given content into a link template.<p>
+     * 
+     * The content is parsed only once, the returned template can then be resolved 
+     * with {@link CmsLinkTemplate#resolveLinks(CmsObject, CmsLinkTable)} for every link table 
+     * that belongs to the content, with the same result as {@link #processLinks(String)}.<p>
+     * 
+     * @param content the content to compile
+     * @return the compiled link template
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    public CmsLinkTemplate compileLinks(String content) throws ParserException {
+
+        m_mode = COMPILE_LINKS;
+        m_slots = new ArrayList();
+        try {
+            return new CmsLinkTemplate(process(content, m_encoding), m_slots);
+        } finally {
+            m_slots = null;
+        }
+    }
+
     /**
      * Returns the link table this link processor was initialized with.<p>
      * 
@@ -319,22 +377,24 @@ public class CmsLinkProcessor extends CmsHtmlParser {
                 // macros are replaced with links
                 link = m_linkTable.getLink(CmsMacroResolver.stripMacro(tag.getAttribute(attr)));
                 if (link != null) {
-                    // link management check
-                    String l = link.getLink(m_cms);
-                    if (TAG_PARAM.equals(tag.getTagName())) {
-                        // HACK: to distinguish link parameters the link itself has to end with '&' or '?'
-                        // another solution should be a kind of macro...
-                        if (!l.endsWith(CmsRequestUtil.URL_DELIMITER)
-                            && !l.endsWith(CmsRequestUtil.PARAMETER_DELIMITER)) {
-                            if (l.indexOf(CmsRequestUtil.URL_DELIMITER) > 0) {
-                                l += CmsRequestUtil.PARAMETER_DELIMITER;
-                            } else {
-                                l += CmsRequestUtil.URL_DELIMITER;
-                            }
-                        }
-                    }
                     // set the real target
-                    tag.setAttribute(attr, CmsEncoder.escapeXml(l));
+                    tag.setAttribute(attr, getProcessedLink(m_cms, link, TAG_PARAM.equals(tag.getTagName())));
+                }
+                break;
+            case COMPILE_LINKS:
+                // macros are replaced with slot markers, the links are resolved later by the template
+                String linkName = CmsMacroResolver.stripMacro(tag.getAttribute(attr));
+                if (linkName != null) {
+                    Attribute attribute = tag.getAttributeEx(attr);
+                    int index = m_slots.size();
+                    m_slots.add(new Object[] {
+                        linkName,
+                        attribute.getValue(),
+                        Boolean.valueOf(TAG_PARAM.equals(tag.getTagName())),
+                        Boolean.valueOf(attribute.getQuote() == 0)});
+                    attribute.setValue(CmsLinkTemplate.SLOT_MARKER
+                        + String.valueOf(index)
+                        + CmsLinkTemplate.SLOT_MARKER);
                 }
                 break;
             case REPLACE_LINKS:
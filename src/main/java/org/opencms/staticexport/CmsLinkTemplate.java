@@ -0,0 +1,178 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/staticexport/CmsLinkTemplate.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.staticexport;
+
+import org.opencms.file.CmsObject;
+import org.opencms.relations.CmsLink;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A HTML content that has been compiled by the {@link CmsLinkProcessor} into a sequence 
+ * of literal text segments and link slots.<p>
+ * 
+ * A link slot stands for an attribute value that contained a link macro like <code>%(link0)</code>.
+ * Resolving the template against a link table creates the same result as 
+ * {@link CmsLinkProcessor#processLinks(String)} for the compiled content, 
+ * but without parsing the HTML again.<p>
+ * 
+ * Instances of this class are immutable and can be shared between threads.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ * 
+ * @see CmsLinkProcessor#compileLinks(String)
+ */
+public final class CmsLinkTemplate {
+
+    /** The character used to mark a link slot in the processed content, this is not a valid XML character. */
+    static final char SLOT_MARKER = '\uFFFF';
+
+    /** The macro names of the links for the slots. */
+    private String[] m_linkNames;
+
+    /** The original attribute values of the slots, used if a link is not found in the link table. */
+    private String[] m_originalValues;
+
+    /** Flags indicating if a slot is the value of a <code>param</code> tag. */
+    private boolean[] m_params;
+
+    /** The literal text segments, there is always one segment more than there are slots. */
+    private String[] m_segments;
+
+    /** Flags indicating if the attribute value of a slot was not quoted in the original content. */
+    private boolean[] m_unquoted;
+
+    /**
+     * Creates a new link template.<p>
+     * 
+     * @param content the processed content, with the slots marked as {@link #SLOT_MARKER} + index + {@link #SLOT_MARKER}
+     * @param slots the list of slots found in the content, as <code>Object[]</code> arrays containing 
+     *      the link name, the original value, the <code>param</code> flag and the unquoted flag
+     */
+    CmsLinkTemplate(String content, List slots) {
+
+        List segments = new ArrayList();
+        List order = new ArrayList();
+        int pos = 0;
+        int start = content.indexOf(SLOT_MARKER);
+        while (start >= 0) {
+            // a marker is the slot index enclosed in two marker characters
+            int end = content.indexOf(SLOT_MARKER, start + 1);
+            segments.add(content.substring(pos, start));
+            order.add(slots.get(Integer.parseInt(content.substring(start + 1, end))));
+            pos = end + 1;
+            start = content.indexOf(SLOT_MARKER, pos);
+        }
+        segments.add(content.substring(pos));
+
+        int size = order.size();
+        m_linkNames = new String[size];
+        m_originalValues = new String[size];
+        m_params = new boolean[size];
+        m_unquoted = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            Object[] slot = (Object[])order.get(i);
+            m_linkNames[i] = (String)slot[0];
+            m_originalValues[i] = (String)slot[1];
+            m_params[i] = ((Boolean)slot[2]).booleanValue();
+            m_unquoted[i] = ((Boolean)slot[3]).booleanValue();
+        }
+        m_segments = (String[])segments.toArray(new String[segments.size()]);
+    }
+
+    /**
+     * Returns the number of link slots in this template.<p>
+     * 
+     * @return the number of link slots in this template
+     */
+    public int getSlotCount() {
+
+        return m_linkNames.length;
+    }
+
+    /**
+     * Resolves the link slots of this template using the given link table.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param linkTable the link table to look up the links in
+     * 
+     * @return the content with all link macros replaced by links
+     */
+    public String resolveLinks(CmsObject cms, CmsLinkTable linkTable) {
+
+        if (m_linkNames.length == 0) {
+            return m_segments[0];
+        }
+        int length = 0;
+        for (int i = 0; i < m_segments.length; i++) {
+            length += m_segments[i].length();
+        }
+        StringBuffer result = new StringBuffer(length + (m_linkNames.length * 64));
+        for (int i = 0; i < m_linkNames.length; i++) {
+            result.append(m_segments[i]);
+            CmsLink link = linkTable.getLink(m_linkNames[i]);
+            if (link == null) {
+                result.append(m_originalValues[i]);
+                continue;
+            }
+            String value = CmsLinkProcessor.getProcessedLink(cms, link, m_params[i]);
+            if (m_unquoted[i] && ((value.length() == 0) || hasWhitespace(value))) {
+                // the HTML parser would have added quotes for this value
+                result.append('"').append(value).append('"');
+            } else {
+                result.append(value);
+            }
+        }
+        result.append(m_segments[m_linkNames.length]);
+        return result.toString();
+    }
+
+    /**
+     * Checks if the given value contains a whitespace character.<p>
+     * 
+     * @param value the value to check
+     * 
+     * @return <code>true</code> if the given value contains a whitespace character
+     */
+    private boolean hasWhitespace(String value) {
+
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.isWhitespace(value.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -50,6 +50,7 @@ import org.opencms.main.CmsLog;
 import org.opencms.main.CmsSystemInfo;
 import org.opencms.main.I_CmsEventListener;
 import org.opencms.main.OpenCms;
+import org.opencms.monitor.CmsMetricsRegistry;
 import org.opencms.report.CmsLogReport;
 import org.opencms.report.I_CmsReport;
 import org.opencms.security.CmsSecurityException;
@@ -509,6 +510,7 @@ public class CmsStaticExportManager implements I_CmsEventListener {
     public int export(HttpServletRequest req, HttpServletResponse res, CmsObject cms, CmsStaticExportData data)
     throws CmsException, IOException, ServletException, CmsStaticExportException {
 
+        long exportStart = System.nanoTime();
         String vfsName = data.getVfsName();
         String rfsName = data.getRfsName();
         CmsResource resource = data.getResource();
@@ -670,6 +672,14 @@ public class CmsStaticExportManager implements I_CmsEventListener {
             cms.getRequestContext().setUri(oldUri);
         }
 
+        // record the export throughput
+        CmsMetricsRegistry metrics = OpenCms.getMetricsRegistry();
+        if (status == HttpServletResponse.SC_SEE_OTHER) {
+            metrics.getCounter("staticexport.skipped").increment();
+        } else {
+            metrics.getTimer("staticexport.export").stop(exportStart);
+        }
+
         return status;
     }
 
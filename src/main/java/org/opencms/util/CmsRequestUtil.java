@@ -77,6 +77,12 @@ public final class CmsRequestUtil {
     /** HTTP Accept-Language Header for internal requests used during static export. */
     public static final String HEADER_ACCEPT_LANGUAGE = "Accept-Language";
 
+    /** HTTP Header "Accept-Encoding". */
+    public static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+
+    /** HTTP Header "Accept-Ranges". */
+    public static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
     /** HTTP Header "Cache-Control". */
     public static final String HEADER_CACHE_CONTROL = "Cache-Control";
 
@@ -86,15 +92,30 @@ public final class CmsRequestUtil {
     /** The "Content-Disposition" http header. */
     public static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
+    /** HTTP Header "Content-Encoding". */
+    public static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+
+    /** HTTP Header "Content-Range". */
+    public static final String HEADER_CONTENT_RANGE = "Content-Range";
+
     /** The "Content-Type" http header. */
     public static final String HEADER_CONTENT_TYPE = "Content-Type";
 
+    /** HTTP Header "ETag". */
+    public static final String HEADER_ETAG = "ETag";
+
     /** HTTP Header "Expires". */
     public static final String HEADER_EXPIRES = "Expires";
 
     /** HTTP Header "If-Modified-Since". */
     public static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
 
+    /** HTTP Header "If-None-Match". */
+    public static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /** HTTP Header "If-Range". */
+    public static final String HEADER_IF_RANGE = "If-Range";
+
     /** The Header that stores the session id (used by OpenCms upload applet). */
     public static final String HEADER_JSESSIONID = "JSESSIONID";
 
@@ -110,6 +131,9 @@ public final class CmsRequestUtil {
     /** HTTP Header "Pragma". */
     public static final String HEADER_PRAGMA = "Pragma";
 
+    /** HTTP Header "Range". */
+    public static final String HEADER_RANGE = "Range";
+
     /** HTTP Header "Server". */
     public static final String HEADER_SERVER = "Server";
 
@@ -125,6 +149,9 @@ public final class CmsRequestUtil {
     /** HTTP Header value "no-cache" (for "Cache-Control"). */
     public static final String HEADER_VALUE_NO_CACHE = "no-cache";
 
+    /** HTTP Header "Vary". */
+    public static final String HEADER_VARY = "Vary";
+
     /** HTTP Header "WWW-Authenticate". */
     public static final String HEADER_WWW_AUTHENTICATE = "WWW-Authenticate";
 
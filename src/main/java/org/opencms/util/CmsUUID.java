@@ -61,7 +61,9 @@ import org.safehaus.uuid.UUIDGenerator;
  * (without using JNI), the MAC address has to be provided first 
  * by using the static {@link #init(String)} method.<p>
  * 
- * This class is just a facade wrapper for the "real" UUID implementation.<p> 
+ * New UUIDs are generated with the "real" UUID implementation, 
+ * but stored in two <code>long</code> values. The hash code is calculated once
+ * and the String representation is cached after it has been created for the first time.<p> 
  * 
  * @author  Alexander Kandzior 
  * 
@@ -71,6 +73,9 @@ import org.safehaus.uuid.UUIDGenerator;
  */
 public final class CmsUUID extends Object implements Serializable, Cloneable, Comparable, Externalizable {
 
+    /** The hexadecimal digits used for the String representation. */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     /** The log object for this class. */
     private static final Log LOG = CmsLog.getLog(CmsUUID.class);
 
@@ -83,13 +88,25 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         "www.opencms.org");
 
     /** Constant for the null UUID. */
-    private static final CmsUUID NULL_UUID = new CmsUUID(UUID.getNullUUID());
+    private static final CmsUUID NULL_UUID = new CmsUUID(0L, 0L);
 
     /** Serial version UID required for safe serialization. */
     private static final long serialVersionUID = 1736324454709298676L;
 
-    /** Internal UUID implementation. */
-    private transient UUID m_uuid;
+    /** The length of the String representation of a UUID. */
+    private static final int STRING_LENGTH = 36;
+
+    /** The hash code of this UUID. */
+    private transient int m_hashCode;
+
+    /** The least significant 64 bits of this UUID. */
+    private transient long m_leastSigBits;
+
+    /** The most significant 64 bits of this UUID. */
+    private transient long m_mostSigBits;
+
+    /** The cached String representation of this UUID. */
+    private transient String m_stringValue;
 
     /**
      * Creates a new UUID.<p>
@@ -105,7 +122,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             // since the empty constructor is called when the de-serialization takes place
             init(getDummyEthernetAddress());
         }
-        m_uuid = UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress);
+        setBytes(UUIDGenerator.getInstance().generateTimeBasedUUID(m_ethernetAddress).toByteArray());
     }
 
     /**
@@ -115,7 +132,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public CmsUUID(byte[] data) {
 
-        m_uuid = new UUID(data);
+        setBytes(data);
     }
 
     /**
@@ -127,17 +144,28 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
     public CmsUUID(String uuid)
     throws NumberFormatException {
 
-        m_uuid = new UUID(uuid);
+        parse(uuid);
+    }
+
+    /**
+     * Create a new UUID based on the given bits (used internal for cloning).<p>
+     * 
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * @param leastSigBits the least significant 64 bits of the UUID
+     */
+    private CmsUUID(long mostSigBits, long leastSigBits) {
+
+        setBits(mostSigBits, leastSigBits);
     }
 
     /**
-     * Create a new UUID based on another one (used internal for cloning).<p>
+     * Create a new UUID based on a "real" UUID implementation.<p>
      * 
-     * @param uuid the UUID to clone
+     * @param uuid the UUID to copy
      */
     private CmsUUID(UUID uuid) {
 
-        m_uuid = uuid;
+        setBytes(uuid.toByteArray());
     }
 
     /**
@@ -232,7 +260,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
     public static boolean isValidUUID(String uuid) {
 
         try {
-            return (null != uuid) && (null != UUID.valueOf(uuid));
+            return (null != uuid) && (null != valueOf(uuid));
         } catch (NumberFormatException e) {
             // return false
         }
@@ -250,7 +278,55 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public static CmsUUID valueOf(String uuid) throws NumberFormatException {
 
-        return new CmsUUID(UUID.valueOf(uuid));
+        return new CmsUUID(uuid);
+    }
+
+    /**
+     * Returns the value of the hexadecimal digits in the given range of the String.<p>
+     * 
+     * @param uuid the String representation of a UUID
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * 
+     * @return the value of the hexadecimal digits
+     * 
+     * @throws NumberFormatException in case the range contains a character that is not a hexadecimal digit
+     */
+    private static long parseHex(String uuid, int start, int end) throws NumberFormatException {
+
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = uuid.charAt(i);
+            int digit;
+            if ((c >= '0') && (c <= '9')) {
+                digit = c - '0';
+            } else if ((c >= 'a') && (c <= 'f')) {
+                digit = c - 'a' + 10;
+            } else if ((c >= 'A') && (c <= 'F')) {
+                digit = c - 'A' + 10;
+            } else {
+                throw new NumberFormatException(Messages.get().getBundle().key(Messages.ERR_INVALID_UUID_1, uuid));
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the hexadecimal digits of the given value to the given array.<p>
+     * 
+     * @param chars the array to write to
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @param value the value, the digits are taken from the lowest bits
+     */
+    private static void writeHex(char[] chars, int start, int end, long value) {
+
+        long bits = value;
+        for (int i = end - 1; i >= start; i--) {
+            chars[i] = HEX_DIGITS[(int)(bits & 0x0F)];
+            bits >>>= 4;
+        }
     }
 
     /**
@@ -263,16 +339,36 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         if (this == NULL_UUID) {
             return NULL_UUID;
         }
-        return new CmsUUID((UUID)m_uuid.clone());
+        CmsUUID clone = new CmsUUID(m_mostSigBits, m_leastSigBits);
+        clone.m_stringValue = m_stringValue;
+        return clone;
     }
 
     /**
+     * Compares the UUID version first and the bytes of the UUIDs after that,
+     * time based UUIDs are compared by their time stamp first, 
+     * same as the "real" UUID implementation.<p>
+     * 
      * @see java.lang.Comparable#compareTo(java.lang.Object)
      */
     public int compareTo(Object obj) {
 
         if (obj instanceof CmsUUID) {
-            return m_uuid.compareTo(((CmsUUID)obj).m_uuid);
+            CmsUUID other = (CmsUUID)obj;
+            int version = getVersion();
+            int result = compareUnsigned(version, other.getVersion());
+            if (result == 0) {
+                if (version == 1) {
+                    // compare the high, mid and low fields of the time stamp in this order 
+                    result = compareUnsigned(getTimeOrderedBits(), other.getTimeOrderedBits());
+                } else {
+                    result = compareUnsigned(m_mostSigBits, other.m_mostSigBits);
+                }
+            }
+            if (result == 0) {
+                result = compareUnsigned(m_leastSigBits, other.m_leastSigBits);
+            }
+            return result;
         }
         return 0;
     }
@@ -286,7 +382,8 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             return true;
         }
         if (obj instanceof CmsUUID) {
-            return ((CmsUUID)obj).m_uuid.equals(m_uuid);
+            CmsUUID other = (CmsUUID)obj;
+            return (m_mostSigBits == other.m_mostSigBits) && (m_leastSigBits == other.m_leastSigBits);
         }
         return false;
     }
@@ -310,7 +407,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public int hashCode() {
 
-        return m_uuid.hashCode();
+        return m_hashCode;
     }
 
     /**
@@ -320,10 +417,7 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public boolean isNullUUID() {
 
-        if (this == NULL_UUID) {
-            return true;
-        }
-        return m_uuid.equals(UUID.getNullUUID());
+        return (m_mostSigBits == 0) && (m_leastSigBits == 0);
     }
 
     /**
@@ -353,11 +447,8 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_READ_UUID_1, o));
             }
-            m_uuid = new UUID((String)o);
-        }
-
-        // log an error if the uuid could not be deserialized
-        if (m_uuid == null) {
+            parse((String)o);
+        } else {
             // UUID cannot be deserialized
             if (LOG.isDebugEnabled()) {
                 LOG.debug(Messages.get().getBundle().key(Messages.LOG_ERR_READ_UUID_0));
@@ -372,7 +463,12 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public byte[] toByteArray() {
 
-        return m_uuid.toByteArray();
+        byte[] result = new byte[16];
+        for (int i = 0; i < 8; i++) {
+            result[i] = (byte)(m_mostSigBits >>> (56 - (i * 8)));
+            result[i + 8] = (byte)(m_leastSigBits >>> (56 - (i * 8)));
+        }
+        return result;
     }
 
     /**
@@ -380,7 +476,23 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
      */
     public String toString() {
 
-        return m_uuid.toString();
+        String result = m_stringValue;
+        if (result == null) {
+            char[] chars = new char[STRING_LENGTH];
+            writeHex(chars, 0, 8, m_mostSigBits >>> 32);
+            chars[8] = '-';
+            writeHex(chars, 9, 13, m_mostSigBits >>> 16);
+            chars[13] = '-';
+            writeHex(chars, 14, 18, m_mostSigBits);
+            chars[18] = '-';
+            writeHex(chars, 19, 23, m_leastSigBits >>> 48);
+            chars[23] = '-';
+            writeHex(chars, 24, 36, m_leastSigBits);
+            result = new String(chars);
+            // concurrent initialization is harmless since all threads create the same String
+            m_stringValue = result;
+        }
+        return result;
     }
 
     /**
@@ -394,4 +506,94 @@ public final class CmsUUID extends Object implements Serializable, Cloneable, Co
         }
         out.writeObject(toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * Compares two long values as unsigned numbers.<p>
+     * 
+     * @param value1 the first value
+     * @param value2 the second value
+     * 
+     * @return a negative number, zero, or a positive number as the first value 
+     *      is less than, equal to, or greater than the second value
+     */
+    private int compareUnsigned(long value1, long value2) {
+
+        if (value1 == value2) {
+            return 0;
+        }
+        return ((value1 ^ Long.MIN_VALUE) < (value2 ^ Long.MIN_VALUE)) ? -1 : 1;
+    }
+
+    /**
+     * Returns the most significant 64 bits of this UUID with the time stamp fields 
+     * of a time based UUID in the order high, mid, low.<p>
+     * 
+     * @return the most significant 64 bits in time stamp order
+     */
+    private long getTimeOrderedBits() {
+
+        return (m_mostSigBits << 48) | ((m_mostSigBits & 0xFFFF0000L) << 16) | (m_mostSigBits >>> 32);
+    }
+
+    /**
+     * Returns the version (type) of this UUID.<p>
+     * 
+     * @return the version of this UUID
+     */
+    private int getVersion() {
+
+        return (int)((m_mostSigBits >>> 12) & 0x0F);
+    }
+
+    /**
+     * Initializes this UUID from its String representation.<p>
+     * 
+     * @param uuid the String representation of a UUID
+     * 
+     * @throws NumberFormatException in case uuid is not a valid UUID
+     */
+    private void parse(String uuid) throws NumberFormatException {
+
+        if ((uuid.length() != STRING_LENGTH)
+            || (uuid.charAt(8) != '-')
+            || (uuid.charAt(13) != '-')
+            || (uuid.charAt(18) != '-')
+            || (uuid.charAt(23) != '-')) {
+            throw new NumberFormatException(Messages.get().getBundle().key(Messages.ERR_INVALID_UUID_1, uuid));
+        }
+        long mostSigBits = (parseHex(uuid, 0, 8) << 32) | (parseHex(uuid, 9, 13) << 16) | parseHex(uuid, 14, 18);
+        long leastSigBits = (parseHex(uuid, 19, 23) << 48) | parseHex(uuid, 24, 36);
+        setBits(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Sets the bits of this UUID and calculates the hash code.<p>
+     * 
+     * @param mostSigBits the most significant 64 bits of the UUID
+     * @param leastSigBits the least significant 64 bits of the UUID
+     */
+    private void setBits(long mostSigBits, long leastSigBits) {
+
+        m_mostSigBits = mostSigBits;
+        m_leastSigBits = leastSigBits;
+        long hash = mostSigBits ^ leastSigBits;
+        m_hashCode = (int)(hash ^ (hash >>> 32));
+        m_stringValue = null;
+    }
+
+    /**
+     * Sets the bits of this UUID from the first 16 bytes of the given array.<p>
+     * 
+     * @param data the bytes of the UUID in network byte order
+     */
+    private void setBytes(byte[] data) {
+
+        long mostSigBits = 0;
+        long leastSigBits = 0;
+        for (int i = 0; i < 8; i++) {
+            mostSigBits = (mostSigBits << 8) | (data[i] & 0xFF);
+            leastSigBits = (leastSigBits << 8) | (data[i + 8] & 0xFF);
+        }
+        setBits(mostSigBits, leastSigBits);
+    }
+}
@@ -80,6 +80,7 @@ import org.opencms.workplace.explorer.CmsExplorerTypeAccess;
 import org.opencms.workplace.explorer.CmsExplorerTypeSettings;
 import org.opencms.workplace.explorer.menu.CmsMenuRule;
 import org.opencms.workplace.galleries.A_CmsGallery;
+import org.opencms.workplace.galleries.CmsGalleryRegistry;
 import org.opencms.workplace.tools.CmsToolManager;
 
 import java.io.UnsupportedEncodingException;
@@ -195,6 +196,9 @@ public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsEvent
     /** The configured workplace galleries. */
     private Map m_galleries;
 
+    /** The registry of the gallery folders in the VFS. */
+    private CmsGalleryRegistry m_galleryRegistry;
+
     /** Contains all folders that should be labeled if siblings exist. */
     private List m_labelSiteFolders;
 
@@ -827,6 +831,16 @@ public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsEvent
         return m_galleries;
     }
 
+    /**
+     * Returns the registry of the gallery folders in the VFS.<p>
+     * 
+     * @return the registry of the gallery folders in the VFS
+     */
+    public CmsGalleryRegistry getGalleryRegistry() {
+
+        return m_galleryRegistry;
+    }
+
     /**
      * @see org.opencms.i18n.I_CmsLocaleHandler#getI18nInfo(javax.servlet.http.HttpServletRequest, org.opencms.file.CmsUser, org.opencms.file.CmsProject, java.lang.String)
      */
@@ -1200,6 +1214,10 @@ public final class CmsWorkplaceManager implements I_CmsLocaleHandler, I_CmsEvent
                 }
             }
 
+            // create the registry of the gallery folders
+            m_galleryRegistry = new CmsGalleryRegistry(cms);
+            m_galleryRegistry.registerEventListener();
+
             // configures the tool manager
             getToolManager().configure(cms);
 
@@ -538,7 +538,7 @@ public abstract class A_CmsGallery extends CmsDialog implements Comparable {
             String title = "";
             try {
                 // read the gallery title
-                title = getCms().readPropertyObject(path, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue("");
+                title = OpenCms.getWorkplaceManager().getGalleryRegistry().getTitle(getCms(), res);
             } catch (CmsException e) {
                 // error reading title property 
                 LOG.error(e.getLocalizedMessage(), e);
@@ -568,7 +568,7 @@ public abstract class A_CmsGallery extends CmsDialog implements Comparable {
                 String title = "";
                 try {
                     // read the gallery title
-                    title = getCms().readPropertyObject(path, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue("");
+                    title = OpenCms.getWorkplaceManager().getGalleryRegistry().getTitle(getCms(), res);
                 } catch (CmsException e) {
                     // error reading title property
                     if (LOG.isErrorEnabled()) {
@@ -782,36 +782,14 @@ public abstract class A_CmsGallery extends CmsDialog implements Comparable {
     public List getGalleries() {
 
         List galleries = new ArrayList();
-        int galleryTypeId = getGalleryTypeId();
         try {
-            // get the galleries of the current site
-            galleries = getCms().readResources(
-                "/",
-                CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
+            // get the galleries of the current site and the /system/ folder
+            galleries = OpenCms.getWorkplaceManager().getGalleryRegistry().getGalleries(getCms(), getGalleryTypeId());
         } catch (CmsException e) {
-            // error reading resources with filter
+            // error reading the galleries
             LOG.error(e.getLocalizedMessage(), e);
         }
 
-        // if the current site is NOT the root site - add all other galleries from the system path
-        if (!getCms().getRequestContext().getSiteRoot().equals("")) {
-            List systemGalleries = null;
-            try {
-                // get the galleries in the /system/ folder
-                systemGalleries = getCms().readResources(
-                    CmsWorkplace.VFS_PATH_SYSTEM,
-                    CmsResourceFilter.ONLY_VISIBLE_NO_DELETED.addRequireType(galleryTypeId));
-            } catch (CmsException e) {
-                // error reading resources with filter
-                LOG.error(e.getLocalizedMessage(), e);
-            }
-
-            if ((systemGalleries != null) && (systemGalleries.size() > 0)) {
-                // add the found system galleries to the result
-                galleries.addAll(systemGalleries);
-            }
-        }
-
         // return the found galleries
         return galleries;
     }
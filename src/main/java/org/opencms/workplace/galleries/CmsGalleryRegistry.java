@@ -0,0 +1,471 @@
+/*
+ * File   : $Source: /usr/local/cvs/opencms/src/org/opencms/workplace/galleries/CmsGalleryRegistry.java,v $
+ * Date   : $Date: 2026-10-19 10:00:00 $
+ * Version: $Revision: 1.1 $
+ *
+ * This library is part of OpenCms -
+ * the Open Source Content Management System
+ *
+ * Copyright (c) 2002 - 2008 Alkacon Software GmbH (http://www.alkacon.com)
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * For further information about Alkacon Software GmbH, please see the
+ * company website: http://www.alkacon.com
+ *
+ * For further information about OpenCms, please see the
+ * project website: http://www.opencms.org
+ * 
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+ */
+
+package org.opencms.workplace.galleries;
+
+import org.opencms.db.CmsPublishedResource;
+import org.opencms.file.CmsObject;
+import org.opencms.file.CmsPropertyDefinition;
+import org.opencms.file.CmsResource;
+import org.opencms.file.CmsResourceFilter;
+import org.opencms.file.CmsVfsResourceNotFoundException;
+import org.opencms.main.CmsEvent;
+import org.opencms.main.CmsException;
+import org.opencms.main.CmsLog;
+import org.opencms.main.I_CmsEventListener;
+import org.opencms.main.OpenCms;
+import org.opencms.util.CmsUUID;
+import org.opencms.workplace.CmsWorkplace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+
+/**
+ * Keeps track of the gallery folders of every gallery type, separately for the Offline and the Online project.<p>
+ * 
+ * The galleries of a type are read once with a single query when they are first requested. 
+ * After that the registry is updated from the resource events in the Offline project 
+ * and from the published resources in the Online project, so that opening a gallery dialog 
+ * does not need to search the whole VFS for gallery folders.<p>
+ * 
+ * The registry only stores the structure id, the root path and the title of a gallery. 
+ * The galleries are read by their id when requested, so that permissions, visibility 
+ * and the deleted state are checked for the current user as before.<p>
+ * 
+ * @version $Revision: 1.1 $ 
+ * 
+ * @since 7.0.5 
+ */
+public final class CmsGalleryRegistry implements I_CmsEventListener {
+
+    /**
+     * A registered gallery folder.<p>
+     */
+    private static final class CmsGalleryEntry {
+
+        /** The root path of the gallery. */
+        String m_rootPath;
+
+        /** The title of the gallery, <code>null</code> if not read yet. */
+        String m_title;
+
+        /**
+         * Creates a new gallery entry.<p>
+         * 
+         * @param rootPath the root path of the gallery
+         */
+        CmsGalleryEntry(String rootPath) {
+
+            m_rootPath = rootPath;
+        }
+    }
+
+    /** The log object for this class. */
+    private static final Log LOG = CmsLog.getLog(CmsGalleryRegistry.class);
+
+    /** An OpenCms context object with "Admin" permissions. */
+    private CmsObject m_adminCms;
+
+    /** The gallery type ids mapped to Maps of structure ids and gallery entries in the Offline project. */
+    private Map m_offlineGalleries;
+
+    /** The gallery type ids mapped to Maps of structure ids and gallery entries in the Online project. */
+    private Map m_onlineGalleries;
+
+    /**
+     * Creates a new, empty gallery registry.<p>
+     * 
+     * @param adminCms an OpenCms context object that must have been initialized with "Admin" permissions
+     */
+    public CmsGalleryRegistry(CmsObject adminCms) {
+
+        m_adminCms = adminCms;
+        m_offlineGalleries = new HashMap();
+        m_onlineGalleries = new HashMap();
+    }
+
+    /**
+     * Removes all registered galleries.<p>
+     */
+    public synchronized void clear() {
+
+        m_offlineGalleries.clear();
+        m_onlineGalleries.clear();
+    }
+
+    /**
+     * @see org.opencms.main.I_CmsEventListener#cmsEvent(org.opencms.main.CmsEvent)
+     */
+    public void cmsEvent(CmsEvent event) {
+
+        switch (event.getType()) {
+            case I_CmsEventListener.EVENT_CLEAR_CACHES:
+                clear();
+                break;
+            case I_CmsEventListener.EVENT_PUBLISH_PROJECT:
+                String publishId = (String)event.getData().get(I_CmsEventListener.KEY_PUBLISHID);
+                if (publishId != null) {
+                    updatePublished(new CmsUUID(publishId));
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_CREATED:
+            case I_CmsEventListener.EVENT_RESOURCE_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED:
+            case I_CmsEventListener.EVENT_PROPERTY_MODIFIED:
+                CmsResource resource = (CmsResource)event.getData().get("resource");
+                if (resource != null) {
+                    updateOffline(resource);
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCES_MODIFIED:
+            case I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED:
+                List resources = (List)event.getData().get("resources");
+                if (resources != null) {
+                    for (int i = 0; i < resources.size(); i++) {
+                        updateOffline((CmsResource)resources.get(i));
+                    }
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_DELETED:
+                List deleted = (List)event.getData().get("resources");
+                if (deleted != null) {
+                    for (int i = 0; i < deleted.size(); i++) {
+                        removeOffline((CmsResource)deleted.get(i));
+                    }
+                }
+                break;
+            case I_CmsEventListener.EVENT_RESOURCE_MOVED:
+                List moved = (List)event.getData().get("resources");
+                if ((moved != null) && !moved.isEmpty()) {
+                    moveOffline(moved);
+                }
+                break;
+            default:
+                // no operation
+        }
+    }
+
+    /**
+     * Returns the galleries of the given type that are visible for the current user in the current site.<p>
+     * 
+     * If the current site is not the root site, the galleries in the <code>/system/</code> folder are included.
+     * The galleries are sorted by their root path.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param galleryTypeId the resource type id of the galleries
+     * 
+     * @return a list of {@link CmsResource} objects
+     * 
+     * @throws CmsException if the galleries could not be read initially
+     */
+    public List getGalleries(CmsObject cms, int galleryTypeId) throws CmsException {
+
+        String siteRoot = cms.getRequestContext().getSiteRoot();
+        boolean online = cms.getRequestContext().currentProject().isOnlineProject();
+        List ids = new ArrayList();
+        synchronized (this) {
+            Iterator i = getEntries(cms, galleryTypeId).entrySet().iterator();
+            while (i.hasNext()) {
+                Map.Entry entry = (Map.Entry)i.next();
+                if (isInSite(((CmsGalleryEntry)entry.getValue()).m_rootPath, siteRoot)) {
+                    ids.add(entry.getKey());
+                }
+            }
+        }
+        List result = new ArrayList(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            CmsUUID structureId = (CmsUUID)ids.get(i);
+            try {
+                // permissions and visibility are checked for the current user
+                CmsResource resource = cms.readResource(structureId, CmsResourceFilter.ONLY_VISIBLE_NO_DELETED);
+                if (isInSite(resource.getRootPath(), siteRoot)) {
+                    result.add(resource);
+                }
+            } catch (CmsVfsResourceNotFoundException e) {
+                // the gallery does not exist any longer
+                synchronized (this) {
+                    removeEntry(online ? m_onlineGalleries : m_offlineGalleries, structureId);
+                }
+            } catch (CmsException e) {
+                // the gallery is not visible for the current user or has been deleted
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug(e.getLocalizedMessage(), e);
+                }
+            }
+        }
+        Collections.sort(result, CmsResource.COMPARE_ROOT_PATH);
+        return result;
+    }
+
+    /**
+     * Returns the title of the given gallery.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param gallery the gallery to get the title for
+     * 
+     * @return the title of the given gallery, or an empty String if no title is set
+     * 
+     * @throws CmsException if the title property could not be read
+     */
+    public String getTitle(CmsObject cms, CmsResource gallery) throws CmsException {
+
+        Map galleries = cms.getRequestContext().currentProject().isOnlineProject()
+        ? m_onlineGalleries
+        : m_offlineGalleries;
+        CmsGalleryEntry entry;
+        synchronized (this) {
+            Map entries = (Map)galleries.get(new Integer(gallery.getTypeId()));
+            entry = (entries != null) ? (CmsGalleryEntry)entries.get(gallery.getStructureId()) : null;
+            if ((entry != null) && (entry.m_title != null)) {
+                return entry.m_title;
+            }
+        }
+        String title = cms.readPropertyObject(gallery, CmsPropertyDefinition.PROPERTY_TITLE, false).getValue("");
+        if (entry != null) {
+            synchronized (this) {
+                entry.m_title = title;
+            }
+        }
+        return title;
+    }
+
+    /**
+     * Registers this registry as event listener.<p>
+     */
+    public void registerEventListener() {
+
+        OpenCms.addCmsEventListener(this, new int[] {
+            I_CmsEventListener.EVENT_CLEAR_CACHES,
+            I_CmsEventListener.EVENT_PUBLISH_PROJECT,
+            I_CmsEventListener.EVENT_PROPERTY_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_CREATED,
+            I_CmsEventListener.EVENT_RESOURCE_DELETED,
+            I_CmsEventListener.EVENT_RESOURCE_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCE_MOVED,
+            I_CmsEventListener.EVENT_RESOURCES_AND_PROPERTIES_MODIFIED,
+            I_CmsEventListener.EVENT_RESOURCES_MODIFIED});
+    }
+
+    /**
+     * Returns the registered galleries of the given type in the project of the given context,
+     * the galleries are read if the type has not been registered yet.<p>
+     * 
+     * Must be called while holding the lock of this registry.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param galleryTypeId the resource type id of the galleries
+     * 
+     * @return the structure ids of the galleries mapped to the gallery entries
+     * 
+     * @throws CmsException if the galleries could not be read
+     */
+    private Map getEntries(CmsObject cms, int galleryTypeId) throws CmsException {
+
+        Map galleries = cms.getRequestContext().currentProject().isOnlineProject()
+        ? m_onlineGalleries
+        : m_offlineGalleries;
+        Integer typeId = new Integer(galleryTypeId);
+        Map entries = (Map)galleries.get(typeId);
+        if (entries == null) {
+            // all Offline projects share the same resources, so any Offline project can be used 
+            CmsObject adminCms = OpenCms.initCmsObject(m_adminCms);
+            adminCms.getRequestContext().setSiteRoot("/");
+            adminCms.getRequestContext().setCurrentProject(cms.getRequestContext().currentProject());
+            List resources = adminCms.readResources("/", CmsResourceFilter.ALL.addRequireType(galleryTypeId));
+            entries = new HashMap();
+            for (int i = 0; i < resources.size(); i++) {
+                CmsResource resource = (CmsResource)resources.get(i);
+                entries.put(resource.getStructureId(), new CmsGalleryEntry(resource.getRootPath()));
+            }
+            galleries.put(typeId, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Checks if the given root path belongs to the given site or to the <code>/system/</code> folder.<p>
+     * 
+     * @param rootPath the root path to check
+     * @param siteRoot the site root
+     * 
+     * @return <code>true</code> if the gallery should be listed in the given site
+     */
+    private boolean isInSite(String rootPath, String siteRoot) {
+
+        if ("".equals(siteRoot) || "/".equals(siteRoot)) {
+            return true;
+        }
+        return rootPath.startsWith(siteRoot + "/") || rootPath.startsWith(CmsWorkplace.VFS_PATH_SYSTEM);
+    }
+
+    /**
+     * Updates the Offline galleries after a resource has been moved.<p>
+     * 
+     * @param resources the resources of the move event, starting with the source and 
+     *      containing the destination resource
+     */
+    private synchronized void moveOffline(List resources) {
+
+        CmsResource source = (CmsResource)resources.get(0);
+        CmsResource destination = null;
+        for (int i = 1; i < resources.size(); i++) {
+            CmsResource resource = (CmsResource)resources.get(i);
+            if (resource.getStructureId().equals(source.getStructureId())) {
+                destination = resource;
+            }
+        }
+        if ((destination == null) || !source.isFolder()) {
+            return;
+        }
+        // the galleries below a moved folder have been moved as well
+        String sourcePath = source.getRootPath();
+        String destinationPath = destination.getRootPath();
+        Iterator i = m_offlineGalleries.values().iterator();
+        while (i.hasNext()) {
+            Iterator j = ((Map)i.next()).values().iterator();
+            while (j.hasNext()) {
+                CmsGalleryEntry entry = (CmsGalleryEntry)j.next();
+                if (entry.m_rootPath.startsWith(sourcePath)) {
+                    entry.m_rootPath = destinationPath + entry.m_rootPath.substring(sourcePath.length());
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the entry with the given structure id from all gallery types.<p>
+     * 
+     * @param galleries the galleries of the Offline or the Online project
+     * @param structureId the structure id of the gallery to remove
+     */
+    private void removeEntry(Map galleries, CmsUUID structureId) {
+
+        Iterator i = galleries.values().iterator();
+        while (i.hasNext()) {
+            ((Map)i.next()).remove(structureId);
+        }
+    }
+
+    /**
+     * Updates the Offline galleries after a resource has been deleted.<p>
+     * 
+     * Resources that have already been published are only marked as deleted and may be restored, 
+     * their entries are kept since deleted galleries are not listed anyway.<p>
+     * 
+     * @param resource the deleted resource
+     */
+    private synchronized void removeOffline(CmsResource resource) {
+
+        if (resource.isFolder() && resource.getState().isNew()) {
+            removeEntry(m_offlineGalleries, resource.getStructureId());
+        }
+    }
+
+    /**
+     * Updates the entry of a gallery folder.<p>
+     * 
+     * @param galleries the galleries of the Offline or the Online project
+     * @param structureId the structure id of the folder
+     * @param typeId the resource type id of the folder
+     * @param rootPath the root path of the folder
+     */
+    private void updateEntry(Map galleries, CmsUUID structureId, int typeId, String rootPath) {
+
+        Iterator i = galleries.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry entry = (Map.Entry)i.next();
+            Map entries = (Map)entry.getValue();
+            if (((Integer)entry.getKey()).intValue() == typeId) {
+                // the title may have been changed as well
+                entries.put(structureId, new CmsGalleryEntry(rootPath));
+            } else {
+                // the type of the folder may have been changed
+                entries.remove(structureId);
+            }
+        }
+    }
+
+    /**
+     * Updates the Offline galleries after a resource has been created or modified.<p>
+     * 
+     * @param resource the created or modified resource
+     */
+    private synchronized void updateOffline(CmsResource resource) {
+
+        if (resource.isFolder()) {
+            updateEntry(m_offlineGalleries, resource.getStructureId(), resource.getTypeId(), resource.getRootPath());
+        }
+    }
+
+    /**
+     * Updates the Online galleries after a project has been published.<p>
+     * 
+     * @param publishHistoryId the id of the publish history entry
+     */
+    private void updatePublished(CmsUUID publishHistoryId) {
+
+        List publishedResources;
+        try {
+            CmsObject cms = OpenCms.initCmsObject(m_adminCms);
+            publishedResources = cms.readPublishedResources(publishHistoryId);
+        } catch (CmsException e) {
+            LOG.error(e.getLocalizedMessage(), e);
+            synchronized (this) {
+                m_onlineGalleries.clear();
+            }
+            return;
+        }
+        synchronized (this) {
+            for (int i = 0; i < publishedResources.size(); i++) {
+                CmsPublishedResource resource = (CmsPublishedResource)publishedResources.get(i);
+                if (!resource.isFolder() || resource.getStructureId().isNullUUID()) {
+                    continue;
+                }
+                if (resource.getMovedState() == CmsPublishedResource.STATE_MOVED_SOURCE) {
+                    // the entry is updated with the destination of the move
+                    continue;
+                }
+                if (resource.getState().isDeleted()) {
+                    removeEntry(m_onlineGalleries, resource.getStructureId());
+                } else {
+                    updateEntry(m_onlineGalleries, resource.getStructureId(), resource.getType(), resource.getRootPath());
+                }
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ import org.opencms.relations.CmsLink;
 import org.opencms.relations.CmsLinkUpdateUtil;
 import org.opencms.staticexport.CmsLinkProcessor;
 import org.opencms.staticexport.CmsLinkTable;
+import org.opencms.staticexport.CmsLinkTemplate;
 import org.opencms.util.CmsHtmlConverter;
 import org.opencms.util.CmsHtmlExtractor;
 import org.opencms.util.CmsStringUtil;
@@ -77,6 +78,9 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue implements I_CmsXmlCon
     /** Base type for single type instances, required for XML pages. */
     private static final I_CmsXmlSchemaType TYPE_BASE = new CmsXmlHtmlValue("base", "1", "1");
 
+    /** The compiled link template of the content, reset when the value is changed. */
+    private CmsLinkTemplate m_linkTemplate;
+
     /** The String value of the element node. */
     private String m_stringValue;
 
@@ -287,6 +291,7 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue implements I_CmsXmlCon
 
         // ensure the String value is re-calculated next time
         m_stringValue = null;
+        m_linkTemplate = null;
     }
 
     /**
@@ -310,10 +315,9 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue implements I_CmsXmlCon
             CmsLinkTable linkTable = getLinkTable();
             if (!linkTable.isEmpty()) {
 
-                // link processing: replace macros with links
-                CmsLinkProcessor linkProcessor = document.getLinkProcessor(cms, linkTable);
+                // link processing: replace macros with links, using the compiled template of the content
                 try {
-                    content = linkProcessor.processLinks(content);
+                    content = getLinkTemplate(cms, document, content, linkTable).resolveLinks(cms, linkTable);
                 } catch (ParserException e) {
                     // should better not happen
                     LOG.error(Messages.get().getBundle().key(Messages.ERR_XMLCONTENT_LINK_PROCESS_FAILED_0), e);
@@ -322,4 +326,31 @@ public class CmsXmlHtmlValue extends A_CmsXmlContentValue implements I_CmsXmlCon
         }
         return content;
     }
+
+    /**
+     * Returns the compiled link template for the given content.<p>
+     * 
+     * The HTML parsing is only done once for this value, the compiled template 
+     * is kept until the value is changed.<p>
+     * 
+     * @param cms the current users OpenCms context
+     * @param document the XML document this value belongs to
+     * @param content the content to get the link template for
+     * @param linkTable the link table of the content
+     * 
+     * @return the compiled link template for the given content
+     * 
+     * @throws ParserException if something goes wrong
+     */
+    private CmsLinkTemplate getLinkTemplate(
+        CmsObject cms,
+        I_CmsXmlDocument document,
+        String content,
+        CmsLinkTable linkTable) throws ParserException {
+
+        if (m_linkTemplate == null) {
+            m_linkTemplate = document.getLinkProcessor(cms, linkTable).compileLinks(content);
+        }
+        return m_linkTemplate;
+    }
 }
\ No newline at end of file